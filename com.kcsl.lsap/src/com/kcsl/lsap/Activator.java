@@ -1,8 +1,13 @@
 package com.kcsl.lsap;
 
+import java.util.Dictionary;
+import java.util.Hashtable;
+
 import org.eclipse.ui.plugin.AbstractUIPlugin;
 import org.osgi.framework.BundleContext;
 
+import com.kcsl.lsap.console.LSAPCommands;
+
 /**
  * The activator class controls the plug-in life cycle
  */
@@ -27,6 +32,12 @@ public class Activator extends AbstractUIPlugin {
 	public void start(BundleContext context) throws Exception {
 		super.start(context);
 		plugin = this;
+		
+		// register the batch verification commands in the OSGi console
+		Dictionary<String, Object> commandProperties = new Hashtable<String, Object>();
+		commandProperties.put("osgi.command.scope", LSAPCommands.SCOPE);
+		commandProperties.put("osgi.command.function", LSAPCommands.FUNCTIONS);
+		context.registerService(LSAPCommands.class.getName(), new LSAPCommands(), commandProperties);
 	}
 
 	/*
@@ -3,9 +3,16 @@ package com.kcsl.lsap;
 import static com.ensoftcorp.atlas.core.script.Common.universe;
 
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.SubMonitor;
 
 import com.ensoftcorp.atlas.c.core.query.Attr.Edge;
 import com.ensoftcorp.atlas.core.db.graph.Node;
+import com.ensoftcorp.atlas.core.db.set.AtlasHashSet;
+import com.ensoftcorp.atlas.core.db.set.AtlasSet;
 import com.ensoftcorp.atlas.core.index.common.SourceCorrespondence;
 import com.ensoftcorp.atlas.core.query.Q;
 import com.ensoftcorp.atlas.core.script.Common;
@@ -13,6 +20,13 @@ import com.ensoftcorp.atlas.core.xcsg.XCSG;
 import com.ensoftcorp.atlas.ui.viewer.graph.DisplayUtil;
 import com.ensoftcorp.open.commons.analysis.CallSiteAnalysis;
 import com.ensoftcorp.open.commons.ui.utilities.DisplayUtils;
+import com.kcsl.lsap.core.GraphExportPipeline;
+import com.kcsl.lsap.core.GraphStore;
+import com.kcsl.lsap.core.LockVerificationGraphsGenerator;
+import com.kcsl.lsap.core.LockVerificationIndex;
+import com.kcsl.lsap.core.LockVerificationIndex.LockVerificationResult;
+import com.kcsl.lsap.core.SignatureShard;
+import com.kcsl.lsap.core.SourceCorrespondenceIndex;
 import com.kcsl.lsap.utils.LSAPUtils;
 import com.kcsl.lsap.utils.SignatureVerificationUtils;
 
@@ -23,23 +37,111 @@ public class LSAP {
 	 * Verifies the spin and mutex locks in the indexed Linux kernel.
 	 */
 	public static void verify(){
-		verifyMutexLocks(false);
-		verifySpinLocks(false);
+		verifyMutexLocks(false, false, null, null);
+		verifySpinLocks(false, false, null, null);
+	}
+	
+	/**
+	 * Resumes the verification of the spin and mutex locks in the indexed Linux kernel from the last checkpoint.
+	 */
+	public static void resume(){
+		VerificationProperties.appendOutputLogFile();
+		verifyMutexLocks(false, true, null, null);
+		verifySpinLocks(false, true, null, null);
+	}
+	
+	/**
+	 * Verifies the spin and mutex locks in the indexed Linux kernel in a background {@link VerificationJob}.
+	 * <p>
+	 * The progress is shown in the Progress view and canceling the job checkpoints the partial results, so it can be completed by {@link #resume()}.
+	 * 
+	 * @return The scheduled {@link VerificationJob}.
+	 */
+	public static VerificationJob verifyInBackground(){
+		VerificationJob job = new VerificationJob("L-SAP: Verifying mutex and spin locks", monitor -> {
+			SubMonitor progress = SubMonitor.convert(monitor, 2);
+			verifyMutexLocks(false, false, null, progress.split(1));
+			verifySpinLocks(false, false, null, progress.split(1));
+		});
+		job.schedule();
+		return job;
 	}
 	
 	/**
 	 * Verifies the mutex locks in the indexed Linux kernel.
 	 */
 	public static void verifyMutexLocks(){
-		verifyMutexLocks(true);
+		verifyMutexLocks(true, false, null, null);
+	}
+	
+	/**
+	 * Verifies the mutex locks in the indexed Linux kernel in a background {@link VerificationJob}.
+	 * 
+	 * @return The scheduled {@link VerificationJob}.
+	 */
+	public static VerificationJob verifyMutexLocksInBackground(){
+		VerificationJob job = new VerificationJob("L-SAP: Verifying mutex locks", monitor -> verifyMutexLocks(true, false, null, monitor));
+		job.schedule();
+		return job;
+	}
+	
+	/**
+	 * Resumes the verification of the mutex locks in the indexed Linux kernel from the last checkpoint.
+	 */
+	public static void resumeMutexLocks(){
+		VerificationProperties.appendOutputLogFile();
+		verifyMutexLocks(false, true, null, null);
+	}
+	
+	/**
+	 * Verifies the mutex locks in the indexed Linux kernel that belong to the shard <code>shardIndex</code> of <code>shardCount</code> shards.
+	 * <p>
+	 * Each shard logs to its own output log file and stores its partial results to be merged by {@link #mergeMutexLocksShards(int)}.
+	 * 
+	 * @param shardIndex The zero-based index of the shard to be verified.
+	 * @param shardCount The number of shards the signatures are partitioned into.
+	 */
+	public static void verifyMutexLocksShard(int shardIndex, int shardCount){
+		SignatureShard shard = new SignatureShard(shardIndex, shardCount);
+		VerificationProperties.resetOutputLogFile(shard.toString());
+		verifyMutexLocks(false, false, shard, null);
+	}
+	
+	/**
+	 * Resumes the verification of the shard <code>shardIndex</code> of <code>shardCount</code> shards of the mutex locks from its last checkpoint.
+	 * 
+	 * @param shardIndex The zero-based index of the shard to be verified.
+	 * @param shardCount The number of shards the signatures are partitioned into.
+	 */
+	public static void resumeMutexLocksShard(int shardIndex, int shardCount){
+		SignatureShard shard = new SignatureShard(shardIndex, shardCount);
+		VerificationProperties.appendOutputLogFile(shard.toString());
+		verifyMutexLocks(false, true, shard, null);
+	}
+	
+	/**
+	 * Merges the partial results of all the <code>shardCount</code> shards of the mutex locks verification into the overall results.
+	 * 
+	 * @param shardCount The number of shards the signatures are partitioned into.
+	 * @return true if the results of all shards are merged, otherwise false.
+	 */
+	public static boolean mergeMutexLocksShards(int shardCount){
+		VerificationProperties.resetOutputLogFile();
+		Q lockFunctionCallsQ = LSAPUtils.functionsQ(VerificationProperties.getMutexLockFunctionCalls());
+		Q unlockFunctionCallsQ = LSAPUtils.functionsQ(VerificationProperties.getMutexUnlockFunctionCalls());
+		Path graphsOutputDirectoryPath = VerificationProperties.getMutexGraphsOutputDirectory();
+		return SignatureVerificationUtils.mergeShards(lockFunctionCallsQ, unlockFunctionCallsQ, graphsOutputDirectoryPath, shardCount, null);
 	}
 	
 	/**
 	 * Verifies the mutex locks in the indexed Linux kernel.
 	 * 
 	 * @param resetOutputLog Reset the output log file so it only shows the verification results for mutex locks.
+	 * @param resume Resume the verification from the last checkpoint.
+	 * @param shard The {@link SignatureShard} to be verified or null to verify all the mutex locks.
+	 * @param monitor The {@link IProgressMonitor} to report the progress to and to be checked for cancellation, or null.
 	 */
-	private static void verifyMutexLocks(boolean resetOutputLog){
+	private static void verifyMutexLocks(boolean resetOutputLog, boolean resume, SignatureShard shard, IProgressMonitor monitor){
 		if(resetOutputLog) {
 			VerificationProperties.resetOutputLogFile();
 		}
@@ -48,22 +150,84 @@ public class LSAP {
 		Q lockFunctionCallsQ = LSAPUtils.functionsQ(VerificationProperties.getMutexLockFunctionCalls());
 		Q unlockFunctionCallsQ = LSAPUtils.functionsQ(VerificationProperties.getMutexUnlockFunctionCalls());
 		Path graphsOutputDirectoryPath = VerificationProperties.getMutexGraphsOutputDirectory();
-		SignatureVerificationUtils.verifySignatures(signatures, lockFunctionCallsQ, unlockFunctionCallsQ, graphsOutputDirectoryPath);
+		SignatureVerificationUtils.verifySignatures(signatures, lockFunctionCallsQ, unlockFunctionCallsQ, graphsOutputDirectoryPath, resume, shard, monitor);
 	}
 	
 	/**
 	 * Verifies the spin locks in the indexed Linux kernel.
 	 */
 	public static void verifySpinLocks(){
-		verifySpinLocks(true);
+		verifySpinLocks(true, false, null, null);
+	}
+	
+	/**
+	 * Verifies the spin locks in the indexed Linux kernel in a background {@link VerificationJob}.
+	 * 
+	 * @return The scheduled {@link VerificationJob}.
+	 */
+	public static VerificationJob verifySpinLocksInBackground(){
+		VerificationJob job = new VerificationJob("L-SAP: Verifying spin locks", monitor -> verifySpinLocks(true, false, null, monitor));
+		job.schedule();
+		return job;
+	}
+	
+	/**
+	 * Resumes the verification of the spin locks in the indexed Linux kernel from the last checkpoint.
+	 */
+	public static void resumeSpinLocks(){
+		VerificationProperties.appendOutputLogFile();
+		verifySpinLocks(false, true, null, null);
+	}
+	
+	/**
+	 * Verifies the spin locks in the indexed Linux kernel that belong to the shard <code>shardIndex</code> of <code>shardCount</code> shards.
+	 * <p>
+	 * Each shard logs to its own output log file and stores its partial results to be merged by {@link #mergeSpinLocksShards(int)}.
+	 * 
+	 * @param shardIndex The zero-based index of the shard to be verified.
+	 * @param shardCount The number of shards the signatures are partitioned into.
+	 */
+	public static void verifySpinLocksShard(int shardIndex, int shardCount){
+		SignatureShard shard = new SignatureShard(shardIndex, shardCount);
+		VerificationProperties.resetOutputLogFile(shard.toString());
+		verifySpinLocks(false, false, shard, null);
+	}
+	
+	/**
+	 * Resumes the verification of the shard <code>shardIndex</code> of <code>shardCount</code> shards of the spin locks from its last checkpoint.
+	 * 
+	 * @param shardIndex The zero-based index of the shard to be verified.
+	 * @param shardCount The number of shards the signatures are partitioned into.
+	 */
+	public static void resumeSpinLocksShard(int shardIndex, int shardCount){
+		SignatureShard shard = new SignatureShard(shardIndex, shardCount);
+		VerificationProperties.appendOutputLogFile(shard.toString());
+		verifySpinLocks(false, true, shard, null);
+	}
+	
+	/**
+	 * Merges the partial results of all the <code>shardCount</code> shards of the spin locks verification into the overall results.
+	 * 
+	 * @param shardCount The number of shards the signatures are partitioned into.
+	 * @return true if the results of all shards are merged, otherwise false.
+	 */
+	public static boolean mergeSpinLocksShards(int shardCount){
+		VerificationProperties.resetOutputLogFile();
+		Q lockFunctionCallsQ = LSAPUtils.functionsQ(VerificationProperties.getSpinLockFunctionCalls());
+		Q unlockFunctionCallsQ = LSAPUtils.functionsQ(VerificationProperties.getSpinUnlockFunctionCalls());
+		Path graphsOutputDirectoryPath = VerificationProperties.getSpinGraphsOutputDirectory();
+		return SignatureVerificationUtils.mergeShards(lockFunctionCallsQ, unlockFunctionCallsQ, graphsOutputDirectoryPath, shardCount, null);
 	}
 	
 	/**
 	 * Verifies the spin locks in the indexed Linux kernel.
 	 * 
 	 * @param resetOutputLog Reset the output log file so it only shows the verification results for spin locks.
+	 * @param resume Resume the verification from the last checkpoint.
+	 * @param shard The {@link SignatureShard} to be verified or null to verify all the spin locks.
+	 * @param monitor The {@link IProgressMonitor} to report the progress to and to be checked for cancellation, or null.
 	 */
-	private static void verifySpinLocks(boolean resetOutputLog){
+	private static void verifySpinLocks(boolean resetOutputLog, boolean resume, SignatureShard shard, IProgressMonitor monitor){
 		if(resetOutputLog) {
 			VerificationProperties.resetOutputLogFile();
 		}
@@ -72,11 +236,14 @@ public class LSAP {
 		Q lockFunctionCallsQ = LSAPUtils.functionsQ(VerificationProperties.getSpinLockFunctionCalls());
 		Q unlockFunctionCallsQ = LSAPUtils.functionsQ(VerificationProperties.getSpinUnlockFunctionCalls());
 		Path graphsOutputDirectoryPath = VerificationProperties.getSpinGraphsOutputDirectory();
-		SignatureVerificationUtils.verifySignatures(signatures, lockFunctionCallsQ, unlockFunctionCallsQ, graphsOutputDirectoryPath);
+		SignatureVerificationUtils.verifySignatures(signatures, lockFunctionCallsQ, unlockFunctionCallsQ, graphsOutputDirectoryPath, resume, shard, monitor);
 	}
 	
 	/**
 	 * Verifies the given <code>lock</code> instance.
+	 * <p>
+	 * If the signature of <code>lock</code> has already been verified in this session, its results are taken from {@link LockVerificationIndex}
+	 * and only the graphs of <code>lock</code> are constructed.
 	 * 
 	 * @param lock the lock instance to be verified.
 	 */
@@ -85,6 +252,16 @@ public class LSAP {
 		
 		Node lockNode = lock.eval().nodes().one();
 		
+		// Display the results of a previous verification of the signature of <code>lock</code> without verifying it again.
+		LockVerificationResult indexedResult = LockVerificationIndex.get(lockNode);
+		if(indexedResult != null){
+			LSAPUtils.log("Displaying the indexed verification results of signature [" + indexedResult.getSignatureNode().getAttr(XCSG.name) + "] for the selected lock.");
+			GraphExportPipeline graphExportPipeline = new GraphExportPipeline();
+			indexedResult.display(lockNode, graphsOutputDirectoryPath, graphExportPipeline);
+			graphExportPipeline.awaitCompletion();
+			return;
+		}
+		
 		// determine if its a mutex lock or a spin lock
 		Q callsitesWithinLock = universe().edges(XCSG.Contains).forward(lock).nodes(XCSG.CallSite);
 		Q targetsForCallsitesWithinLock = CallSiteAnalysis.getTargets(callsitesWithinLock);
@@ -132,22 +309,76 @@ public class LSAP {
 	}
 	
 	/**
-	 * locates the CFG node containing the callsite from the corresponding {@link SourceCorrespondence} string <code>lockSourceCorrespondenceString</code>.
+	 * locates the CFG nodes containing the callsite from the corresponding {@link SourceCorrespondence} string <code>lockSourceCorrespondenceString</code>.
 	 * <p>
-	 * This function will display the found CFG node in a view.
+	 * This function will display all the CFG nodes found at exactly that {@link SourceCorrespondence} in a view.
 	 * 
 	 * @param sourceCorrespondenceString A {@link String} corresponding to a {@link SourceCorrespondence} instance.
 	 * @return A {@link String} to indicate whether the callsite is found in the code map or not.
 	 */
 	public static String locate(String sourceCorrespondenceString){
-		Q callsites = universe().nodes(XCSG.CallSite);
-		SourceCorrespondence sourceCorrespondence = SourceCorrespondence.fromString(sourceCorrespondenceString);
-		Q cfgNodeContainingLockCallsite = callsites.containers().selectNode(XCSG.sourceCorrespondence, sourceCorrespondence);
-		if(cfgNodeContainingLockCallsite.eval().nodes().isEmpty()){
+		AtlasSet<Node> cfgNodesContainingLockCallsite = SourceCorrespondenceIndex.findAll(SourceCorrespondence.fromString(sourceCorrespondenceString));
+		if(cfgNodesContainingLockCallsite.isEmpty()){
 			return "Lock callsite not found at: " + sourceCorrespondenceString;
 		}
-		DisplayUtil.displayGraph(Common.extend(cfgNodeContainingLockCallsite, XCSG.Contains).eval());
+		DisplayUtil.displayGraph(Common.extend(Common.toQ(cfgNodesContainingLockCallsite), XCSG.Contains).eval());
 		return "Lock callsite found at: " + sourceCorrespondenceString;
 	}
 	
+	/**
+	 * locates the CFG nodes containing the callsites from the corresponding {@link SourceCorrespondence} strings <code>sourceCorrespondenceStrings</code>.
+	 * <p>
+	 * This function will display all the found CFG nodes in a single view.
+	 * 
+	 * @param sourceCorrespondenceStrings A list of {@link String}s corresponding to {@link SourceCorrespondence} instances.
+	 * @return A {@link String} listing the callsites that are not found in the code map.
+	 */
+	public static String locate(List<String> sourceCorrespondenceStrings){
+		AtlasSet<Node> cfgNodesContainingLockCallsites = new AtlasHashSet<Node>();
+		int foundCount = 0;
+		StringBuilder notFound = new StringBuilder();
+		for(String sourceCorrespondenceString : sourceCorrespondenceStrings){
+			AtlasSet<Node> cfgNodesContainingLockCallsite = SourceCorrespondenceIndex.findAll(SourceCorrespondence.fromString(sourceCorrespondenceString));
+			if(cfgNodesContainingLockCallsite.isEmpty()){
+				notFound.append("\nLock callsite not found at: " + sourceCorrespondenceString);
+			}else{
+				cfgNodesContainingLockCallsites.addAll(cfgNodesContainingLockCallsite);
+				foundCount++;
+			}
+		}
+		if(!cfgNodesContainingLockCallsites.isEmpty()){
+			DisplayUtil.displayGraph(Common.extend(Common.toQ(cfgNodesContainingLockCallsites), XCSG.Contains).eval());
+		}
+		return "Lock callsites found [" + foundCount + "/" + sourceCorrespondenceStrings.size() + "]." + notFound;
+	}
+	
+	/**
+	 * Renders the verification graphs of a lock whose rendering was deferred during the verification.
+	 * <p>
+	 * The graphs are saved into the lock directory in DOT or image format according to "config.properties".
+	 * 
+	 * @param lockDirectoryPath A {@link String} corresponding to the directory of a lock containing a {@link LockVerificationGraphsGenerator#LOCK_DESCRIPTION_FILE_NAME} file.
+	 * @return A {@link String} to indicate whether the graphs are rendered.
+	 */
+	public static String renderGraphs(String lockDirectoryPath){
+		GraphExportPipeline graphExportPipeline = new GraphExportPipeline();
+		boolean rendered = LockVerificationGraphsGenerator.render(Paths.get(lockDirectoryPath), graphExportPipeline);
+		graphExportPipeline.awaitCompletion();
+		if(!rendered){
+			return "Cannot render the graphs described in: " + lockDirectoryPath;
+		}
+		return "Rendered the graphs into: " + lockDirectoryPath;
+	}
+	
+	/**
+	 * Writes back the verification graph files of a lock from the {@link GraphStore} of its graphs output directory.
+	 * 
+	 * @param lockDirectoryPath A {@link String} corresponding to the directory of a lock containing a {@link GraphStore#MANIFEST_FILE_NAME} file.
+	 * @return A {@link String} stating the number of written graph files.
+	 */
+	public static String extractGraphs(String lockDirectoryPath){
+		int extracted = GraphStore.extract(Paths.get(lockDirectoryPath));
+		return "Extracted [" + extracted + "] graphs into: " + lockDirectoryPath;
+	}
+	
 }
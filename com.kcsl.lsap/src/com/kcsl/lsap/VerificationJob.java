@@ -0,0 +1,45 @@
+package com.kcsl.lsap;
+
+import java.util.function.Consumer;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+/**
+ * A {@link Job} running a verification in the background, so the progress is shown in the Progress view and the verification can be canceled.
+ * <p>
+ * A canceled verification stops at the current signature and logs the partial results, which can be completed by resuming the verification.
+ */
+public class VerificationJob extends Job {
+
+	/**
+	 * The verification to be run with the {@link IProgressMonitor} of this job.
+	 */
+	private final Consumer<IProgressMonitor> verification;
+
+	/**
+	 * Constructs a new instance of {@link VerificationJob}.
+	 * 
+	 * @param name The name of this job shown in the Progress view.
+	 * @param verification See corresponding field for details.
+	 */
+	public VerificationJob(String name, Consumer<IProgressMonitor> verification) {
+		super(name);
+		this.verification = verification;
+		this.setUser(true);
+	}
+
+	@Override
+	protected IStatus run(IProgressMonitor monitor) {
+		try {
+			this.verification.accept(monitor);
+		} catch (OperationCanceledException e) {
+			return Status.CANCEL_STATUS;
+		}
+		return monitor.isCanceled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
+	}
+
+}
@@ -8,7 +8,9 @@ import java.io.InputStream;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 import com.ensoftcorp.atlas.core.query.Q;
@@ -46,10 +48,39 @@ public class VerificationProperties {
 	 */
 	private static String GRAPH_DOT_FILENAME_EXTENSION;
 	
+	/**
+	 * The number of worker threads exporting the verification graphs.
+	 */
+	private static int GRAPH_EXPORT_WORKERS;
+	
+	/**
+	 * The number of verification graphs that can wait to be exported before the verification is blocked.
+	 */
+	private static int GRAPH_EXPORT_QUEUE_CAPACITY;
+	
+	/**
+	 * A {@link boolean} flag to indicate whether the verification graphs are stored once in a content-addressed store shared by all locks.
+	 */
+	private static boolean GRAPH_STORE_ENABLED;
+	
+	/**
+	 * A {@link boolean} flag to indicate whether only a description of the verification graphs of each lock is saved, to be rendered on demand.
+	 * <p>
+	 * The deferred graphs are only written once rendered through {@link com.kcsl.lsap.LSAP#renderGraphs(String)}, so it is off by default.
+	 */
+	private static boolean DEFERRED_GRAPH_RENDERING_ENABLED;
+	
 	/**
 	 * A {@link Path} corresponding to the root directory where interactive verification graphs to be saved.
 	 */
 	private static Path INTERACTIVE_VERIFICATION_GRAPHS_OUTPUT_DIRECTORY_PATH;
+	
+	/**
+	 * A {@link boolean} flag to indicate whether the batch verification keeps the results of each lock for the interactive verification.
+	 * <p>
+	 * Every lock has to be verified to be indexed, so the verification results cache is not read while it is enabled.
+	 */
+	private static boolean LOCK_RESULTS_INDEX_ENABLED;
 
 	/**
 	 * A {@link boolean} flag to indicate whether the feasibility checking is enabled in this verification.
@@ -73,6 +104,34 @@ public class VerificationProperties {
 	 */
 	private static Path OUTPUT_LOG_FILE_PATH;
 	
+	/**
+	 * A {@link boolean} flag to indicate whether the verification results are cached on disk across runs.
+	 * <p>
+	 * A cached signature is not verified again, so its per-lock log sections are not written and it is off by default; the cache is not read when the
+	 * verification graphs are saved or the lock results are indexed.
+	 */
+	private static boolean VERIFICATION_CACHE_ENABLED;
+	
+	/**
+	 * An instance of {@link Path} corresponding to the file where the verification results are cached.
+	 */
+	private static Path VERIFICATION_CACHE_FILE_PATH;
+	
+	/**
+	 * A {@link String} corresponding to the suffix of the checkpoint file name of a signatures verification.
+	 */
+	private static String CHECKPOINT_FILENAME;
+	
+	/**
+	 * A {@link String} corresponding to the suffix of the file name where a shard stores its partial verification results.
+	 */
+	private static String SHARD_RESULTS_FILENAME;
+	
+	/**
+	 * The number of signatures processed between two checkpoints.
+	 */
+	private static int CHECKPOINT_INTERVAL;
+	
 	/**
 	 * A list of {@link String}s corresponding to the name of functions that need to be excluded from data flow analysis computationas they are causing problems.
 	 */
@@ -83,6 +142,32 @@ public class VerificationProperties {
 	 */
 	private static int MPG_NODE_SIZE_LIMIT;
 	
+	/**
+	 * A {@link boolean} flag to indicate whether the trivially paired locks are certified before constructing the MPG.
+	 * <p>
+	 * The trivially paired locks are logged in the per signature sections without going through the MPG and PCGs, so it is off by default
+	 * until its output is confirmed to be identical to the full pipeline.
+	 */
+	private static boolean TRIVIAL_LOCK_PREFILTER_ENABLED;
+	
+	/**
+	 * The wall-clock time in seconds a signature can take to be verified before it is reported as timed out, or 0 for no limit.
+	 */
+	private static long SIGNATURE_TIME_BUDGET_SECONDS;
+	
+	/**
+	 * The number of megabytes a signature can allocate while being verified before it is reported as timed out, or 0 for no limit.
+	 */
+	private static long SIGNATURE_ALLOCATION_BUDGET_MEGABYTES;
+	
+	/**
+	 * A {@link boolean} flag to indicate whether the signatures are verified largest first according to their estimated cost.
+	 * <p>
+	 * The overall results are the same either way, but the per signature sections of the output log and the exported graphs follow the
+	 * verification order rather than the source order, so it is off by default.
+	 */
+	private static boolean SIGNATURE_COST_SCHEDULING_ENABLED;
+	
 	/**
 	 * A {@link boolean} flag to indicate whether to the save the verification graphs.
 	 */
@@ -139,28 +224,55 @@ public class VerificationProperties {
 	private static List<String> SPIN_TRYLOCK_FUNCTION_CALLS;
 	
 	static{
+		load(Collections.<String, String>emptyMap());
+	}
+	
+	/**
+	 * Reloads the properties from "config.properties" file with the given <code>overrides</code> taking precedence over the file values.
+	 * 
+	 * @param overrides A mapping from property names in "config.properties" file to their overriding values.
+	 */
+	public static void reload(Map<String, String> overrides){
+		load(overrides);
+	}
+	
+	/**
+	 * Loads the properties from "config.properties" file with the given <code>overrides</code> taking precedence over the file values.
+	 * 
+	 * @param overrides A mapping from property names in "config.properties" file to their overriding values.
+	 */
+	private static void load(Map<String, String> overrides){
 		Properties properties = new Properties();
 		InputStream inputStream;
 		try {
 			inputStream = VerificationProperties.class.getClassLoader().getResourceAsStream("config.properties");
 			properties.load(inputStream);
+			properties.putAll(overrides);
 			FEASIBILITY_ENABLED = Boolean.parseBoolean(properties.getProperty("feasibility_enabled"));
 			OUTPUT_DIRECTORY = Paths.get(properties.getProperty("output_directory"));
 			
-			try {
-				OUTPUT_LOG_FILE_PATH = Paths.get(OUTPUT_DIRECTORY.toFile().getAbsolutePath(), properties.getProperty("output_log_filename"));
-				OUTPUT_LOG_FILE_WRITER = new FileWriter(OUTPUT_LOG_FILE_PATH.toFile().getAbsolutePath());
-			} catch (IOException e) {
-				System.err.println("Cannot open output log file for writing.");
-			}
-			
+			OUTPUT_LOG_FILE_PATH = Paths.get(OUTPUT_DIRECTORY.toFile().getAbsolutePath(), properties.getProperty("output_log_filename"));
+			CHECKPOINT_FILENAME = properties.getProperty("checkpoint_filename");
+			CHECKPOINT_INTERVAL = Integer.parseInt(properties.getProperty("checkpoint_interval"));
+			SHARD_RESULTS_FILENAME = properties.getProperty("shard_results_filename");
+			VERIFICATION_CACHE_ENABLED = Boolean.parseBoolean(properties.getProperty("verification_cache_enabled"));
+			VERIFICATION_CACHE_FILE_PATH = Paths.get(OUTPUT_DIRECTORY.toFile().getAbsolutePath(), properties.getProperty("verification_cache_filename"));
 			FUNCTIONS_TO_EXCLUDE = Arrays.asList(properties.getProperty("function_to_exclude").split(CONFIG_PROPERTIES_FILE_SEPARATOR));
 			MPG_NODE_SIZE_LIMIT = Integer.parseInt(properties.getProperty("mpg_node_size_limit"));
+			TRIVIAL_LOCK_PREFILTER_ENABLED = Boolean.parseBoolean(properties.getProperty("trivial_lock_prefilter_enabled"));
+			SIGNATURE_TIME_BUDGET_SECONDS = Long.parseLong(properties.getProperty("signature_time_budget_seconds"));
+			SIGNATURE_ALLOCATION_BUDGET_MEGABYTES = Long.parseLong(properties.getProperty("signature_allocation_budget_megabytes"));
+			SIGNATURE_COST_SCHEDULING_ENABLED = Boolean.parseBoolean(properties.getProperty("signature_cost_scheduling_enabled"));
 			SAVE_VERIFICATION_GRAPHS = Boolean.parseBoolean(properties.getProperty("save_verification_graphs"));
 			SAVE_GRAPH_IN_DOT_FORMAT = Boolean.parseBoolean(properties.getProperty("save_graphs_in_dot_format"));
 			GRAPH_IMAGE_FILENAME_EXTENSION = properties.getProperty("graph_image_filename_extension");
 			GRAPH_DOT_FILENAME_EXTENSION = properties.getProperty("graph_dot_filename_extension");
+			GRAPH_EXPORT_WORKERS = Integer.parseInt(properties.getProperty("graph_export_workers"));
+			GRAPH_EXPORT_QUEUE_CAPACITY = Integer.parseInt(properties.getProperty("graph_export_queue_capacity"));
+			GRAPH_STORE_ENABLED = Boolean.parseBoolean(properties.getProperty("graph_store_enabled"));
+			DEFERRED_GRAPH_RENDERING_ENABLED = Boolean.parseBoolean(properties.getProperty("deferred_graph_rendering_enabled"));
 			INTERACTIVE_VERIFICATION_GRAPHS_OUTPUT_DIRECTORY_PATH = Paths.get(OUTPUT_DIRECTORY.toFile().getAbsolutePath(), properties.getProperty("interactive_verification_graphs_output_directory_name"));
+			LOCK_RESULTS_INDEX_ENABLED = Boolean.parseBoolean(properties.getProperty("lock_results_index_enabled"));
 			SPIN_OBJECT_TYPE = universe().nodes(XCSG.TypeAlias).selectNode(XCSG.name, properties.getProperty("spin_object_typename"));
 			SPIN_LOCK_FUNCTION_CALLS = Arrays.asList(properties.getProperty("spin_lock").split(CONFIG_PROPERTIES_FILE_SEPARATOR));
 			SPIN_UNLOCK_FUNCTION_CALLS = Arrays.asList(properties.getProperty("spin_unlock").split(CONFIG_PROPERTIES_FILE_SEPARATOR));
@@ -186,17 +298,97 @@ public class VerificationProperties {
 	}
 	
 	public static FileWriter getOutputLogFileWriter(){
+		if(OUTPUT_LOG_FILE_WRITER == null){
+			resetOutputLogFile();
+		}
 		return OUTPUT_LOG_FILE_WRITER;
 	}
 	
 	public static void resetOutputLogFile() {
+		openOutputLogFile(OUTPUT_LOG_FILE_PATH, false);
+	}
+	
+	/**
+	 * Resets the output log file qualified with <code>qualifier</code>, used when verifying a shard so each shard has its own log.
+	 * 
+	 * @param qualifier A {@link String} inserted before the extension of the output log file name.
+	 */
+	public static void resetOutputLogFile(String qualifier) {
+		openOutputLogFile(getQualifiedOutputLogFile(qualifier), false);
+	}
+	
+	/**
+	 * Opens the output log file for appending, used when resuming an interrupted verification.
+	 */
+	public static void appendOutputLogFile() {
+		openOutputLogFile(OUTPUT_LOG_FILE_PATH, true);
+	}
+	
+	/**
+	 * Opens the output log file qualified with <code>qualifier</code> for appending, used when resuming an interrupted verification of a shard.
+	 * 
+	 * @param qualifier A {@link String} inserted before the extension of the output log file name.
+	 */
+	public static void appendOutputLogFile(String qualifier) {
+		openOutputLogFile(getQualifiedOutputLogFile(qualifier), true);
+	}
+	
+	/**
+	 * Gets the output log file qualified with <code>qualifier</code>.
+	 * 
+	 * @param qualifier A {@link String} inserted before the extension of the output log file name.
+	 * @return A {@link Path} to the qualified output log file.
+	 */
+	public static Path getQualifiedOutputLogFile(String qualifier) {
+		String fileName = OUTPUT_LOG_FILE_PATH.getFileName().toString();
+		int extensionIndex = fileName.lastIndexOf('.');
+		if(extensionIndex < 0){
+			return OUTPUT_LOG_FILE_PATH.resolveSibling(fileName + "_" + qualifier);
+		}
+		return OUTPUT_LOG_FILE_PATH.resolveSibling(fileName.substring(0, extensionIndex) + "_" + qualifier + fileName.substring(extensionIndex));
+	}
+	
+	private static void openOutputLogFile(Path outputLogFilePath, boolean append) {
 		try {
-			OUTPUT_LOG_FILE_WRITER = new FileWriter(OUTPUT_LOG_FILE_PATH.toFile().getAbsolutePath());
+			if(OUTPUT_LOG_FILE_WRITER != null){
+				OUTPUT_LOG_FILE_WRITER.close();
+			}
+			OUTPUT_LOG_FILE_WRITER = new FileWriter(outputLogFilePath.toFile().getAbsolutePath(), append);
 		} catch (IOException e) {
 			System.err.println("Cannot open output log file for writing.");
 		}
 	}
 	
+	public static Path getCheckpointFile(String verificationName){
+		return Paths.get(OUTPUT_DIRECTORY.toFile().getAbsolutePath(), verificationName + "_" + CHECKPOINT_FILENAME);
+	}
+	
+	public static Path getShardResultsFile(String verificationName){
+		return Paths.get(OUTPUT_DIRECTORY.toFile().getAbsolutePath(), verificationName + "_" + SHARD_RESULTS_FILENAME);
+	}
+	
+	public static int getCheckpointInterval(){
+		return CHECKPOINT_INTERVAL;
+	}
+	
+	public static boolean isVerificationCacheEnabled(){
+		return VERIFICATION_CACHE_ENABLED;
+	}
+	
+	public static Path getVerificationCacheFile(){
+		return VERIFICATION_CACHE_FILE_PATH;
+	}
+	
+	/**
+	 * Gets the file where a shard writes its verification cache entries until they are merged into {@link #getVerificationCacheFile()}.
+	 * 
+	 * @param verificationName A {@link String} identifying the verification of the shard.
+	 * @return A {@link Path} to the cache file of the shard.
+	 */
+	public static Path getShardVerificationCacheFile(String verificationName){
+		return VERIFICATION_CACHE_FILE_PATH.resolveSibling(verificationName + "_" + VERIFICATION_CACHE_FILE_PATH.getFileName());
+	}
+	
 	public static List<String> getFunctionsToExclude(){
 		return FUNCTIONS_TO_EXCLUDE;
 	}
@@ -205,6 +397,22 @@ public class VerificationProperties {
 		return MPG_NODE_SIZE_LIMIT;
 	}
 	
+	public static boolean isTrivialLockPrefilterEnabled(){
+		return TRIVIAL_LOCK_PREFILTER_ENABLED;
+	}
+	
+	public static long getSignatureTimeBudgetSeconds(){
+		return SIGNATURE_TIME_BUDGET_SECONDS;
+	}
+	
+	public static long getSignatureAllocationBudgetMegabytes(){
+		return SIGNATURE_ALLOCATION_BUDGET_MEGABYTES;
+	}
+	
+	public static boolean isSignatureCostSchedulingEnabled(){
+		return SIGNATURE_COST_SCHEDULING_ENABLED;
+	}
+	
 	public static boolean isSaveVerificationGraphs(){
 		return SAVE_VERIFICATION_GRAPHS;
 	}
@@ -221,10 +429,30 @@ public class VerificationProperties {
 		return GRAPH_DOT_FILENAME_EXTENSION;
 	}
 	
+	public static int getGraphExportWorkers(){
+		return GRAPH_EXPORT_WORKERS;
+	}
+	
+	public static int getGraphExportQueueCapacity(){
+		return GRAPH_EXPORT_QUEUE_CAPACITY;
+	}
+	
+	public static boolean isGraphStoreEnabled(){
+		return GRAPH_STORE_ENABLED;
+	}
+	
+	public static boolean isDeferredGraphRenderingEnabled(){
+		return DEFERRED_GRAPH_RENDERING_ENABLED;
+	}
+	
 	public static Path getInteractiveVerificationGraphsOutputDirectory(){
 		return INTERACTIVE_VERIFICATION_GRAPHS_OUTPUT_DIRECTORY_PATH;
 	}
 	
+	public static boolean isLockResultsIndexEnabled(){
+		return LOCK_RESULTS_INDEX_ENABLED;
+	}
+	
 	public static Q getMutexObjectType(){
 		return MUTEX_OBJECT_TYPE;
 	}
@@ -261,6 +489,16 @@ public class VerificationProperties {
 		return SPIN_TRYLOCK_FUNCTION_CALLS;
 	}
 	
+	/**
+	 * Returns the directory for saving the verification graphs of the locks on a custom object type.
+	 * 
+	 * @param objectTypeName A {@link String} corresponding to the name of the object type.
+	 * @return A {@link Path} under the output directory.
+	 */
+	public static Path getGraphsOutputDirectory(String objectTypeName){
+		return Paths.get(OUTPUT_DIRECTORY.toFile().getAbsolutePath(), objectTypeName.replaceAll("\\W+", "_") + "_graphs");
+	}
+	
 	public static Path getSpinGraphsOutputDirectory(){
 		return SPIN_GRAPHS_OUTPUT_DIRECTORY_PATH;
 	}
@@ -0,0 +1,220 @@
+package com.kcsl.lsap.console;
+
+import static com.ensoftcorp.atlas.core.script.Common.universe;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.ensoftcorp.atlas.core.query.Q;
+import com.ensoftcorp.atlas.core.xcsg.XCSG;
+import com.kcsl.lsap.VerificationProperties;
+import com.kcsl.lsap.core.SignatureShard;
+import com.kcsl.lsap.utils.LSAPUtils;
+import com.kcsl.lsap.utils.SignatureVerificationUtils;
+
+/**
+ * Runs batch verifications from the arguments of the {@link LSAPCommands} OSGi console commands in a running workbench.
+ * <p>
+ * The arguments are a list of verifications to run, each being "mutex", "spin" or "custom:&lt;type&gt;:&lt;lock,...&gt;:&lt;unlock,...&gt;",
+ * preceded by the options:
+ * <ul>
+ * <li>"-P&lt;name&gt;=&lt;value&gt;" to override a property in "config.properties" file.</li>
+ * <li>"--resume" to resume each verification from its last checkpoint.</li>
+ * <li>"--shard &lt;index&gt;/&lt;count&gt;" to verify only one shard of the signatures.</li>
+ * <li>"--merge &lt;count&gt;" to merge the partial results of all shards instead of verifying.</li>
+ * </ul>
+ * Each verification logs to the output log file qualified with its name. The commands do not load or create an Atlas index, so the
+ * project has to be indexed in the workbench before they are run; running the verifications without a workbench is not supported.
+ */
+public class BatchVerification {
+
+	/**
+	 * The status when all the verifications completed.
+	 */
+	public static final int STATUS_OK = 0;
+
+	/**
+	 * The status when the arguments are invalid.
+	 */
+	public static final int STATUS_USAGE = 1;
+
+	/**
+	 * The status when no Atlas index is loaded in the workbench.
+	 */
+	public static final int STATUS_NO_INDEX = 2;
+
+	/**
+	 * The status when a verification failed.
+	 */
+	public static final int STATUS_FAILURE = 3;
+
+	/**
+	 * The status when the partial results of some shards are missing while merging.
+	 */
+	public static final int STATUS_INCOMPLETE_MERGE = 4;
+
+	/**
+	 * A {@link String} describing the accepted arguments.
+	 */
+	private static final String USAGE = "Usage: [-P<name>=<value>]... [--resume] [--shard <index>/<count> | --merge <count>] (mutex | spin | custom:<type>:<lock,...>:<unlock,...>)...";
+
+	/**
+	 * A private constructor to prevent intentional initializations of this class.
+	 *
+	 * @throws IllegalAccessException If any initialization occur to this class.
+	 */
+	private BatchVerification() throws IllegalAccessException {
+		throw new IllegalAccessException();
+	}
+
+	/**
+	 * Runs the verifications given in <code>arguments</code>.
+	 *
+	 * @param arguments The command arguments.
+	 * @return The status, which is the highest status of all the verifications.
+	 */
+	public static int run(String[] arguments){
+		Map<String, String> overrides = new HashMap<String, String>();
+		List<String> verifications = new ArrayList<String>();
+		boolean resume = false;
+		SignatureShard shard = null;
+		int mergeShardCount = 0;
+		try {
+			for(int i = 0; i < arguments.length; i++){
+				String argument = arguments[i];
+				if(argument.startsWith("-P")){
+					int separatorIndex = argument.indexOf('=');
+					if(separatorIndex < 0){
+						return usage("Invalid property override [" + argument + "].");
+					}
+					overrides.put(argument.substring(2, separatorIndex), argument.substring(separatorIndex + 1));
+				}else if(argument.equals("--resume")){
+					resume = true;
+				}else if(argument.equals("--shard") && i + 1 < arguments.length){
+					String[] shardParts = arguments[++i].split("/");
+					if(shardParts.length != 2){
+						return usage("Invalid shard [" + arguments[i] + "].");
+					}
+					shard = new SignatureShard(Integer.parseInt(shardParts[0]), Integer.parseInt(shardParts[1]));
+				}else if(argument.equals("--merge") && i + 1 < arguments.length){
+					mergeShardCount = Integer.parseInt(arguments[++i]);
+				}else if(argument.startsWith("-")){
+					return usage("Unknown option [" + argument + "].");
+				}else{
+					verifications.add(argument);
+				}
+			}
+		} catch (IllegalArgumentException e) {
+			return usage(e.getMessage());
+		}
+		if(verifications.isEmpty()){
+			return usage("No verification is given.");
+		}
+		if(shard != null && mergeShardCount > 0){
+			return usage("A shard cannot be verified and merged at the same time.");
+		}
+
+		VerificationProperties.reload(overrides);
+		if(universe().nodes(XCSG.Function).eval().nodes().isEmpty()){
+			System.err.println("No Atlas index is loaded in the workbench, index the project before running the verifications.");
+			return STATUS_NO_INDEX;
+		}
+
+		int status = STATUS_OK;
+		for(String verification : verifications){
+			long startTime = System.currentTimeMillis();
+			int verificationStatus;
+			try {
+				verificationStatus = verify(verification, resume, shard, mergeShardCount);
+			} catch (RuntimeException e) {
+				System.err.println("Verification [" + verification + "] failed.");
+				e.printStackTrace();
+				verificationStatus = STATUS_FAILURE;
+			}
+			System.out.println("Verification [" + verification + "] finished with status [" + verificationStatus + "] in [" + (System.currentTimeMillis() - startTime) / 1000 + " seconds].");
+			status = Math.max(status, verificationStatus);
+		}
+		return status;
+	}
+
+	/**
+	 * Runs a single verification.
+	 *
+	 * @param verification A {@link String} of "mutex", "spin" or "custom:&lt;type&gt;:&lt;lock,...&gt;:&lt;unlock,...&gt;".
+	 * @param resume Whether to resume the verification from its last checkpoint.
+	 * @param shard The {@link SignatureShard} to be verified or null to verify all the signatures.
+	 * @param mergeShardCount The number of shards to be merged or 0 to verify.
+	 * @return The status of the verification.
+	 */
+	private static int verify(String verification, boolean resume, SignatureShard shard, int mergeShardCount){
+		String verificationName;
+		Q objectType;
+		List<String> lockFunctionCalls;
+		List<String> unlockFunctionCalls;
+		Path graphsOutputDirectoryPath;
+		if(verification.equals("mutex")){
+			verificationName = verification;
+			objectType = VerificationProperties.getMutexObjectType();
+			lockFunctionCalls = VerificationProperties.getMutexLockFunctionCalls();
+			unlockFunctionCalls = VerificationProperties.getMutexUnlockFunctionCalls();
+			graphsOutputDirectoryPath = VerificationProperties.getMutexGraphsOutputDirectory();
+		}else if(verification.equals("spin")){
+			verificationName = verification;
+			objectType = VerificationProperties.getSpinObjectType();
+			lockFunctionCalls = VerificationProperties.getSpinLockFunctionCalls();
+			unlockFunctionCalls = VerificationProperties.getSpinUnlockFunctionCalls();
+			graphsOutputDirectoryPath = VerificationProperties.getSpinGraphsOutputDirectory();
+		}else if(verification.startsWith("custom:")){
+			String[] parts = verification.split(":");
+			if(parts.length != 4){
+				return usage("Invalid custom verification [" + verification + "].");
+			}
+			verificationName = parts[1].replaceAll("\\W+", "_");
+			objectType = universe().nodes(XCSG.C.Struct, XCSG.TypeAlias).selectNode(XCSG.name, parts[1]);
+			lockFunctionCalls = Arrays.asList(parts[2].split(","));
+			unlockFunctionCalls = Arrays.asList(parts[3].split(","));
+			graphsOutputDirectoryPath = VerificationProperties.getGraphsOutputDirectory(parts[1]);
+		}else{
+			return usage("Unknown verification [" + verification + "].");
+		}
+		Q lockFunctionCallsQ = LSAPUtils.functionsQ(lockFunctionCalls);
+		Q unlockFunctionCallsQ = LSAPUtils.functionsQ(unlockFunctionCalls);
+
+		if(mergeShardCount > 0){
+			VerificationProperties.resetOutputLogFile(verificationName);
+			boolean merged = SignatureVerificationUtils.mergeShards(lockFunctionCallsQ, unlockFunctionCallsQ, graphsOutputDirectoryPath, mergeShardCount, verificationName);
+			return merged ? STATUS_OK : STATUS_INCOMPLETE_MERGE;
+		}
+
+		String logQualifier = shard == null ? verificationName : verificationName + "_" + shard;
+		if(resume){
+			VerificationProperties.appendOutputLogFile(logQualifier);
+		}else{
+			VerificationProperties.resetOutputLogFile(logQualifier);
+		}
+		if(objectType.eval().nodes().isEmpty()){
+			System.err.println("The object type of verification [" + verification + "] is not found in the index.");
+			return STATUS_FAILURE;
+		}
+		Q signatures = LSAPUtils.getSignaturesForObjectType(objectType);
+		SignatureVerificationUtils.verifySignatures(signatures, lockFunctionCallsQ, unlockFunctionCallsQ, graphsOutputDirectoryPath, resume, shard);
+		return STATUS_OK;
+	}
+
+	/**
+	 * Prints <code>message</code> followed by the usage.
+	 *
+	 * @param message A {@link String} describing the invalid arguments.
+	 * @return {@link #STATUS_USAGE}.
+	 */
+	private static int usage(String message){
+		System.err.println(message);
+		System.err.println(USAGE);
+		return STATUS_USAGE;
+	}
+
+}
@@ -0,0 +1,46 @@
+package com.kcsl.lsap.console;
+
+import com.kcsl.lsap.core.LockVerificationContext;
+import com.kcsl.lsap.core.LockVerificationIndex;
+import com.kcsl.lsap.core.SourceCorrespondenceIndex;
+
+/**
+ * The OSGi console commands in the "lsap" scope of a running workbench, so several batch verifications can run in the same process
+ * while the index and the {@link LockVerificationContext}s stay warm.
+ * <p>
+ * For example: <code>lsap:verify -Pfeasibility_enabled=true mutex</code>. The commands are registered once the bundle is activated and
+ * verify the Atlas index already loaded in the workbench.
+ */
+public class LSAPCommands {
+
+	/**
+	 * The scope of the commands.
+	 */
+	public static final String SCOPE = "lsap";
+
+	/**
+	 * The names of the command functions.
+	 */
+	public static final String[] FUNCTIONS = { "verify", "reset" };
+
+	/**
+	 * Runs the verifications given in <code>arguments</code> as accepted by {@link BatchVerification#run(String[])}.
+	 *
+	 * @param arguments The command arguments.
+	 * @return The status of the verifications.
+	 */
+	public int verify(String... arguments){
+		return BatchVerification.run(arguments);
+	}
+
+	/**
+	 * Discards the warm {@link LockVerificationContext}s, the {@link LockVerificationIndex} and the {@link SourceCorrespondenceIndex},
+	 * which is needed after re-indexing.
+	 */
+	public void reset(){
+		LockVerificationContext.clear();
+		LockVerificationIndex.clear();
+		SourceCorrespondenceIndex.clear();
+	}
+
+}
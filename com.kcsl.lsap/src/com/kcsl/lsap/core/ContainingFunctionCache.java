@@ -0,0 +1,61 @@
+package com.kcsl.lsap.core;
+
+import com.ensoftcorp.atlas.core.db.graph.Node;
+import com.ensoftcorp.atlas.core.db.map.AtlasGraphKeyHashMap;
+import com.ensoftcorp.atlas.core.db.map.AtlasMap;
+import com.ensoftcorp.atlas.core.query.Q;
+import com.ensoftcorp.atlas.core.xcsg.XCSG;
+import com.ensoftcorp.open.commons.analysis.CommonQueries;
+
+/**
+ * A cache from a {@link XCSG#ControlFlow_Node} or {@link XCSG#CallSite} to its containing {@link XCSG#Function}, shared by the stages of a verification
+ * run that repeatedly look up the containing functions of the same events.
+ * <p>
+ * Every verification run creates its own instance and passes it to the stages that need it, so the cached {@link Node}s never outlive the run.
+ * The cache is filled in bulk from the CFGs of the MPG functions by {@link #put(Node, Q)}; any other node is looked up with
+ * {@link CommonQueries#getContainingFunction(Node)} once.
+ */
+public class ContainingFunctionCache {
+
+	/**
+	 * A mapping from a {@link Node} to its containing {@link XCSG#Function}.
+	 */
+	private final AtlasMap<Node, Node> containingFunctions;
+
+	/**
+	 * Constructs a new empty instance of {@link ContainingFunctionCache}.
+	 */
+	public ContainingFunctionCache() {
+		this.containingFunctions = new AtlasGraphKeyHashMap<Node, Node>();
+	}
+
+	/**
+	 * Returns the {@link XCSG#Function} containing the given <code>node</code>.
+	 *
+	 * @param node A {@link Node}.
+	 * @return The containing {@link XCSG#Function} of <code>node</code> or null if there is none.
+	 */
+	public synchronized Node getContainingFunction(Node node){
+		Node function = this.containingFunctions.get(node);
+		if(function == null){
+			function = CommonQueries.getContainingFunction(node);
+			if(function != null){
+				this.containingFunctions.put(node, function);
+			}
+		}
+		return function;
+	}
+
+	/**
+	 * Caches <code>function</code> as the containing {@link XCSG#Function} of all the nodes of its <code>cfg</code>.
+	 *
+	 * @param function A {@link XCSG#Function}.
+	 * @param cfg A {@link Q} corresponding to the CFG of <code>function</code>.
+	 */
+	public synchronized void put(Node function, Q cfg){
+		for(Node cfgNode : cfg.eval().nodes()){
+			this.containingFunctions.put(cfgNode, function);
+		}
+	}
+
+}
@@ -1,6 +1,5 @@
 package com.kcsl.lsap.core;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import com.ensoftcorp.atlas.core.db.graph.Node;
@@ -84,11 +83,6 @@ public class FunctionSummary {
 	 * A list of {@link XCSG#ControlFlow_Node} containing events of interest up to {@link #function} from its successors.
 	 */
 	private AtlasSet<Node> nodeToEventsAlongPathFromSuccessors;
-	
-	/**
-	 * A mapping of {@link Node} corresponding to a lock function call to a set of its {@link MatchingPair}s.
-	 */
-	private AtlasMap<Node, ArrayList<MatchingPair>> matchingPairsMap;
 
 	/**
 	 * Constructs a new instance of {@link FunctionSummary} for <code>function</code>, its <code>pcg</code> and <code>events</code>.
@@ -212,18 +206,6 @@ public class FunctionSummary {
 		this.nodeToPathStatus = nodeToPathStatus;
 	}
 
-	public void setMatchingPairsList(AtlasMap<Node, ArrayList<MatchingPair>> matchingPairsMap) {
-		this.setMatchingPairsMap(matchingPairsMap);
-	}
-
-	public AtlasMap<Node, ArrayList<MatchingPair>> getMatchingPairsMap() {
-		return matchingPairsMap;
-	}
-
-	public void setMatchingPairsMap(AtlasMap<Node, ArrayList<MatchingPair>> matchingPairsMap) {
-		this.matchingPairsMap = matchingPairsMap;
-	}
-
 	public List<Q> getAllEvents() {
 		return allEvents;
 	}
@@ -2,7 +2,6 @@ package com.kcsl.lsap.core;
 
 import static com.ensoftcorp.atlas.core.script.Common.universe;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 
@@ -57,9 +56,9 @@ public class FunctionVerifier {
 	private AtlasSet<Node> unlockEventNodes;
 
 	/**
-	 * A mapping between {@link Node} to its list of {@link MatchingPair}s.
+	 * The {@link MatchingPairTable} of the signature where the {@link MatchingPair}s found in {@link #currentFunction} are added.
 	 */
-    private AtlasMap<Node, ArrayList<MatchingPair>> matchingPairsMap;
+    private MatchingPairTable matchingPairs;
 	
     /**
      * A mapping between a {@link XCSG#ControlFlow_Node} to an {@link Integer} corresponding to current {@link PathStatus} at this node.
@@ -95,12 +94,13 @@ public class FunctionVerifier {
 	 * @param summary A {@link FunctionSummary} for the given <code>function</code>.
 	 * @param events A list of {@link Q}s where the first element contains the events calling lock, the second element contains the events calls unlock, 
 	 * the third element contains calls to MPG functions, the last element contains all events.
+	 * @param matchingPairs The {@link MatchingPairTable} of the signature where the found {@link MatchingPair}s are added.
 	 */
-	public FunctionVerifier(Node function, PCG pcg, AtlasMap<Node, FunctionSummary> summary, List<Q> events) {
+	public FunctionVerifier(Node function, PCG pcg, AtlasMap<Node, FunctionSummary> summary, List<Q> events, MatchingPairTable matchingPairs) {
 		this.currentFunction = function;
 		this.successorsFunctionSummaries = summary;
 		this.pcg = pcg;
-		this.matchingPairsMap = new AtlasGraphKeyHashMap<Node, ArrayList<MatchingPair>>();
+		this.matchingPairs = matchingPairs;
 		this.nodeToPathStatusMap = new AtlasGraphKeyHashMap<Node, Integer>();
 		this.nodeToEventsAlongPathMap = new AtlasGraphKeyHashMap<Node, AtlasSet<Node>>();
 		this.nodeToPathStatusFromSuccessorsMap = new AtlasGraphKeyHashMap<Node, Integer>();
@@ -148,7 +148,6 @@ public class FunctionVerifier {
 		this.summary.setNodeToPathStatus(this.nodeToPathStatusMap.get(this.pcg.getMasterExit()));
 		this.summary.setNodeToEventsAlongPath(this.nodeToEventsAlongPathMap.get(this.pcg.getMasterExit()));
 		this.summary.setCallEventsFunctionsMap(callEventsFunctionsMap);
-		this.summary.setMatchingPairsList(this.matchingPairsMap);
 
 		return this.summary;
 	}
@@ -164,6 +163,7 @@ public class FunctionVerifier {
 	 */
 	@SuppressWarnings("unchecked")
 	private Object[] traverse(Node node, int pathStatus, AtlasSet<Node> nodesOfInterest) {
+		SignatureBudget.check();
 		int rets = 0, outs, childrens, childs;
 		AtlasSet<Node> retl = new AtlasHashSet<Node>();
 		AtlasSet<Node> outl = new AtlasHashSet<Node>();
@@ -290,21 +290,16 @@ public class FunctionVerifier {
 	}
 	
 	/**
-	 * Adds new {@link MatchingPair}s to {@link #matchingPairsMap} for <code>nodes</code> and their corresponding <code>matchingNodes</code>.
+	 * Adds new {@link MatchingPair}s to {@link #matchingPairs} for <code>nodes</code> and their corresponding <code>matchingNodes</code>.
 	 * 
 	 * @param nodes A list of {@link Node}s.
 	 * @param matchingNodes A list of {@link Node}s matched with the nodes in <code>nodes</code>.
 	 */
 	private void appendMatchingPairs(AtlasSet<Node> nodes, AtlasSet<Node> matchingNodes) {
 		for (Node node : nodes) {
-			ArrayList<MatchingPair> matchingPairs = new ArrayList<MatchingPair>();
-			if (this.matchingPairsMap.containsKey(node)) {
-				matchingPairs = this.matchingPairsMap.get(node);
-			}
 			for (Node matchingNode : matchingNodes) {
-				matchingPairs.add(new MatchingPair(node, matchingNode, null));
+				this.matchingPairs.add(node, matchingNode);
 			}
-			this.matchingPairsMap.put(node, matchingPairs);
 		}
 	}
 	
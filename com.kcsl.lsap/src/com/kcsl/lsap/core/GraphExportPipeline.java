@@ -0,0 +1,232 @@
+package com.kcsl.lsap.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import com.ensoftcorp.atlas.core.db.graph.Graph;
+import com.ensoftcorp.atlas.core.markup.Markup;
+import com.ensoftcorp.atlas.ui.viewer.graph.SaveUtil;
+import com.kcsl.lsap.VerificationProperties;
+import com.kcsl.lsap.utils.DotGraphExportUtils;
+
+/**
+ * A stage exporting the verification graphs on a pool of worker threads, so the verification does not wait for the graphs to be rendered.
+ * <p>
+ * The exported {@link Graph}s are the evaluated snapshots of the verification queries and their {@link Markup}s are not changed after they are
+ * submitted. At most {@link VerificationProperties#getGraphExportQueueCapacity()} graphs wait to be exported; once the queue is full, submitting a
+ * graph blocks until a worker is done with one. Every verification run owns its own pipeline, whose pool is started on first use, and
+ * {@link #awaitCompletion()} waits for the graphs submitted to it and closes the {@link GraphStore}s it opened, so overlapping runs never
+ * stop each other's workers or stores.
+ */
+public class GraphExportPipeline {
+
+	/**
+	 * The workers exporting the submitted graphs, or null until the pipeline is started.
+	 */
+	private ThreadPoolExecutor executor;
+
+	/**
+	 * The permits of the graphs that can be submitted before the submitting thread is blocked.
+	 */
+	private Semaphore permits;
+
+	/**
+	 * The total number of {@link #permits}.
+	 */
+	private int permitsCount;
+
+	/**
+	 * The {@link GraphStore}s opened through this pipeline, one for every call to {@link #openStore(Path)}.
+	 */
+	private final List<GraphStore> stores;
+
+	/**
+	 * Constructs a new instance of {@link GraphExportPipeline} whose workers are started once the first graph is submitted.
+	 */
+	public GraphExportPipeline() {
+		this.executor = null;
+		this.permits = null;
+		this.permitsCount = 0;
+		this.stores = new ArrayList<GraphStore>();
+	}
+
+	/**
+	 * Opens the {@link GraphStore} of the given <code>graphsOutputDirectory</code> to be closed by {@link #awaitCompletion()}.
+	 *
+	 * @param graphsOutputDirectory A {@link Path} to the root directory of the verification graphs.
+	 * @return An instance of {@link GraphStore} or null if it cannot be opened.
+	 */
+	public synchronized GraphStore openStore(Path graphsOutputDirectory){
+		GraphStore store = GraphStore.open(graphsOutputDirectory);
+		if(store != null){
+			this.stores.add(store);
+		}
+		return store;
+	}
+
+	/**
+	 * Submits the given <code>graph</code> to be rendered as an image into <code>parentDirectory</code> with the given <code>fileName</code>.
+	 *
+	 * @param graph The {@link Graph} to be saved.
+	 * @param markup An instance of {@link Markup} defined on <code>graph</code> or null.
+	 * @param parentDirectory A {@link File} corresponding to the directory where the graph to be saved.
+	 * @param fileName The name of the {@link File} where the graph will be saved.
+	 * @param store The {@link GraphStore} where the graph to be stored instead of <code>parentDirectory</code> or null.
+	 */
+	public void saveGraph(Graph graph, Markup markup, File parentDirectory, String fileName, GraphStore store){
+		this.submit(() -> export(graph, markup, parentDirectory, fileName, store, file -> {
+			try {
+				if(markup == null){
+					SaveUtil.saveGraph(file, graph).join();
+				}else{
+					SaveUtil.saveGraph(file, graph, markup).join();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}));
+	}
+
+	/**
+	 * Submits the given <code>graph</code> to be saved in DOT format into <code>parentDirectory</code> with the given <code>fileName</code>.
+	 *
+	 * @param graph The {@link Graph} to be saved.
+	 * @param markup An instance of {@link Markup} defined on <code>graph</code> or null.
+	 * @param parentDirectory A {@link File} corresponding to the directory where the graph to be saved.
+	 * @param fileName The name of the {@link File} where the graph will be saved.
+	 * @param store The {@link GraphStore} where the graph to be stored instead of <code>parentDirectory</code> or null.
+	 */
+	public void saveDOTGraph(Graph graph, Markup markup, File parentDirectory, String fileName, GraphStore store){
+		this.submit(() -> export(graph, markup, parentDirectory, fileName, store, file -> DotGraphExportUtils.saveDOTGraph(graph, markup, file.getParentFile(), file.getName())));
+	}
+
+	/**
+	 * Waits until all the graphs submitted to this pipeline are exported then stops its workers and closes the {@link GraphStore}s it opened.
+	 */
+	public void awaitCompletion(){
+		ThreadPoolExecutor executor;
+		Semaphore permits;
+		int permitsCount;
+		List<GraphStore> stores;
+		synchronized (this) {
+			executor = this.executor;
+			permits = this.permits;
+			permitsCount = this.permitsCount;
+			stores = new ArrayList<GraphStore>(this.stores);
+			this.executor = null;
+			this.permits = null;
+			this.stores.clear();
+		}
+		if(executor != null){
+			permits.acquireUninterruptibly(permitsCount);
+			executor.shutdown();
+		}
+		for(GraphStore store : stores){
+			store.close();
+		}
+	}
+
+	/**
+	 * Submits the given <code>export</code> to the workers, blocking while the queue is full.
+	 * <p>
+	 * If the submitting thread is interrupted while waiting for the queue, the graph is exported on the submitting thread instead of being dropped.
+	 *
+	 * @param export A {@link Runnable} exporting a graph.
+	 */
+	private void submit(Runnable export){
+		ThreadPoolExecutor executor;
+		Semaphore permits;
+		synchronized (this) {
+			if(this.executor == null){
+				this.start();
+			}
+			executor = this.executor;
+			permits = this.permits;
+		}
+		try {
+			permits.acquire();
+		} catch (InterruptedException e) {
+			export.run();
+			Thread.currentThread().interrupt();
+			return;
+		}
+		try {
+			executor.execute(() -> {
+				try {
+					export.run();
+				} catch (RuntimeException e) {
+					System.err.println("Cannot export verification graph: " + e.getMessage());
+				} finally {
+					permits.release();
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			permits.release();
+			export.run();
+		}
+	}
+
+	/**
+	 * Exports the given <code>graph</code> with <code>writer</code> into <code>parentDirectory</code>, or into <code>store</code> unless it is already stored.
+	 *
+	 * @param graph The {@link Graph} to be saved.
+	 * @param markup An instance of {@link Markup} defined on <code>graph</code> or null.
+	 * @param parentDirectory A {@link File} corresponding to the directory where the graph to be saved.
+	 * @param fileName The name of the {@link File} where the graph will be saved.
+	 * @param store The {@link GraphStore} where the graph to be stored instead of <code>parentDirectory</code> or null.
+	 * @param writer A {@link Consumer} writing the graph into a given {@link File}.
+	 */
+	private static void export(Graph graph, Markup markup, File parentDirectory, String fileName, GraphStore store, Consumer<File> writer){
+		if(store == null){
+			writer.accept(new File(parentDirectory, fileName));
+			return;
+		}
+		String extension = fileName.substring(Math.max(0, fileName.lastIndexOf('.')));
+		String key = GraphStore.key(graph, markup, extension);
+		if(store.reserve(key)){
+			Path temporaryFilePath = null;
+			try {
+				temporaryFilePath = Files.createTempFile(parentDirectory.toPath(), "graph", extension);
+				writer.accept(temporaryFilePath.toFile());
+				store.put(key, temporaryFilePath);
+			} catch (IOException | RuntimeException e) {
+				store.release(key);
+				System.err.println("Cannot store verification graph [" + fileName + "].");
+				return;
+			} finally {
+				if(temporaryFilePath != null){
+					temporaryFilePath.toFile().delete();
+				}
+			}
+		}
+		store.addToManifest(parentDirectory, fileName, key);
+	}
+
+	/**
+	 * Starts the workers with the sizes in {@link VerificationProperties}.
+	 */
+	private void start(){
+		int workers = Math.max(1, VerificationProperties.getGraphExportWorkers());
+		AtomicInteger workersCount = new AtomicInteger();
+		this.executor = new ThreadPoolExecutor(workers, workers, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), runnable -> {
+			Thread thread = new Thread(runnable, "LSAP graph export " + workersCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.executor.allowCoreThreadTimeOut(true);
+		this.permitsCount = workers + Math.max(0, VerificationProperties.getGraphExportQueueCapacity());
+		this.permits = new Semaphore(this.permitsCount);
+	}
+
+}
@@ -0,0 +1,383 @@
+package com.kcsl.lsap.core;
+
+import java.awt.Color;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import com.ensoftcorp.atlas.core.db.graph.Edge;
+import com.ensoftcorp.atlas.core.db.graph.Graph;
+import com.ensoftcorp.atlas.core.db.graph.GraphElement;
+import com.ensoftcorp.atlas.core.db.graph.GraphElement.EdgeDirection;
+import com.ensoftcorp.atlas.core.db.graph.Node;
+import com.ensoftcorp.atlas.core.markup.Markup;
+import com.ensoftcorp.atlas.core.markup.MarkupProperty;
+import com.ensoftcorp.atlas.core.xcsg.XCSG;
+import com.kcsl.lsap.utils.LSAPUtils;
+
+/**
+ * A content-addressed store of the exported verification graphs of a graphs output directory.
+ * <p>
+ * Every exported graph is stored once in an append-only pack file under a hash of its nodes, edges, markup and file format, along with
+ * an index file of the offset and length of each entry. The directory of each lock holds a manifest mapping the names of its graph files
+ * to the stored entries, which are written back as files by {@link #extract(Path)}. Every entry is appended to the manifest of its lock
+ * once its graph is stored, and the pack file is locked while an entry is appended, so shards verifying in several processes can share
+ * the same store. A store is shared by all the runs that open it and its files are closed once every run that opened it has closed it.
+ */
+public class GraphStore {
+
+	/**
+	 * The name of the pack file holding the contents of the stored graphs.
+	 */
+	private static final String PACK_FILE_NAME = "graphs.pack";
+
+	/**
+	 * The name of the index file holding the key, offset and length of every entry of the pack file.
+	 */
+	private static final String INDEX_FILE_NAME = "graphs.pack.index";
+
+	/**
+	 * The name of the manifest file in the directory of each lock.
+	 */
+	public static final String MANIFEST_FILE_NAME = "graphs.manifest";
+
+	/**
+	 * A mapping from a graphs output directory to its open {@link GraphStore}.
+	 */
+	private static final Map<Path, GraphStore> STORES = new HashMap<Path, GraphStore>();
+
+	/**
+	 * The directory holding the pack and index files of this store.
+	 */
+	private final Path storeDirectory;
+
+	/**
+	 * The {@link FileChannel} appending to the pack file.
+	 */
+	private final FileChannel pack;
+
+	/**
+	 * The {@link BufferedWriter} appending to the index file.
+	 */
+	private final BufferedWriter index;
+
+	/**
+	 * A mapping from the key of a stored graph to its offset and length in the pack file.
+	 */
+	private final Map<String, long[]> entries;
+
+	/**
+	 * The keys of the graphs being exported by a worker and not stored yet.
+	 */
+	private final Set<String> pendingKeys;
+
+	/**
+	 * The number of times this store is opened and not closed yet.
+	 */
+	private int openCount;
+
+	/**
+	 * Constructs a new instance of {@link GraphStore} and loads the existing entries of the index file if any.
+	 *
+	 * @param storeDirectory See corresponding field for details.
+	 * @throws IOException If the pack or index file cannot be opened.
+	 */
+	private GraphStore(Path storeDirectory) throws IOException {
+		this.storeDirectory = storeDirectory;
+		Files.createDirectories(storeDirectory);
+		this.pack = FileChannel.open(storeDirectory.resolve(PACK_FILE_NAME), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		this.entries = new HashMap<String, long[]>();
+		Path indexFilePath = storeDirectory.resolve(INDEX_FILE_NAME);
+		if(Files.exists(indexFilePath)){
+			long packSize = this.pack.size();
+			try(BufferedReader reader = Files.newBufferedReader(indexFilePath, StandardCharsets.UTF_8)){
+				String line;
+				while((line = reader.readLine()) != null){
+					String[] parts = line.split(" ");
+					if(parts.length != 3){
+						continue;
+					}
+					try {
+						long offset = Long.parseLong(parts[1]);
+						long length = Long.parseLong(parts[2]);
+						// Entries past the end of the pack file belong to an interrupted write.
+						if(offset + length <= packSize){
+							this.entries.put(parts[0], new long[]{offset, length});
+						}
+					} catch (NumberFormatException e) {}
+				}
+			}
+		}
+		this.index = Files.newBufferedWriter(indexFilePath, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		this.pendingKeys = new HashSet<String>();
+		this.openCount = 0;
+	}
+
+	/**
+	 * Returns the {@link GraphStore} of the given <code>graphsOutputDirectory</code>, opening it if needed.
+	 * <p>
+	 * Every call has to be followed by a call to {@link #close()} once the returned store is no longer used.
+	 *
+	 * @param graphsOutputDirectory A {@link Path} to the root directory of the verification graphs.
+	 * @return An instance of {@link GraphStore} or null if it cannot be opened.
+	 */
+	public static synchronized GraphStore open(Path graphsOutputDirectory){
+		graphsOutputDirectory = graphsOutputDirectory.toAbsolutePath().normalize();
+		GraphStore store = STORES.get(graphsOutputDirectory);
+		if(store == null){
+			try {
+				store = new GraphStore(graphsOutputDirectory);
+			} catch (IOException e) {
+				System.err.println("Cannot open graph store in [" + graphsOutputDirectory + "].");
+				return null;
+			}
+			STORES.put(graphsOutputDirectory, store);
+		}
+		store.openCount++;
+		return store;
+	}
+
+	/**
+	 * Closes this store once for a call to {@link #open(Path)}, closing its pack and index files when no one else has it open.
+	 */
+	public void close(){
+		synchronized (GraphStore.class) {
+			if(--this.openCount > 0){
+				return;
+			}
+			STORES.remove(this.storeDirectory);
+		}
+		this.closeFiles();
+	}
+
+	/**
+	 * Computes the key of the given <code>graph</code> exported with <code>markup</code> into a file with <code>extension</code>.
+	 * <p>
+	 * The {@link Node}s are identified by {@link LSAPUtils#nodeKey(Node)}, so the same graph has the same key across re-indexes. The key covers
+	 * everything the exported file is rendered from: the names and tags of the nodes and edges, the condition values labeling the edges and the
+	 * {@link MarkupProperty#NODE_BACKGROUND_COLOR}, which is the only {@link MarkupProperty} the verification graphs are exported with.
+	 *
+	 * @param graph The {@link Graph} to be exported.
+	 * @param markup An instance of {@link Markup} defined on <code>graph</code> or null.
+	 * @param extension The extension of the exported file, which determines its format.
+	 * @return A {@link String} corresponding to the content hash of the exported graph.
+	 */
+	public static String key(Graph graph, Markup markup, String extension){
+		List<String> contents = new ArrayList<String>();
+		for(Node node : graph.nodes()){
+			Color color = markup == null ? null : markup.get(node).get(MarkupProperty.NODE_BACKGROUND_COLOR);
+			contents.add("N " + LSAPUtils.nodeKey(node) + " " + tags(node) + " " + (color == null ? "" : color.getRGB()));
+		}
+		for(Edge edge : graph.edges()){
+			Object name = edge.hasAttr(XCSG.name) ? edge.getAttr(XCSG.name) : "";
+			Object conditionValue = edge.hasAttr(XCSG.conditionValue) ? edge.getAttr(XCSG.conditionValue) : "";
+			contents.add("E " + LSAPUtils.nodeKey(edge.getNode(EdgeDirection.FROM)) + " " + LSAPUtils.nodeKey(edge.getNode(EdgeDirection.TO)) + " " + tags(edge) + " " + name + " " + conditionValue);
+		}
+		Collections.sort(contents);
+		contents.add("X " + extension);
+
+		try {
+			MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+			for(String content : contents){
+				messageDigest.update(content.getBytes(StandardCharsets.UTF_8));
+				messageDigest.update((byte) 0);
+			}
+			StringBuilder hash = new StringBuilder();
+			for(byte b : messageDigest.digest()){
+				hash.append(String.format("%02x", b));
+			}
+			return hash.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Lists the explicit tags of <code>graphElement</code> in a stable order.
+	 *
+	 * @param graphElement A {@link GraphElement} of an exported graph.
+	 * @return A {@link String} listing the sorted tags of <code>graphElement</code>.
+	 */
+	private static String tags(GraphElement graphElement){
+		List<String> tags = new ArrayList<String>();
+		for(String tag : graphElement.tags().explicitElements()){
+			tags.add(tag);
+		}
+		Collections.sort(tags);
+		return String.join(",", tags);
+	}
+
+	/**
+	 * Reserves the given <code>key</code> for the calling worker unless its graph is already stored or being exported.
+	 *
+	 * @param key The key computed by {@link #key(Graph, Markup, String)}.
+	 * @return true if the caller has to export the graph and {@link #put(String, Path)} or {@link #release(String)} it, otherwise false.
+	 */
+	public synchronized boolean reserve(String key){
+		if(this.entries.containsKey(key)){
+			return false;
+		}
+		return this.pendingKeys.add(key);
+	}
+
+	/**
+	 * Releases the given reserved <code>key</code> after its graph failed to be exported.
+	 *
+	 * @param key A key reserved by {@link #reserve(String)}.
+	 */
+	public synchronized void release(String key){
+		this.pendingKeys.remove(key);
+	}
+
+	/**
+	 * Appends the contents of the exported file at <code>path</code> to the pack file under the given reserved <code>key</code>.
+	 * <p>
+	 * The pack file is locked from taking the offset of the entry until the entry is indexed, so other processes appending to the same pack file
+	 * never write at the same offset.
+	 *
+	 * @param key A key reserved by {@link #reserve(String)}.
+	 * @param path A {@link Path} to the exported graph file.
+	 * @throws IOException If the exported file cannot be read or the pack file cannot be written.
+	 */
+	public synchronized void put(String key, Path path) throws IOException {
+		try {
+			byte[] contents = Files.readAllBytes(path);
+			long offset;
+			try(FileLock lock = this.pack.lock()){
+				offset = this.pack.size();
+				ByteBuffer buffer = ByteBuffer.wrap(contents);
+				while(buffer.hasRemaining()){
+					this.pack.write(buffer);
+				}
+				this.pack.force(false);
+				this.index.write(key + " " + offset + " " + contents.length);
+				this.index.newLine();
+				this.index.flush();
+			}
+			this.entries.put(key, new long[]{offset, contents.length});
+		} finally {
+			this.pendingKeys.remove(key);
+		}
+	}
+
+	/**
+	 * Appends to the manifest of the lock in <code>lockDirectory</code> that its graph file <code>fileName</code> is stored under <code>key</code>.
+	 * <p>
+	 * The manifest is a properties file, so an entry appended again for the same <code>fileName</code> overrides the earlier one when it is loaded.
+	 *
+	 * @param lockDirectory A {@link File} corresponding to the directory of a lock.
+	 * @param fileName The name of the graph file in <code>lockDirectory</code>.
+	 * @param key The key computed by {@link #key(Graph, Markup, String)}.
+	 */
+	public synchronized void addToManifest(File lockDirectory, String fileName, String key){
+		Properties entry = new Properties();
+		entry.setProperty(fileName, key);
+		StringWriter writer = new StringWriter();
+		try {
+			entry.store(writer, null);
+		} catch (IOException e) {
+			return;
+		}
+		StringBuilder lines = new StringBuilder();
+		for(String line : writer.toString().split("\\R")){
+			if(!line.startsWith("#")){
+				lines.append(line).append(System.lineSeparator());
+			}
+		}
+		Path manifestFilePath = lockDirectory.toPath().resolve(MANIFEST_FILE_NAME);
+		try {
+			Files.write(manifestFilePath, lines.toString().getBytes(StandardCharsets.ISO_8859_1), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		} catch (IOException e) {
+			System.err.println("Cannot write file [" + manifestFilePath + "].");
+		}
+	}
+
+	/**
+	 * Writes back the graph files listed in the manifest of the lock in <code>lockDirectory</code>.
+	 *
+	 * @param lockDirectory A {@link Path} to the directory of a lock under a graphs output directory.
+	 * @return The number of written graph files.
+	 */
+	public static int extract(Path lockDirectory){
+		Properties manifest = LSAPUtils.loadProperties(lockDirectory.resolve(MANIFEST_FILE_NAME));
+		if(manifest == null){
+			return 0;
+		}
+		GraphStore store = open(lockDirectory.toAbsolutePath().getParent());
+		if(store == null){
+			return 0;
+		}
+		int extracted = 0;
+		for(String fileName : manifest.stringPropertyNames()){
+			byte[] contents = store.read(manifest.getProperty(fileName));
+			if(contents == null){
+				System.err.println("Cannot find stored graph [" + fileName + "].");
+				continue;
+			}
+			try {
+				Files.write(lockDirectory.resolve(fileName), contents);
+				extracted++;
+			} catch (IOException e) {
+				System.err.println("Cannot write file [" + lockDirectory.resolve(fileName) + "].");
+			}
+		}
+		store.close();
+		return extracted;
+	}
+
+	/**
+	 * Reads the contents of the graph stored under the given <code>key</code>.
+	 *
+	 * @param key The key of a stored graph.
+	 * @return The contents of the graph or null if it is not stored or cannot be read.
+	 */
+	private synchronized byte[] read(String key){
+		long[] entry = this.entries.get(key);
+		if(entry == null){
+			return null;
+		}
+		ByteBuffer buffer = ByteBuffer.allocate((int) entry[1]);
+		try(FileChannel channel = FileChannel.open(this.storeDirectory.resolve(PACK_FILE_NAME), StandardOpenOption.READ)){
+			while(buffer.hasRemaining()){
+				if(channel.read(buffer, entry[0] + buffer.position()) < 0){
+					return null;
+				}
+			}
+		} catch (IOException e) {
+			return null;
+		}
+		return buffer.array();
+	}
+
+	/**
+	 * Closes the pack and index files.
+	 */
+	private synchronized void closeFiles(){
+		try {
+			this.index.close();
+			this.pack.close();
+		} catch (IOException e) {
+			System.err.println("Cannot close graph store in [" + this.storeDirectory + "].");
+		}
+	}
+
+}
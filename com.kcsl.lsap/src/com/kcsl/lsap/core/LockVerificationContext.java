@@ -0,0 +1,171 @@
+package com.kcsl.lsap.core;
+
+import static com.ensoftcorp.atlas.core.script.Common.universe;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.ensoftcorp.atlas.c.core.query.Attr;
+import com.ensoftcorp.atlas.core.db.graph.Node;
+import com.ensoftcorp.atlas.core.db.set.AtlasSet;
+import com.ensoftcorp.atlas.core.query.Q;
+import com.ensoftcorp.atlas.core.script.Common;
+import com.ensoftcorp.atlas.core.xcsg.XCSG;
+import com.ensoftcorp.open.commons.analysis.CallSiteAnalysis;
+import com.kcsl.lsap.utils.LSAPUtils;
+
+/**
+ * The call site and data flow structures shared by all verifications of the same lock/unlock functions.
+ * <p>
+ * The structures are evaluated once and kept warm across verifications in the same process. A context is identified by the addresses
+ * of the lock/unlock function {@link Node}s, so a re-index yields a new context and the stale ones are evicted.
+ */
+public class LockVerificationContext {
+
+	/**
+	 * The maximum number of contexts kept warm.
+	 */
+	private static final int MAXIMUM_CONTEXTS = 4;
+
+	/**
+	 * The warm contexts keyed by the addresses of their lock/unlock function {@link Node}s, in access order.
+	 */
+	private static final Map<String, LockVerificationContext> CONTEXTS = new LinkedHashMap<String, LockVerificationContext>(MAXIMUM_CONTEXTS, 0.75f, true){
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, LockVerificationContext> eldest) {
+			return this.size() > MAXIMUM_CONTEXTS;
+		}
+	};
+
+	/**
+	 * The data flow edges along which a signature reaches the parameters passed to lock/unlock calls.
+	 */
+	private final Q dataFlowContext;
+
+	/**
+	 * The {@link XCSG#CallSite}s for the lock/unlock functions.
+	 */
+	private final Q lockUnlockFunctionCallSites;
+
+	/**
+	 * The {@link XCSG#ParameterPass} nodes at {@link XCSG#parameterIndex} "0" that are passed to {@link #lockUnlockFunctionCallSites}.
+	 */
+	private final Q parametersPassedToLockUnlockFunctionCallSites;
+
+	/**
+	 * The {@link XCSG#ControlFlow_Node}s containing calls to the lock functions.
+	 */
+	private final Q cfgNodesContainingLockFunctionCallSites;
+
+	/**
+	 * The {@link XCSG#ControlFlow_Node}s containing calls to the unlock functions.
+	 */
+	private final Q cfgNodesContainingUnlockFunctionCallSites;
+
+	/**
+	 * A mapping from {@link LSAPUtils#nodeKey(Node)} to the lock/unlock {@link XCSG#ControlFlow_Node}s, constructed on first use.
+	 */
+	private Map<String, Node> eventNodesByKey;
+
+	/**
+	 * Constructs a new instance of {@link LockVerificationContext} and evaluates its structures.
+	 *
+	 * @param lockFunctionCallsQ A {@link Q} corresponding to the lock functions.
+	 * @param unlockFunctionCallsQ A {@link Q} corresponding to the unlock functions.
+	 */
+	private LockVerificationContext(Q lockFunctionCallsQ, Q unlockFunctionCallsQ) {
+		this.dataFlowContext = universe().edges(XCSG.DataFlow_Edge, Attr.Edge.ADDRESS_OF, Attr.Edge.POINTER_DEREFERENCE);
+		this.lockUnlockFunctionCallSites = Common.toQ(CallSiteAnalysis.getCallSites(lockFunctionCallsQ.union(unlockFunctionCallsQ)).eval());
+		this.parametersPassedToLockUnlockFunctionCallSites = Common.toQ(universe().edges(XCSG.ParameterPassedTo).predecessors(this.lockUnlockFunctionCallSites).selectNode(XCSG.parameterIndex, 0).eval());
+		this.cfgNodesContainingLockFunctionCallSites = LSAPUtils.getContainingNodes(CallSiteAnalysis.getCallSites(lockFunctionCallsQ), XCSG.ControlFlow_Node);
+		this.cfgNodesContainingUnlockFunctionCallSites = LSAPUtils.getContainingNodes(CallSiteAnalysis.getCallSites(unlockFunctionCallsQ), XCSG.ControlFlow_Node);
+		this.eventNodesByKey = null;
+	}
+
+	/**
+	 * Returns the warm context for the given lock/unlock functions, constructing it if needed.
+	 *
+	 * @param lockFunctionCallsQ A {@link Q} corresponding to the lock functions.
+	 * @param unlockFunctionCallsQ A {@link Q} corresponding to the unlock functions.
+	 * @return An instance of {@link LockVerificationContext}.
+	 */
+	public static synchronized LockVerificationContext get(Q lockFunctionCallsQ, Q unlockFunctionCallsQ){
+		String key = addresses(lockFunctionCallsQ.eval().nodes()) + "|" + addresses(unlockFunctionCallsQ.eval().nodes());
+		LockVerificationContext context = CONTEXTS.get(key);
+		if(context == null){
+			context = new LockVerificationContext(lockFunctionCallsQ, unlockFunctionCallsQ);
+			CONTEXTS.put(key, context);
+		}
+		return context;
+	}
+
+	/**
+	 * Discards all the warm contexts, which is needed when the index changes without changing the lock/unlock function {@link Node}s.
+	 */
+	public static synchronized void clear(){
+		CONTEXTS.clear();
+	}
+
+	/**
+	 * Constructs a {@link String} of the sorted addresses of <code>nodes</code>.
+	 *
+	 * @param nodes A set of {@link Node}s.
+	 * @return A {@link String} identifying <code>nodes</code> in the current index.
+	 */
+	private static String addresses(AtlasSet<Node> nodes){
+		long[] addresses = new long[(int) nodes.size()];
+		int index = 0;
+		for(Node node : nodes){
+			addresses[index++] = node.addressBits();
+		}
+		Arrays.sort(addresses);
+		return Arrays.toString(addresses);
+	}
+
+	public Q getDataFlowContext() {
+		return this.dataFlowContext;
+	}
+
+	public Q getLockUnlockFunctionCallSites() {
+		return this.lockUnlockFunctionCallSites;
+	}
+
+	public Q getParametersPassedToLockUnlockFunctionCallSites() {
+		return this.parametersPassedToLockUnlockFunctionCallSites;
+	}
+
+	public Q getCFGNodesContainingLockFunctionCallSites() {
+		return this.cfgNodesContainingLockFunctionCallSites;
+	}
+
+	public Q getCFGNodesContainingUnlockFunctionCallSites() {
+		return this.cfgNodesContainingUnlockFunctionCallSites;
+	}
+
+	/**
+	 * Returns the lock/unlock {@link XCSG#ControlFlow_Node}s by their {@link LSAPUtils#nodeKey(Node)} to restore stored results.
+	 * <p>
+	 * A key shared by more than one node is mapped to null, so the stored results referring to it are refused rather than restored on the wrong node.
+	 *
+	 * @return A mapping from {@link LSAPUtils#nodeKey(Node)} to the lock/unlock {@link Node}s, or to null for an ambiguous key.
+	 */
+	public synchronized Map<String, Node> getEventNodesByKey() {
+		if(this.eventNodesByKey == null){
+			this.eventNodesByKey = new HashMap<String, Node>();
+			for(Node eventNode : this.lockUnlockFunctionCallSites.containers().nodes(XCSG.ControlFlow_Node).eval().nodes()){
+				String eventNodeKey = LSAPUtils.nodeKey(eventNode);
+				if(this.eventNodesByKey.containsKey(eventNodeKey)){
+					this.eventNodesByKey.put(eventNodeKey, null);
+				}else{
+					this.eventNodesByKey.put(eventNodeKey, eventNode);
+				}
+			}
+		}
+		return this.eventNodesByKey;
+	}
+
+}
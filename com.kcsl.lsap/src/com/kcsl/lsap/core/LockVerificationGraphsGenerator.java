@@ -4,12 +4,14 @@ import java.awt.Color;
 import java.io.File;
 import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
 
+import com.ensoftcorp.atlas.core.db.graph.Edge;
 import com.ensoftcorp.atlas.core.db.graph.Graph;
 import com.ensoftcorp.atlas.core.db.graph.GraphElement.NodeDirection;
 import com.ensoftcorp.atlas.core.db.graph.Node;
-import com.ensoftcorp.atlas.core.db.map.AtlasMap;
 import com.ensoftcorp.atlas.core.db.set.AtlasHashSet;
 import com.ensoftcorp.atlas.core.db.set.AtlasSet;
 import com.ensoftcorp.atlas.core.index.common.SourceCorrespondence;
@@ -20,13 +22,10 @@ import com.ensoftcorp.atlas.core.query.Q;
 import com.ensoftcorp.atlas.core.script.Common;
 import com.ensoftcorp.atlas.core.xcsg.XCSG;
 import com.ensoftcorp.atlas.ui.viewer.graph.DisplayUtil;
-import com.ensoftcorp.atlas.ui.viewer.graph.SaveUtil;
 import com.ensoftcorp.open.commons.analysis.CommonQueries;
 import com.ensoftcorp.open.pcg.common.PCG;
 import com.ensoftcorp.open.pcg.common.PCGFactory;
 import com.kcsl.lsap.VerificationProperties;
-import com.kcsl.lsap.core.MatchingPair;
-import com.kcsl.lsap.utils.DotGraphExportUtils;
 import com.kcsl.lsap.utils.LSAPUtils;
 
 /**
@@ -80,6 +79,14 @@ public class LockVerificationGraphsGenerator {
 	 */
 	private static final String PCG_GRAPH_FILE_NAME_PATTERN = "PCG@@@%s@@@%s@@@%s@@@%s@@@%s%s";
 	
+	/**
+	 * The name of the file describing the verification graphs of the processed lock when their rendering is deferred.
+	 * <p>
+	 * The description holds the {@link VerificationStatus}, the {@link SourceCorrespondence} of the lock and its matching unlocks
+	 * and the {@link LSAPUtils#nodeKey(Node)} of the functions and of the ends of the call edges in the MPG for the lock.
+	 */
+	public static final String LOCK_DESCRIPTION_FILE_NAME = "lock.description";
+	
 	/**
 	 * The root output directory for all the graphs. The current class with create a directory with {@link #currentLockGraphsOutputDirectory}
 	 * to store all generated graph per processed lock.
@@ -97,37 +104,87 @@ public class LockVerificationGraphsGenerator {
 	private final Q mpg;
 	
 	/**
-	 * A mapping between a lock to its set of {@link MatchingPair}s.
+	 * The {@link MatchingPair}s of the locks of {@link #signtureNode}.
 	 */
-	private final AtlasMap<Node, HashSet<MatchingPair>> pairs;
+	private final MatchingPairTable pairs;
 	
 	/**
 	 * The directory where the verification graphs for the processed lock to be stored}.
 	 */
 	private File currentLockGraphsOutputDirectory;
 	
+	/**
+	 * A {@link boolean} flag to indicate whether the exported verification graphs are stored in a {@link GraphStore} rather than in each lock directory.
+	 */
+	private final boolean graphStoreEnabled;
+	
+	/**
+	 * The {@link GraphStore} where the verification graphs are stored once for all locks, opened on the first exported graph so that no store files are created
+	 * for a run that does not export any.
+	 */
+	private GraphStore graphStore;
+	
+	/**
+	 * The {@link GraphExportPipeline} of the verification run the saved graphs are exported by.
+	 */
+	private final GraphExportPipeline graphExportPipeline;
+	
+	/**
+	 * The {@link ContainingFunctionCache} of the verification run.
+	 */
+	private final ContainingFunctionCache containingFunctionCache;
+	
 	/**
 	 * Constructs a new instance of {@link LockVerificationGraphsGenerator}.
 	 * @param signtureNode See corresponding field for details.
 	 * @param mpg See corresponding field for details.
 	 * @param matchingPairs See corresponding field for details.
 	 * @param graphsOutputDirectoryPath See corresponding field for details.
+	 * @param graphExportPipeline See corresponding field for details.
+	 * @param containingFunctionCache See corresponding field for details.
 	 */
-	public LockVerificationGraphsGenerator(Node signtureNode, Q mpg, AtlasMap<Node, HashSet<MatchingPair>> matchingPairs, Path graphsOutputDirectoryPath) {
+	public LockVerificationGraphsGenerator(Node signtureNode, Q mpg, MatchingPairTable matchingPairs, Path graphsOutputDirectoryPath, GraphExportPipeline graphExportPipeline, ContainingFunctionCache containingFunctionCache) {
 		this.signtureNode = signtureNode;
 		this.mpg = mpg;
 		this.pairs = matchingPairs;
 		this.graphsOutputDirectory = graphsOutputDirectoryPath;
+		this.graphExportPipeline = graphExportPipeline;
+		this.containingFunctionCache = containingFunctionCache;
+		this.graphStoreEnabled = VerificationProperties.isGraphStoreEnabled();
+		this.graphStore = null;
+	}
+	
+	/**
+	 * Constructs a new instance of {@link LockVerificationGraphsGenerator} rendering the described graphs of a single lock as files into <code>lockDirectory</code>.
+	 * 
+	 * @param lockDirectory A {@link Path} to the directory of a lock containing a {@link #LOCK_DESCRIPTION_FILE_NAME} file.
+	 * @param graphExportPipeline See corresponding field for details.
+	 */
+	private LockVerificationGraphsGenerator(Path lockDirectory, GraphExportPipeline graphExportPipeline) {
+		this.signtureNode = null;
+		this.mpg = null;
+		this.pairs = null;
+		this.graphsOutputDirectory = lockDirectory.toAbsolutePath().getParent();
+		this.graphExportPipeline = graphExportPipeline;
+		this.containingFunctionCache = new ContainingFunctionCache();
+		this.currentLockGraphsOutputDirectory = lockDirectory.toFile();
+		this.graphStoreEnabled = false;
+		this.graphStore = null;
 	}
 	
 	/**
 	 * Processes the given <code>lock</code> to save/display its verification graphs.
+	 * <p>
+	 * If {@link VerificationProperties#isDeferredGraphRenderingEnabled()}, only a description of the graphs is saved and the graphs are
+	 * rendered later by {@link #render(Path, GraphExportPipeline)}. A lock that cannot be described is rendered right away.
 	 * 
 	 * @param lock The {@link XCSG#ControlFlow_Node} contains a call to lock.
 	 * @param status The {@link VerificationStatus} for the given <code>lock</code>.
 	 * @param displayGraphs Whether to display verification graphs to the user.
 	 */
 	public void process(Node lock, VerificationStatus status, boolean displayGraphs){
+		boolean deferGraphs = VerificationProperties.isDeferredGraphRenderingEnabled();
+		
 		// STEP 1: CREATE A LOCK FOLDER
 		if(VerificationProperties.isSaveVerificationGraphs()) {
 			if(!this.createContainingDirectory(lock, status)){
@@ -137,17 +194,92 @@ public class LockVerificationGraphsGenerator {
 		
 		AtlasSet<Node> unlocks = new AtlasHashSet<Node>();
 		if(!status.equals(VerificationStatus.UNPAIRED)){
-			HashSet<MatchingPair> matchingPairs = this.pairs.get(lock);
-			for(MatchingPair pair : matchingPairs){
-				Node unlock = pair.getSecondEvent();
-				if(unlock != null){
-					unlocks.add(unlock);
-				}
+			unlocks = this.pairs.getSecondEvents(lock);
+		}
+		
+		Q mpgForLock = this.constructMPGForLock(lock, status, unlocks);
+		if(VerificationProperties.isSaveVerificationGraphs() && deferGraphs){
+			deferGraphs = this.saveLockDescription(lock, status, unlocks, mpgForLock);
+			if(deferGraphs && !displayGraphs){
+				return;
+			}
+		}
+		this.saveDisplayGraphs(lock, status, unlocks, mpgForLock, displayGraphs, VerificationProperties.isSaveVerificationGraphs() && !deferGraphs);
+	}
+	
+	/**
+	 * Renders and saves the verification graphs of the lock described in the given <code>lockDirectory</code>.
+	 * <p>
+	 * The MPG for the lock is rebuilt from the described functions and call edges, and the graphs are written as files into <code>lockDirectory</code>
+	 * so they can be opened right away; rendering never opens or writes to the {@link GraphStore}.
+	 * 
+	 * @param lockDirectory A {@link Path} to the directory of a lock containing a {@link #LOCK_DESCRIPTION_FILE_NAME} file.
+	 * @param graphExportPipeline The {@link GraphExportPipeline} the rendered graphs are exported by.
+	 * @return true if the graphs are rendered, otherwise false.
+	 */
+	public static boolean render(Path lockDirectory, GraphExportPipeline graphExportPipeline){
+		Properties description = LSAPUtils.loadProperties(lockDirectory.resolve(LOCK_DESCRIPTION_FILE_NAME));
+		if(description == null){
+			return false;
+		}
+		Node lock = SourceCorrespondenceIndex.find(SourceCorrespondence.fromString(description.getProperty("lock")));
+		if(lock == null){
+			LSAPUtils.log("Cannot find the lock described in [" + lockDirectory + "].");
+			return false;
+		}
+		VerificationStatus status = VerificationStatus.valueOf(description.getProperty("status"));
+		AtlasSet<Node> unlocks = new AtlasHashSet<Node>();
+		for(int index = 0; description.containsKey("unlock." + index); index++){
+			Node unlock = SourceCorrespondenceIndex.find(SourceCorrespondence.fromString(description.getProperty("unlock." + index)));
+			if(unlock == null){
+				LSAPUtils.log("Cannot find the unlock [" + description.getProperty("unlock." + index) + "] described in [" + lockDirectory + "].");
+				return false;
 			}
+			unlocks.add(unlock);
+		}
+		AtlasSet<Node> mpgFunctions = new AtlasHashSet<Node>();
+		Map<String, Node> mpgFunctionsByKey = new HashMap<String, Node>();
+		for(int index = 0; description.containsKey("function." + index); index++){
+			Node mpgFunction = findFunction(description.getProperty("function." + index));
+			if(mpgFunction == null){
+				LSAPUtils.log("Cannot find the function [" + description.getProperty("function." + index) + "] described in [" + lockDirectory + "].");
+				return false;
+			}
+			mpgFunctions.add(mpgFunction);
+			mpgFunctionsByKey.put(description.getProperty("function." + index), mpgFunction);
+		}
+		Q callEdgesContext = Common.resolve(null, Common.universe().edges(XCSG.Call));
+		Q mpgForLock = Common.toQ(mpgFunctions);
+		for(int index = 0; description.containsKey("edge." + index + ".from"); index++){
+			Node from = mpgFunctionsByKey.get(description.getProperty("edge." + index + ".from"));
+			Node to = mpgFunctionsByKey.get(description.getProperty("edge." + index + ".to"));
+			if(from == null || to == null){
+				LSAPUtils.log("Cannot find the call edge [" + index + "] described in [" + lockDirectory + "].");
+				return false;
+			}
+			Q fromQ = Common.toQ(from);
+			Q bothNodes = fromQ.union(Common.toQ(to)).induce(callEdgesContext);
+			mpgForLock = mpgForLock.union(callEdgesContext.forwardStep(fromQ).intersection(bothNodes));
 		}
 		
+		LockVerificationGraphsGenerator lockVerificationGraphsGenerator = new LockVerificationGraphsGenerator(lockDirectory, graphExportPipeline);
+		lockVerificationGraphsGenerator.saveDisplayGraphs(lock, status, unlocks, mpgForLock, false, true);
+		return true;
+	}
+	
+	/**
+	 * Saves and displays the MPG, CFGs and PCGs for the given <code>lock</code>.
+	 * 
+	 * @param lock The {@link XCSG#ControlFlow_Node} contains a call to lock.
+	 * @param status The {@link VerificationStatus} for the given <code>lock</code>.
+	 * @param unlocks A list of {@link XCSG#ControlFlow_Node}s matched with the given <code>lock</code>.
+	 * @param mpgForLock The MPG constructed by {@link #constructMPGForLock(Node, VerificationStatus, AtlasSet)}.
+	 * @param displayGraphs Whether to display verification graphs to the user.
+	 * @param saveGraphs Whether to save verification graphs to {@link #currentLockGraphsOutputDirectory}.
+	 */
+	private void saveDisplayGraphs(Node lock, VerificationStatus status, AtlasSet<Node> unlocks, Q mpgForLock, boolean displayGraphs, boolean saveGraphs){
 		// STEP 2: CREATE THE MPG FILE FOR THE LOCK
-		Q mpgForLock = this.saveDisplayMPG(lock, status, unlocks, displayGraphs);
+		this.saveDisplayMPG(mpgForLock, displayGraphs, saveGraphs);
 		
 		// STEP 3: CREATE THE CFG & EFG FOR EACH FUNCTION IN THE LOCK MPG
 		Q mpgFunctionsQ = mpgForLock.difference(mpgForLock.leaves());
@@ -180,48 +312,110 @@ public class LockVerificationGraphsGenerator {
 			markup.set(unlockEvents, MarkupProperty.NODE_BACKGROUND_COLOR, Color.GREEN);
 			markup.set(callsiteEvents, MarkupProperty.NODE_BACKGROUND_COLOR, Color.BLUE);
 			
-			this.saveDisplayCFG(cfgGraph, methodName, sourceFile, markup, displayGraphs);
-			this.saveDisplayPCG(cfg, methodName, sourceFile, eventNodes, markup, displayGraphs);
+			this.saveDisplayCFG(cfgGraph, methodName, sourceFile, markup, displayGraphs, saveGraphs);
+			this.saveDisplayPCG(cfg, methodName, sourceFile, eventNodes, markup, displayGraphs, saveGraphs);
 		}
 	}
 	
 	/**
-	 * Creates and saves the MPG for the given <code>lock</code>.
+	 * Saves the description of the verification graphs of the given <code>lock</code> to {@link #currentLockGraphsOutputDirectory}.
+	 * 
+	 * @param lock The {@link XCSG#ControlFlow_Node} contains a call to lock.
+	 * @param status The {@link VerificationStatus} for the given <code>lock</code>.
+	 * @param unlocks A list of {@link XCSG#ControlFlow_Node}s matched with the given <code>lock</code>.
+	 * @param mpgForLock The MPG constructed by {@link #constructMPGForLock(Node, VerificationStatus, AtlasSet)}.
+	 * @return true if the description is saved, otherwise false if the <code>lock</code> or one of its <code>unlocks</code> has no {@link SourceCorrespondence}
+	 * to find it by when the graphs are rendered, or the description cannot be written.
+	 */
+	private boolean saveLockDescription(Node lock, VerificationStatus status, AtlasSet<Node> unlocks, Q mpgForLock){
+		Properties description = new Properties();
+		description.setProperty("status", status.name());
+		Object lockSourceCorrespondence = lock.getAttr(XCSG.sourceCorrespondence);
+		if(lockSourceCorrespondence == null){
+			LSAPUtils.log("Cannot describe lock [" + lock.getAttr(XCSG.name) + "] without a source correspondence, its graphs are rendered right away.");
+			return false;
+		}
+		description.setProperty("lock", lockSourceCorrespondence.toString());
+		int index = 0;
+		for(Node unlock : unlocks){
+			Object unlockSourceCorrespondence = unlock.getAttr(XCSG.sourceCorrespondence);
+			if(unlockSourceCorrespondence == null){
+				LSAPUtils.log("Cannot describe unlock [" + unlock.getAttr(XCSG.name) + "] without a source correspondence, the graphs of lock [" + lockSourceCorrespondence + "] are rendered right away.");
+				return false;
+			}
+			description.setProperty("unlock." + index++, unlockSourceCorrespondence.toString());
+		}
+		Graph mpgForLockGraph = mpgForLock.eval();
+		index = 0;
+		for(Node mpgFunction : mpgForLockGraph.nodes()){
+			description.setProperty("function." + index++, LSAPUtils.nodeKey(mpgFunction));
+		}
+		index = 0;
+		for(Edge mpgEdge : mpgForLockGraph.edges()){
+			description.setProperty("edge." + index + ".from", LSAPUtils.nodeKey(mpgEdge.from()));
+			description.setProperty("edge." + index++ + ".to", LSAPUtils.nodeKey(mpgEdge.to()));
+		}
+		return LSAPUtils.storeProperties(description, this.currentLockGraphsOutputDirectory.toPath().resolve(LOCK_DESCRIPTION_FILE_NAME), "L-SAP lock verification graphs description");
+	}
+	
+	/**
+	 * Finds the {@link XCSG#Function} with the given <code>functionKey</code>.
+	 * 
+	 * @param functionKey A {@link String} computed by {@link LSAPUtils#nodeKey(Node)} for a {@link XCSG#Function}.
+	 * @return The {@link XCSG#Function} or null if there is none.
+	 */
+	private static Node findFunction(String functionKey){
+		String functionName = functionKey.substring(functionKey.lastIndexOf('#') + 1);
+		for(Node function : Common.universe().nodes(XCSG.Function).selectNode(XCSG.name, functionName).eval().nodes()){
+			if(LSAPUtils.nodeKey(function).equals(functionKey)){
+				return function;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Constructs the MPG for the given <code>lock</code>.
 	 * 
 	 * @param lock The {@link XCSG#ControlFlow_Node} contains a call to lock.
 	 * @param status The {@link VerificationStatus} for the given <code>lock</code>.
 	 * @param unlocks A list of {@link XCSG#ControlFlow_Node}s matched with the given <code>lock</code>.
-	 * @param displayGraphs Whether to display verification graphs to the user.
 	 * @return An MPG.
 	 */
-	private Q saveDisplayMPG(Node lock, VerificationStatus status, AtlasSet<Node> unlocks, boolean displayGraphs) {
+	private Q constructMPGForLock(Node lock, VerificationStatus status, AtlasSet<Node> unlocks) {
 		Q mpgForLock = Common.empty();
 		if(status.equals(VerificationStatus.UNPAIRED)){
-			Node containingFunctionNode = CommonQueries.getContainingFunction(lock);
+			Node containingFunctionNode = this.containingFunctionCache.getContainingFunction(lock);
 			mpgForLock = this.mpg.forward(Common.toQ(containingFunctionNode));	
 		}else{
 			mpgForLock = this.mpgForLock(lock, unlocks);
 		}
-		mpgForLock = mpgForLock.retainEdges();
+		return mpgForLock.retainEdges();
+	}
+	
+	/**
+	 * Saves and displays the given <code>mpgForLock</code>.
+	 * 
+	 * @param mpgForLock The MPG constructed by {@link #constructMPGForLock(Node, VerificationStatus, AtlasSet)}.
+	 * @param displayGraphs Whether to display verification graphs to the user.
+	 * @param saveGraphs Whether to save verification graphs to {@link #currentLockGraphsOutputDirectory}.
+	 */
+	private void saveDisplayMPG(Q mpgForLock, boolean displayGraphs, boolean saveGraphs) {
 		Graph mpgGraph = mpgForLock.eval();
 		
 		if(displayGraphs){
 			DisplayUtil.displayGraph(mpgGraph);
 		}
 		
-		if(VerificationProperties.isSaveVerificationGraphs()) {
+		if(saveGraphs) {
 			if(VerificationProperties.saveGraphsInDotFormat()){
-				com.alexmerz.graphviz.objects.Graph mpgDotGraph = DotGraphExportUtils.dotify(mpgGraph, null);
 				String mpgGraphFileName = String.format(MPG_GRAPH_FILE_NAME_PATTERN, VerificationProperties.getGraphDotFileNameExtension());
-				DotGraphExportUtils.saveDOTGraph(mpgDotGraph, this.currentLockGraphsOutputDirectory, mpgGraphFileName);
+				this.graphExportPipeline.saveDOTGraph(mpgGraph, null, this.currentLockGraphsOutputDirectory, mpgGraphFileName, this.graphStore());
 			}else{
-				try{
-					String mpgGraphFileName = String.format(MPG_GRAPH_FILE_NAME_PATTERN, VerificationProperties.getGraphImageFileNameExtension());
-					SaveUtil.saveGraph(new File(this.currentLockGraphsOutputDirectory, mpgGraphFileName), mpgGraph).join();
-				} catch (InterruptedException e) {}	
+				String mpgGraphFileName = String.format(MPG_GRAPH_FILE_NAME_PATTERN, VerificationProperties.getGraphImageFileNameExtension());
+				this.graphExportPipeline.saveGraph(mpgGraph, null, this.currentLockGraphsOutputDirectory, mpgGraphFileName, this.graphStore());
 			}
 		}
-		return mpgForLock;
 	}
 	
 	/**
@@ -232,8 +426,9 @@ public class LockVerificationGraphsGenerator {
 	 * @param sourceFile The source file for the <code>methodName</code>.
 	 * @param markup An instance of {@link Markup} defined on this <code>cfgGraph</code>.
 	 * @param displayGraphs Whether to display verification graphs to the user. 
+	 * @param saveGraphs Whether to save verification graphs to {@link #currentLockGraphsOutputDirectory}.
 	 */
-	private void saveDisplayCFG(Graph cfgGraph, String methodName, String sourceFile, Markup markup, boolean displayGraphs) {
+	private void saveDisplayCFG(Graph cfgGraph, String methodName, String sourceFile, Markup markup, boolean displayGraphs, boolean saveGraphs) {
 		long nodes = cfgGraph.nodes().size();
 		long edges = cfgGraph.edges().size();
 		long conditions = cfgGraph.nodes().tagged(XCSG.ControlFlowCondition).size();
@@ -242,16 +437,13 @@ public class LockVerificationGraphsGenerator {
 			DisplayUtil.displayGraph(markup, cfgGraph);
 		}
 		
-		if(VerificationProperties.isSaveVerificationGraphs()) {
+		if(saveGraphs) {
 			if(VerificationProperties.saveGraphsInDotFormat()){
-				com.alexmerz.graphviz.objects.Graph cfgDotGraph = DotGraphExportUtils.dotify(cfgGraph, markup);
 				String cfgFileName = String.format(CFG_GRAPH_FILE_NAME_PATTERN, methodName, sourceFile, nodes, edges, conditions, VerificationProperties.getGraphDotFileNameExtension());
-				DotGraphExportUtils.saveDOTGraph(cfgDotGraph, this.currentLockGraphsOutputDirectory, cfgFileName);
+				this.graphExportPipeline.saveDOTGraph(cfgGraph, markup, this.currentLockGraphsOutputDirectory, cfgFileName, this.graphStore());
 			}else{
-				try{
-					String cfgFileName = String.format(CFG_GRAPH_FILE_NAME_PATTERN, methodName, sourceFile, nodes, edges, conditions, VerificationProperties.getGraphImageFileNameExtension());
-					SaveUtil.saveGraph(new File(this.currentLockGraphsOutputDirectory, cfgFileName), cfgGraph, markup).join();
-				} catch (InterruptedException e) {}
+				String cfgFileName = String.format(CFG_GRAPH_FILE_NAME_PATTERN, methodName, sourceFile, nodes, edges, conditions, VerificationProperties.getGraphImageFileNameExtension());
+				this.graphExportPipeline.saveGraph(cfgGraph, markup, this.currentLockGraphsOutputDirectory, cfgFileName, this.graphStore());
 			}
 		}
 	}
@@ -265,8 +457,9 @@ public class LockVerificationGraphsGenerator {
 	 * @param eventNodes A list of event nodes to be used for {@link PCG} construction from the <code>cfg</code>.
 	 * @param markup An instance of {@link Markup} defined on this <code>cfg</code>.
 	 * @param displayGraphs  Whether to display verification graphs to the user. 
+	 * @param saveGraphs Whether to save verification graphs to {@link #currentLockGraphsOutputDirectory}.
 	 */
-	private void saveDisplayPCG(Q cfg, String methodName, String sourceFile, Q eventNodes, Markup markup, boolean displayGraphs) {
+	private void saveDisplayPCG(Q cfg, String methodName, String sourceFile, Q eventNodes, Markup markup, boolean displayGraphs, boolean saveGraphs) {
 		PCG pcg = PCGFactory.create(cfg, cfg.nodes(XCSG.controlFlowRoot), cfg.nodes(XCSG.controlFlowExitPoint), eventNodes);
 		Q pcgQ = pcg.getPCG();
 		Graph pcgGraph = pcgQ.eval();
@@ -285,16 +478,13 @@ public class LockVerificationGraphsGenerator {
 			DisplayUtil.displayGraph(markup, pcgGraph);
 		}
 		
-		if(VerificationProperties.isSaveVerificationGraphs()) {
+		if(saveGraphs) {
 			if(VerificationProperties.saveGraphsInDotFormat()){
-				com.alexmerz.graphviz.objects.Graph efgDotGraph = DotGraphExportUtils.dotify(pcgGraph, markup);
 				String pcgFileName = String.format(PCG_GRAPH_FILE_NAME_PATTERN, methodName, sourceFile, nodes, edges, conditions, VerificationProperties.getGraphDotFileNameExtension());
-				DotGraphExportUtils.saveDOTGraph(efgDotGraph, this.currentLockGraphsOutputDirectory, pcgFileName);
+				this.graphExportPipeline.saveDOTGraph(pcgGraph, markup, this.currentLockGraphsOutputDirectory, pcgFileName, this.graphStore());
 			}else{
-				try {
-					String pcgFileName = String.format(PCG_GRAPH_FILE_NAME_PATTERN, methodName, sourceFile, nodes, edges, conditions, VerificationProperties.getGraphImageFileNameExtension());
-					SaveUtil.saveGraph(new File(this.currentLockGraphsOutputDirectory, pcgFileName), pcgGraph, markup).join();
-				} catch (InterruptedException e) {}
+				String pcgFileName = String.format(PCG_GRAPH_FILE_NAME_PATTERN, methodName, sourceFile, nodes, edges, conditions, VerificationProperties.getGraphImageFileNameExtension());
+				this.graphExportPipeline.saveGraph(pcgGraph, markup, this.currentLockGraphsOutputDirectory, pcgFileName, this.graphStore());
 			}
 		}
 	}
@@ -406,6 +596,18 @@ public class LockVerificationGraphsGenerator {
 		return string.replace('/', '@');
 	}
 	
+	/**
+	 * Returns the {@link GraphStore} the exported graphs are stored in, opening it on the first call.
+	 * 
+	 * @return The {@link GraphStore} of {@link #graphsOutputDirectory}, or null if each lock directory holds its own graph files.
+	 */
+	private GraphStore graphStore(){
+		if(this.graphStore == null && this.graphStoreEnabled){
+			this.graphStore = this.graphExportPipeline.openStore(this.graphsOutputDirectory);
+		}
+		return this.graphStore;
+	}
+	
 	/**
 	 * An enumeration for the verification status.
 	 */
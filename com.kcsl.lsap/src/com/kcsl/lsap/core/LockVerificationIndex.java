@@ -0,0 +1,145 @@
+package com.kcsl.lsap.core;
+
+import java.lang.ref.SoftReference;
+import java.nio.file.Path;
+import java.util.EnumSet;
+
+import com.ensoftcorp.atlas.core.db.graph.Node;
+import com.ensoftcorp.atlas.core.db.map.AtlasGraphKeyHashMap;
+import com.ensoftcorp.atlas.core.db.map.AtlasMap;
+import com.ensoftcorp.atlas.core.query.Q;
+import com.ensoftcorp.atlas.core.xcsg.XCSG;
+import com.kcsl.lsap.core.LockVerificationGraphsGenerator.VerificationStatus;
+
+/**
+ * An index from each lock verified by the batch verification to the results of its signature, so the interactive verification of a lock
+ * only constructs the graphs it displays instead of re-verifying the whole signature.
+ * <p>
+ * The results of a signature are shared by all of its locks. The index is keyed by the lock {@link Node}s, so it is cleared by {@link #clear()}
+ * at the start of every batch verification and has to be cleared after re-indexing. The results are softly referenced, so the garbage collector
+ * reclaims them before running out of memory and a lock whose results are reclaimed is verified again.
+ */
+public class LockVerificationIndex {
+
+	/**
+	 * A mapping from a {@link XCSG#ControlFlow_Node} containing a call to lock to its {@link LockVerificationResult}.
+	 */
+	private static final AtlasMap<Node, SoftReference<LockVerificationResult>> RESULTS = new AtlasGraphKeyHashMap<Node, SoftReference<LockVerificationResult>>();
+
+	/**
+	 * A private constructor to prevent intentional initializations of this class.
+	 *
+	 * @throws IllegalAccessException If any initialization occur to this class.
+	 */
+	private LockVerificationIndex() throws IllegalAccessException {
+		throw new IllegalAccessException();
+	}
+
+	/**
+	 * Indexes the verification results of the given <code>lock</code>.
+	 *
+	 * @param lock A {@link XCSG#ControlFlow_Node} containing a call to lock.
+	 * @param result The {@link LockVerificationResult} of the signature verifying <code>lock</code>.
+	 */
+	public static synchronized void put(Node lock, LockVerificationResult result){
+		RESULTS.put(lock, new SoftReference<LockVerificationResult>(result));
+	}
+
+	/**
+	 * Returns the indexed verification results of the given <code>lock</code>.
+	 *
+	 * @param lock A {@link XCSG#ControlFlow_Node} containing a call to lock.
+	 * @return The {@link LockVerificationResult} for <code>lock</code> or null if it has not been verified by a batch verification or its results are reclaimed.
+	 */
+	public static synchronized LockVerificationResult get(Node lock){
+		SoftReference<LockVerificationResult> reference = RESULTS.get(lock);
+		if(reference == null){
+			return null;
+		}
+		LockVerificationResult result = reference.get();
+		if(result == null){
+			RESULTS.remove(lock);
+		}
+		return result;
+	}
+
+	/**
+	 * Discards all the indexed verification results.
+	 */
+	public static synchronized void clear(){
+		RESULTS.clear();
+	}
+
+	/**
+	 * The verification results of a lock: the MPG and {@link MatchingPair}s of its signature along with the {@link VerificationStatus}es of the lock.
+	 */
+	public static class LockVerificationResult {
+
+		/**
+		 * The signature {@link Node} verifying the lock.
+		 */
+		private final Node signatureNode;
+
+		/**
+		 * The MPG associated with {@link #signatureNode}.
+		 */
+		private final Q mpg;
+
+		/**
+		 * The {@link MatchingPair}s of the locks of {@link #signatureNode}.
+		 */
+		private final MatchingPairTable matchingPairs;
+
+		/**
+		 * The {@link VerificationStatus}es of the lock.
+		 */
+		private final EnumSet<VerificationStatus> statuses;
+
+		/**
+		 * Constructs a new instance of {@link LockVerificationResult}.
+		 *
+		 * @param signatureNode See corresponding field for details.
+		 * @param mpg See corresponding field for details.
+		 * @param matchingPairs See corresponding field for details.
+		 */
+		public LockVerificationResult(Node signatureNode, Q mpg, MatchingPairTable matchingPairs) {
+			this.signatureNode = signatureNode;
+			this.mpg = mpg;
+			this.matchingPairs = matchingPairs;
+			this.statuses = EnumSet.noneOf(VerificationStatus.class);
+		}
+
+		/**
+		 * Adds the given <code>status</code> to the {@link VerificationStatus}es of the lock.
+		 *
+		 * @param status A {@link VerificationStatus} of the lock.
+		 */
+		public void addStatus(VerificationStatus status){
+			this.statuses.add(status);
+		}
+
+		public Node getSignatureNode() {
+			return this.signatureNode;
+		}
+
+		public EnumSet<VerificationStatus> getStatuses() {
+			return this.statuses;
+		}
+
+		/**
+		 * Displays the verification graphs of the given <code>lock</code> for each of its {@link VerificationStatus}es.
+		 *
+		 * @param lock A {@link XCSG#ControlFlow_Node} containing a call to lock.
+		 * @param graphsOutputDirectoryPath A {@link Path} to where the verification graphs to be stored.
+		 * @param graphExportPipeline The {@link GraphExportPipeline} the verification graphs are exported by.
+		 */
+		public void display(Node lock, Path graphsOutputDirectoryPath, GraphExportPipeline graphExportPipeline){
+			LockVerificationGraphsGenerator lockVerificationGraphsGenerator = new LockVerificationGraphsGenerator(this.signatureNode, this.mpg, this.matchingPairs, graphsOutputDirectoryPath, graphExportPipeline, new ContainingFunctionCache());
+			for(VerificationStatus status : this.statuses){
+				lockVerificationGraphsGenerator.process(lock, status, true);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,93 @@
+package com.kcsl.lsap.core;
+
+import java.util.Arrays;
+
+import com.ensoftcorp.atlas.core.db.graph.Edge;
+import com.ensoftcorp.atlas.core.db.graph.Graph;
+import com.ensoftcorp.atlas.core.db.graph.GraphElement;
+import com.ensoftcorp.atlas.core.db.graph.Node;
+import com.ensoftcorp.atlas.core.db.set.AtlasSet;
+import com.ensoftcorp.atlas.core.query.Q;
+import com.ensoftcorp.atlas.core.xcsg.XCSG;
+
+/**
+ * A canonical fingerprint of the verification input of a signature: its MPG nodes and edges and the {@link XCSG#ControlFlow_Node}s containing its events.
+ * <p>
+ * Two signatures with equal fingerprints produce the same verification results, so only one of them needs to be verified.
+ */
+public class MPGFingerprint {
+
+	/**
+	 * The sorted {@link GraphElement#addressBits()} of the MPG nodes.
+	 */
+	private final long[] mpgNodes;
+
+	/**
+	 * The sorted {@link GraphElement#addressBits()} of the MPG edges.
+	 */
+	private final long[] mpgEdges;
+
+	/**
+	 * The sorted {@link GraphElement#addressBits()} of the {@link XCSG#ControlFlow_Node}s containing the events.
+	 */
+	private final long[] eventNodes;
+
+	/**
+	 * The cached hash code for this instance.
+	 */
+	private final int hashCode;
+
+	/**
+	 * Constructs a new instance of {@link MPGFingerprint} for the given <code>mpg</code> and <code>cfgNodesContainingEvents</code>.
+	 *
+	 * @param mpg A {@link Q} corresponding to the matching pair graph.
+	 * @param cfgNodesContainingEvents A {@link Q} containing the CFG nodes that correspond to lock/unlock call events.
+	 */
+	public MPGFingerprint(Q mpg, Q cfgNodesContainingEvents) {
+		Graph mpgGraph = mpg.eval();
+		this.mpgNodes = addresses(mpgGraph.nodes());
+		this.mpgEdges = addresses(mpgGraph.edges());
+		this.eventNodes = addresses(cfgNodesContainingEvents.eval().nodes());
+		int result = Arrays.hashCode(this.mpgNodes);
+		result = 31 * result + Arrays.hashCode(this.mpgEdges);
+		result = 31 * result + Arrays.hashCode(this.eventNodes);
+		this.hashCode = result;
+	}
+
+	/**
+	 * Collects the sorted {@link GraphElement#addressBits()} of the given <code>elements</code>.
+	 *
+	 * @param elements A set of {@link Node}s or {@link Edge}s.
+	 * @return A sorted array of addresses.
+	 */
+	private static long[] addresses(AtlasSet<? extends GraphElement> elements){
+		long[] addresses = new long[(int) elements.size()];
+		int index = 0;
+		for(GraphElement element : elements){
+			addresses[index++] = element.addressBits();
+		}
+		Arrays.sort(addresses);
+		return addresses;
+	}
+
+	@Override
+	public int hashCode() {
+		return this.hashCode;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		MPGFingerprint other = (MPGFingerprint) obj;
+		return this.hashCode == other.hashCode
+				&& Arrays.equals(this.mpgNodes, other.mpgNodes)
+				&& Arrays.equals(this.mpgEdges, other.mpgEdges)
+				&& Arrays.equals(this.eventNodes, other.eventNodes);
+	}
+
+}
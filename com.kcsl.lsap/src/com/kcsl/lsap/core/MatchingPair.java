@@ -10,10 +10,8 @@ import com.ensoftcorp.atlas.core.db.list.AtlasArrayList;
 import com.ensoftcorp.atlas.core.db.list.AtlasList;
 import com.ensoftcorp.atlas.core.db.map.AtlasMap;
 import com.ensoftcorp.atlas.core.db.graph.Edge;
-import com.ensoftcorp.atlas.core.db.set.AtlasHashSet;
 import com.ensoftcorp.atlas.core.db.set.AtlasSet;
 import com.ensoftcorp.atlas.core.xcsg.XCSG;
-import com.ensoftcorp.open.commons.analysis.CommonQueries;
 import com.ensoftcorp.open.pcg.common.PCG.PCGNode;
 import com.kcsl.lsap.VerificationProperties;
 import com.kcsl.lsap.feasibility.FeasibilityChecker;
@@ -21,33 +19,25 @@ import com.kcsl.lsap.utils.LSAPUtils;
 
 /**
  * A class that records a matching results from the verification process.
+ * <p>
+ * An instance is a view over a record of a {@link MatchingPairTable}, which stores the events and the result of the pair.
  */
 public class MatchingPair {
 
 	/**
-	 * The first {@link Node} matched with {@link #secondEvent}.
+	 * The {@link MatchingPairTable} storing this pair.
 	 */
-	private Node firstEvent;
+	private final MatchingPairTable table;
 	
 	/**
-	 * The second {@link Node} matched with {@link #firstEvent}.
+	 * The dense id of the first event of this pair in {@link #table}.
 	 */
-	private Node secondEvent;
+	private final int firstEventId;
 	
 	/**
-	 * The list of {@link Node}s corresponding to the path where this matching occurs.
+	 * The index of this pair among the pairs of its first event in {@link #table}.
 	 */
-	private AtlasList<Node> path;
-	
-	/**
-	 * The other event {@link Node}s that should be excluded from the {@link #path} when processing the match.
-	 */
-	private AtlasSet<Node> excludedNodes;
-	
-	/**
-	 * The {@link VerificationResult} that led to this instance of {@link MatchingPair}.
-	 */
-	private VerificationResult result;
+	private final int index;
 	
 	/**
 	 * An enumeration for the possible outcomes of the verification process.
@@ -57,47 +47,36 @@ public class MatchingPair {
 	}
 
 	/**
-	 * Constructs a new instance of {@link MatchingPair} with <code>firstEvent</code> and <code>secondEvent</code> nodes along the <code>path</code>.
-	 * @param firstEvent See corresponding field.
-	 * @param secondEvent See corresponding field.
-	 * @param path See corresponding field.
+	 * Constructs a new instance of {@link MatchingPair} viewing the pair at <code>index</code> of <code>firstEventId</code> in <code>table</code>.
+	 * @param table See corresponding field.
+	 * @param firstEventId See corresponding field.
+	 * @param index See corresponding field.
 	 */
-	public MatchingPair(Node firstEvent, Node secondEvent, List<Node> path) {
-		this.result = null;
-		this.setFirstEvent(firstEvent);
-		this.setSecondEvent(secondEvent);
-		this.path = new AtlasArrayList<Node>();
-		this.path.add(this.getFirstEvent());
-		this.path.add(this.getSecondEvent());
+	MatchingPair(MatchingPairTable table, int firstEventId, int index) {
+		this.table = table;
+		this.firstEventId = firstEventId;
+		this.index = index;
 	}
 	
 	/**
 	 * Computes the verification results for this instance of {@link MatchingPair}.
 	 * 
 	 * @param lockCallEvents A list of {@link Node}s corresponding to lock call events.
-	 * @param unlockCallEvents A list of {@link Node}s corresponding to unlock call events.
+	 * @param excludedNodes The lock and unlock call event {@link Node}s that should be excluded from the path when processing the match,
+	 * shared by all the pairs of the signature.
 	 * @param mayEventsFeasibility A list of {@link Node} that has multiple lock states.
 	 * @param summaries A mapping between a {@link Node} to its corresponding {@link FunctionSummary}.
+	 * @param containingFunctionCache The {@link ContainingFunctionCache} of the verification run.
 	 */
-	public void verify(AtlasSet<Node> lockCallEvents, AtlasSet<Node> unlockCallEvents, AtlasMap<Node, Boolean> mayEventsFeasibility, AtlasMap<Node, FunctionSummary> summaries) {
-		if (this.excludedNodes == null) {
-			this.excludedNodes = new AtlasHashSet<Node>();
-			for (Node node : lockCallEvents) {
-				excludedNodes.add(node);
-			}
-
-			for (Node node : unlockCallEvents) {
-				excludedNodes.add(node);
-			}
-		}
+	public void verify(AtlasSet<Node> lockCallEvents, AtlasSet<Node> excludedNodes, AtlasMap<Node, Boolean> mayEventsFeasibility, AtlasMap<Node, FunctionSummary> summaries, ContainingFunctionCache containingFunctionCache) {
 
 		// The first event correspond to a (mayEvent). That means, it may be not an actual event on specific path
 		if (VerificationProperties.isFeasibilityCheckingEnabled()) {
 			if (mayEventsFeasibility.containsKey(this.getFirstEvent())) {
 				boolean lockOnTrueBranch = mayEventsFeasibility.get(this.getFirstEvent());
-				Node containingFunction = CommonQueries.getContainingFunction(this.getFirstEvent());
+				Node containingFunction = containingFunctionCache.getContainingFunction(this.getFirstEvent());
 				FunctionSummary s = summaries.get(containingFunction);
-				AtlasList<Node> p = this.getPathContainingNode(s.getFeasibilityChecker());
+				AtlasList<Node> p = this.getPathContainingNode(s.getFeasibilityChecker(), excludedNodes, containingFunctionCache);
 				if (p == null || p.isEmpty()) {
 					this.setResult(VerificationResult.DEADLOCKED);
 					return;
@@ -122,7 +101,7 @@ public class MatchingPair {
 		// The first event is a locking event
 		if (this.getSecondEvent().taggedWith(PCGNode.PCGMasterExit)) {
 			// Lock is not followed by Unlock (Error Case)
-			if (!VerificationProperties.isFeasibilityCheckingEnabled() || this.checkPathFeasibility(summaries)) {
+			if (!VerificationProperties.isFeasibilityCheckingEnabled() || this.checkPathFeasibility(summaries, excludedNodes, containingFunctionCache)) {
 				// Path is (Feasible) >> An actual (Error Case)
 				this.setResult(VerificationResult.DANGLING_LOCK);
 			} else {
@@ -131,7 +110,7 @@ public class MatchingPair {
 		} else {
 			if (lockCallEvents.contains(this.getSecondEvent())) {
 				// Lock followed by Lock (Error Case)
-				if (!VerificationProperties.isFeasibilityCheckingEnabled() || this.checkPathFeasibility(summaries)) {
+				if (!VerificationProperties.isFeasibilityCheckingEnabled() || this.checkPathFeasibility(summaries, excludedNodes, containingFunctionCache)) {
 					// Path is (Feasible) >> An actual (Error Case)
 					this.setResult(VerificationResult.DEADLOCKED);
 				} else {
@@ -148,35 +127,37 @@ public class MatchingPair {
 	 * Checks the path feasibility for this instance of {@link MatchingPair}. The feasibility check in intra-procedural.
 	 * 
 	 * @param summaries A mapping between a {@link Node} and its corresponding {@link FunctionSummary}.
+	 * @param excludedNodes The event {@link Node}s that should be excluded from the path.
+	 * @param containingFunctionCache The {@link ContainingFunctionCache} of the verification run.
 	 * @return true if the path is feasible, otherwise false.
 	 */
-	private boolean checkPathFeasibility(AtlasMap<Node, FunctionSummary> summaries) {
-		Node functionForE1 = CommonQueries.getContainingFunction(this.getFirstEvent());
-		Node functionForE2 = CommonQueries.getContainingFunction(this.getSecondEvent());
+	private boolean checkPathFeasibility(AtlasMap<Node, FunctionSummary> summaries, AtlasSet<Node> excludedNodes, ContainingFunctionCache containingFunctionCache) {
+		Node functionForE1 = containingFunctionCache.getContainingFunction(this.getFirstEvent());
+		Node functionForE2 = containingFunctionCache.getContainingFunction(this.getSecondEvent());
 		if (functionForE1.equals(functionForE2)) {
 			// The two events are in the same function
 			FunctionSummary summary = summaries.get(functionForE1);
 			FeasibilityChecker feasibilityChecker = summary.getFeasibilityChecker();
 			if (this.getSecondEvent().taggedWith(PCGNode.PCGMasterExit)) {
-				return feasibilityChecker.checkPathFeasibility(this.getFirstEvent(), null, this.excludedNodes);
+				return feasibilityChecker.checkPathFeasibility(this.getFirstEvent(), null, excludedNodes);
 			}
 			return feasibilityChecker.checkPathFeasibility(this.getFirstEvent(), this.getSecondEvent(),
-					this.excludedNodes);
+					excludedNodes);
 		} else {
 			// Two events are in different functions
 			FunctionSummary summaryF1 = summaries.get(functionForE1);
 			FeasibilityChecker feasibilityCheckerF1 = summaryF1.getFeasibilityChecker();
 			boolean isFeasibleF1 = feasibilityCheckerF1.checkPathFeasibility(this.getFirstEvent(), null,
-					this.excludedNodes);
+					excludedNodes);
 
 			FunctionSummary summaryF2 = summaries.get(functionForE2);
 			FeasibilityChecker feasibilityCheckerF2 = summaryF2.getFeasibilityChecker();
 			boolean isFeasibleF2 = false;
 			if (this.getSecondEvent().taggedWith(PCGNode.PCGMasterExit)) {
-				isFeasibleF2 = feasibilityCheckerF2.checkPathFeasibility(null, null, this.excludedNodes);
+				isFeasibleF2 = feasibilityCheckerF2.checkPathFeasibility(null, null, excludedNodes);
 			} else {
 				isFeasibleF2 = feasibilityCheckerF2.checkPathFeasibility(null, this.getSecondEvent(),
-						this.excludedNodes);
+						excludedNodes);
 			}
 			return (isFeasibleF1 && isFeasibleF2);
 		}
@@ -185,12 +166,13 @@ public class MatchingPair {
 	/**
 	 * Get the matching event for the {@link #firstEvent} within a function.
 	 * 
+	 * @param containingFunctionCache The {@link ContainingFunctionCache} of the verification run.
 	 * @return An array of two elements: the first element is {@link #firstEvent}, the second element can be {@link #secondEvent} if its within
 	 * the containing function of {@link #firstEvent}, otherwise the second element is null.
 	 */
-	private Node[] getEventsWithRespectToFirstEvent() {
-		Node functionForE1 = CommonQueries.getContainingFunction(this.getFirstEvent());
-		Node functionForE2 = CommonQueries.getContainingFunction(this.getSecondEvent());
+	private Node[] getEventsWithRespectToFirstEvent(ContainingFunctionCache containingFunctionCache) {
+		Node functionForE1 = containingFunctionCache.getContainingFunction(this.getFirstEvent());
+		Node functionForE2 = containingFunctionCache.getContainingFunction(this.getSecondEvent());
 		if (functionForE1.equals(functionForE2)) {
 			// The two events are in the same function
 			if (this.getSecondEvent().taggedWith(PCGNode.PCGMasterExit)) {
@@ -206,11 +188,13 @@ public class MatchingPair {
 	 * Finds a list of {@link Node}s corresponding to path containing the {@link #firstEvent} and {@link #secondEvent}.
 	 * 
 	 * @param feasibilityChecker An instance of {@link FeasibilityChecker} to be used in finding the path.
+	 * @param excludedNodes The event {@link Node}s that should be excluded from the path.
+	 * @param containingFunctionCache The {@link ContainingFunctionCache} of the verification run.
 	 * @return A list of {@link Node}s or null if the path cannot be found.
 	 */
-	private AtlasList<Node> getPathContainingNode(FeasibilityChecker feasibilityChecker) {
-		Node[] nodes = this.getEventsWithRespectToFirstEvent();
-		ArrayList<AtlasList<Node>> allPaths = feasibilityChecker.getPathsContainingNodes(this.getFirstEvent(), nodes[1], this.excludedNodes);
+	private AtlasList<Node> getPathContainingNode(FeasibilityChecker feasibilityChecker, AtlasSet<Node> excludedNodes, ContainingFunctionCache containingFunctionCache) {
+		Node[] nodes = this.getEventsWithRespectToFirstEvent(containingFunctionCache);
+		ArrayList<AtlasList<Node>> allPaths = feasibilityChecker.getPathsContainingNodes(this.getFirstEvent(), nodes[1], excludedNodes);
 		if(allPaths.size() == 1 || !this.getFirstEvent().tags().contains(XCSG.ControlFlowCondition)){
 			return allPaths.get(0);
 		}
@@ -234,36 +218,27 @@ public class MatchingPair {
 	}
 
 	public Node getFirstEvent() {
-		return firstEvent;
-	}
-
-	public void setFirstEvent(Node e1Event) {
-		this.firstEvent = e1Event;
+		return this.table.getEvent(this.firstEventId);
 	}
 
 	public Node getSecondEvent() {
-		return secondEvent;
-	}
-
-	public void setSecondEvent(Node e2Event) {
-		this.secondEvent = e2Event;
+		return this.table.getSecondEvent(this.firstEventId, this.index);
 	}
 	
 	public VerificationResult getResult() {
-		return result;
+		return this.table.getResult(this.firstEventId, this.index);
 	}
 
 	public void setResult(VerificationResult result) {
-		this.result = result;
+		this.table.setResult(this.firstEventId, this.index, result);
 	}
 	
 	@Override
 	public int hashCode() {
 		final int prime = 31;
-		int result = 1;
-		result = prime * result + ((firstEvent == null) ? 0 : firstEvent.hashCode());
-		result = prime * result + ((secondEvent == null) ? 0 : secondEvent.hashCode());
-		result = prime * result + ((path == null) ? 0 : path.hashCode());
+		int result = System.identityHashCode(this.table);
+		result = prime * result + this.firstEventId;
+		result = prime * result + this.index;
 		return result;
 	}
 
@@ -276,22 +251,7 @@ public class MatchingPair {
 		if (getClass() != obj.getClass())
 			return false;
 		MatchingPair other = (MatchingPair) obj;
-		if (firstEvent == null) {
-			if (other.firstEvent != null)
-				return false;
-		} else if (!firstEvent.equals(other.firstEvent))
-			return false;
-		if (secondEvent == null) {
-			if (other.secondEvent != null)
-				return false;
-		} else if (!secondEvent.equals(other.secondEvent))
-			return false;
-		if (path == null) {
-			if (other.path != null)
-				return false;
-		} else if (!path.equals(other.path))
-			return false;
-		return true;
+		return this.table == other.table && this.firstEventId == other.firstEventId && this.index == other.index;
 	}
 	
 	@Override
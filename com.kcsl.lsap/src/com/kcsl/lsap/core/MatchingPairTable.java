@@ -0,0 +1,239 @@
+package com.kcsl.lsap.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.ensoftcorp.atlas.core.db.graph.Node;
+import com.ensoftcorp.atlas.core.db.map.AtlasGraphKeyHashMap;
+import com.ensoftcorp.atlas.core.db.map.AtlasMap;
+import com.ensoftcorp.atlas.core.db.set.AtlasHashSet;
+import com.ensoftcorp.atlas.core.db.set.AtlasSet;
+import com.kcsl.lsap.core.MatchingPair.VerificationResult;
+
+/**
+ * The {@link MatchingPair}s of a signature stored as packed primitive records.
+ * <p>
+ * The events are interned to dense ids and the pairs of each first event are kept as growable arrays of the second event ids
+ * and result bytes, indexed by the first event id. The {@link MatchingPair}s handed out by {@link #getMatchingPairs(Node)}
+ * are views over these records, so a pair costs an int and a byte instead of an object graph.
+ */
+public class MatchingPairTable {
+
+	/**
+	 * The id of a missing event.
+	 */
+	private static final int NO_EVENT = -1;
+
+	/**
+	 * The result byte of a pair that is not verified yet.
+	 */
+	private static final byte NO_RESULT = -1;
+
+	/**
+	 * The initial capacity of the per event arrays.
+	 */
+	private static final int INITIAL_CAPACITY = 16;
+
+	/**
+	 * The {@link VerificationResult}s indexed by their ordinal.
+	 */
+	private static final VerificationResult[] RESULTS = VerificationResult.values();
+
+	/**
+	 * A mapping from an event {@link Node} to its dense id.
+	 */
+	private final AtlasMap<Node, Integer> eventIds;
+
+	/**
+	 * The event {@link Node}s indexed by their dense id.
+	 */
+	private Node[] events;
+
+	/**
+	 * The number of interned events.
+	 */
+	private int eventsCount;
+
+	/**
+	 * The ids of the second events of the pairs, indexed by the id of their first event.
+	 */
+	private int[][] secondEventIds;
+
+	/**
+	 * The {@link VerificationResult} ordinals of the pairs, indexed by the id of their first event.
+	 */
+	private byte[][] results;
+
+	/**
+	 * The number of pairs, indexed by the id of their first event.
+	 */
+	private int[] pairsCounts;
+
+	/**
+	 * The first events that have at least one pair.
+	 */
+	private final AtlasSet<Node> firstEvents;
+
+	/**
+	 * Constructs a new instance of {@link MatchingPairTable}.
+	 */
+	public MatchingPairTable() {
+		this.eventIds = new AtlasGraphKeyHashMap<Node, Integer>();
+		this.events = new Node[INITIAL_CAPACITY];
+		this.eventsCount = 0;
+		this.secondEventIds = new int[INITIAL_CAPACITY][];
+		this.results = new byte[INITIAL_CAPACITY][];
+		this.pairsCounts = new int[INITIAL_CAPACITY];
+		this.firstEvents = new AtlasHashSet<Node>();
+	}
+
+	/**
+	 * Adds the pair of <code>firstEvent</code> and <code>secondEvent</code> unless it is already in this table.
+	 *
+	 * @param firstEvent The {@link Node} corresponding to the lock event.
+	 * @param secondEvent The {@link Node} matched with <code>firstEvent</code>.
+	 */
+	public void add(Node firstEvent, Node secondEvent){
+		int firstEventId = this.intern(firstEvent);
+		int secondEventId = secondEvent == null ? NO_EVENT : this.intern(secondEvent);
+		int[] secondEventIds = this.secondEventIds[firstEventId];
+		int pairsCount = this.pairsCounts[firstEventId];
+		if(secondEventIds == null){
+			secondEventIds = new int[4];
+			this.secondEventIds[firstEventId] = secondEventIds;
+			this.results[firstEventId] = new byte[4];
+			this.firstEvents.add(firstEvent);
+		}
+		for(int index = 0; index < pairsCount; index++){
+			if(secondEventIds[index] == secondEventId){
+				return;
+			}
+		}
+		if(pairsCount == secondEventIds.length){
+			secondEventIds = Arrays.copyOf(secondEventIds, pairsCount * 2);
+			this.secondEventIds[firstEventId] = secondEventIds;
+			this.results[firstEventId] = Arrays.copyOf(this.results[firstEventId], pairsCount * 2);
+		}
+		secondEventIds[pairsCount] = secondEventId;
+		this.results[firstEventId][pairsCount] = NO_RESULT;
+		this.pairsCounts[firstEventId] = pairsCount + 1;
+	}
+
+	/**
+	 * Returns the first events that have at least one pair.
+	 *
+	 * @return A set of {@link Node}s corresponding to lock events.
+	 */
+	public AtlasSet<Node> getFirstEvents(){
+		return this.firstEvents;
+	}
+
+	/**
+	 * Returns the pairs of the given <code>firstEvent</code>.
+	 *
+	 * @param firstEvent The {@link Node} corresponding to the lock event.
+	 * @return A list of {@link MatchingPair} views or null if <code>firstEvent</code> has no pairs.
+	 */
+	public List<MatchingPair> getMatchingPairs(Node firstEvent){
+		Integer firstEventId = this.eventIds.get(firstEvent);
+		if(firstEventId == null || this.pairsCounts[firstEventId] == 0){
+			return null;
+		}
+		int pairsCount = this.pairsCounts[firstEventId];
+		List<MatchingPair> matchingPairs = new ArrayList<MatchingPair>(pairsCount);
+		for(int index = 0; index < pairsCount; index++){
+			matchingPairs.add(new MatchingPair(this, firstEventId, index));
+		}
+		return matchingPairs;
+	}
+
+	/**
+	 * Returns the second events matched with the given <code>firstEvent</code>.
+	 *
+	 * @param firstEvent The {@link Node} corresponding to the lock event.
+	 * @return A set of the {@link Node}s matched with <code>firstEvent</code>.
+	 */
+	public AtlasSet<Node> getSecondEvents(Node firstEvent){
+		AtlasSet<Node> secondEvents = new AtlasHashSet<Node>();
+		Integer firstEventId = this.eventIds.get(firstEvent);
+		if(firstEventId != null){
+			for(int index = 0; index < this.pairsCounts[firstEventId]; index++){
+				int secondEventId = this.secondEventIds[firstEventId][index];
+				if(secondEventId != NO_EVENT){
+					secondEvents.add(this.events[secondEventId]);
+				}
+			}
+		}
+		return secondEvents;
+	}
+
+	/**
+	 * Returns the event with the given dense id.
+	 *
+	 * @param eventId The dense id of the event.
+	 * @return The event {@link Node}.
+	 */
+	Node getEvent(int eventId){
+		return this.events[eventId];
+	}
+
+	/**
+	 * Returns the second event of a pair.
+	 *
+	 * @param firstEventId The dense id of the first event of the pair.
+	 * @param index The index of the pair among the pairs of its first event.
+	 * @return The second event {@link Node} or null if there is none.
+	 */
+	Node getSecondEvent(int firstEventId, int index){
+		int secondEventId = this.secondEventIds[firstEventId][index];
+		return secondEventId == NO_EVENT ? null : this.events[secondEventId];
+	}
+
+	/**
+	 * Returns the result of a pair.
+	 *
+	 * @param firstEventId The dense id of the first event of the pair.
+	 * @param index The index of the pair among the pairs of its first event.
+	 * @return The {@link VerificationResult} of the pair or null if it is not verified yet.
+	 */
+	VerificationResult getResult(int firstEventId, int index){
+		byte result = this.results[firstEventId][index];
+		return result == NO_RESULT ? null : RESULTS[result];
+	}
+
+	/**
+	 * Sets the result of a pair.
+	 *
+	 * @param firstEventId The dense id of the first event of the pair.
+	 * @param index The index of the pair among the pairs of its first event.
+	 * @param result The {@link VerificationResult} of the pair or null.
+	 */
+	void setResult(int firstEventId, int index, VerificationResult result){
+		this.results[firstEventId][index] = result == null ? NO_RESULT : (byte) result.ordinal();
+	}
+
+	/**
+	 * Returns the dense id of <code>event</code>, interning it if needed.
+	 *
+	 * @param event An event {@link Node}.
+	 * @return The dense id of <code>event</code>.
+	 */
+	private int intern(Node event){
+		Integer eventId = this.eventIds.get(event);
+		if(eventId != null){
+			return eventId;
+		}
+		if(this.eventsCount == this.events.length){
+			int capacity = this.events.length * 2;
+			this.events = Arrays.copyOf(this.events, capacity);
+			this.secondEventIds = Arrays.copyOf(this.secondEventIds, capacity);
+			this.results = Arrays.copyOf(this.results, capacity);
+			this.pairsCounts = Arrays.copyOf(this.pairsCounts, capacity);
+		}
+		this.events[this.eventsCount] = event;
+		this.eventIds.put(event, this.eventsCount);
+		return this.eventsCount++;
+	}
+
+}
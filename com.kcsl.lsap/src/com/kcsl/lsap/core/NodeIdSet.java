@@ -0,0 +1,181 @@
+package com.kcsl.lsap.core;
+
+import java.util.Arrays;
+
+import com.ensoftcorp.atlas.core.db.graph.Node;
+import com.ensoftcorp.atlas.core.db.set.AtlasHashSet;
+import com.ensoftcorp.atlas.core.db.set.AtlasSet;
+
+/**
+ * An immutable set of {@link Node}s kept as an array of their {@link Node#addressBits()} in ascending order, so the set algebra
+ * over the small event sets of a signature is done with linear merges in memory instead of Atlas queries.
+ */
+public class NodeIdSet {
+
+	/**
+	 * An empty {@link NodeIdSet}.
+	 */
+	private static final NodeIdSet EMPTY = new NodeIdSet(new long[0], new Node[0]);
+
+	/**
+	 * The {@link Node#addressBits()} of {@link #nodes} in ascending order without duplicates.
+	 */
+	private final long[] ids;
+
+	/**
+	 * The {@link Node}s of this set in the order of {@link #ids}.
+	 */
+	private final Node[] nodes;
+
+	/**
+	 * Constructs a new instance of {@link NodeIdSet}.
+	 *
+	 * @param ids See corresponding field for details.
+	 * @param nodes See corresponding field for details.
+	 */
+	private NodeIdSet(long[] ids, Node[] nodes) {
+		this.ids = ids;
+		this.nodes = nodes;
+	}
+
+	/**
+	 * Constructs a {@link NodeIdSet} of the given <code>nodes</code>.
+	 *
+	 * @param nodes A set of {@link Node}s.
+	 * @return A {@link NodeIdSet} containing <code>nodes</code>.
+	 */
+	public static NodeIdSet of(AtlasSet<Node> nodes){
+		if(nodes.isEmpty()){
+			return EMPTY;
+		}
+		long[] ids = new long[(int) nodes.size()];
+		int size = 0;
+		for(Node node : nodes){
+			ids[size++] = node.addressBits();
+		}
+		Arrays.sort(ids);
+		Node[] sortedNodes = new Node[ids.length];
+		for(Node node : nodes){
+			sortedNodes[Arrays.binarySearch(ids, node.addressBits())] = node;
+		}
+		return new NodeIdSet(ids, sortedNodes);
+	}
+
+	/**
+	 * Computes the union of this set and <code>other</code>.
+	 *
+	 * @param other A {@link NodeIdSet}.
+	 * @return A {@link NodeIdSet} containing the {@link Node}s in this set or in <code>other</code>.
+	 */
+	public NodeIdSet union(NodeIdSet other){
+		if(other.isEmpty()){
+			return this;
+		}
+		if(this.isEmpty()){
+			return other;
+		}
+		long[] ids = new long[this.ids.length + other.ids.length];
+		Node[] nodes = new Node[ids.length];
+		int size = 0;
+		int thisIndex = 0;
+		int otherIndex = 0;
+		while(thisIndex < this.ids.length || otherIndex < other.ids.length){
+			if(otherIndex == other.ids.length || (thisIndex < this.ids.length && this.ids[thisIndex] < other.ids[otherIndex])){
+				ids[size] = this.ids[thisIndex];
+				nodes[size++] = this.nodes[thisIndex++];
+			}else if(thisIndex == this.ids.length || other.ids[otherIndex] < this.ids[thisIndex]){
+				ids[size] = other.ids[otherIndex];
+				nodes[size++] = other.nodes[otherIndex++];
+			}else{
+				ids[size] = this.ids[thisIndex];
+				nodes[size++] = this.nodes[thisIndex++];
+				otherIndex++;
+			}
+		}
+		return new NodeIdSet(trim(ids, size), trim(nodes, size));
+	}
+
+	/**
+	 * Computes the difference of this set and <code>other</code>.
+	 *
+	 * @param other A {@link NodeIdSet}.
+	 * @return A {@link NodeIdSet} containing the {@link Node}s in this set that are not in <code>other</code>.
+	 */
+	public NodeIdSet difference(NodeIdSet other){
+		if(this.isEmpty() || other.isEmpty()){
+			return this;
+		}
+		long[] ids = new long[this.ids.length];
+		Node[] nodes = new Node[ids.length];
+		int size = 0;
+		int otherIndex = 0;
+		for(int thisIndex = 0; thisIndex < this.ids.length; thisIndex++){
+			long id = this.ids[thisIndex];
+			while(otherIndex < other.ids.length && other.ids[otherIndex] < id){
+				otherIndex++;
+			}
+			if(otherIndex == other.ids.length || other.ids[otherIndex] != id){
+				ids[size] = id;
+				nodes[size++] = this.nodes[thisIndex];
+			}
+		}
+		if(size == this.ids.length){
+			return this;
+		}
+		return new NodeIdSet(trim(ids, size), trim(nodes, size));
+	}
+
+	/**
+	 * Checks whether this set is empty.
+	 *
+	 * @return true if this set has no {@link Node}s, otherwise false.
+	 */
+	public boolean isEmpty(){
+		return this.ids.length == 0;
+	}
+
+	/**
+	 * Returns the number of {@link Node}s in this set.
+	 *
+	 * @return The size of this set.
+	 */
+	public int size(){
+		return this.ids.length;
+	}
+
+	/**
+	 * Copies this set into a new {@link AtlasSet}.
+	 *
+	 * @return A new {@link AtlasSet} containing the {@link Node}s of this set.
+	 */
+	public AtlasSet<Node> toAtlasSet(){
+		AtlasSet<Node> atlasSet = new AtlasHashSet<Node>();
+		for(Node node : this.nodes){
+			atlasSet.add(node);
+		}
+		return atlasSet;
+	}
+
+	/**
+	 * Trims <code>ids</code> to its first <code>size</code> elements.
+	 *
+	 * @param ids An array of ids.
+	 * @param size The number of elements to keep.
+	 * @return <code>ids</code> if it has exactly <code>size</code> elements, otherwise a trimmed copy.
+	 */
+	private static long[] trim(long[] ids, int size){
+		return ids.length == size ? ids : Arrays.copyOf(ids, size);
+	}
+
+	/**
+	 * Trims <code>nodes</code> to its first <code>size</code> elements.
+	 *
+	 * @param nodes An array of {@link Node}s.
+	 * @param size The number of elements to keep.
+	 * @return <code>nodes</code> if it has exactly <code>size</code> elements, otherwise a trimmed copy.
+	 */
+	private static Node[] trim(Node[] nodes, int size){
+		return nodes.length == size ? nodes : Arrays.copyOf(nodes, size);
+	}
+
+}
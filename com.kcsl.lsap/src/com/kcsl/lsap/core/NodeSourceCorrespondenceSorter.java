@@ -1,31 +1,62 @@
 package com.kcsl.lsap.core;
 
-import java.util.Comparator;
+import java.util.Arrays;
+import java.util.List;
 
 import com.ensoftcorp.atlas.core.db.graph.Node;
 import com.ensoftcorp.atlas.core.index.common.SourceCorrespondence;
-import com.ensoftcorp.atlas.core.xcsg.XCSG;
 
-public class NodeSourceCorrespondenceSorter implements Comparator<Node> {
+/**
+ * Sorts {@link Node}s by the source file, offset then length of their {@link SourceCorrespondence}.
+ */
+public class NodeSourceCorrespondenceSorter {
 
-	@Override
-	public int compare(Node n1, Node n2) {
-		SourceCorrespondence sc1 = (SourceCorrespondence) n1.getAttr(XCSG.sourceCorrespondence);
-		SourceCorrespondence sc2 = (SourceCorrespondence) n2.getAttr(XCSG.sourceCorrespondence);
-		String path1 = sc1.sourceFile.getLocation().toOSString();
-		String path2 = sc2.sourceFile.getLocation().toOSString();
-		int fileComparison = path1.compareTo(path2);
-		if(fileComparison == 0){
-			int startComparison = Integer.compare(sc1.offset, sc2.offset);
-			if(startComparison == 0){
-				int lengthComparison = Integer.compare(sc1.length, sc2.length);
-				return lengthComparison;
-			} else {
-				return startComparison;
-			}
-		} else {
-			return fileComparison;
+	/**
+	 * A private constructor to prevent intentional initializations of this class.
+	 * 
+	 * @throws IllegalAccessException If any initialization occur to this class.
+	 */
+	private NodeSourceCorrespondenceSorter() throws IllegalAccessException {
+		throw new IllegalAccessException();
+	}
+	
+	/**
+	 * Sorts the given <code>nodes</code> by their source file, offset then length.
+	 * <p>
+	 * Each node is turned once into a {@link SourceCorrespondenceKey} so the sort only compares primitives, instead of reading the
+	 * {@link SourceCorrespondence} and comparing the file paths on every comparison. The nodes without a {@link SourceCorrespondence} come first.
+	 * 
+	 * @param nodes A list of {@link Node}s to be sorted in place.
+	 */
+	public static void sort(List<Node> nodes){
+		SourceCorrespondenceKey[] keys = new SourceCorrespondenceKey[nodes.size()];
+		for(int index = 0; index < keys.length; index++){
+			keys[index] = SourceCorrespondenceKey.of(nodes.get(index));
+		}
+		sort(keys);
+		for(int index = 0; index < keys.length; index++){
+			nodes.set(index, keys[index].getNode());
 		}
 	}
+	
+	/**
+	 * Sorts the given <code>keys</code> by their source file, offset then length.
+	 * 
+	 * @param keys An array of {@link SourceCorrespondenceKey}s to be sorted in place.
+	 */
+	public static void sort(SourceCorrespondenceKey[] keys){
+		int[] fileRanks = SourceCorrespondenceKey.fileRanks();
+		Arrays.sort(keys, (key1, key2) -> {
+			int fileRank1 = key1.getFileId() == SourceCorrespondenceKey.NO_FILE_ID ? -1 : fileRanks[key1.getFileId()];
+			int fileRank2 = key2.getFileId() == SourceCorrespondenceKey.NO_FILE_ID ? -1 : fileRanks[key2.getFileId()];
+			if(fileRank1 != fileRank2){
+				return Integer.compare(fileRank1, fileRank2);
+			}
+			if(key1.getOffset() != key2.getOffset()){
+				return Integer.compare(key1.getOffset(), key2.getOffset());
+			}
+			return Integer.compare(key1.getLength(), key2.getLength());
+		});
+	}
 
 }
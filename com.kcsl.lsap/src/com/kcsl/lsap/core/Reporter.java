@@ -1,6 +1,10 @@
 package com.kcsl.lsap.core;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
 
 import com.ensoftcorp.atlas.core.db.graph.Node;
 import com.ensoftcorp.atlas.core.db.set.AtlasHashSet;
@@ -12,6 +16,16 @@ import com.kcsl.lsap.utils.LSAPUtils;
  */
 public class Reporter {
 
+	/**
+	 * The names of the sets of this {@link Reporter} when stored in {@link Properties}, in the order returned by {@link #getAllSets()}.
+	 */
+	private static final String[] STORED_SET_NAMES = { "lock", "unlock", "verified", "partially", "dangling", "onlyDangling", "deadlocked", "onlyDeadlocked", "inter", "intra", "timedOut" };
+	
+	/**
+	 * A {@link String} corresponding to the separator between the stored {@link Node} keys of a set.
+	 */
+	private static final String STORED_NODES_SEPARATOR = "\n";
+
 	/**
 	 * The start time for the analysis.
 	 */
@@ -72,6 +86,11 @@ public class Reporter {
 	 */
 	private AtlasSet<Node> intraproceduralVerificationLockEvents;
 	
+	/**
+	 * A list of lock {@link Node}s whose signature verification exceeded its budget and thus have a TIMEOUT status.
+	 */
+	private AtlasSet<Node> timedOutLockEvents;
+	
 	/**
 	 * A {@link String} to be used for the title of this statistics.
 	 */
@@ -94,6 +113,7 @@ public class Reporter {
 		this.onlyDeadlockedLockEvents = new AtlasHashSet<Node>();
 		this.interproceduralVerificationLockEvents = new AtlasHashSet<Node>();
 		this.intraproceduralVerificationLockEvents = new AtlasHashSet<Node>();
+		this.timedOutLockEvents = new AtlasHashSet<Node>();
 	}
 	
 	/**
@@ -127,6 +147,9 @@ public class Reporter {
 	    double actualRacedPercentage = (((double)this.onlyDeadlockedLockEvents.size()) / ((double) this.lockEvents.size())) * 100.0;
 	    LSAPUtils.log("Number of ONLY Deadlocked Lock Events: " + this.onlyDeadlockedLockEvents.size() + "\t[" + actualRacedPercentage + "%]");
 	    
+	    double timedOutPercentage = (((double)this.timedOutLockEvents.size()) / ((double) this.lockEvents.size())) * 100.0;
+	    LSAPUtils.log("Number of TIMEOUT Lock Events: " + this.timedOutLockEvents.size() + "\t[" + timedOutPercentage + "%]");
+	    
 	    LSAPUtils.log("******************************************");
 	    LSAPUtils.log("******************************************");
 	    LSAPUtils.log("******************************************");
@@ -149,6 +172,96 @@ public class Reporter {
 		this.intraproceduralVerificationLockEvents.addAll(subReporter.getIntraproceduralVerificationLockEvents());
 		this.onlyDeadlockedLockEvents.addAll(subReporter.getOnlyDeadlockedLockEvents());
 		this.onlyDanglingLockEvents.addAll(subReporter.getOnlyDanglingLockEvents());
+		this.timedOutLockEvents.addAll(subReporter.getTimedOutLockEvents());
+	}
+	
+	/**
+	 * Stores the sets of this {@link Reporter} into <code>properties</code> where each {@link Node} is stored as its {@link LSAPUtils#nodeKey(Node)}.
+	 * 
+	 * @param properties The {@link Properties} to store into.
+	 * @param keyPrefix A {@link String} prefix for the keys of the stored sets.
+	 */
+	public void store(Properties properties, String keyPrefix){
+		List<AtlasSet<Node>> sets = this.getAllSets();
+		for(int i = 0; i < STORED_SET_NAMES.length; i++){
+			StringBuilder storedNodes = new StringBuilder();
+			for(Node node : sets.get(i)){
+				storedNodes.append(LSAPUtils.nodeKey(node)).append(STORED_NODES_SEPARATOR);
+			}
+			properties.setProperty(keyPrefix + STORED_SET_NAMES[i], storedNodes.toString());
+		}
+	}
+	
+	/**
+	 * Loads the sets stored by {@link #store(Properties, String)} from <code>properties</code> into this {@link Reporter}.
+	 * 
+	 * @param properties The {@link Properties} to load from.
+	 * @param keyPrefix A {@link String} prefix for the keys of the stored sets.
+	 * @param nodesByKey A mapping from {@link LSAPUtils#nodeKey(Node)} to the {@link Node}s that can be resolved, or to null for a key shared by several {@link Node}s.
+	 * @return true if all the stored {@link Node}s are resolved unambiguously, otherwise false and this {@link Reporter} is left unchanged.
+	 */
+	public boolean load(Properties properties, String keyPrefix, Map<String, Node> nodesByKey){
+		List<AtlasSet<Node>> loadedSets = new ArrayList<AtlasSet<Node>>();
+		for(String storedSetName : STORED_SET_NAMES){
+			String storedNodes = properties.getProperty(keyPrefix + storedSetName);
+			if(storedNodes == null){
+				return false;
+			}
+			AtlasSet<Node> nodes = new AtlasHashSet<Node>();
+			for(String key : storedNodes.split(STORED_NODES_SEPARATOR)){
+				if(key.isEmpty()){
+					continue;
+				}
+				if(!nodesByKey.containsKey(key)){
+					LSAPUtils.log("Cannot resolve stored node [" + key + "].");
+					return false;
+				}
+				Node node = nodesByKey.get(key);
+				if(node == null){
+					LSAPUtils.log("Cannot resolve ambiguous stored node [" + key + "].");
+					return false;
+				}
+				nodes.add(node);
+			}
+			loadedSets.add(nodes);
+		}
+		List<AtlasSet<Node>> sets = this.getAllSets();
+		for(int i = 0; i < sets.size(); i++){
+			sets.get(i).addAll(loadedSets.get(i));
+		}
+		return true;
+	}
+	
+	/**
+	 * Checks whether a {@link Reporter} is stored in <code>properties</code> under <code>keyPrefix</code>.
+	 * 
+	 * @param properties The {@link Properties} to check.
+	 * @param keyPrefix A {@link String} prefix for the keys of the stored sets.
+	 * @return true if a {@link Reporter} is stored under <code>keyPrefix</code>, otherwise false.
+	 */
+	public static boolean isStored(Properties properties, String keyPrefix){
+		return properties.containsKey(keyPrefix + STORED_SET_NAMES[0]);
+	}
+	
+	/**
+	 * Returns all the sets of this {@link Reporter} in the order of {@link #STORED_SET_NAMES}.
+	 * 
+	 * @return A list of {@link AtlasSet}s.
+	 */
+	private List<AtlasSet<Node>> getAllSets(){
+		List<AtlasSet<Node>> sets = new ArrayList<AtlasSet<Node>>();
+		sets.add(this.lockEvents);
+		sets.add(this.unlockEvents);
+		sets.add(this.verifiedLockEvents);
+		sets.add(this.partiallyVerifiedLockEvents);
+		sets.add(this.danglingLockEvents);
+		sets.add(this.onlyDanglingLockEvents);
+		sets.add(this.deadlockedLockEvents);
+		sets.add(this.onlyDeadlockedLockEvents);
+		sets.add(this.interproceduralVerificationLockEvents);
+		sets.add(this.intraproceduralVerificationLockEvents);
+		sets.add(this.timedOutLockEvents);
+		return sets;
 	}
 	
 	public double getAnalysisProcessingTime(){
@@ -235,4 +348,12 @@ public class Reporter {
 		return onlyDanglingLockEvents;
 	}
 	
+	public AtlasSet<Node> getTimedOutLockEvents() {
+		return timedOutLockEvents;
+	}
+
+	public void setTimedOutLockEvents(AtlasSet<Node> timedOutLockEvents) {
+		this.timedOutLockEvents = timedOutLockEvents;
+	}
+	
 }
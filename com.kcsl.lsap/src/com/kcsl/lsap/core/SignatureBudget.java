@@ -0,0 +1,152 @@
+package com.kcsl.lsap.core;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+/**
+ * A wall-clock and allocation budget for the verification of a single signature.
+ * <p>
+ * The budget is bound to the verifying thread by {@link #start(long, long, IProgressMonitor)} and the long running stages call {@link #check()} cooperatively,
+ * which throws a {@link SignatureBudgetExceededException} once the budget is exceeded so the verification of the signature is abandoned.
+ * It also throws an {@link OperationCanceledException} once the verification is canceled through its {@link IProgressMonitor}.
+ */
+public class SignatureBudget {
+
+	/**
+	 * The number of calls to {@link #check()} between two checks of the allocation budget, which are more expensive than the checks of the time budget.
+	 */
+	private static final int CHECK_INTERVAL = 256;
+
+	/**
+	 * The budget bound to the current thread, or null if no budget is enforced.
+	 */
+	private static final ThreadLocal<SignatureBudget> CURRENT_BUDGET = new ThreadLocal<SignatureBudget>();
+
+	/**
+	 * The {@link com.sun.management.ThreadMXBean} used to measure the allocated bytes of the current thread, or null if the JVM does not support it.
+	 */
+	private static final com.sun.management.ThreadMXBean THREAD_ALLOCATION_BEAN = threadAllocationBean();
+
+	/**
+	 * The time in milliseconds after which the budget is exceeded, or {@link Long#MAX_VALUE} for no limit.
+	 */
+	private final long deadline;
+
+	/**
+	 * The allocated bytes of the thread after which the budget is exceeded, or {@link Long#MAX_VALUE} for no limit.
+	 */
+	private final long allocationLimit;
+
+	/**
+	 * The {@link IProgressMonitor} of the verification to be checked for cancellation, or null if it cannot be canceled.
+	 */
+	private final IProgressMonitor monitor;
+
+	/**
+	 * The number of calls to {@link #check()} since the last check of the allocation budget.
+	 */
+	private int uncheckedCalls;
+
+	/**
+	 * Constructs a new instance of {@link SignatureBudget}.
+	 *
+	 * @param deadline See corresponding field for details.
+	 * @param allocationLimit See corresponding field for details.
+	 * @param monitor See corresponding field for details.
+	 */
+	private SignatureBudget(long deadline, long allocationLimit, IProgressMonitor monitor) {
+		this.deadline = deadline;
+		this.allocationLimit = allocationLimit;
+		this.monitor = monitor;
+		this.uncheckedCalls = 0;
+	}
+
+	/**
+	 * Binds a new budget to the current thread.
+	 *
+	 * @param timeBudgetSeconds The wall-clock time in seconds allowed from now, or 0 for no limit.
+	 * @param allocationBudgetMegabytes The number of megabytes allowed to be allocated from now, or 0 for no limit.
+	 * @param monitor The {@link IProgressMonitor} of the verification to be checked for cancellation, or null if it cannot be canceled.
+	 */
+	public static void start(long timeBudgetSeconds, long allocationBudgetMegabytes, IProgressMonitor monitor){
+		long deadline = Long.MAX_VALUE;
+		if(timeBudgetSeconds > 0){
+			deadline = System.currentTimeMillis() + timeBudgetSeconds * 1000;
+		}
+		long allocationLimit = Long.MAX_VALUE;
+		if(allocationBudgetMegabytes > 0 && THREAD_ALLOCATION_BEAN != null){
+			allocationLimit = currentThreadAllocatedBytes() + allocationBudgetMegabytes * 1024 * 1024;
+		}
+		if(deadline == Long.MAX_VALUE && allocationLimit == Long.MAX_VALUE && monitor == null){
+			CURRENT_BUDGET.remove();
+			return;
+		}
+		CURRENT_BUDGET.set(new SignatureBudget(deadline, allocationLimit, monitor));
+	}
+
+	/**
+	 * Unbinds the budget from the current thread.
+	 */
+	public static void stop(){
+		CURRENT_BUDGET.remove();
+	}
+
+	/**
+	 * Checks the budget bound to the current thread, if any.
+	 *
+	 * @throws SignatureBudgetExceededException If the time or allocation budget is exceeded.
+	 * @throws OperationCanceledException If the verification is canceled.
+	 */
+	public static void check(){
+		SignatureBudget budget = CURRENT_BUDGET.get();
+		if(budget == null){
+			return;
+		}
+		if(budget.monitor != null && budget.monitor.isCanceled()){
+			CURRENT_BUDGET.remove();
+			throw new OperationCanceledException();
+		}
+		if(System.currentTimeMillis() > budget.deadline){
+			CURRENT_BUDGET.remove();
+			throw new SignatureBudgetExceededException("time budget exceeded");
+		}
+		if(budget.allocationLimit == Long.MAX_VALUE || ++budget.uncheckedCalls < CHECK_INTERVAL){
+			return;
+		}
+		budget.uncheckedCalls = 0;
+		if(currentThreadAllocatedBytes() > budget.allocationLimit){
+			CURRENT_BUDGET.remove();
+			throw new SignatureBudgetExceededException("allocation budget exceeded");
+		}
+	}
+
+	/**
+	 * @return The number of bytes allocated so far by the current thread.
+	 */
+	private static long currentThreadAllocatedBytes(){
+		return THREAD_ALLOCATION_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/**
+	 * @return The {@link com.sun.management.ThreadMXBean} with allocation measurement enabled, or null if the JVM does not support it.
+	 */
+	private static com.sun.management.ThreadMXBean threadAllocationBean(){
+		try {
+			ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+			if(threadMXBean instanceof com.sun.management.ThreadMXBean){
+				com.sun.management.ThreadMXBean threadAllocationBean = (com.sun.management.ThreadMXBean) threadMXBean;
+				if(threadAllocationBean.isThreadAllocatedMemorySupported()){
+					threadAllocationBean.setThreadAllocatedMemoryEnabled(true);
+					return threadAllocationBean;
+				}
+			}
+		} catch (LinkageError | UnsupportedOperationException e) {
+			System.err.println("Cannot measure thread allocations, the signature allocation budget is ignored.");
+		}
+		return null;
+	}
+
+}
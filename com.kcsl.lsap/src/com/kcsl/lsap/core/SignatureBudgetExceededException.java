@@ -0,0 +1,19 @@
+package com.kcsl.lsap.core;
+
+/**
+ * Thrown by {@link SignatureBudget#check()} when the verification of a signature exceeds its time or allocation budget.
+ */
+public class SignatureBudgetExceededException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Constructs a new instance of {@link SignatureBudgetExceededException}.
+	 *
+	 * @param message A {@link String} describing the exceeded budget.
+	 */
+	public SignatureBudgetExceededException(String message) {
+		super(message);
+	}
+
+}
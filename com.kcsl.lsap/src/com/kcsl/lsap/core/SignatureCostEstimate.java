@@ -0,0 +1,110 @@
+package com.kcsl.lsap.core;
+
+import com.ensoftcorp.atlas.core.db.graph.Node;
+import com.ensoftcorp.atlas.core.db.map.AtlasMap;
+import com.ensoftcorp.atlas.core.query.Q;
+import com.ensoftcorp.atlas.core.script.Common;
+import com.ensoftcorp.atlas.core.xcsg.XCSG;
+import com.ensoftcorp.open.commons.analysis.CommonQueries;
+import com.kcsl.lsap.utils.LSAPUtils;
+
+/**
+ * A cheap estimate of the cost of verifying a signature, computed before its MPG is constructed.
+ * <p>
+ * The estimate is derived from the parameters passed to lock/unlock calls that are reachable from the signature within {@link #DATA_FLOW_STEPS}
+ * data flow steps, the number of functions containing these calls as an estimate for the MPG size and the summed sizes of the CFGs of these functions.
+ * The data flow is bounded so the estimates of all signatures stay cheap compared to their verification.
+ */
+public class SignatureCostEstimate {
+
+	/**
+	 * The number of data flow steps from the signature within which the lock/unlock call sites are counted.
+	 */
+	private static final int DATA_FLOW_STEPS = 4;
+
+	/**
+	 * The number of lock/unlock call sites that are reachable from the signature within {@link #DATA_FLOW_STEPS} data flow steps.
+	 */
+	private final long reachedCallSites;
+
+	/**
+	 * The number of functions containing the reached call sites, which estimates the size of the MPG.
+	 */
+	private final long estimatedMPGSize;
+
+	/**
+	 * The summed number of {@link XCSG#ControlFlow_Node}s in the CFGs of the functions containing the reached call sites.
+	 */
+	private final long summedCFGSize;
+
+	/**
+	 * Constructs a new instance of {@link SignatureCostEstimate}.
+	 *
+	 * @param reachedCallSites See corresponding field for details.
+	 * @param estimatedMPGSize See corresponding field for details.
+	 * @param summedCFGSize See corresponding field for details.
+	 */
+	private SignatureCostEstimate(long reachedCallSites, long estimatedMPGSize, long summedCFGSize) {
+		this.reachedCallSites = reachedCallSites;
+		this.estimatedMPGSize = estimatedMPGSize;
+		this.summedCFGSize = summedCFGSize;
+	}
+
+	/**
+	 * Estimates the cost of verifying <code>signatureNode</code>.
+	 *
+	 * @param signatureNode A {@link Node} corresponding to the type object passed to the lock/unlock calls.
+	 * @param dataFlowContext A {@link Q} of the data flow edges used to reach the lock/unlock calls from the signature.
+	 * @param parametersPassedToLockUnlockFunctionCallSites A {@link Q} of the parameters passed to the lock/unlock call sites.
+	 * @param cfgSizes A mapping from the functions to the sizes of their CFGs, shared by the estimates of a verification run and filled as needed.
+	 * @return An instance of {@link SignatureCostEstimate}.
+	 */
+	public static SignatureCostEstimate estimate(Node signatureNode, Q dataFlowContext, Q parametersPassedToLockUnlockFunctionCallSites, AtlasMap<Node, Long> cfgSizes){
+		Q reached = Common.toQ(signatureNode);
+		Q frontier = reached;
+		for(int step = 0; step < DATA_FLOW_STEPS && !frontier.eval().nodes().isEmpty(); step++){
+			frontier = Common.toQ(dataFlowContext.successors(frontier).difference(reached).eval().nodes());
+			reached = Common.toQ(reached.union(frontier).eval().nodes());
+		}
+		Q reachedParameters = reached.intersection(parametersPassedToLockUnlockFunctionCallSites);
+		long reachedCallSites = reachedParameters.eval().nodes().size();
+		Q functions = LSAPUtils.getContainingNodes(reachedParameters, XCSG.Function);
+		long summedCFGSize = 0;
+		for(Node function : functions.eval().nodes()){
+			Long cfgSize = cfgSizes.get(function);
+			if(cfgSize == null){
+				cfgSize = Long.valueOf(CommonQueries.cfg(function).eval().nodes().size());
+				cfgSizes.put(function, cfgSize);
+			}
+			summedCFGSize += cfgSize;
+		}
+		return new SignatureCostEstimate(reachedCallSites, functions.eval().nodes().size(), summedCFGSize);
+	}
+
+	/**
+	 * Returns the estimated cost, where the summaries of the MPG functions dominate the verification time and each reached call site adds an event to be matched.
+	 *
+	 * @return A value proportional to the expected verification time.
+	 */
+	public long getCost(){
+		return this.summedCFGSize * (1 + this.reachedCallSites);
+	}
+
+	public long getReachedCallSites() {
+		return this.reachedCallSites;
+	}
+
+	public long getEstimatedMPGSize() {
+		return this.estimatedMPGSize;
+	}
+
+	public long getSummedCFGSize() {
+		return this.summedCFGSize;
+	}
+
+	@Override
+	public String toString() {
+		return "cost=" + this.getCost() + ", call sites=" + this.reachedCallSites + ", functions=" + this.estimatedMPGSize + ", CFG nodes=" + this.summedCFGSize;
+	}
+
+}
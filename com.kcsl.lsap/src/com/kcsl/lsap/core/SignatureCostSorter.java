@@ -0,0 +1,34 @@
+package com.kcsl.lsap.core;
+
+import java.util.Comparator;
+
+import com.ensoftcorp.atlas.core.db.graph.Node;
+import com.ensoftcorp.atlas.core.db.map.AtlasMap;
+
+/**
+ * Sorts signatures largest first by their {@link SignatureCostEstimate}, so the most expensive signatures are scheduled before the cheap ones.
+ * <p>
+ * Since the sort is stable, signatures with equal estimates keep their previous order.
+ */
+public class SignatureCostSorter implements Comparator<Node> {
+
+	/**
+	 * A mapping from each signature to its {@link SignatureCostEstimate}.
+	 */
+	private final AtlasMap<Node, SignatureCostEstimate> costEstimates;
+
+	/**
+	 * Constructs a new instance of {@link SignatureCostSorter}.
+	 *
+	 * @param costEstimates See corresponding field for details.
+	 */
+	public SignatureCostSorter(AtlasMap<Node, SignatureCostEstimate> costEstimates) {
+		this.costEstimates = costEstimates;
+	}
+
+	@Override
+	public int compare(Node n1, Node n2) {
+		return Long.compare(this.costEstimates.get(n2).getCost(), this.costEstimates.get(n1).getCost());
+	}
+
+}
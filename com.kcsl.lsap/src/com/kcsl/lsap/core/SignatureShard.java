@@ -0,0 +1,126 @@
+package com.kcsl.lsap.core;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Properties;
+
+import com.ensoftcorp.atlas.core.db.graph.Node;
+import com.kcsl.lsap.utils.LSAPUtils;
+
+/**
+ * One of <code>shardCount</code> partitions of the signatures to be verified, so a verification can be spread over several processes.
+ * <p>
+ * A signature belongs to a shard by the {@link SourceCorrespondenceKey#stableHash()} of its key, so every process assigns it to the same shard.
+ * Each shard stores its partial {@link Reporter} and {@link VerificationSummary} to be merged into the overall results once all shards are done.
+ */
+public class SignatureShard {
+
+	/**
+	 * The key prefix for the stored {@link Reporter}.
+	 */
+	private static final String REPORTER_KEY_PREFIX = "reporter.";
+
+	/**
+	 * The key prefix for the stored {@link VerificationSummary}.
+	 */
+	private static final String SUMMARY_KEY_PREFIX = "summary.";
+
+	/**
+	 * The key for the index of the stored shard.
+	 */
+	private static final String SHARD_INDEX_KEY = "shard.index";
+
+	/**
+	 * The key for the number of shards.
+	 */
+	private static final String SHARD_COUNT_KEY = "shard.count";
+
+	/**
+	 * The zero-based index of this shard.
+	 */
+	private final int shardIndex;
+
+	/**
+	 * The number of shards the signatures are partitioned into.
+	 */
+	private final int shardCount;
+
+	/**
+	 * Constructs a new instance of {@link SignatureShard}.
+	 *
+	 * @param shardIndex See corresponding field for details.
+	 * @param shardCount See corresponding field for details.
+	 * @throws IllegalArgumentException If <code>shardIndex</code> is not within [0, <code>shardCount</code>).
+	 */
+	public SignatureShard(int shardIndex, int shardCount) {
+		if(shardCount <= 0 || shardIndex < 0 || shardIndex >= shardCount){
+			throw new IllegalArgumentException("Invalid shard [" + shardIndex + "] of [" + shardCount + "] shards.");
+		}
+		this.shardIndex = shardIndex;
+		this.shardCount = shardCount;
+	}
+
+	/**
+	 * Checks whether <code>signatureNode</code> is verified by this shard.
+	 *
+	 * @param signatureNode A {@link Node} corresponding to a signature.
+	 * @return true if <code>signatureNode</code> belongs to this shard, otherwise false.
+	 */
+	public boolean contains(Node signatureNode){
+		return Math.floorMod(SourceCorrespondenceKey.of(signatureNode).stableHash(), this.shardCount) == this.shardIndex;
+	}
+
+	/**
+	 * Saves the partial results of this shard to <code>resultsFilePath</code>.
+	 *
+	 * @param resultsFilePath A {@link Path} to the file where the partial results are stored.
+	 * @param reporter The {@link Reporter} with the results of this shard.
+	 * @param summary The {@link VerificationSummary} of this shard.
+	 */
+	public void saveResults(Path resultsFilePath, Reporter reporter, VerificationSummary summary){
+		Properties properties = new Properties();
+		properties.setProperty(SHARD_INDEX_KEY, Integer.toString(this.shardIndex));
+		properties.setProperty(SHARD_COUNT_KEY, Integer.toString(this.shardCount));
+		reporter.store(properties, REPORTER_KEY_PREFIX);
+		summary.store(properties, SUMMARY_KEY_PREFIX);
+		if(LSAPUtils.storeProperties(properties, resultsFilePath, "L-SAP partial verification results of " + this)){
+			LSAPUtils.log("Partial results of " + this + " saved to [" + resultsFilePath + "].");
+		}
+	}
+
+	/**
+	 * Loads the partial results of this shard from <code>resultsFilePath</code> and aggregates them into <code>reporter</code>.
+	 *
+	 * @param resultsFilePath A {@link Path} to the file where the partial results are stored.
+	 * @param reporter The overall {@link Reporter} to aggregate the results of this shard into.
+	 * @param nodesByKey A mapping from {@link LSAPUtils#nodeKey(Node)} to the lock/unlock {@link Node}s.
+	 * @return The {@link VerificationSummary} of this shard or null if its results cannot be loaded.
+	 */
+	public VerificationSummary loadResults(Path resultsFilePath, Reporter reporter, Map<String, Node> nodesByKey){
+		if(!Files.exists(resultsFilePath)){
+			LSAPUtils.log("No partial results found for " + this + " at [" + resultsFilePath + "].");
+			return null;
+		}
+		Properties properties = LSAPUtils.loadProperties(resultsFilePath);
+		if(properties == null){
+			return null;
+		}
+		if(!Integer.toString(this.shardIndex).equals(properties.getProperty(SHARD_INDEX_KEY)) || !Integer.toString(this.shardCount).equals(properties.getProperty(SHARD_COUNT_KEY))){
+			LSAPUtils.log("The partial results at [" + resultsFilePath + "] do not belong to " + this + ".");
+			return null;
+		}
+		VerificationSummary summary = VerificationSummary.load(properties, SUMMARY_KEY_PREFIX);
+		if(summary == null || !reporter.load(properties, REPORTER_KEY_PREFIX, nodesByKey)){
+			LSAPUtils.log("The partial results of " + this + " cannot be restored.");
+			return null;
+		}
+		return summary;
+	}
+
+	@Override
+	public String toString() {
+		return "shard_" + this.shardIndex + "_of_" + this.shardCount;
+	}
+
+}
@@ -0,0 +1,206 @@
+package com.kcsl.lsap.core;
+
+import static com.ensoftcorp.atlas.core.script.Common.universe;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.ensoftcorp.atlas.core.db.graph.Graph;
+import com.ensoftcorp.atlas.core.db.graph.Node;
+import com.ensoftcorp.atlas.core.db.set.AtlasHashSet;
+import com.ensoftcorp.atlas.core.db.set.AtlasSet;
+import com.ensoftcorp.atlas.core.index.common.SourceCorrespondence;
+import com.ensoftcorp.atlas.core.xcsg.XCSG;
+
+/**
+ * An index of the {@link XCSG#ControlFlow_Node}s containing {@link XCSG#CallSite}s by their {@link SourceCorrespondence}, used to locate
+ * reported locks without querying every call site in the index.
+ * <p>
+ * The index is built on first use and keeps, for each source file, the nodes sorted by offset and length so a lookup is a binary search.
+ * It is keyed to the generation of the Atlas index it was built from: it is rebuilt when the size of the universe changes or when a
+ * found node is no longer part of the universe, so no {@link Node} of a previous index is ever returned after re-indexing.
+ */
+public class SourceCorrespondenceIndex {
+
+	/**
+	 * A mapping from the {@link SourceCorrespondenceKey#getFileId()} of a source file to the {@link FileIntervals} of the nodes in that file,
+	 * or null until it is built.
+	 */
+	private static Map<Integer, FileIntervals> FILE_INTERVALS = null;
+
+	/**
+	 * The generation of the Atlas index {@link #FILE_INTERVALS} was built from, or null until it is built.
+	 */
+	private static String INDEX_GENERATION = null;
+
+	/**
+	 * A private constructor to prevent intentional initializations of this class.
+	 *
+	 * @throws IllegalAccessException If any initialization occur to this class.
+	 */
+	private SourceCorrespondenceIndex() throws IllegalAccessException {
+		throw new IllegalAccessException();
+	}
+
+	/**
+	 * Finds the {@link XCSG#ControlFlow_Node} containing a call site at exactly the given <code>sourceCorrespondence</code>.
+	 *
+	 * @param sourceCorrespondence A {@link SourceCorrespondence} to be located.
+	 * @return The {@link Node} at <code>sourceCorrespondence</code> or null if there is none.
+	 */
+	public static Node find(SourceCorrespondence sourceCorrespondence){
+		AtlasSet<Node> nodes = findAll(sourceCorrespondence);
+		return nodes.isEmpty() ? null : nodes.one();
+	}
+
+	/**
+	 * Finds every {@link XCSG#ControlFlow_Node} containing a call site at exactly the given <code>sourceCorrespondence</code>.
+	 *
+	 * @param sourceCorrespondence A {@link SourceCorrespondence} to be located.
+	 * @return An {@link AtlasSet} of the {@link Node}s at <code>sourceCorrespondence</code>, empty if there is none.
+	 */
+	public static synchronized AtlasSet<Node> findAll(SourceCorrespondence sourceCorrespondence){
+		AtlasSet<Node> nodes = new AtlasHashSet<Node>();
+		if(sourceCorrespondence == null || sourceCorrespondence.sourceFile == null){
+			return nodes;
+		}
+		int fileId = SourceCorrespondenceKey.fileId(sourceCorrespondence);
+		FileIntervals fileIntervals = fileIntervals().get(fileId);
+		if(fileIntervals != null){
+			fileIntervals.findAll(sourceCorrespondence.offset, sourceCorrespondence.length, nodes);
+		}
+		AtlasSet<Node> universeNodes = universe().eval().nodes();
+		for(Node node : nodes){
+			if(!universeNodes.contains(node)){
+				// the index was replaced without changing its size, so the found nodes are stale
+				clear();
+				nodes = new AtlasHashSet<Node>();
+				fileIntervals = fileIntervals().get(fileId);
+				if(fileIntervals != null){
+					fileIntervals.findAll(sourceCorrespondence.offset, sourceCorrespondence.length, nodes);
+				}
+				break;
+			}
+		}
+		return nodes;
+	}
+
+	/**
+	 * Discards the index so it is built again on next use.
+	 */
+	public static synchronized void clear(){
+		FILE_INTERVALS = null;
+		INDEX_GENERATION = null;
+	}
+
+	/**
+	 * Constructs a {@link String} identifying the generation of the current Atlas index from the size of the universe.
+	 *
+	 * @return A {@link String} identifying the current Atlas index.
+	 */
+	private static String indexGeneration(){
+		Graph universe = universe().eval();
+		return universe.nodes().size() + ":" + universe.edges().size();
+	}
+
+	/**
+	 * Returns the {@link FileIntervals} of every source file, building them on first use and again whenever the Atlas index changed.
+	 *
+	 * @return A mapping from the {@link SourceCorrespondenceKey#getFileId()} of a source file to its {@link FileIntervals}.
+	 */
+	private static synchronized Map<Integer, FileIntervals> fileIntervals(){
+		String indexGeneration = indexGeneration();
+		if(FILE_INTERVALS == null || !indexGeneration.equals(INDEX_GENERATION)){
+			AtlasSet<Node> nodes = universe().nodes(XCSG.CallSite).containers().nodes(XCSG.ControlFlow_Node).eval().nodes();
+			SourceCorrespondenceKey[] keys = new SourceCorrespondenceKey[(int) nodes.size()];
+			int keysCount = 0;
+			for(Node node : nodes){
+				SourceCorrespondenceKey key = SourceCorrespondenceKey.of(node);
+				if(key.getFileId() != SourceCorrespondenceKey.NO_FILE_ID){
+					keys[keysCount++] = key;
+				}
+			}
+			keys = Arrays.copyOf(keys, keysCount);
+			NodeSourceCorrespondenceSorter.sort(keys);
+			Map<Integer, FileIntervals> fileIntervals = new HashMap<Integer, FileIntervals>();
+			int fileStart = 0;
+			for(int index = 1; index <= keys.length; index++){
+				if(index == keys.length || keys[index].getFileId() != keys[fileStart].getFileId()){
+					fileIntervals.put(keys[fileStart].getFileId(), new FileIntervals(keys, fileStart, index));
+					fileStart = index;
+				}
+			}
+			FILE_INTERVALS = fileIntervals;
+			INDEX_GENERATION = indexGeneration;
+		}
+		return FILE_INTERVALS;
+	}
+
+	/**
+	 * The nodes of a single source file sorted by the offset then the length of their {@link SourceCorrespondence}.
+	 */
+	private static class FileIntervals {
+
+		/**
+		 * The start offsets of {@link #nodes} in ascending order.
+		 */
+		private final int[] offsets;
+
+		/**
+		 * The lengths of {@link #nodes}, ascending among the nodes with the same offset.
+		 */
+		private final int[] lengths;
+
+		/**
+		 * The indexed {@link Node}s.
+		 */
+		private final Node[] nodes;
+
+		/**
+		 * Constructs a new instance of {@link FileIntervals}.
+		 *
+		 * @param sortedKeys The sorted {@link SourceCorrespondenceKey}s of the indexed nodes.
+		 * @param start The index of the first key of the source file in <code>sortedKeys</code>.
+		 * @param end The index after the last key of the source file in <code>sortedKeys</code>.
+		 */
+		public FileIntervals(SourceCorrespondenceKey[] sortedKeys, int start, int end) {
+			this.offsets = new int[end - start];
+			this.lengths = new int[end - start];
+			this.nodes = new Node[end - start];
+			for(int index = 0; index < this.nodes.length; index++){
+				SourceCorrespondenceKey key = sortedKeys[start + index];
+				this.offsets[index] = key.getOffset();
+				this.lengths[index] = key.getLength();
+				this.nodes[index] = key.getNode();
+			}
+		}
+
+		/**
+		 * Adds every node at exactly <code>offset</code> and <code>length</code> to <code>found</code>.
+		 *
+		 * @param offset The start offset of the nodes.
+		 * @param length The length of the nodes.
+		 * @param found An {@link AtlasSet} to add the found {@link Node}s to.
+		 */
+		public void findAll(int offset, int length, AtlasSet<Node> found){
+			// binary search for the first node not before (offset, length)
+			int low = 0;
+			int high = this.nodes.length;
+			while(low < high){
+				int middle = (low + high) >>> 1;
+				int comparison = this.offsets[middle] != offset ? Integer.compare(this.offsets[middle], offset) : Integer.compare(this.lengths[middle], length);
+				if(comparison < 0){
+					low = middle + 1;
+				}else{
+					high = middle;
+				}
+			}
+			for(int index = low; index < this.nodes.length && this.offsets[index] == offset && this.lengths[index] == length; index++){
+				found.add(this.nodes[index]);
+			}
+		}
+
+	}
+
+}
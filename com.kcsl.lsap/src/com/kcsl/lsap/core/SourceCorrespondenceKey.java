@@ -0,0 +1,157 @@
+package com.kcsl.lsap.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.ensoftcorp.atlas.core.db.graph.Node;
+import com.ensoftcorp.atlas.core.index.common.SourceCorrespondence;
+import com.ensoftcorp.atlas.core.xcsg.XCSG;
+
+/**
+ * A compact key of the {@link SourceCorrespondence} of a {@link Node}: an interned source file id along with the offset and length,
+ * so nodes can be ordered and partitioned by primitive comparisons instead of comparing file path strings.
+ * <p>
+ * The file ids are interned in the order the files are first seen, so they are only meaningful within the same process.
+ * The order of the files is given by {@link #fileRanks()}.
+ */
+public class SourceCorrespondenceKey {
+
+	/**
+	 * The file id of the nodes that have no {@link SourceCorrespondence}.
+	 */
+	public static final int NO_FILE_ID = -1;
+
+	/**
+	 * A mapping from the path of a source file to its interned id.
+	 */
+	private static final Map<String, Integer> FILE_IDS = new HashMap<String, Integer>();
+
+	/**
+	 * The paths of the source files indexed by their interned id.
+	 */
+	private static final List<String> FILE_PATHS = new ArrayList<String>();
+
+	/**
+	 * The {@link Node} this key is constructed for.
+	 */
+	private final Node node;
+
+	/**
+	 * The interned id of the source file of {@link #node} or {@link #NO_FILE_ID}.
+	 */
+	private final int fileId;
+
+	/**
+	 * The start offset of {@link #node} in its source file.
+	 */
+	private final int offset;
+
+	/**
+	 * The length of {@link #node} in its source file.
+	 */
+	private final int length;
+
+	/**
+	 * Constructs a new instance of {@link SourceCorrespondenceKey}.
+	 *
+	 * @param node See corresponding field for details.
+	 * @param fileId See corresponding field for details.
+	 * @param offset See corresponding field for details.
+	 * @param length See corresponding field for details.
+	 */
+	private SourceCorrespondenceKey(Node node, int fileId, int offset, int length) {
+		this.node = node;
+		this.fileId = fileId;
+		this.offset = offset;
+		this.length = length;
+	}
+
+	/**
+	 * Constructs the key of the given <code>node</code>.
+	 *
+	 * @param node A {@link Node}.
+	 * @return A {@link SourceCorrespondenceKey} of <code>node</code>.
+	 */
+	public static SourceCorrespondenceKey of(Node node){
+		SourceCorrespondence sourceCorrespondence = (SourceCorrespondence) node.getAttr(XCSG.sourceCorrespondence);
+		if(sourceCorrespondence == null || sourceCorrespondence.sourceFile == null){
+			return new SourceCorrespondenceKey(node, NO_FILE_ID, 0, 0);
+		}
+		return new SourceCorrespondenceKey(node, fileId(sourceCorrespondence), sourceCorrespondence.offset, sourceCorrespondence.length);
+	}
+
+	/**
+	 * Returns the interned id of the source file of <code>sourceCorrespondence</code>.
+	 * <p>
+	 * The files are identified by their workspace path, which does not depend on where the workspace is located.
+	 *
+	 * @param sourceCorrespondence A {@link SourceCorrespondence} with a source file.
+	 * @return The interned id of the source file.
+	 */
+	public static synchronized int fileId(SourceCorrespondence sourceCorrespondence){
+		String filePath = sourceCorrespondence.sourceFile.getFullPath().toString();
+		Integer fileId = FILE_IDS.get(filePath);
+		if(fileId == null){
+			fileId = FILE_PATHS.size();
+			FILE_IDS.put(filePath, fileId);
+			FILE_PATHS.add(filePath);
+		}
+		return fileId;
+	}
+
+	/**
+	 * Ranks the interned source files by their path.
+	 *
+	 * @return An array where the element at a file id is the rank of that file among all the interned files.
+	 */
+	public static synchronized int[] fileRanks(){
+		Integer[] fileIds = new Integer[FILE_PATHS.size()];
+		for(int fileId = 0; fileId < fileIds.length; fileId++){
+			fileIds[fileId] = fileId;
+		}
+		Arrays.sort(fileIds, (fileId1, fileId2) -> FILE_PATHS.get(fileId1).compareTo(FILE_PATHS.get(fileId2)));
+		int[] fileRanks = new int[fileIds.length];
+		for(int rank = 0; rank < fileIds.length; rank++){
+			fileRanks[fileIds[rank]] = rank;
+		}
+		return fileRanks;
+	}
+
+	/**
+	 * Computes a hash of this key that is the same in every process verifying the same index.
+	 *
+	 * @return A hash of the source file path, offset, length and {@link XCSG#name} of {@link #node}.
+	 */
+	public int stableHash(){
+		int hash = 0;
+		if(this.fileId != NO_FILE_ID){
+			synchronized (SourceCorrespondenceKey.class) {
+				hash = FILE_PATHS.get(this.fileId).hashCode();
+			}
+		}
+		hash = 31 * hash + this.offset;
+		hash = 31 * hash + this.length;
+		Object name = this.node.getAttr(XCSG.name);
+		return 31 * hash + (name == null ? 0 : name.hashCode());
+	}
+
+	public Node getNode() {
+		return this.node;
+	}
+
+	public int getFileId() {
+		return this.fileId;
+	}
+
+	public int getOffset() {
+		return this.offset;
+	}
+
+	public int getLength() {
+		return this.length;
+	}
+
+}
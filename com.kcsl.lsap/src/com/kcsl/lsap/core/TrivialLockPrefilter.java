@@ -0,0 +1,291 @@
+package com.kcsl.lsap.core;
+
+import static com.ensoftcorp.atlas.core.script.Common.universe;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+import com.ensoftcorp.atlas.core.db.graph.Edge;
+import com.ensoftcorp.atlas.core.db.graph.Graph;
+import com.ensoftcorp.atlas.core.db.graph.GraphElement.EdgeDirection;
+import com.ensoftcorp.atlas.core.db.graph.GraphElement.NodeDirection;
+import com.ensoftcorp.atlas.core.db.graph.Node;
+import com.ensoftcorp.atlas.core.db.map.AtlasGraphKeyHashMap;
+import com.ensoftcorp.atlas.core.db.map.AtlasMap;
+import com.ensoftcorp.atlas.core.db.set.AtlasHashSet;
+import com.ensoftcorp.atlas.core.db.set.AtlasSet;
+import com.ensoftcorp.atlas.core.query.Q;
+import com.ensoftcorp.atlas.core.script.Common;
+import com.ensoftcorp.atlas.core.xcsg.XCSG;
+import com.ensoftcorp.open.commons.analysis.CallSiteAnalysis;
+import com.ensoftcorp.open.commons.analysis.CommonQueries;
+import com.kcsl.lsap.utils.LSAPUtils;
+
+/**
+ * A cheap intra-procedural prefilter that certifies the locks of a signature that are obviously paired without constructing the MPG and the PCGs.
+ * <p>
+ * A {@link XCSG#Function} is trivially paired when, on its CFG:
+ * 1- The set of its unlock events post-dominates each of its lock events with no other lock event, MPG-relevant call or function exit in between.
+ * 2- The set of its lock events dominates each of its unlock events with no other unlock event, MPG-relevant call or function entry in between.
+ * 3- It does not directly call or get called by any other function containing events of the same signature, and no function it is
+ * connected to through such calls is not trivially paired.
+ * <p>
+ * Only the direct calls among the functions containing the events of the signature are checked, so the prefilter never takes a closure over
+ * the whole call graph. The trivial pairs are handed to the {@link Verifier} of the signature, which reports them along with the results of
+ * the full pipeline on the remaining events, so each signature still logs a single set of sections and statistics.
+ */
+public class TrivialLockPrefilter {
+
+	/**
+	 * An instance of {@link Node} for the signature.
+	 */
+	private Node signatureNode;
+
+	/**
+	 * A {@link Q} of {@link XCSG#ControlFlow_Node}s containing the lock/unlock events for {@link #signatureNode}.
+	 */
+	private Q cfgNodesContainingEvents;
+
+	/**
+	 * A {@link Q} corresponding to the functions performing the actual lock.
+	 */
+	private Q lockFunctionCallsQ;
+
+	/**
+	 * A {@link Q} corresponding to the functions performing the actual unlock.
+	 */
+	private Q unlockFunctionCallsQ;
+
+	/**
+	 * A mapping of {@link Node} corresponding to a trivially paired lock to the set of unlock {@link Node}s it is paired with.
+	 */
+	private AtlasMap<Node, AtlasSet<Node>> trivialPairs;
+
+	/**
+	 * A set of {@link Node}s corresponding to the unlock events within the trivially paired functions.
+	 */
+	private AtlasSet<Node> trivialUnlocks;
+
+	/**
+	 * A set of {@link XCSG#ControlFlow_Node}s that still need to be verified by the full pipeline.
+	 */
+	private AtlasSet<Node> remainingEventNodes;
+
+	/**
+	 * A set of the trivially paired {@link XCSG#Function}s.
+	 */
+	private AtlasSet<Node> trivialFunctions;
+
+	/**
+	 * Constructs a new instance of {@link TrivialLockPrefilter}.
+	 *
+	 * @param signatureNode See corresponding field for details.
+	 * @param cfgNodesContainingEvents See corresponding field for details.
+	 * @param lockFunctionCallsQ See corresponding field for details.
+	 * @param unlockFunctionCallsQ See corresponding field for details.
+	 */
+	public TrivialLockPrefilter(Node signatureNode, Q cfgNodesContainingEvents, Q lockFunctionCallsQ, Q unlockFunctionCallsQ) {
+		this.signatureNode = signatureNode;
+		this.cfgNodesContainingEvents = cfgNodesContainingEvents;
+		this.lockFunctionCallsQ = lockFunctionCallsQ;
+		this.unlockFunctionCallsQ = unlockFunctionCallsQ;
+		this.trivialPairs = new AtlasGraphKeyHashMap<Node, AtlasSet<Node>>();
+		this.trivialUnlocks = new AtlasHashSet<Node>();
+		this.remainingEventNodes = new AtlasHashSet<Node>();
+		this.trivialFunctions = new AtlasHashSet<Node>();
+	}
+
+	/**
+	 * Finds the trivially paired locks for {@link #signatureNode}.
+	 *
+	 * @return true if some of the locks are trivially paired, otherwise false.
+	 */
+	public boolean run() {
+		AtlasSet<Node> eventNodes = this.cfgNodesContainingEvents.eval().nodes();
+		Q eventFunctionsQ = CommonQueries.getContainingFunctions(this.cfgNodesContainingEvents);
+		AtlasSet<Node> eventFunctions = eventFunctionsQ.eval().nodes();
+
+		AtlasSet<Node> candidateFunctions = new AtlasHashSet<Node>();
+		AtlasMap<Node, AtlasMap<Node, AtlasSet<Node>>> candidatePairs = new AtlasGraphKeyHashMap<Node, AtlasMap<Node, AtlasSet<Node>>>();
+		AtlasMap<Node, AtlasSet<Node>> candidateUnlocks = new AtlasGraphKeyHashMap<Node, AtlasSet<Node>>();
+		for(Node function : eventFunctions){
+			Q cfg = CommonQueries.cfg(function);
+			List<Q> events = LSAPUtils.compileCFGNodesContainingEventNodes(cfg, this.cfgNodesContainingEvents, Common.empty(), this.lockFunctionCallsQ, this.unlockFunctionCallsQ);
+			AtlasSet<Node> locks = events.get(0).eval().nodes();
+			AtlasSet<Node> unlocks = events.get(1).eval().nodes();
+			AtlasMap<Node, AtlasSet<Node>> pairs = this.pairEvents(cfg, locks, unlocks, eventFunctions);
+			if(pairs != null){
+				candidateFunctions.add(function);
+				candidatePairs.put(function, pairs);
+				candidateUnlocks.put(function, unlocks);
+			}
+		}
+
+		// A trivially paired function must not be connected to any function that goes through the full pipeline.
+		// Only the calls among the functions containing the events of this signature are followed.
+		Q eventFunctionCallEdges = eventFunctionsQ.induce(universe().edges(XCSG.Call));
+		AtlasSet<Node> nonTrivialFunctions = Common.toQ(eventFunctions).difference(Common.toQ(candidateFunctions)).eval().nodes();
+		while(!nonTrivialFunctions.isEmpty() && !candidateFunctions.isEmpty()){
+			Q nonTrivialFunctionsQ = Common.toQ(nonTrivialFunctions);
+			Q connectedFunctions = eventFunctionCallEdges.forward(nonTrivialFunctionsQ).union(eventFunctionCallEdges.reverse(nonTrivialFunctionsQ));
+			AtlasSet<Node> demotedFunctions = Common.toQ(candidateFunctions).intersection(connectedFunctions).eval().nodes();
+			if(demotedFunctions.isEmpty()){
+				break;
+			}
+			candidateFunctions = Common.toQ(candidateFunctions).difference(Common.toQ(demotedFunctions)).eval().nodes();
+			nonTrivialFunctions = demotedFunctions;
+		}
+
+		for(Node function : candidateFunctions){
+			AtlasMap<Node, AtlasSet<Node>> pairs = candidatePairs.get(function);
+			for(Node lock : pairs.keySet()){
+				this.trivialPairs.put(lock, pairs.get(lock));
+			}
+			this.trivialUnlocks.addAll(candidateUnlocks.get(function));
+			this.trivialFunctions.add(function);
+		}
+		for(Node eventNode : eventNodes){
+			if(!this.trivialPairs.containsKey(eventNode) && !this.trivialUnlocks.contains(eventNode)){
+				this.remainingEventNodes.add(eventNode);
+			}
+		}
+
+		return !this.trivialPairs.keySet().isEmpty();
+	}
+
+	/**
+	 * Returns the trivially paired locks found by {@link #run()}.
+	 *
+	 * @return A mapping from each trivially paired lock to the set of unlock {@link Node}s it is paired with.
+	 */
+	public AtlasMap<Node, AtlasSet<Node>> getTrivialPairs() {
+		return this.trivialPairs;
+	}
+
+	/**
+	 * Returns the unlock events within the trivially paired functions found by {@link #run()}.
+	 *
+	 * @return A set of {@link XCSG#ControlFlow_Node}s calling unlock.
+	 */
+	public AtlasSet<Node> getTrivialUnlocks() {
+		return this.trivialUnlocks;
+	}
+
+	/**
+	 * Returns the MPG of the trivially paired functions, which only consists of their calls to the lock/unlock functions.
+	 * <p>
+	 * The returned {@link Q} is only evaluated when it is used, such as when the verification graphs of a trivially paired lock are displayed.
+	 *
+	 * @return A {@link Q} corresponding to the MPG of the trivially paired functions.
+	 */
+	public Q getTrivialMPG() {
+		Q lockUnlockFunctions = this.lockFunctionCallsQ.union(this.unlockFunctionCallsQ);
+		return Common.toQ(this.trivialFunctions).union(lockUnlockFunctions).induce(universe().edges(XCSG.Call)).forward(Common.toQ(this.trivialFunctions));
+	}
+
+	/**
+	 * Returns the {@link XCSG#ControlFlow_Node}s that need to be verified by the full pipeline.
+	 *
+	 * @return A {@link Q} of {@link XCSG#ControlFlow_Node}s.
+	 */
+	public Q getRemainingEventNodes() {
+		return Common.toQ(this.remainingEventNodes);
+	}
+
+	/**
+	 * Pairs the <code>locks</code> with the <code>unlocks</code> within the given <code>cfg</code> if the function is trivially paired.
+	 *
+	 * @param cfg A {@link Q} corresponding to the Control Flow Graph of a function.
+	 * @param locks A set of {@link XCSG#ControlFlow_Node}s calling lock.
+	 * @param unlocks A set of {@link XCSG#ControlFlow_Node}s calling unlock.
+	 * @param eventFunctions A set of the {@link XCSG#Function}s containing the events of the signature.
+	 * @return A mapping from each lock to the unlocks post-dominating it or null if the function is not trivially paired.
+	 */
+	private AtlasMap<Node, AtlasSet<Node>> pairEvents(Q cfg, AtlasSet<Node> locks, AtlasSet<Node> unlocks, AtlasSet<Node> eventFunctions){
+		if(locks.isEmpty() || unlocks.isEmpty()){
+			return null;
+		}
+
+		Graph cfgGraph = cfg.eval();
+		// A direct call to a function containing events of the signature within a critical section disqualifies it.
+		AtlasSet<Node> blockingNodes = new AtlasHashSet<Node>();
+		AtlasSet<Node> callSites = universe().edges(XCSG.Contains).forward(cfg.nodes(XCSG.ControlFlow_Node)).nodes(XCSG.CallSite).eval().nodes();
+		for(Node callSite : callSites){
+			for(Node target : CallSiteAnalysis.getTargets(callSite)){
+				if(eventFunctions.contains(target)){
+					blockingNodes.add(CommonQueries.getContainingControlFlowNode(callSite));
+					break;
+				}
+			}
+		}
+
+		AtlasMap<Node, AtlasSet<Node>> pairs = new AtlasGraphKeyHashMap<Node, AtlasSet<Node>>();
+		for(Node lock : locks){
+			if(unlocks.contains(lock) || blockingNodes.contains(lock)){
+				return null;
+			}
+			AtlasSet<Node> matchedUnlocks = this.reachEvents(cfgGraph, lock, NodeDirection.OUT, unlocks, locks, blockingNodes);
+			if(matchedUnlocks == null){
+				return null;
+			}
+			pairs.put(lock, matchedUnlocks);
+		}
+		for(Node unlock : unlocks){
+			if(blockingNodes.contains(unlock) || this.reachEvents(cfgGraph, unlock, NodeDirection.IN, locks, unlocks, blockingNodes) == null){
+				return null;
+			}
+		}
+		return pairs;
+	}
+
+	/**
+	 * Traverses <code>cfgGraph</code> from <code>event</code> in the given <code>direction</code> and verifies that every path reaches one of the <code>targetEvents</code>
+	 * without going through any of the <code>conflictingEvents</code>, <code>blockingNodes</code>, <code>event</code> itself or the end of the function.
+	 *
+	 * @param cfgGraph The {@link Graph} of the CFG to be traversed.
+	 * @param event The {@link XCSG#ControlFlow_Node} from which the traversal starts.
+	 * @param direction {@link NodeDirection#OUT} for post-dominance and {@link NodeDirection#IN} for dominance.
+	 * @param targetEvents The events that should be reached on every path.
+	 * @param conflictingEvents The events that should not be reached before one of the <code>targetEvents</code>.
+	 * @param blockingNodes The nodes calling functions that contain events of the signature.
+	 * @return The set of <code>targetEvents</code> reached or null if the condition does not hold.
+	 */
+	private AtlasSet<Node> reachEvents(Graph cfgGraph, Node event, NodeDirection direction, AtlasSet<Node> targetEvents, AtlasSet<Node> conflictingEvents, AtlasSet<Node> blockingNodes){
+		EdgeDirection nextNodeDirection = direction == NodeDirection.OUT ? EdgeDirection.TO : EdgeDirection.FROM;
+		AtlasSet<Node> reachedEvents = new AtlasHashSet<Node>();
+		AtlasSet<Node> visitedNodes = new AtlasHashSet<Node>();
+		Deque<Node> worklist = new ArrayDeque<Node>();
+		AtlasSet<Edge> eventEdges = cfgGraph.edges(event, direction);
+		if(eventEdges.isEmpty()){
+			return null;
+		}
+		for(Edge edge : eventEdges){
+			worklist.push(edge.getNode(nextNodeDirection));
+		}
+		while(!worklist.isEmpty()){
+			SignatureBudget.check();
+			Node node = worklist.pop();
+			if(targetEvents.contains(node)){
+				reachedEvents.add(node);
+				continue;
+			}
+			if(node.equals(event) || conflictingEvents.contains(node) || blockingNodes.contains(node)){
+				return null;
+			}
+			if(visitedNodes.contains(node)){
+				continue;
+			}
+			visitedNodes.add(node);
+			AtlasSet<Edge> edges = cfgGraph.edges(node, direction);
+			if(edges.isEmpty()){
+				return null;
+			}
+			for(Edge edge : edges){
+				worklist.push(edge.getNode(nextNodeDirection));
+			}
+		}
+		return reachedEvents;
+	}
+
+}
@@ -0,0 +1,234 @@
+package com.kcsl.lsap.core;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import com.ensoftcorp.atlas.core.db.graph.Node;
+import com.ensoftcorp.atlas.core.db.map.AtlasGraphKeyHashMap;
+import com.ensoftcorp.atlas.core.db.map.AtlasMap;
+import com.kcsl.lsap.utils.LSAPUtils;
+
+/**
+ * A checkpoint of a long running signatures verification that allows resuming the verification after a crash or a restart.
+ * <p>
+ * The checkpoint holds the index of the next signature to be verified in the scheduled list of signatures, the partially aggregated {@link Reporter} and the running times so far.
+ * When the signatures are not scheduled in their sorted order, the checkpoint also holds the schedule so a resumed verification follows it
+ * without estimating the costs of the signatures again.
+ * A completed verification keeps its checkpoint with all the signatures verified until a new verification of the same signatures starts, so
+ * resuming a verification of several lock types does not verify the completed ones again.
+ */
+public class VerificationCheckpoint {
+
+	/**
+	 * The key for the number of signatures being verified.
+	 */
+	private static final String SIGNATURES_COUNT_KEY = "signatures.count";
+
+	/**
+	 * The key for the index of the next signature to be verified.
+	 */
+	private static final String NEXT_SIGNATURE_INDEX_KEY = "signatures.next";
+
+	/**
+	 * The key for the {@link LSAPUtils#nodeKey(Node)} of the last verified signature.
+	 */
+	private static final String LAST_SIGNATURE_KEY = "signatures.last";
+
+	/**
+	 * The key for the positions in the sorted signatures of the scheduled signatures, if they are not scheduled in their sorted order.
+	 */
+	private static final String SIGNATURES_ORDER_KEY = "signatures.order";
+
+	/**
+	 * The key for the total running time so far.
+	 */
+	private static final String TOTAL_RUNNING_TIME_KEY = "time.total";
+
+	/**
+	 * The key for the total running time with data flow analysis so far.
+	 */
+	private static final String TOTAL_RUNNING_TIME_WITH_DF_KEY = "time.totalWithDF";
+
+	/**
+	 * The prefix for the keys of the stored {@link Reporter}.
+	 */
+	private static final String REPORTER_KEY_PREFIX = "reporter.";
+
+	/**
+	 * The {@link Path} of the file backing this checkpoint.
+	 */
+	private final Path checkpointFilePath;
+
+	/**
+	 * The index of the next signature to be verified as restored by {@link #restore(List, Reporter, Map)}.
+	 */
+	private int nextSignatureIndex;
+
+	/**
+	 * The scheduled signatures as restored by {@link #restore(List, Reporter, Map)}.
+	 */
+	private List<Node> scheduledSignatures;
+
+	/**
+	 * The total running time as restored by {@link #restore(List, Reporter, Map)}.
+	 */
+	private double totalRunningTime;
+
+	/**
+	 * The total running time with data flow analysis as restored by {@link #restore(List, Reporter, Map)}.
+	 */
+	private double totalRunningTimeWithDF;
+
+	/**
+	 * Constructs a new instance of {@link VerificationCheckpoint}.
+	 *
+	 * @param checkpointFilePath See corresponding field for details.
+	 */
+	public VerificationCheckpoint(Path checkpointFilePath) {
+		this.checkpointFilePath = checkpointFilePath;
+		this.nextSignatureIndex = 0;
+		this.scheduledSignatures = null;
+		this.totalRunningTime = 0;
+		this.totalRunningTimeWithDF = 0;
+	}
+
+	/**
+	 * Restores the checkpoint from {@link #checkpointFilePath} into <code>reporter</code> if it matches the given <code>sortedSignatures</code>.
+	 *
+	 * @param sortedSignatures The sorted signatures being verified.
+	 * @param reporter The overall {@link Reporter} to restore the partial results into.
+	 * @param nodesByKey A mapping from {@link LSAPUtils#nodeKey(Node)} to the lock/unlock {@link Node}s.
+	 * @return true if the checkpoint is restored, otherwise false and the verification should start from the first signature.
+	 */
+	public boolean restore(List<Node> sortedSignatures, Reporter reporter, Map<String, Node> nodesByKey){
+		if(!Files.exists(this.checkpointFilePath)){
+			LSAPUtils.log("No checkpoint found at [" + this.checkpointFilePath + "].");
+			return false;
+		}
+		Properties properties = LSAPUtils.loadProperties(this.checkpointFilePath);
+		if(properties == null){
+			return false;
+		}
+		try {
+			int signaturesCount = Integer.parseInt(properties.getProperty(SIGNATURES_COUNT_KEY));
+			int nextSignatureIndex = Integer.parseInt(properties.getProperty(NEXT_SIGNATURE_INDEX_KEY));
+			if(signaturesCount != sortedSignatures.size() || nextSignatureIndex <= 0 || nextSignatureIndex > signaturesCount){
+				LSAPUtils.log("The checkpoint does not match the signatures being verified.");
+				return false;
+			}
+			List<Node> scheduledSignatures = sortedSignatures;
+			String order = properties.getProperty(SIGNATURES_ORDER_KEY);
+			if(order != null){
+				scheduledSignatures = new ArrayList<Node>();
+				Set<Integer> positions = new HashSet<Integer>();
+				for(String position : order.split(",")){
+					int index = Integer.parseInt(position);
+					if(index < 0 || index >= signaturesCount || !positions.add(index)){
+						LSAPUtils.log("The checkpoint does not match the signatures being verified.");
+						return false;
+					}
+					scheduledSignatures.add(sortedSignatures.get(index));
+				}
+				if(scheduledSignatures.size() != signaturesCount){
+					LSAPUtils.log("The checkpoint does not match the signatures being verified.");
+					return false;
+				}
+			}
+			if(!LSAPUtils.nodeKey(scheduledSignatures.get(nextSignatureIndex - 1)).equals(properties.getProperty(LAST_SIGNATURE_KEY))){
+				LSAPUtils.log("The checkpoint does not match the signatures being verified.");
+				return false;
+			}
+			double totalRunningTime = Double.parseDouble(properties.getProperty(TOTAL_RUNNING_TIME_KEY));
+			double totalRunningTimeWithDF = Double.parseDouble(properties.getProperty(TOTAL_RUNNING_TIME_WITH_DF_KEY));
+			if(!reporter.load(properties, REPORTER_KEY_PREFIX, nodesByKey)){
+				LSAPUtils.log("The checkpoint results cannot be restored.");
+				return false;
+			}
+			this.nextSignatureIndex = nextSignatureIndex;
+			this.scheduledSignatures = scheduledSignatures;
+			this.totalRunningTime = totalRunningTime;
+			this.totalRunningTimeWithDF = totalRunningTimeWithDF;
+		} catch (NumberFormatException | NullPointerException e) {
+			LSAPUtils.log("The checkpoint at [" + this.checkpointFilePath + "] is invalid.");
+			return false;
+		}
+		if(this.nextSignatureIndex == sortedSignatures.size()){
+			LSAPUtils.log("The verification of all [" + sortedSignatures.size() + "] signatures is already complete.");
+		}else{
+			LSAPUtils.log("Resuming from signature [" + this.nextSignatureIndex + "/" + sortedSignatures.size() + "].");
+		}
+		return true;
+	}
+
+	/**
+	 * Saves a checkpoint stating that the signatures before <code>nextSignatureIndex</code> are verified.
+	 * <p>
+	 * The checkpoint is written with {@link LSAPUtils#storeProperties(Properties, Path, String)} so a crash during the write never corrupts it.
+	 *
+	 * @param sortedSignatures The sorted signatures being verified.
+	 * @param scheduledSignatures The <code>sortedSignatures</code> in the order they are verified.
+	 * @param nextSignatureIndex The index of the next signature to be verified in <code>scheduledSignatures</code>.
+	 * @param reporter The overall {@link Reporter} with the results so far.
+	 * @param totalRunningTime The total running time so far.
+	 * @param totalRunningTimeWithDF The total running time with data flow analysis so far.
+	 */
+	public void save(List<Node> sortedSignatures, List<Node> scheduledSignatures, int nextSignatureIndex, Reporter reporter, double totalRunningTime, double totalRunningTimeWithDF){
+		Properties properties = new Properties();
+		properties.setProperty(SIGNATURES_COUNT_KEY, Integer.toString(sortedSignatures.size()));
+		properties.setProperty(NEXT_SIGNATURE_INDEX_KEY, Integer.toString(nextSignatureIndex));
+		properties.setProperty(LAST_SIGNATURE_KEY, LSAPUtils.nodeKey(scheduledSignatures.get(nextSignatureIndex - 1)));
+		if(!scheduledSignatures.equals(sortedSignatures)){
+			AtlasMap<Node, Integer> positions = new AtlasGraphKeyHashMap<Node, Integer>();
+			for(int index = 0; index < sortedSignatures.size(); index++){
+				positions.put(sortedSignatures.get(index), index);
+			}
+			StringBuilder order = new StringBuilder();
+			for(Node signatureNode : scheduledSignatures){
+				if(order.length() > 0){
+					order.append(',');
+				}
+				order.append(positions.get(signatureNode));
+			}
+			properties.setProperty(SIGNATURES_ORDER_KEY, order.toString());
+		}
+		properties.setProperty(TOTAL_RUNNING_TIME_KEY, Double.toString(totalRunningTime));
+		properties.setProperty(TOTAL_RUNNING_TIME_WITH_DF_KEY, Double.toString(totalRunningTimeWithDF));
+		reporter.store(properties, REPORTER_KEY_PREFIX);
+		LSAPUtils.storeProperties(properties, this.checkpointFilePath, "L-SAP verification checkpoint");
+	}
+
+	/**
+	 * Deletes the checkpoint when a new verification starts or when there is nothing to resume.
+	 */
+	public void delete(){
+		try {
+			Files.deleteIfExists(this.checkpointFilePath);
+		} catch (IOException e) {
+			System.err.println("Cannot delete checkpoint file.");
+		}
+	}
+
+	public int getNextSignatureIndex() {
+		return this.nextSignatureIndex;
+	}
+
+	public List<Node> getScheduledSignatures() {
+		return this.scheduledSignatures;
+	}
+
+	public double getTotalRunningTime() {
+		return this.totalRunningTime;
+	}
+
+	public double getTotalRunningTimeWithDF() {
+		return this.totalRunningTimeWithDF;
+	}
+
+}
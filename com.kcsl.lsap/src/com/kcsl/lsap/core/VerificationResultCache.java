@@ -0,0 +1,281 @@
+package com.kcsl.lsap.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+import com.ensoftcorp.atlas.core.db.graph.Edge;
+import com.ensoftcorp.atlas.core.db.graph.Graph;
+import com.ensoftcorp.atlas.core.db.graph.GraphElement.EdgeDirection;
+import com.ensoftcorp.atlas.core.db.graph.Node;
+import com.ensoftcorp.atlas.core.index.common.SourceCorrespondence;
+import com.ensoftcorp.atlas.core.query.Q;
+import com.ensoftcorp.atlas.core.xcsg.XCSG;
+import com.ensoftcorp.open.commons.analysis.CommonQueries;
+import com.kcsl.lsap.VerificationProperties;
+import com.kcsl.lsap.utils.LSAPUtils;
+
+/**
+ * A persistent store of the verification results per signature keyed by a content hash of the CFGs of its MPG functions.
+ * <p>
+ * Since the addresses of the {@link Node}s change on every re-index, the cached {@link Node}s are identified by {@link LSAPUtils#nodeKey(Node)}
+ * and resolved back to {@link Node}s within the CFGs of the MPG functions when the cached results are reused.
+ * <p>
+ * A shard reads the shared cache file but writes its new entries to a cache file of its own, so concurrent shards never overwrite each
+ * other's entries. The shard cache files are merged into the shared cache file by {@link #merge(Path, Path)} once all shards are done.
+ * <p>
+ * The cache file is append-only: {@link #save()} appends the entries added since the last save followed by a {@link #COMPLETE_KEY_SUFFIX}
+ * marker per content hash, so every checkpoint writes only the new entries and an entry cut by an interrupted append is never loaded.
+ * <p>
+ * A cached signature is not verified again, so neither its per-lock log sections nor its verification graphs are produced and its locks
+ * are not indexed in {@link LockVerificationIndex}. The cache is therefore only read when the verification graphs are not saved and the
+ * lock results are not indexed.
+ */
+public class VerificationResultCache {
+
+	/**
+	 * The suffix of the key marking the entries of a content hash as completely written.
+	 */
+	private static final String COMPLETE_KEY_SUFFIX = ".complete";
+
+	/**
+	 * The {@link Path} of the file where the entries of this cache are written.
+	 */
+	private final Path cacheFilePath;
+
+	/**
+	 * The cache entries where each key is a content hash followed by the name of a {@link Reporter} set.
+	 */
+	private final Properties entries;
+
+	/**
+	 * The entries added since the last {@link #save()} to be appended to {@link #cacheFilePath}.
+	 */
+	private final Properties pendingEntries;
+
+	/**
+	 * The content hashes of {@link #pendingEntries}.
+	 */
+	private final Set<String> pendingContentHashes;
+
+	/**
+	 * Constructs a new instance of {@link VerificationResultCache} and loads the existing entries from <code>cacheFilePath</code> if any.
+	 *
+	 * @param cacheFilePath See corresponding field for details.
+	 */
+	public VerificationResultCache(Path cacheFilePath) {
+		this(cacheFilePath, null);
+	}
+
+	/**
+	 * Constructs a new instance of {@link VerificationResultCache} that also reuses the entries of <code>sharedCacheFilePath</code> without writing to it.
+	 *
+	 * @param cacheFilePath See corresponding field for details.
+	 * @param sharedCacheFilePath A {@link Path} to a cache file to be read in addition to <code>cacheFilePath</code> or null.
+	 */
+	public VerificationResultCache(Path cacheFilePath, Path sharedCacheFilePath) {
+		this.cacheFilePath = cacheFilePath;
+		this.entries = new Properties();
+		if(sharedCacheFilePath != null){
+			this.entries.putAll(load(sharedCacheFilePath));
+		}
+		this.entries.putAll(load(cacheFilePath));
+		this.pendingEntries = new Properties();
+		this.pendingContentHashes = new TreeSet<String>();
+	}
+
+	/**
+	 * Loads the completely written cache entries stored in <code>cacheFilePath</code>.
+	 *
+	 * @param cacheFilePath A {@link Path} to a cache file.
+	 * @return The loaded {@link Properties} or empty {@link Properties} if the file does not exist or cannot be read.
+	 */
+	private static Properties load(Path cacheFilePath){
+		Properties storedEntries = Files.exists(cacheFilePath) ? LSAPUtils.loadProperties(cacheFilePath) : null;
+		Properties entries = new Properties();
+		if(storedEntries == null){
+			return entries;
+		}
+		for(String key : storedEntries.stringPropertyNames()){
+			int contentHashEnd = key.indexOf('.');
+			if(contentHashEnd > 0 && storedEntries.containsKey(key.substring(0, contentHashEnd) + COMPLETE_KEY_SUFFIX)){
+				entries.setProperty(key, storedEntries.getProperty(key));
+			}
+		}
+		return entries;
+	}
+
+	/**
+	 * Appends <code>entries</code> followed by the {@link #COMPLETE_KEY_SUFFIX} markers of <code>contentHashes</code> to <code>cacheFilePath</code>.
+	 *
+	 * @param entries The {@link Properties} to be appended.
+	 * @param contentHashes The content hashes of <code>entries</code>.
+	 * @param cacheFilePath A {@link Path} to the cache file.
+	 * @return true if the entries are appended, otherwise false.
+	 */
+	private static boolean append(Properties entries, Set<String> contentHashes, Path cacheFilePath){
+		Properties markers = new Properties();
+		for(String contentHash : contentHashes){
+			markers.setProperty(contentHash + COMPLETE_KEY_SUFFIX, Boolean.TRUE.toString());
+		}
+		// the markers follow the entries in a single write, so a cut append leaves the markers out
+		ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+		try {
+			chunk.write(System.lineSeparator().getBytes(StandardCharsets.ISO_8859_1));
+			entries.store(chunk, null);
+			markers.store(chunk, null);
+		} catch (IOException e) {
+			return false;
+		}
+		try(OutputStream outputStream = Files.newOutputStream(cacheFilePath, StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.SYNC)){
+			chunk.writeTo(outputStream);
+		} catch (IOException e) {
+			LSAPUtils.log("Cannot append to the cache file [" + cacheFilePath + "].");
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Appends the entries of <code>shardCacheFilePath</code> to <code>cacheFilePath</code> and deletes <code>shardCacheFilePath</code>.
+	 *
+	 * @param cacheFilePath A {@link Path} to the shared cache file.
+	 * @param shardCacheFilePath A {@link Path} to the cache file written by a shard.
+	 * @return true if the entries are merged or <code>shardCacheFilePath</code> does not exist, otherwise false.
+	 */
+	public static boolean merge(Path cacheFilePath, Path shardCacheFilePath){
+		if(!Files.exists(shardCacheFilePath)){
+			return true;
+		}
+		Properties entries = load(shardCacheFilePath);
+		Set<String> contentHashes = new TreeSet<String>();
+		for(String key : entries.stringPropertyNames()){
+			contentHashes.add(key.substring(0, key.indexOf('.')));
+		}
+		if(!contentHashes.isEmpty() && !append(entries, contentHashes, cacheFilePath)){
+			return false;
+		}
+		try {
+			Files.delete(shardCacheFilePath);
+		} catch (IOException e) {
+			LSAPUtils.log("Cannot delete the cache file [" + shardCacheFilePath + "].");
+		}
+		return true;
+	}
+
+	/**
+	 * Computes the content hash for the verification of <code>mpg</code> with the given <code>cfgNodesContainingEvents</code>.
+	 * <p>
+	 * The hash covers the {@link SourceCorrespondence}, names and edges of the CFGs of the MPG functions, the events and the verification configuration.
+	 *
+	 * @param mpg A {@link Q} corresponding to the MPG.
+	 * @param cfgNodesContainingEvents A {@link Q} containing the CFG nodes that correspond to lock/unlock call events.
+	 * @param nodesByKey A mapping to be filled from the keys of the CFG nodes of the MPG functions to their {@link Node}s.
+	 * @return A {@link String} corresponding to the content hash or null if the CFG nodes cannot be uniquely identified.
+	 */
+	public static String contentHash(Q mpg, Q cfgNodesContainingEvents, Map<String, Node> nodesByKey){
+		List<String> contents = new ArrayList<String>();
+		contents.add("feasibility=" + VerificationProperties.isFeasibilityCheckingEnabled());
+		for(Node mpgNode : mpg.eval().nodes()){
+			String functionKey = LSAPUtils.nodeKey(mpgNode);
+			contents.add("F " + functionKey);
+			Graph cfgGraph = CommonQueries.cfg(mpgNode).eval();
+			for(Node cfgNode : cfgGraph.nodes()){
+				String cfgNodeKey = LSAPUtils.nodeKey(cfgNode);
+				if(nodesByKey.put(cfgNodeKey, cfgNode) != null){
+					return null;
+				}
+				contents.add("N " + functionKey + " " + cfgNodeKey);
+			}
+			for(Edge cfgEdge : cfgGraph.edges()){
+				Object conditionValue = cfgEdge.hasAttr(XCSG.conditionValue) ? cfgEdge.getAttr(XCSG.conditionValue) : "";
+				contents.add("E " + LSAPUtils.nodeKey(cfgEdge.getNode(EdgeDirection.FROM)) + " " + LSAPUtils.nodeKey(cfgEdge.getNode(EdgeDirection.TO)) + " " + conditionValue + " " + cfgEdge.taggedWith(XCSG.ControlFlowBackEdge));
+			}
+		}
+		for(Edge mpgEdge : mpg.eval().edges()){
+			contents.add("C " + LSAPUtils.nodeKey(mpgEdge.getNode(EdgeDirection.FROM)) + " " + LSAPUtils.nodeKey(mpgEdge.getNode(EdgeDirection.TO)));
+		}
+		for(Node eventNode : cfgNodesContainingEvents.eval().nodes()){
+			contents.add("V " + LSAPUtils.nodeKey(eventNode));
+		}
+		Collections.sort(contents);
+
+		try {
+			MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+			for(String content : contents){
+				messageDigest.update(content.getBytes(StandardCharsets.UTF_8));
+				messageDigest.update((byte) 0);
+			}
+			StringBuilder hash = new StringBuilder();
+			for(byte b : messageDigest.digest()){
+				hash.append(String.format("%02x", b));
+			}
+			return hash.toString();
+		} catch (NoSuchAlgorithmException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Retrieves the cached verification results for the given <code>contentHash</code>.
+	 *
+	 * @param contentHash The content hash computed by {@link #contentHash(Q, Q, Map)}.
+	 * @param nodesByKey The mapping filled by {@link #contentHash(Q, Q, Map)}.
+	 * @param reportTitle A {@link String} to be used for the title of the retrieved {@link Reporter}.
+	 * @return An instance of {@link Reporter} or null if no valid entry exists for <code>contentHash</code>.
+	 */
+	public Reporter get(String contentHash, Map<String, Node> nodesByKey, String reportTitle){
+		if(contentHash == null || !Reporter.isStored(this.entries, contentHash + ".")){
+			return null;
+		}
+		Reporter reporter = new Reporter(reportTitle);
+		if(!reporter.load(this.entries, contentHash + ".", nodesByKey)){
+			LSAPUtils.log("The cached results [" + contentHash + "] are discarded.");
+			return null;
+		}
+		return reporter;
+	}
+	
+	/**
+	 * Stores the verification results of <code>reporter</code> under the given <code>contentHash</code> unless they are already stored,
+	 * so a signature verified again while its cached results are not read is never appended twice.
+	 *
+	 * @param contentHash The content hash computed by {@link #contentHash(Q, Q, Map)}.
+	 * @param reporter An instance of {@link Reporter} to be cached.
+	 */
+	public void put(String contentHash, Reporter reporter){
+		if(contentHash == null || Reporter.isStored(this.entries, contentHash + ".")){
+			return;
+		}
+		reporter.store(this.entries, contentHash + ".");
+		reporter.store(this.pendingEntries, contentHash + ".");
+		this.pendingContentHashes.add(contentHash);
+	}
+
+	/**
+	 * Appends the entries added since the last save to {@link #cacheFilePath}.
+	 */
+	public void save(){
+		if(this.pendingContentHashes.isEmpty()){
+			return;
+		}
+		if(append(this.pendingEntries, this.pendingContentHashes, this.cacheFilePath)){
+			this.pendingEntries.clear();
+			this.pendingContentHashes.clear();
+		}
+	}
+
+}
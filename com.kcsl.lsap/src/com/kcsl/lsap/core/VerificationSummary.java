@@ -0,0 +1,146 @@
+package com.kcsl.lsap.core;
+
+import java.util.Properties;
+
+import com.kcsl.lsap.utils.LSAPUtils;
+
+/**
+ * The running times and signature counts of a signatures verification that are logged after the overall {@link Reporter} statistics.
+ */
+public class VerificationSummary {
+
+	/**
+	 * The number of signatures considered for verification.
+	 */
+	private long signaturesCount;
+
+	/**
+	 * The total running time in minutes of the verification.
+	 */
+	private double totalRunningTime;
+
+	/**
+	 * The total running time in minutes of the verification including the data flow analysis.
+	 */
+	private double totalRunningTimeWithDF;
+
+	/**
+	 * The number of signatures whose results are reused from a signature with the same MPG and events.
+	 */
+	private int deduplicatedSignaturesCount;
+
+	/**
+	 * The number of distinct MPGs verified.
+	 */
+	private int distinctMPGsCount;
+
+	/**
+	 * The running time in minutes saved by reusing the results of the deduplicated signatures.
+	 */
+	private double savedRunningTime;
+
+	/**
+	 * The number of signatures whose results are reused from the verification results cache.
+	 */
+	private int cachedSignaturesCount;
+
+	/**
+	 * The number of signatures whose verification exceeded their budget.
+	 */
+	private int timedOutSignaturesCount;
+
+	/**
+	 * Constructs a new instance of {@link VerificationSummary}.
+	 *
+	 * @param signaturesCount See corresponding field for details.
+	 * @param totalRunningTime See corresponding field for details.
+	 * @param totalRunningTimeWithDF See corresponding field for details.
+	 * @param deduplicatedSignaturesCount See corresponding field for details.
+	 * @param distinctMPGsCount See corresponding field for details.
+	 * @param savedRunningTime See corresponding field for details.
+	 * @param cachedSignaturesCount See corresponding field for details.
+	 * @param timedOutSignaturesCount See corresponding field for details.
+	 */
+	public VerificationSummary(long signaturesCount, double totalRunningTime, double totalRunningTimeWithDF, int deduplicatedSignaturesCount, int distinctMPGsCount, double savedRunningTime, int cachedSignaturesCount, int timedOutSignaturesCount) {
+		this.signaturesCount = signaturesCount;
+		this.totalRunningTime = totalRunningTime;
+		this.totalRunningTimeWithDF = totalRunningTimeWithDF;
+		this.deduplicatedSignaturesCount = deduplicatedSignaturesCount;
+		this.distinctMPGsCount = distinctMPGsCount;
+		this.savedRunningTime = savedRunningTime;
+		this.cachedSignaturesCount = cachedSignaturesCount;
+		this.timedOutSignaturesCount = timedOutSignaturesCount;
+	}
+
+	/**
+	 * Logs this summary.
+	 */
+	public void log(){
+		LSAPUtils.log("******************************************");
+		LSAPUtils.log("Signatures Count: "  + this.signaturesCount);
+		LSAPUtils.log("Total Running Time [ "  + this.totalRunningTime + " minutes]!" );
+		LSAPUtils.log("Total Running Time With Data Flow Analysis [ "  + this.totalRunningTimeWithDF + " minutes]!" );
+		LSAPUtils.log("Deduplicated Signatures Count: "  + this.deduplicatedSignaturesCount + " (" + this.distinctMPGsCount + " distinct MPGs verified)");
+		LSAPUtils.log("Saved Running Time By Deduplication [ "  + this.savedRunningTime + " minutes]!" );
+		LSAPUtils.log("Cached Signatures Count: "  + this.cachedSignaturesCount);
+		LSAPUtils.log("Timed Out Signatures Count: "  + this.timedOutSignaturesCount);
+		LSAPUtils.log("******************************************");
+	}
+
+	/**
+	 * Aggregates the counts and running times of <code>subSummary</code> to this instance of {@link VerificationSummary}.
+	 *
+	 * @param subSummary An instance of {@link VerificationSummary} to be appended.
+	 */
+	public void aggregate(VerificationSummary subSummary){
+		this.signaturesCount += subSummary.signaturesCount;
+		this.totalRunningTime += subSummary.totalRunningTime;
+		this.totalRunningTimeWithDF += subSummary.totalRunningTimeWithDF;
+		this.deduplicatedSignaturesCount += subSummary.deduplicatedSignaturesCount;
+		this.distinctMPGsCount += subSummary.distinctMPGsCount;
+		this.savedRunningTime += subSummary.savedRunningTime;
+		this.cachedSignaturesCount += subSummary.cachedSignaturesCount;
+		this.timedOutSignaturesCount += subSummary.timedOutSignaturesCount;
+	}
+
+	/**
+	 * Stores this summary into <code>properties</code>.
+	 *
+	 * @param properties The {@link Properties} to store into.
+	 * @param keyPrefix A {@link String} prefix for the stored keys.
+	 */
+	public void store(Properties properties, String keyPrefix){
+		properties.setProperty(keyPrefix + "signatures", Long.toString(this.signaturesCount));
+		properties.setProperty(keyPrefix + "totalRunningTime", Double.toString(this.totalRunningTime));
+		properties.setProperty(keyPrefix + "totalRunningTimeWithDF", Double.toString(this.totalRunningTimeWithDF));
+		properties.setProperty(keyPrefix + "deduplicatedSignatures", Integer.toString(this.deduplicatedSignaturesCount));
+		properties.setProperty(keyPrefix + "distinctMPGs", Integer.toString(this.distinctMPGsCount));
+		properties.setProperty(keyPrefix + "savedRunningTime", Double.toString(this.savedRunningTime));
+		properties.setProperty(keyPrefix + "cachedSignatures", Integer.toString(this.cachedSignaturesCount));
+		properties.setProperty(keyPrefix + "timedOutSignatures", Integer.toString(this.timedOutSignaturesCount));
+	}
+
+	/**
+	 * Loads a summary stored by {@link #store(Properties, String)} from <code>properties</code>.
+	 *
+	 * @param properties The {@link Properties} to load from.
+	 * @param keyPrefix A {@link String} prefix for the stored keys.
+	 * @return An instance of {@link VerificationSummary} or null if no valid summary is stored under <code>keyPrefix</code>.
+	 */
+	public static VerificationSummary load(Properties properties, String keyPrefix){
+		try {
+			return new VerificationSummary(
+					Long.parseLong(properties.getProperty(keyPrefix + "signatures")),
+					Double.parseDouble(properties.getProperty(keyPrefix + "totalRunningTime")),
+					Double.parseDouble(properties.getProperty(keyPrefix + "totalRunningTimeWithDF")),
+					Integer.parseInt(properties.getProperty(keyPrefix + "deduplicatedSignatures")),
+					Integer.parseInt(properties.getProperty(keyPrefix + "distinctMPGs")),
+					Double.parseDouble(properties.getProperty(keyPrefix + "savedRunningTime")),
+					Integer.parseInt(properties.getProperty(keyPrefix + "cachedSignatures")),
+					Integer.parseInt(properties.getProperty(keyPrefix + "timedOutSignatures")));
+		} catch (NumberFormatException | NullPointerException e) {
+			return null;
+		}
+	}
+
+}
@@ -2,7 +2,6 @@ package com.kcsl.lsap.core;
 
 import java.nio.file.Path;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
 
 import com.ensoftcorp.atlas.core.db.graph.Node;
@@ -15,11 +14,11 @@ import com.ensoftcorp.atlas.core.log.Log;
 import com.ensoftcorp.atlas.core.query.Q;
 import com.ensoftcorp.atlas.core.script.Common;
 import com.ensoftcorp.atlas.core.xcsg.XCSG;
-import com.ensoftcorp.open.commons.analysis.CommonQueries;
 import com.ensoftcorp.open.pcg.common.PCG;
 import com.kcsl.lsap.VerificationProperties;
 import com.kcsl.lsap.core.FunctionVerifier.PathStatus;
 import com.kcsl.lsap.core.LockVerificationGraphsGenerator.VerificationStatus;
+import com.kcsl.lsap.core.LockVerificationIndex.LockVerificationResult;
 import com.kcsl.lsap.core.MatchingPair.VerificationResult;
 import com.kcsl.lsap.utils.LSAPUtils;
 
@@ -33,6 +32,16 @@ public class Verifier {
 	 */
 	private Path graphsOutputDirectoryPath;
 	
+	/**
+	 * The {@link GraphExportPipeline} of the verification run the verification graphs are exported by.
+	 */
+	private GraphExportPipeline graphExportPipeline;
+	
+	/**
+	 * The {@link ContainingFunctionCache} of the verification run.
+	 */
+	private ContainingFunctionCache containingFunctionCache;
+	
 	/**
 	 * An instance of {@link Node} for the signature.
 	 */
@@ -74,9 +83,9 @@ public class Verifier {
 	private AtlasMap<Node, Boolean> mayEventsFeasibility;
 	
 	/**
-	 * A mapping of {@link Node} corresponding to a lock function call to a set of its {@link MatchingPair}s.
+	 * The {@link MatchingPair}s of the lock function calls of {@link #signatureNode}.
 	 */
-	private AtlasMap<Node, HashSet<MatchingPair>> matchingPairsMap;
+	private MatchingPairTable matchingPairs;
 	
 	/**
 	 * A list of {@link Node}s corresponding to verified locks.
@@ -113,6 +122,16 @@ public class Verifier {
 	 */
 	private AtlasSet<Node> multiStateLockFunctionCallEvents;
 	
+	/**
+	 * A mapping from each lock certified by {@link TrivialLockPrefilter} outside of {@link #mpg} to the unlocks it is paired with.
+	 */
+	private AtlasMap<Node, AtlasSet<Node>> trivialPairs;
+	
+	/**
+	 * A set of {@link Node}s corresponding to the unlock function calls within the functions of {@link #trivialPairs}.
+	 */
+	private AtlasSet<Node> trivialUnlocks;
+	
 	/**
 	 * Constructs a new instance of {@link Verifier}.
 	 * 
@@ -122,8 +141,10 @@ public class Verifier {
 	 * @param functionEventsMap See corresponding field for details.
 	 * @param mayEventsFeasibility See corresponding field for details.
 	 * @param graphsOutputDirectoryPath See corresponding field for details.
+	 * @param graphExportPipeline See corresponding field for details.
+	 * @param containingFunctionCache See corresponding field for details.
 	 */
-	public Verifier(Node signatureNode, Q mpg, AtlasMap<Node, PCG> functionsPCGMap, AtlasMap<Node, List<Q>> functionEventsMap, AtlasMap<Node, Boolean> mayEventsFeasibility, Path graphsOutputDirectoryPath){
+	public Verifier(Node signatureNode, Q mpg, AtlasMap<Node, PCG> functionsPCGMap, AtlasMap<Node, List<Q>> functionEventsMap, AtlasMap<Node, Boolean> mayEventsFeasibility, Path graphsOutputDirectoryPath, GraphExportPipeline graphExportPipeline, ContainingFunctionCache containingFunctionCache){
 		this.signatureNode = signatureNode;
 		this.verificationInstanceId = this.signatureNode.getAttr(XCSG.name) + "(" + this.signatureNode.addressBits() + ")";;
 		this.fullMpg = mpg;
@@ -131,7 +152,7 @@ public class Verifier {
 		this.functionsPCGMap = functionsPCGMap;
 		this.functionEventsMap = functionEventsMap;
 		this.mayEventsFeasibility = mayEventsFeasibility;
-		this.matchingPairsMap = new AtlasGraphKeyHashMap<Node, HashSet<MatchingPair>>();
+		this.matchingPairs = new MatchingPairTable();
 		this.summaries = new AtlasGraphKeyHashMap<Node, FunctionSummary>();
 		this.verifiedLocks = new AtlasHashSet<Node>();
 		this.danglingLocks = new AtlasHashSet<Node>();
@@ -140,7 +161,26 @@ public class Verifier {
 		this.lockFunctionCallEvents = new AtlasHashSet<Node>();
 		this.multiStateLockFunctionCallEvents = new AtlasHashSet<Node>();
 		this.unlockFunctionCallEvents = new AtlasHashSet<Node>();
+		this.trivialPairs = new AtlasGraphKeyHashMap<Node, AtlasSet<Node>>();
+		this.trivialUnlocks = new AtlasHashSet<Node>();
 		this.graphsOutputDirectoryPath = graphsOutputDirectoryPath;
+		this.graphExportPipeline = graphExportPipeline;
+		this.containingFunctionCache = containingFunctionCache;
+	}
+	
+	/**
+	 * Adds the locks certified by {@link TrivialLockPrefilter} so they are reported along with the locks in {@link #mpg}.
+	 * 
+	 * @param trivialPairs A mapping from each trivially paired lock to the unlocks it is paired with.
+	 * @param trivialUnlocks The unlock function calls within the trivially paired functions.
+	 * @param trivialMpg A {@link Q} corresponding to the MPG of the trivially paired functions.
+	 */
+	public void addTrivialPairs(AtlasMap<Node, AtlasSet<Node>> trivialPairs, AtlasSet<Node> trivialUnlocks, Q trivialMpg){
+		for(Node lock : trivialPairs.keySet()){
+			this.trivialPairs.put(lock, trivialPairs.get(lock));
+		}
+		this.trivialUnlocks.addAll(trivialUnlocks);
+		this.fullMpg = this.fullMpg.union(trivialMpg);
 	}
 	
 	/**
@@ -168,13 +208,26 @@ public class Verifier {
 		Collections.reverse(functions);
 		
 		for(Node function : functions){
+			SignatureBudget.check();
 			LSAPUtils.log("Generating Summary For Function:" + function.attr().get(XCSG.name));
 			long outDegree = this.mpg.successors(Common.toQ(function)).eval().nodes().size();
 			LSAPUtils.log("Function's outdegree:" + outDegree);
 			this.summaries.put(function, this.constructFunctionSummary(function));
 		}
 		
+		// The trivially paired locks are only paired with the unlocks of their own functions.
+		for(Node lock : this.trivialPairs.keySet()){
+			this.lockFunctionCallEvents.add(lock);
+			for(Node unlock : this.trivialPairs.get(lock)){
+				this.matchingPairs.add(lock, unlock);
+			}
+		}
+		this.unlockFunctionCallEvents.addAll(this.trivialUnlocks);
+		
 		this.aggregateVerificationResults(reporter);
+		if(VerificationProperties.isLockResultsIndexEnabled()){
+			this.indexLockVerificationResults();
+		}
 		
 		reporter.done();
 		
@@ -201,21 +254,12 @@ public class Verifier {
 		for(Node successor : successors)
 			successorFunctionSummaries.put(successor, this.summaries.get(successor));
 		
-		FunctionVerifier functionVerifier = new FunctionVerifier(function, pcg, successorFunctionSummaries, events);	
+		FunctionVerifier functionVerifier = new FunctionVerifier(function, pcg, successorFunctionSummaries, events, this.matchingPairs);	
 		FunctionSummary summary = functionVerifier.run();
 		this.lockFunctionCallEvents.addAll(summary.getLockFunctionCallEvents());
 		this.multiStateLockFunctionCallEvents.addAll(summary.getE1MayEvents());
 		this.unlockFunctionCallEvents.addAll(summary.getUnlockFunctionCallEvents());
 		
-		for(Node node : summary.getMatchingPairsMap().keySet()){
-			HashSet<MatchingPair> matchingPairs = new HashSet<MatchingPair>();
-			if(this.matchingPairsMap.containsKey(node)){
-				matchingPairs = this.matchingPairsMap.get(node);
-			}
-			matchingPairs.addAll(summary.getMatchingPairsMap().get(node));
-			this.matchingPairsMap.put(node, matchingPairs);
-		}
-		
 		return summary;
 	}
 	
@@ -238,22 +282,26 @@ public class Verifier {
 			}
 		}
 		
-		if(this.matchingPairsMap.keySet().size() != this.lockFunctionCallEvents.size()){
-			LSAPUtils.log("The matching pair map contains [" + this.matchingPairsMap.size() + "] while the size of e1Events is [" + this.lockFunctionCallEvents.size() + "]!");
+		if(this.matchingPairs.getFirstEvents().size() != this.lockFunctionCallEvents.size()){
+			LSAPUtils.log("The matching pair map contains [" + this.matchingPairs.getFirstEvents().size() + "] while the size of e1Events is [" + this.lockFunctionCallEvents.size() + "]!");
 		}
 		
+		// The lock and unlock events are excluded from the paths of all the pairs.
+		AtlasSet<Node> excludedNodes = new AtlasHashSet<Node>(this.lockFunctionCallEvents);
+		excludedNodes.addAll(this.unlockFunctionCallEvents);
+		
 		AtlasSet<Node> danglingE1Events = new AtlasHashSet<Node>();
 		AtlasSet<Node> safeE1Events = new AtlasHashSet<Node>();
 		AtlasSet<Node> doubleE1Events = new AtlasHashSet<Node>();
 		
-		for(Node e1Event : this.matchingPairsMap.keySet()){
+		for(Node e1Event : this.matchingPairs.getFirstEvents()){
 			LSAPUtils.log("##########################################");
-			LSAPUtils.log("Matching Pairs for Event [" + e1Event.getAttr(XCSG.name) + "] in function [" + CommonQueries.getContainingFunction(e1Event).getAttr(XCSG.name) + "]:");
+			LSAPUtils.log("Matching Pairs for Event [" + e1Event.getAttr(XCSG.name) + "] in function [" + this.containingFunctionCache.getContainingFunction(e1Event).getAttr(XCSG.name) + "]:");
 			LSAPUtils.log("##########################################");
-			HashSet<MatchingPair> pairs = this.matchingPairsMap.get(e1Event);
+			List<MatchingPair> pairs = this.matchingPairs.getMatchingPairs(e1Event);
 			int count = 0;
 			for(MatchingPair pair : pairs){
-				pair.verify(this.lockFunctionCallEvents, this.unlockFunctionCallEvents, this.mayEventsFeasibility, this.summaries);
+				pair.verify(this.lockFunctionCallEvents, excludedNodes, this.mayEventsFeasibility, this.summaries, this.containingFunctionCache);
 				LSAPUtils.log("[" + (++count) + "] " + pair.toString());
 				switch(pair.getResult()){
 				case DANGLING_LOCK:
@@ -278,8 +326,11 @@ public class Verifier {
 		/**
 		 * Compute actual verified lock events.
 		 */
-		AtlasSet<Node> verifiedLockEvents = new AtlasHashSet<Node>(safeE1Events);
-		verifiedLockEvents = Common.toQ(verifiedLockEvents).difference(Common.toQ(danglingE1Events).union(Common.toQ(doubleE1Events))).eval().nodes();
+		NodeIdSet safeE1EventIds = NodeIdSet.of(safeE1Events);
+		NodeIdSet danglingE1EventIds = NodeIdSet.of(danglingE1Events);
+		NodeIdSet doubleE1EventIds = NodeIdSet.of(doubleE1Events);
+		NodeIdSet verifiedLockEventIds = safeE1EventIds.difference(danglingE1EventIds.union(doubleE1EventIds));
+		AtlasSet<Node> verifiedLockEvents = verifiedLockEventIds.toAtlasSet();
 		
 		if(!verifiedLockEvents.isEmpty()) {
 			LSAPUtils.log("##########################################");
@@ -298,8 +349,8 @@ public class Verifier {
 		/**
 		 * Compute actual partially verified lock events.
 		 */
-		AtlasSet<Node> partiallyVerifiedE1Events = new AtlasHashSet<Node>(safeE1Events);
-		partiallyVerifiedE1Events = Common.toQ(partiallyVerifiedE1Events).difference(Common.toQ(verifiedLockEvents)).eval().nodes();
+		NodeIdSet partiallyVerifiedE1EventIds = safeE1EventIds.difference(verifiedLockEventIds);
+		AtlasSet<Node> partiallyVerifiedE1Events = partiallyVerifiedE1EventIds.toAtlasSet();
 		
 		if(!partiallyVerifiedE1Events.isEmpty()){
 			LSAPUtils.log("##########################################");
@@ -316,8 +367,7 @@ public class Verifier {
 		 * Compute actual deadlocked lock events.
 		 */
 		reporter.setDeadlockedLockEvents(doubleE1Events);
-		AtlasSet<Node> actualRacedEvents = new AtlasHashSet<Node>(doubleE1Events);
-		actualRacedEvents = Common.toQ(actualRacedEvents).difference(Common.toQ(partiallyVerifiedE1Events)).eval().nodes();
+		AtlasSet<Node> actualRacedEvents = doubleE1EventIds.difference(partiallyVerifiedE1EventIds).toAtlasSet();
 		
 		if(!actualRacedEvents.isEmpty()){
 			LSAPUtils.log("##########################################");
@@ -334,8 +384,7 @@ public class Verifier {
 		 * Compute actual dangling lock events.
 		 */
 		reporter.setDanglingLockEvents(danglingE1Events);
-		AtlasSet<Node> actualDanglingEvents = new AtlasHashSet<Node>(danglingE1Events);
-		actualDanglingEvents = Common.toQ(actualDanglingEvents).difference(Common.toQ(partiallyVerifiedE1Events)).eval().nodes();
+		AtlasSet<Node> actualDanglingEvents = danglingE1EventIds.difference(partiallyVerifiedE1EventIds).toAtlasSet();
 		
 		if(!actualDanglingEvents.isEmpty()){
 			LSAPUtils.log("##########################################");
@@ -351,7 +400,8 @@ public class Verifier {
 		/**
 		 * Compute missing lock events from the verification.
 		 */
-		AtlasSet<Node> missingE1Events = Common.toQ(this.lockFunctionCallEvents).difference(Common.toQ(verifiedLocks), Common.toQ(partiallyLocks), Common.toQ(deadlockedLocks), Common.toQ(danglingLocks)).eval().nodes();
+		NodeIdSet classifiedE1EventIds = NodeIdSet.of(this.verifiedLocks).union(NodeIdSet.of(this.partiallyLocks)).union(NodeIdSet.of(this.deadlockedLocks)).union(NodeIdSet.of(this.danglingLocks));
+		AtlasSet<Node> missingE1Events = NodeIdSet.of(this.lockFunctionCallEvents).difference(classifiedE1EventIds).toAtlasSet();
 		if(!missingE1Events.isEmpty()){
 			LSAPUtils.log("##########################################");
 			LSAPUtils.log("Missing Lock Events");
@@ -372,7 +422,7 @@ public class Verifier {
 	 * @param displayInteractiveGraphsForLock A {@link Boolean} specifies whether to force display of interactive lock verification graphs.
 	 */
 	private void saveLockVerificationGraphs(Node lockNode, boolean displayInteractiveGraphsForLock){
-		LockVerificationGraphsGenerator lockVerificationGraphsGenerator = new LockVerificationGraphsGenerator(this.signatureNode, this.fullMpg, this.matchingPairsMap, this.graphsOutputDirectoryPath);
+		LockVerificationGraphsGenerator lockVerificationGraphsGenerator = new LockVerificationGraphsGenerator(this.signatureNode, this.fullMpg, this.matchingPairs, this.graphsOutputDirectoryPath, this.graphExportPipeline, this.containingFunctionCache);
 		
 		// A paired lock is never partially paired or unpaired or deadlock
 		//Q pairedLocks = verifiedLocks.difference(partiallyLocks, danglingLocks, doubleLocks);
@@ -406,6 +456,38 @@ public class Verifier {
 		}
 	}
 	
+	/**
+	 * Indexes the verification results of every verified lock in {@link LockVerificationIndex} for the interactive verification.
+	 */
+	private void indexLockVerificationResults(){
+		AtlasMap<Node, LockVerificationResult> results = new AtlasGraphKeyHashMap<Node, LockVerificationResult>();
+		this.addLockVerificationStatus(results, this.verifiedLocks, VerificationStatus.PAIRED);
+		this.addLockVerificationStatus(results, this.partiallyLocks, VerificationStatus.PARTIALLY_PAIRED);
+		this.addLockVerificationStatus(results, this.deadlockedLocks, VerificationStatus.DEADLOCK);
+		this.addLockVerificationStatus(results, this.danglingLocks, VerificationStatus.UNPAIRED);
+		for(Node lock : results.keySet()){
+			LockVerificationIndex.put(lock, results.get(lock));
+		}
+	}
+	
+	/**
+	 * Adds <code>status</code> to the {@link LockVerificationResult} of each of the <code>locks</code> in <code>results</code>.
+	 * 
+	 * @param results A mapping from a lock to its {@link LockVerificationResult}.
+	 * @param locks A list of {@link XCSG#ControlFlow_Node}s containing calls to lock.
+	 * @param status The {@link VerificationStatus} of <code>locks</code>.
+	 */
+	private void addLockVerificationStatus(AtlasMap<Node, LockVerificationResult> results, AtlasSet<Node> locks, VerificationStatus status){
+		for(Node lock : locks){
+			LockVerificationResult result = results.get(lock);
+			if(result == null){
+				result = new LockVerificationResult(this.signatureNode, this.fullMpg, this.matchingPairs);
+				results.put(lock, result);
+			}
+			result.addStatus(status);
+		}
+	}
+	
 	/**
 	 * Appends the {@link MatchingPair}s for the {@link Node}s in <code>nodes</code>.
 	 * 
@@ -413,13 +495,8 @@ public class Verifier {
 	 */
 	private void appendMatchingPairs(AtlasSet<Node> nodes){
 		for(Node node : nodes){
-			HashSet<MatchingPair> matchingPairs = new HashSet<MatchingPair>();
-		    	if(this.matchingPairsMap.containsKey(node)){
-		    		matchingPairs = this.matchingPairsMap.get(node);
-		    	}
-		    	FunctionSummary summary = this.summaries.get(CommonQueries.getContainingFunction(node));
-		    	matchingPairs.add(new MatchingPair(node, summary.getPCG().getMasterExit(), null));
-		    	this.matchingPairsMap.put(node, matchingPairs);
+		    	FunctionSummary summary = this.summaries.get(this.containingFunctionCache.getContainingFunction(node));
+		    	this.matchingPairs.add(node, summary.getPCG().getMasterExit());
 		}
 	}
 	
@@ -430,10 +507,10 @@ public class Verifier {
 	 * @param reporter A {@link Reporter} to be updated with new counts.
 	 */
 	private void setIntraAndInterProceduralCasesCount(Node lockEvent, Reporter reporter) {
-		HashSet<MatchingPair> pairs = this.matchingPairsMap.get(lockEvent);
+		List<MatchingPair> pairs = this.matchingPairs.getMatchingPairs(lockEvent);
 		for(MatchingPair pair : pairs){
 			if(pair.getSecondEvent() != null){
-				if(!CommonQueries.getContainingFunction(pair.getSecondEvent()).equals(CommonQueries.getContainingFunction(pair.getFirstEvent()))){
+				if(!this.containingFunctionCache.getContainingFunction(pair.getSecondEvent()).equals(this.containingFunctionCache.getContainingFunction(pair.getFirstEvent()))){
 					AtlasSet<Node> cases = reporter.getInterproceduralVerificationLockEvents();
 					cases.add(lockEvent);
 					reporter.setInterproceduralVerificationLockEvents(cases);
@@ -454,8 +531,8 @@ public class Verifier {
 	 */
 	private void logMatchingResultsForEvents(AtlasSet<Node> lockEvents, VerificationResult verificationResult) {
 		for(Node lockEvent : lockEvents){
-			LSAPUtils.log("\t(e1) Event: [" + lockEvent.getAttr(XCSG.name) + "] in Function [" + CommonQueries.getContainingFunction(lockEvent).getAttr(XCSG.name) + "]");
-			HashSet<MatchingPair> pairs = this.matchingPairsMap.get(lockEvent);
+			LSAPUtils.log("\t(e1) Event: [" + lockEvent.getAttr(XCSG.name) + "] in Function [" + this.containingFunctionCache.getContainingFunction(lockEvent).getAttr(XCSG.name) + "]");
+			List<MatchingPair> pairs = this.matchingPairs.getMatchingPairs(lockEvent);
 			if(pairs == null){
 				LSAPUtils.log("\t\tNo Matchings!");
 				continue;
@@ -463,7 +540,7 @@ public class Verifier {
 			for(MatchingPair pair : pairs){
 				if(verificationResult == null || pair.getResult().equals(verificationResult)){
 					String secondEventName = pair.getSecondEvent() == null ? "NULL" : (String) pair.getSecondEvent().getAttr(XCSG.name);
-					String containingFunctionName = pair.getSecondEvent() == null ? (String) CommonQueries.getContainingFunction(lockEvent).getAttr(XCSG.name) : (String) CommonQueries.getContainingFunction(pair.getSecondEvent()).getAttr(XCSG.name);
+					String containingFunctionName = pair.getSecondEvent() == null ? (String) this.containingFunctionCache.getContainingFunction(lockEvent).getAttr(XCSG.name) : (String) this.containingFunctionCache.getContainingFunction(pair.getSecondEvent()).getAttr(XCSG.name);
 					LSAPUtils.log("\t\tMatched with Event: [" + secondEventName + "] in Function [" + containingFunctionName + "]");
 				}
 			}
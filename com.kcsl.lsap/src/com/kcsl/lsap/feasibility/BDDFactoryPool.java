@@ -0,0 +1,102 @@
+package com.kcsl.lsap.feasibility;
+
+import net.sf.javabdd.BDD;
+import net.sf.javabdd.BDDException;
+import net.sf.javabdd.BDDFactory;
+import net.sf.javabdd.BDDFactoryIntImpl;
+import net.sf.javabdd.JFactory;
+
+/**
+ * A pool handing every thread its own pure-Java {@link BDDFactory}, so the feasibility checks of parallel verifications do not share the
+ * process-wide native factory or an unsynchronized Java one.
+ * <p>
+ * A factory is confined to the thread it was created for: making, freeing or combining its {@link BDD}s from another thread, or mixing them
+ * with the {@link BDD}s of another factory, throws a {@link BDDException}. The factory is kept between uses and reused once all the
+ * {@link BDD}s of the previous use are freed; a factory that grew beyond {@link #MAX_RETAINED_NODE_TABLE_SIZE} nodes or
+ * {@link #MAX_RETAINED_VARIABLES} variables is discarded on release instead.
+ */
+public class BDDFactoryPool {
+
+	/**
+	 * The initial node table size of a new factory.
+	 */
+	private static final int INITIAL_NODE_TABLE_SIZE = 1000;
+
+	/**
+	 * The operation cache size of a new factory.
+	 */
+	private static final int CACHE_SIZE = 1000;
+
+	/**
+	 * The largest node table size of a factory kept for the next use.
+	 */
+	private static final int MAX_RETAINED_NODE_TABLE_SIZE = 1 << 20;
+
+	/**
+	 * The largest number of variables of a factory kept for the next use.
+	 */
+	private static final int MAX_RETAINED_VARIABLES = 1 << 12;
+
+	/**
+	 * The factory of the current thread, or null if it has none.
+	 */
+	private static final ThreadLocal<BDDFactoryIntImpl> FACTORY = new ThreadLocal<BDDFactoryIntImpl>();
+
+	/**
+	 * Whether the factory of the current thread is acquired.
+	 */
+	private static final ThreadLocal<Boolean> ACQUIRED = new ThreadLocal<Boolean>();
+
+	/**
+	 * A private constructor to prevent intentional initializations of this class.
+	 *
+	 * @throws IllegalAccessException If any initialization occur to this class.
+	 */
+	private BDDFactoryPool() throws IllegalAccessException {
+		throw new IllegalAccessException();
+	}
+
+	/**
+	 * Acquires the factory of the current thread with at least <code>variablesCount</code> variables.
+	 * <p>
+	 * The factory must be handed back with {@link #release(BDDFactory)} by the same thread once its {@link BDD}s are freed.
+	 *
+	 * @param variablesCount The number of variables needed.
+	 * @return A {@link BDDFactory} confined to the current thread.
+	 * @throws IllegalStateException If the current thread already acquired its factory.
+	 */
+	public static BDDFactory acquire(int variablesCount){
+		if(Boolean.TRUE.equals(ACQUIRED.get())){
+			throw new IllegalStateException("The BDD factory of thread [" + Thread.currentThread().getName() + "] is already acquired.");
+		}
+		BDDFactoryIntImpl factory = FACTORY.get();
+		if(factory == null){
+			factory = (BDDFactoryIntImpl) JFactory.init(Math.max(INITIAL_NODE_TABLE_SIZE, variablesCount * 4), CACHE_SIZE);
+			factory.confineTo(Thread.currentThread());
+			FACTORY.set(factory);
+		}
+		if(factory.varNum() < variablesCount){
+			factory.setVarNum(variablesCount);
+		}
+		ACQUIRED.set(Boolean.TRUE);
+		return factory;
+	}
+
+	/**
+	 * Hands back the factory acquired by the current thread, discarding it if it grew too large to be kept.
+	 *
+	 * @param factory The {@link BDDFactory} returned by {@link #acquire(int)}.
+	 * @throws IllegalStateException If <code>factory</code> is not the factory acquired by the current thread.
+	 */
+	public static void release(BDDFactory factory){
+		if(factory != FACTORY.get() || !Boolean.TRUE.equals(ACQUIRED.get())){
+			throw new IllegalStateException("The BDD factory is not acquired by thread [" + Thread.currentThread().getName() + "].");
+		}
+		ACQUIRED.remove();
+		if(factory.getNodeTableSize() > MAX_RETAINED_NODE_TABLE_SIZE || factory.varNum() > MAX_RETAINED_VARIABLES){
+			FACTORY.remove();
+			factory.done();
+		}
+	}
+
+}
@@ -24,10 +24,28 @@ public class Constraint {
 	 * @param value A {@link Boolean} value.
 	 */
 	public Constraint(Node controlFlowConditionNode, boolean value) {
-		this.constraintString = (String) controlFlowConditionNode.getAttr(XCSG.name);
+		this((String) controlFlowConditionNode.getAttr(XCSG.name), value);
+	}
+	
+	/**
+	 * Constructs a new instance of {@link Constraint} with the given <code>constraintString</code> and <code>value</code>.
+	 * @param constraintString See corresponding field for details.
+	 * @param value See corresponding field for details.
+	 */
+	Constraint(String constraintString, boolean value) {
+		this.constraintString = constraintString;
 		this.value = value;
 	}
 	
+	/**
+	 * Returns the condition of this {@link Constraint}.
+	 * 
+	 * @return The {@link String} contents of the {@link XCSG#ControlFlowCondition} of this {@link Constraint}.
+	 */
+	public String getConstraintString() {
+		return this.constraintString;
+	}
+	
 	/**
 	 * Returns the value of this {@link Constraint}.
 	 * 
@@ -1,7 +1,9 @@
 package com.kcsl.lsap.feasibility;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import com.ensoftcorp.atlas.core.db.graph.Edge;
 import com.ensoftcorp.atlas.core.db.graph.Graph;
@@ -13,11 +15,11 @@ import com.ensoftcorp.atlas.core.query.Q;
 import com.ensoftcorp.atlas.core.script.Common;
 import com.ensoftcorp.atlas.core.xcsg.XCSG;
 import com.ensoftcorp.open.commons.analysis.CommonQueries;
+import com.kcsl.lsap.core.SignatureBudget;
 import com.kcsl.lsap.utils.LSAPUtils;
 
 import net.sf.javabdd.BDD;
 import net.sf.javabdd.BDDFactory;
-import net.sf.javabdd.BuDDyFactory;
 
 /**
  * This class performs intra-procedural feasibility check of a given path of {@link XCSG#ControlFlow_Node}s
@@ -69,6 +71,7 @@ public class FeasibilityChecker {
 	 * @param path A list of {@link XCSG#ControlFlow_Node}s.
 	 */
 	private void findAllCFGPaths(Node currentNode, AtlasList<Node> path) {
+		SignatureBudget.check();
 		path.add(currentNode);
 		AtlasSet<Node> successors = Common.toQ(this.functionCFG).successors(Common.toQ(currentNode)).eval().nodes();
 		if(successors.isEmpty()) {
@@ -99,13 +102,14 @@ public class FeasibilityChecker {
 		}
 		
 		for(AtlasList<Node> path : allPaths){
+			SignatureBudget.check();
 			// TODO: Check if checking whether a path ends with the exit node makes the result more correct
 			// In function (uinput_read): mutex_lock_interruptible cannot be dangling in a feasible path
 			Node exitNode = path.get(path.size() - 1);
 			if(!exitNode.taggedWith(XCSG.controlFlowExitPoint))
 				continue;
 			constraints = this.getConditionsSetFromPath(path);
-			if(this.isConstraintsSatisfiable(constraints)){
+			if(isConstraintsSatisfiable(constraints)){
 				LSAPUtils.log("FEASIBLE: " + LSAPUtils.serialize(path));
 				LSAPUtils.log("FEASIBLE: " + this.serializeConstraints(constraints));
 				return true;
@@ -225,49 +229,54 @@ public class FeasibilityChecker {
 	
 	/**
 	 * Checks whether the list of {@link Constraint}s are satisfiable using {@link BDD}.
+	 * <p>
+	 * The {@link BDD}s are built in the {@link BDDFactory} of the current thread from {@link BDDFactoryPool}, so parallel verifications do not
+	 * share a factory. All the {@link Constraint}s on the same condition share one variable, so a condition required to be both true and false
+	 * makes <code>constraints</code> unsatisfiable.
 	 * 
 	 * @param constraints A list of {@link Constraint}s
 	 * @return true: if <code>constraints</code> is satisfiable, otherwise false.
 	 */
-	private boolean isConstraintsSatisfiable(List<Constraint> constraints) {
-		BDDFactory bddFactory = BuDDyFactory.init(constraints.size() + 10, constraints.size() + 1000);
-		bddFactory.setVarNum(constraints.size() + 10);
-		BDD result = null;
+	static boolean isConstraintsSatisfiable(List<Constraint> constraints) {
+		if (constraints.isEmpty()) {
+			return true;
+		}
+		Map<String, Integer> variables = new HashMap<String, Integer>();
 		for (Constraint constraint : constraints) {
-			if (result == null) {
-				result = this.convertConstraintToBDDNode(constraint, bddFactory);
-			} else {
-				BDD tmp = this.convertConstraintToBDDNode(constraint, bddFactory);
-				result = result.and(tmp);
+			if (!variables.containsKey(constraint.getConstraintString())) {
+				variables.put(constraint.getConstraintString(), variables.size());
 			}
 		}
-		if (result == null) {
-			bddFactory.done();
-			return true;
-		}
-
-		result = result.satOne();
-		if (result.nodeCount() > 0) {
-			bddFactory.done();
-			return true;
+		BDDFactory bddFactory = BDDFactoryPool.acquire(variables.size());
+		BDD result = null;
+		try {
+			result = bddFactory.one();
+			for (Constraint constraint : constraints) {
+				result.andWith(convertConstraintToBDDNode(constraint, variables.get(constraint.getConstraintString()), bddFactory));
+			}
+			return !result.isZero();
+		} finally {
+			if (result != null) {
+				result.free();
+			}
+			BDDFactoryPool.release(bddFactory);
 		}
-		bddFactory.done();
-		return false;
 	}
 	
 	/**
 	 * Constructs a new instance of {@link BDD} for the given <code>constraint</code>.
 	 * 
 	 * @param constraint A {@link Constraint}.
+	 * @param variable The variable of the condition of <code>constraint</code>.
 	 * @param bddFactory A {@link BDDFactory} to be used to create the {@link BDD}.
 	 * @return A new instance of {@link BDD}.
 	 */
-	private BDD convertConstraintToBDDNode(Constraint constraint, BDDFactory bddFactory) {
+	private static BDD convertConstraintToBDDNode(Constraint constraint, int variable, BDDFactory bddFactory) {
 		BDD var;
 		if (constraint.getValue()) {
-			var = bddFactory.ithVar(constraint.hashCode());
+			var = bddFactory.ithVar(variable);
 		} else {
-			var = bddFactory.nithVar(constraint.hashCode());
+			var = bddFactory.nithVar(variable);
 		}
 		return var;
 	}
@@ -2,18 +2,17 @@ package com.kcsl.lsap.utils;
 
 import java.awt.Color;
 import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.HashMap;
+import java.util.Map;
 
-import com.alexmerz.graphviz.GraphUtils;
-import com.alexmerz.graphviz.ParseException;
-import com.alexmerz.graphviz.Parser;
-import com.alexmerz.graphviz.objects.Edge;
-import com.alexmerz.graphviz.objects.Graph;
-import com.alexmerz.graphviz.objects.Id;
-import com.alexmerz.graphviz.objects.Node;
-import com.alexmerz.graphviz.objects.PortNode;
+import com.ensoftcorp.atlas.core.db.graph.Edge;
+import com.ensoftcorp.atlas.core.db.graph.Graph;
 import com.ensoftcorp.atlas.core.db.graph.GraphElement.EdgeDirection;
-import com.ensoftcorp.atlas.core.db.set.AtlasSet;
+import com.ensoftcorp.atlas.core.db.graph.Node;
 import com.ensoftcorp.atlas.core.markup.Markup;
 import com.ensoftcorp.atlas.core.markup.MarkupProperty;
 import com.ensoftcorp.atlas.core.xcsg.XCSG;
@@ -24,135 +23,91 @@ import com.ensoftcorp.atlas.core.xcsg.XCSG;
 public class DotGraphExportUtils {
 	
 	/**
-	 * A private constructor to prevent intentional initializations of this class.
-	 * 
-	 * @throws IllegalAccessException If any initialization occur to this class.
+	 * The DOT color names of the {@link MarkupProperty#NODE_BACKGROUND_COLOR}s used by the verification graphs.
 	 */
-	private DotGraphExportUtils() throws IllegalAccessException {
-		throw new IllegalAccessException();
+	private static final Map<Color, String> NODE_COLORS = new HashMap<Color, String>();
+	
+	static {
+		NODE_COLORS.put(Color.RED, "red");
+		NODE_COLORS.put(Color.GREEN, "green");
+		NODE_COLORS.put(Color.BLUE, "lightblue");
 	}
 	
 	/**
-	 * Converts an {@link com.ensoftcorp.atlas.core.db.graph.Graph} to {@link Graph} with the given <code>markup</code>.
+	 * A private constructor to prevent intentional initializations of this class.
 	 * 
-	 * @param atlasGraph An instance of {@link com.ensoftcorp.atlas.core.db.graph.Graph} to be converted.
-	 * @param markup An instance of {@link Markup} on <code>atlasGraph</code>.
-	 * @return An instance of {@link Graph}.
+	 * @throws IllegalAccessException If any initialization occur to this class.
 	 */
-	public static Graph dotify(com.ensoftcorp.atlas.core.db.graph.Graph atlasGraph, Markup markup) {
-		AtlasSet<com.ensoftcorp.atlas.core.db.graph.Node> nodes = atlasGraph.nodes();
-		AtlasSet<com.ensoftcorp.atlas.core.db.graph.Edge> edges = atlasGraph.edges();
-		Graph graph = createEmptyDotGraph();
-
-		HashMap<com.ensoftcorp.atlas.core.db.graph.Node, Node> nodesMap = new HashMap<com.ensoftcorp.atlas.core.db.graph.Node, Node>();
-		int nodeIdCounter = 0;
-		for (com.ensoftcorp.atlas.core.db.graph.Node atlasNode : nodes) {
-			String nodeLabel = atlasNode.getAttr(XCSG.name).toString();
-			Color nodeColor = null;
-			if (markup != null) {
-				nodeColor = markup.get(atlasNode).get(MarkupProperty.NODE_BACKGROUND_COLOR);
-			}
-			boolean isCondition = atlasNode.taggedWith(XCSG.ControlFlowCondition);
-			Node newNode = createNode((++nodeIdCounter + ""), nodeLabel, nodeColor, isCondition);
-			graph.addNode(newNode);
-			nodesMap.put(atlasNode, newNode);
-		}
-
-		for (com.ensoftcorp.atlas.core.db.graph.Edge edge : edges) {
-			com.ensoftcorp.atlas.core.db.graph.Node fromNode = edge.getNode(EdgeDirection.FROM);
-			com.ensoftcorp.atlas.core.db.graph.Node toNode = edge.getNode(EdgeDirection.TO);
-
-			Node newFromNode = nodesMap.get(fromNode);
-			Node newToNode = nodesMap.get(toNode);
-			String edgeLabel = "";
-			if (edge.hasAttr(XCSG.conditionValue)) {
-				edgeLabel = edge.getAttr(XCSG.conditionValue).toString();
-			}
-			Edge newEdge = createEdge(edgeLabel, newFromNode, newToNode);
-			graph.addEdge(newEdge);
-		}
-		return graph;
+	private DotGraphExportUtils() throws IllegalAccessException {
+		throw new IllegalAccessException();
 	}
 	
 	/**
-	 * Saves the given <code>graph</code> to <code>parentDirectory</code> with the given <code>fileName</code>.
+	 * Saves the given <code>graph</code> in DOT format to <code>parentDirectory</code> with the given <code>fileName</code>.
+	 * <p>
+	 * The nodes and edges are written as they are visited, so no intermediate DOT object model is built.
 	 * 
 	 * @param graph An instance of {@link Graph} to be saved to a file.
+	 * @param markup An instance of {@link Markup} on <code>graph</code> or null.
 	 * @param parentDirectory A {@link File} corresponding to the directory where the graph to be saved.
 	 * @param fileName The name of the {@link File} where the graph will be saved.
 	 */
-	public static void saveDOTGraph(Graph graph, File parentDirectory, String fileName) {
-		GraphUtils.write(graph, parentDirectory.getAbsoluteFile() + "/" + fileName);
-	}
-	
-	/**
-	 * Constructs an empty {@link Graph}.
-	 * 
-	 * @return An new empty {@link Graph}.
-	 */
-	private static Graph createEmptyDotGraph() {
-		StringBuffer sb = new StringBuffer();
-		sb.append("digraph G {\n");
-		sb.append("\n");
-		sb.append("}\n");
-
-		Parser p = new Parser();
-		try {
-			p.parse(sb);
-		} catch (ParseException e) {
+	public static void saveDOTGraph(Graph graph, Markup markup, File parentDirectory, String fileName) {
+		try (Writer writer = Files.newBufferedWriter(new File(parentDirectory.getAbsoluteFile(), fileName).toPath(), StandardCharsets.UTF_8)) {
+			writeDOTGraph(graph, markup, writer);
+		} catch (IOException e) {
+			System.err.println("Couldn't write graph to output file!");
 		}
-		return p.getGraphs().get(0);
 	}
 	
 	/**
-	 * Creates an instance of {@link Node} from <code>nodeId</code>, <code>nodeLabel</code> with <code>nodeColor</code>.
+	 * Writes the given <code>graph</code> in DOT format to <code>writer</code>.
 	 * 
-	 * @param nodeId The id for the newly created node.
-	 * @param nodeLabel The node label for the newly created node.
-	 * @param nodeColor The node background color.
-	 * @param isCondition whether this newly created node is going to be conditional node to set proper shape.
-	 * @return A new instance of {@link Node}.
+	 * @param graph An instance of {@link Graph} to be written.
+	 * @param markup An instance of {@link Markup} on <code>graph</code> or null.
+	 * @param writer The {@link Writer} where the graph will be written.
+	 * @throws IOException If <code>writer</code> fails.
 	 */
-	private static Node createNode(String nodeId, String nodeLabel, Color nodeColor, boolean isCondition) {
-		Node newNode = new Node();
-		Id id = new Id();
-		id.setId(nodeId);
-		newNode.setId(id);
-		newNode.setAttribute("label", escape(nodeLabel));
-		if (nodeColor != null) {
-			String color = "";
-			if (nodeColor.equals(Color.RED)) {
-				color = "red";
-			} else if (nodeColor.equals(Color.GREEN)) {
-				color = "green";
-			} else if (nodeColor.equals(Color.BLUE)) {
-				color = "lightblue";
+	public static void writeDOTGraph(Graph graph, Markup markup, Writer writer) throws IOException {
+		writer.write("digraph G {\n");
+		
+		HashMap<Node, Integer> nodeIds = new HashMap<Node, Integer>();
+		for (Node node : graph.nodes()) {
+			int nodeId = nodeIds.size() + 1;
+			nodeIds.put(node, nodeId);
+			writer.write(Integer.toString(nodeId));
+			writer.write(" [");
+			if (node.taggedWith(XCSG.ControlFlowCondition)) {
+				writer.write("shape=\"diamond\", ");
 			}
-			if (!color.isEmpty()) {
-				newNode.setAttribute("style", "filled");
-				newNode.setAttribute("fillcolor", color);
+			writer.write("label=\"");
+			writer.write(escape(node.getAttr(XCSG.name).toString()));
+			writer.write("\"");
+			String color = null;
+			if (markup != null) {
+				color = NODE_COLORS.get(markup.get(node).get(MarkupProperty.NODE_BACKGROUND_COLOR));
 			}
+			if (color != null) {
+				writer.write(", fillcolor=\"");
+				writer.write(color);
+				writer.write("\", style=\"filled\"");
+			}
+			writer.write("];\n");
 		}
-		if (isCondition) {
-			newNode.setAttribute("shape", "diamond");
+		
+		for (Edge edge : graph.edges()) {
+			writer.write(Integer.toString(nodeIds.get(edge.getNode(EdgeDirection.FROM))));
+			writer.write(" -> ");
+			writer.write(Integer.toString(nodeIds.get(edge.getNode(EdgeDirection.TO))));
+			writer.write(" [label=\"");
+			if (edge.hasAttr(XCSG.conditionValue)) {
+				writer.write(escape(edge.getAttr(XCSG.conditionValue).toString()));
+			}
+			writer.write("\"];\n");
 		}
-		return newNode;
+		writer.write(" }");
 	}
 	
-	/**
-	 * Creates an instance of {@link Edge} from <code>edgeLabel</code> and connects <code>from</code> node and <code>to</code> node.
-	 * 
-	 * @param edgeLabel The edge label for the newly created edge.
-	 * @param from The predecessor for this edge.
-	 * @param to The successor for this edge.
-	 * @return A new instance of {@link Edge}.
-	 */
-	private static Edge createEdge(String edgeLabel, Node from, Node to) {
-		Edge newEdge = new Edge(new PortNode(from), new PortNode(to), Graph.DIRECTED);
-		newEdge.setAttribute("label", escape(edgeLabel));
-		return newEdge;
-	}
-
 	/**
 	 * Perform proper escaping for {@link Node}s and {@link Edge}s labels.
 	 * 
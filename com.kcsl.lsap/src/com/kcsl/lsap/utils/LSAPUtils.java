@@ -3,11 +3,17 @@ package com.kcsl.lsap.utils;
 import static com.ensoftcorp.atlas.core.script.Common.universe;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Properties;
 
 import com.ensoftcorp.atlas.core.db.graph.Graph;
 import com.ensoftcorp.atlas.core.db.graph.GraphElement;
@@ -26,6 +32,8 @@ import com.ensoftcorp.atlas.core.xcsg.XCSG;
 import com.ensoftcorp.open.commons.analysis.CallSiteAnalysis;
 import com.ensoftcorp.open.commons.analysis.CommonQueries;
 import com.kcsl.lsap.VerificationProperties;
+import com.kcsl.lsap.core.ContainingFunctionCache;
+import com.kcsl.lsap.core.SignatureBudget;
 
 /**
  * A class containing utility and helper functions for the verification.
@@ -103,6 +111,76 @@ public class LSAPUtils {
 		return stringBuilder.toString();
 	}
 	
+	/**
+	 * Constructs a key that identifies the given <code>node</code> across re-indexes.
+	 * 
+	 * @param node A {@link Node}.
+	 * @return A {@link String} key combining the {@link SourceCorrespondence} and {@link XCSG#name} of <code>node</code>.
+	 */
+	public static String nodeKey(Node node){
+		SourceCorrespondence sourceCorrespondence = (SourceCorrespondence) node.getAttr(XCSG.sourceCorrespondence);
+		String sourceCorrespondenceString = sourceCorrespondence == null ? "<external>" : sourceCorrespondence.toString();
+		return sourceCorrespondenceString + "#" + node.getAttr(XCSG.name);
+	}
+	
+	/**
+	 * Reads the {@link Properties} stored in the file at <code>path</code>.
+	 * 
+	 * @param path A {@link Path} to the file to be read.
+	 * @return An instance of {@link Properties} or null if the file cannot be read.
+	 */
+	public static Properties loadProperties(Path path){
+		Properties properties = new Properties();
+		try(InputStream inputStream = Files.newInputStream(path)){
+			properties.load(inputStream);
+		} catch (IOException e) {
+			System.err.println("Cannot read file [" + path + "].");
+			return null;
+		}
+		return properties;
+	}
+	
+	/**
+	 * Writes <code>properties</code> to a temporary file that then replaces the file at <code>path</code> so an interrupted write never corrupts it.
+	 * <p>
+	 * Every write uses a temporary file with a unique name, so processes writing files in the same directory never overwrite each other's temporary files.
+	 * 
+	 * @param properties The {@link Properties} to be written.
+	 * @param path A {@link Path} to the file to be written.
+	 * @param comments A {@link String} describing the written <code>properties</code>.
+	 * @return true if the file is written, otherwise false.
+	 */
+	public static boolean storeProperties(Properties properties, Path path, String comments){
+		Path temporaryFilePath;
+		try {
+			temporaryFilePath = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+		} catch (IOException e) {
+			System.err.println("Cannot create a temporary file for [" + path + "].");
+			return false;
+		}
+		try {
+			try(OutputStream outputStream = Files.newOutputStream(temporaryFilePath)){
+				properties.store(outputStream, comments);
+			} catch (IOException e) {
+				System.err.println("Cannot write file [" + temporaryFilePath + "].");
+				return false;
+			}
+			try {
+				Files.move(temporaryFilePath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (IOException e) {
+				System.err.println("Cannot replace file [" + path + "].");
+				return false;
+			}
+			return true;
+		} finally {
+			try {
+				Files.deleteIfExists(temporaryFilePath);
+			} catch (IOException e) {
+				System.err.println("Cannot delete file [" + temporaryFilePath + "].");
+			}
+		}
+	}
+	
 	/**
 	 * Finds all containing {@link XCSG#Node} tagged with <code>containingTag</code> along the {@link XCSG#Contains} edges.
 	 * 
@@ -148,16 +226,18 @@ public class LSAPUtils {
 	 * @param callSites The {@link XCSG#CallSite} for the lock/unlock function calls. 
 	 * @param lockFunctionCallsQ A {@link Q} for the lock function calls.
 	 * @param unlockFunctionCallsQ A {@link Q} for the unlock function calls.
+	 * @param containingFunctionCache The {@link ContainingFunctionCache} of the verification run.
 	 * @return A {@link Q} corresponding to the MPG.
 	 */
-	public static Q mpg(Q callSites, Q lockFunctionCallsQ, Q unlockFunctionCallsQ){
+	public static Q mpg(Q callSites, Q lockFunctionCallsQ, Q unlockFunctionCallsQ, ContainingFunctionCache containingFunctionCache){
 		AtlasSet<Node> callSitesNodes = callSites.eval().nodes();
 		HashMap<Node, HashMap<String, AtlasSet<Node>>> functionMap = new HashMap<Node, HashMap<String,AtlasSet<Node>>>(); 
 		for(Node node : callSitesNodes){
+			SignatureBudget.check();
 			Node targetForCallSite = CallSiteAnalysis.getTargets(node).one();
 			Q targetForCallSiteQ = Common.toQ(targetForCallSite);
 			
-			Node containingFunctionNode = CommonQueries.getContainingFunction(node);
+			Node containingFunctionNode = containingFunctionCache.getContainingFunction(node);
 			
 			boolean callingLock = false;
 			boolean callingUnlock = false;
@@ -354,6 +434,7 @@ public class LSAPUtils {
 		for(Node node : Common.toQ(graph.roots()).eval().nodes()){
 			Q backEdgedNodes = null;
 			do{
+				SignatureBudget.check();
 				backEdgedNodes = cutLoopsInGraph(graphQ, node, new ArrayList<Node>());
 				graphQ = Common.toQ(graph);
 				graphQ = graphQ.differenceEdges(backEdgedNodes);
@@ -372,6 +453,7 @@ public class LSAPUtils {
 	 * @return A {@link Q} modified from the given <code>q</code> without a loop along the given <code>path</code>.
 	 */
 	private static Q cutLoopsInGraph(Q q, Node node, ArrayList<Node> path){
+		SignatureBudget.check();
 		Q backEdgeQ = Common.empty();
 		path.add(node);
 		AtlasSet<Node> successors = q.successors(Common.toQ(node)).eval().nodes();
@@ -3,12 +3,20 @@ package com.kcsl.lsap.utils;
 import static com.ensoftcorp.atlas.core.script.Common.universe;
 
 import java.awt.Color;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubMonitor;
 
-import com.ensoftcorp.atlas.c.core.query.Attr;
 import com.ensoftcorp.atlas.core.db.graph.Graph;
 import com.ensoftcorp.atlas.core.db.graph.Node;
 import com.ensoftcorp.atlas.core.db.map.AtlasGraphKeyHashMap;
@@ -19,13 +27,26 @@ import com.ensoftcorp.atlas.core.markup.MarkupProperty;
 import com.ensoftcorp.atlas.core.query.Q;
 import com.ensoftcorp.atlas.core.script.Common;
 import com.ensoftcorp.atlas.core.xcsg.XCSG;
-import com.ensoftcorp.open.commons.analysis.CallSiteAnalysis;
 import com.ensoftcorp.open.commons.analysis.CommonQueries;
 import com.ensoftcorp.open.pcg.common.PCG;
 import com.ensoftcorp.open.pcg.common.PCGFactory;
 import com.kcsl.lsap.VerificationProperties;
+import com.kcsl.lsap.core.ContainingFunctionCache;
+import com.kcsl.lsap.core.GraphExportPipeline;
+import com.kcsl.lsap.core.LockVerificationContext;
+import com.kcsl.lsap.core.LockVerificationIndex;
+import com.kcsl.lsap.core.MPGFingerprint;
 import com.kcsl.lsap.core.NodeSourceCorrespondenceSorter;
 import com.kcsl.lsap.core.Reporter;
+import com.kcsl.lsap.core.SignatureBudget;
+import com.kcsl.lsap.core.SignatureBudgetExceededException;
+import com.kcsl.lsap.core.SignatureCostEstimate;
+import com.kcsl.lsap.core.SignatureCostSorter;
+import com.kcsl.lsap.core.SignatureShard;
+import com.kcsl.lsap.core.TrivialLockPrefilter;
+import com.kcsl.lsap.core.VerificationCheckpoint;
+import com.kcsl.lsap.core.VerificationResultCache;
+import com.kcsl.lsap.core.VerificationSummary;
 import com.kcsl.lsap.core.Verifier;
 
 /**
@@ -33,6 +54,26 @@ import com.kcsl.lsap.core.Verifier;
  */
 public class SignatureVerificationUtils {
 	
+	/**
+	 * The title of the {@link Reporter} of the overall results of a verification.
+	 */
+	private static final String OVERALL_RESULTS_TITLE = "Overall Results";
+	
+	/**
+	 * The prefix of the message logged when a signature starts to be processed, followed by its name, number and the number of all signatures.
+	 */
+	private static final String PROCESSING_SIGNATURE_MESSAGE_PREFIX = "Processing signature [";
+	
+	/**
+	 * The prefix of the message logged after the last signature of a shard is processed.
+	 */
+	private static final String SHARD_SIGNATURES_END_MESSAGE_PREFIX = "Processed all the signatures of ";
+	
+	/**
+	 * The prefix of the message logged when a verification is canceled.
+	 */
+	private static final String CANCELED_VERIFICATION_MESSAGE_PREFIX = "Verification canceled after [";
+	
 	/**
 	 * A private constructor to prevent intentional initializations of this class.
 	 * 
@@ -51,7 +92,56 @@ public class SignatureVerificationUtils {
 	 * @param graphsOutputDirectoryPath A {@link Path} to where the verification graphs to be stored.
 	 */
 	public static void verifySignatures(Q signatures, Q lockFunctionCallsQ, Q unlockFunctionCallsQ, Path graphsOutputDirectoryPath){
-		verifySignatures(null, signatures, lockFunctionCallsQ, unlockFunctionCallsQ, graphsOutputDirectoryPath);
+		verifySignatures(signatures, lockFunctionCallsQ, unlockFunctionCallsQ, graphsOutputDirectoryPath, false);
+	}
+	
+	/**
+	 * Verifies the given <code>signatures</code> with the context of the <code>lockFunctionCalls</code> and <code>unlockFunctionCalls</code>.
+	 * <p>
+	 * The progress is checkpointed periodically so an interrupted verification can be resumed by passing <code>resume</code> as true.
+	 * 
+	 * @param signatures The signatures that will be used to start the verification for the associated locks/unlocks.
+	 * @param lockFunctionCallsQ A {@link Q} corresponding to the functions performing the actual lock on the given <code>signatures</code>.
+	 * @param unlockFunctionCallsQ A {@link Q} corresponding to the functions performing the actual unlock on the given <code>signatures</code>.
+	 * @param graphsOutputDirectoryPath A {@link Path} to where the verification graphs to be stored.
+	 * @param resume Whether to resume from the last checkpoint of the verification of the same <code>signatures</code>.
+	 */
+	public static void verifySignatures(Q signatures, Q lockFunctionCallsQ, Q unlockFunctionCallsQ, Path graphsOutputDirectoryPath, boolean resume){
+		verifySignatures(null, signatures, lockFunctionCallsQ, unlockFunctionCallsQ, graphsOutputDirectoryPath, resume, null, null);
+	}
+	
+	/**
+	 * Verifies the <code>signatures</code> that belong to the given <code>shard</code> with the context of the <code>lockFunctionCalls</code> and <code>unlockFunctionCalls</code>.
+	 * <p>
+	 * The partial results of the shard are stored to be merged by {@link #mergeShards(Q, Q, Path, int, String)} once all the shards are verified.
+	 * 
+	 * @param signatures The signatures that will be used to start the verification for the associated locks/unlocks.
+	 * @param lockFunctionCallsQ A {@link Q} corresponding to the functions performing the actual lock on the given <code>signatures</code>.
+	 * @param unlockFunctionCallsQ A {@link Q} corresponding to the functions performing the actual unlock on the given <code>signatures</code>.
+	 * @param graphsOutputDirectoryPath A {@link Path} to where the verification graphs to be stored.
+	 * @param resume Whether to resume from the last checkpoint of the verification of the same <code>signatures</code>.
+	 * @param shard The {@link SignatureShard} to be verified.
+	 */
+	public static void verifySignatures(Q signatures, Q lockFunctionCallsQ, Q unlockFunctionCallsQ, Path graphsOutputDirectoryPath, boolean resume, SignatureShard shard){
+		verifySignatures(null, signatures, lockFunctionCallsQ, unlockFunctionCallsQ, graphsOutputDirectoryPath, resume, shard, null);
+	}
+	
+	/**
+	 * Verifies the <code>signatures</code> that belong to the given <code>shard</code> while reporting the progress to <code>monitor</code>.
+	 * <p>
+	 * Once <code>monitor</code> is canceled, the verification stops at the current signature, the results verified so far are logged
+	 * and checkpointed so the verification can be resumed.
+	 * 
+	 * @param signatures The signatures that will be used to start the verification for the associated locks/unlocks.
+	 * @param lockFunctionCallsQ A {@link Q} corresponding to the functions performing the actual lock on the given <code>signatures</code>.
+	 * @param unlockFunctionCallsQ A {@link Q} corresponding to the functions performing the actual unlock on the given <code>signatures</code>.
+	 * @param graphsOutputDirectoryPath A {@link Path} to where the verification graphs to be stored.
+	 * @param resume Whether to resume from the last checkpoint of the verification of the same <code>signatures</code>.
+	 * @param shard The {@link SignatureShard} to be verified or null to verify all the <code>signatures</code>.
+	 * @param monitor The {@link IProgressMonitor} to report the progress to and to be checked for cancellation.
+	 */
+	public static void verifySignatures(Q signatures, Q lockFunctionCallsQ, Q unlockFunctionCallsQ, Path graphsOutputDirectoryPath, boolean resume, SignatureShard shard, IProgressMonitor monitor){
+		verifySignatures(null, signatures, lockFunctionCallsQ, unlockFunctionCallsQ, graphsOutputDirectoryPath, resume, shard, monitor);
 	}
 	
 	/**
@@ -64,101 +154,421 @@ public class SignatureVerificationUtils {
 	 * @param graphsOutputDirectoryPath A {@link Path} to where the verification graphs to be stored.
 	 */
 	public static void verifySignatures(Node lockNode, Q signatures, Q lockFunctionCallsQ, Q unlockFunctionCallsQ, Path graphsOutputDirectoryPath){
-		Reporter reporter = new Reporter("Overall Results");
+		verifySignatures(lockNode, signatures, lockFunctionCallsQ, unlockFunctionCallsQ, graphsOutputDirectoryPath, false, null, null);
+	}
+	
+	/**
+	 * Verifies the given <code>signatures</code> with the context of the <code>lockFunctionCalls</code> and <code>unlockFunctionCalls</code>.
+	 * 
+	 * @param lockNode A {@link XCSG#ControlFlow_Node} corresponding to a call to lock.
+	 * @param signatures The signatures that will be used to start the verification for the associated locks/unlocks.
+	 * @param lockFunctionCallsQ A {@link Q} corresponding to the functions performing the actual lock on the given <code>signatures</code>.
+	 * @param unlockFunctionCallsQ A {@link Q} corresponding to the functions performing the actual unlock on the given <code>signatures</code>.
+	 * @param graphsOutputDirectoryPath A {@link Path} to where the verification graphs to be stored.
+	 * @param resume Whether to resume from the last checkpoint of the verification of the same <code>signatures</code>.
+	 * @param shard The {@link SignatureShard} to be verified or null to verify all the <code>signatures</code>.
+	 * @param monitor The {@link IProgressMonitor} to report the progress to and to be checked for cancellation, or null.
+	 */
+	private static void verifySignatures(Node lockNode, Q signatures, Q lockFunctionCallsQ, Q unlockFunctionCallsQ, Path graphsOutputDirectoryPath, boolean resume, SignatureShard shard, IProgressMonitor monitor){
+		Reporter reporter = new Reporter(OVERALL_RESULTS_TITLE);
 		double totalRunningTime = 0;
 		double totalRunningTimeWithDF = 0;
-		Q lockUnlockFunctionCallsQ = lockFunctionCallsQ.union(unlockFunctionCallsQ);
 		Q functionsToExclude = LSAPUtils.functionsQ(VerificationProperties.getFunctionsToExclude());
 
-		Q dataFlowContext = universe().edges(XCSG.DataFlow_Edge, Attr.Edge.ADDRESS_OF, Attr.Edge.POINTER_DEREFERENCE);
-		
-		// 1. Find {@link XCSG#CallSite} for <code>lockUnlockFunctionCallsQ</code>.
-		Q lockUnlockFunctionCallSites = CallSiteAnalysis.getCallSites(lockUnlockFunctionCallsQ);
-		
-		// 2. Find the {@link XCSG#ParameterPass} nodes at {@link XCSG#parameterIndex} "0" that are passed to <code>lockUnlockFunctionCallSites</code>.
-		Q parametersPassedToLockUnlockFunctionCallSites = universe().edges(XCSG.ParameterPassedTo).predecessors(lockUnlockFunctionCallSites).selectNode(XCSG.parameterIndex, 0);
+		// 1. Find {@link XCSG#CallSite} for the lock/unlock functions and
+		// 2. Find the {@link XCSG#ParameterPass} nodes at {@link XCSG#parameterIndex} "0" that are passed to them, both kept warm across verifications.
+		LockVerificationContext context = LockVerificationContext.get(lockFunctionCallsQ, unlockFunctionCallsQ);
+		if(lockNode == null){
+			// The results of an earlier batch verification are replaced by the results of this one.
+			LockVerificationIndex.clear();
+		}
+		ContainingFunctionCache containingFunctionCache = new ContainingFunctionCache();
+		Q dataFlowContext = context.getDataFlowContext();
+		Q parametersPassedToLockUnlockFunctionCallSites = context.getParametersPassedToLockUnlockFunctionCallSites();
 
-		// sort signatures by source correspondence
+		// sort signatures by source correspondence and number them by their position among all the signatures so the logs of the shards can be merged in order
 		AtlasSet<Node> signatureNodes = signatures.eval().nodes();
-		List<Node> sortedSignatures = new ArrayList<Node>();
+		List<Node> allSortedSignatures = new ArrayList<Node>();
 		for(Node signatureNode : signatureNodes){
-			sortedSignatures.add(signatureNode);
+			allSortedSignatures.add(signatureNode);
+		}
+		NodeSourceCorrespondenceSorter.sort(allSortedSignatures);
+		AtlasMap<Node, Integer> signatureNumbers = new AtlasGraphKeyHashMap<Node, Integer>();
+		List<Node> sortedSignatures = new ArrayList<Node>();
+		for(int signatureIndex = 0; signatureIndex < allSortedSignatures.size(); signatureIndex++){
+			Node signatureNode = allSortedSignatures.get(signatureIndex);
+			signatureNumbers.put(signatureNode, signatureIndex + 1);
+			if(shard == null || shard.contains(signatureNode)){
+				sortedSignatures.add(signatureNode);
+			}
+		}
+		if(shard != null){
+			LSAPUtils.log("Verifying [" + sortedSignatures.size() + "/" + signatureNodes.size() + "] signatures in " + shard + ".");
+		}
+		
+		GraphExportPipeline graphExportPipeline = new GraphExportPipeline();
+		Map<MPGFingerprint, Reporter> verifiedFingerprints = new HashMap<MPGFingerprint, Reporter>();
+		Map<MPGFingerprint, Node> verifiedFingerprintsSignatures = new HashMap<MPGFingerprint, Node>();
+		int deduplicatedSignaturesCount = 0;
+		VerificationResultCache verificationResultCache = null;
+		if(lockNode == null && VerificationProperties.isVerificationCacheEnabled()){
+			if(shard == null){
+				verificationResultCache = new VerificationResultCache(VerificationProperties.getVerificationCacheFile());
+			}else{
+				verificationResultCache = new VerificationResultCache(VerificationProperties.getShardVerificationCacheFile(verificationName(graphsOutputDirectoryPath, shard)), VerificationProperties.getVerificationCacheFile());
+			}
+		}
+		int cachedSignaturesCount = 0;
+		int timedOutSignaturesCount = 0;
+		Q cfgNodesContainingLockFunctionCallSites = context.getCFGNodesContainingLockFunctionCallSites();
+		Q cfgNodesContainingUnlockFunctionCallSites = context.getCFGNodesContainingUnlockFunctionCallSites();
+		double savedRunningTime = 0;
+		
+		// Restore the progress of an interrupted verification of the same signatures.
+		VerificationCheckpoint checkpoint = null;
+		int resumeSignatureIndex = 0;
+		if(lockNode == null){
+			checkpoint = new VerificationCheckpoint(VerificationProperties.getCheckpointFile(verificationName(graphsOutputDirectoryPath, shard)));
+			if(resume){
+				if(checkpoint.restore(sortedSignatures, reporter, context.getEventNodesByKey())){
+					resumeSignatureIndex = checkpoint.getNextSignatureIndex();
+					totalRunningTime = checkpoint.getTotalRunningTime();
+					totalRunningTimeWithDF = checkpoint.getTotalRunningTimeWithDF();
+				}
+			}else{
+				// A new verification never resumes from the checkpoint of an earlier one.
+				checkpoint.delete();
+			}
+		}
+		
+		// Schedule the most expensive signatures first, the overall results do not depend on the order the signatures are verified in.
+		// A resumed verification follows the schedule of its checkpoint and only estimates the signatures that are not verified yet.
+		List<Node> scheduledSignatures = resumeSignatureIndex > 0 ? checkpoint.getScheduledSignatures() : sortedSignatures;
+		AtlasMap<Node, SignatureCostEstimate> costEstimates = null;
+		if(VerificationProperties.isSignatureCostSchedulingEnabled()){
+			costEstimates = new AtlasGraphKeyHashMap<Node, SignatureCostEstimate>();
+			AtlasMap<Node, Long> cfgSizes = new AtlasGraphKeyHashMap<Node, Long>();
+			for(Node signatureNode : scheduledSignatures.subList(resumeSignatureIndex, scheduledSignatures.size())){
+				costEstimates.put(signatureNode, SignatureCostEstimate.estimate(signatureNode, dataFlowContext, parametersPassedToLockUnlockFunctionCallSites, cfgSizes));
+			}
+			if(resumeSignatureIndex == 0){
+				scheduledSignatures = new ArrayList<Node>(sortedSignatures);
+				Collections.sort(scheduledSignatures, new SignatureCostSorter(costEstimates));
+			}
 		}
-		Collections.sort(sortedSignatures, new NodeSourceCorrespondenceSorter());
 		
+		SubMonitor progress = SubMonitor.convert(monitor, "Verifying signatures", sortedSignatures.size() - resumeSignatureIndex);
+		long progressStartTime = System.currentTimeMillis();
+		int canceledSignatureIndex = -1;
 		int signatureProcessingIndex = 0;
-		for(Node signatureNode : sortedSignatures){
-			long analysisStartTime = System.currentTimeMillis();
-			LSAPUtils.log("Processing signature [" + signatureNode.getAttr(XCSG.name) + "] " + (++signatureProcessingIndex) + "/" + signatureNodes.size());
-			Q signature = Common.toQ(signatureNode);
-			
-			// Skip processing the signature node if it has no data flow to the parameters passed to a lock/unlock function call.
-			Q dataFlowExistenceTest = dataFlowContext.successors(signature);
-			if(dataFlowExistenceTest.eval().nodes().isEmpty()){
-				LSAPUtils.log("Skipping signature [" + signatureProcessingIndex + "] - as it has no data flow to the parameters passed to a lock/unlock function call.");
-				continue;					
+		for(Node signatureNode : scheduledSignatures){
+			if(signatureProcessingIndex < resumeSignatureIndex){
+				signatureProcessingIndex++;
+				continue;
+			}
+			if(progress.isCanceled()){
+				canceledSignatureIndex = signatureProcessingIndex;
+				break;
+			}
+			progress.subTask(progressMessage(signatureProcessingIndex, resumeSignatureIndex, sortedSignatures.size(), progressStartTime));
+			if(checkpoint != null && signatureProcessingIndex > resumeSignatureIndex && signatureProcessingIndex % VerificationProperties.getCheckpointInterval() == 0){
+				if(verificationResultCache != null){
+					verificationResultCache.save();
+				}
+				checkpoint.save(sortedSignatures, scheduledSignatures, signatureProcessingIndex, reporter, totalRunningTime, totalRunningTimeWithDF);
 			}
+			long signatureStartTime = System.currentTimeMillis();
+			long analysisStartTime = signatureStartTime;
+			Q cfgNodesContainingPassedParameters = Common.empty();
+			int nextSignatureIndex = signatureProcessingIndex;
+			int signatureNumber = signatureNumbers.get(signatureNode);
+			SignatureBudget.start(VerificationProperties.getSignatureTimeBudgetSeconds(), VerificationProperties.getSignatureAllocationBudgetMegabytes(), monitor == null ? null : progress);
+			try {
+				signatureProcessingIndex++;
+				LSAPUtils.log(PROCESSING_SIGNATURE_MESSAGE_PREFIX + signatureNode.getAttr(XCSG.name) + "] " + signatureNumber + "/" + signatureNodes.size());
+				Q signature = Common.toQ(signatureNode);
 			
-			// 3. Find the {@link XCSG#ReturnValue} nodes that will be excluded from the data flow computations.
-			Q functionsToExcludeReturnCallSites = functionsToExclude.contained().nodes(XCSG.ReturnValue);
+				// Skip processing the signature node if it has no data flow to the parameters passed to a lock/unlock function call.
+				Q dataFlowExistenceTest = dataFlowContext.successors(signature);
+				if(dataFlowExistenceTest.eval().nodes().isEmpty()){
+					LSAPUtils.log("Skipping signature [" + signatureNumber + "] - as it has no data flow to the parameters passed to a lock/unlock function call.");
+					continue;					
+				}
 			
-			// 4. Check whether the signature is connected through <code>dataFlowContext</code> edges to the <code>parametersPassedToLockUnlockFunctionCallSites</code>.
-			Q dataFlowBetweenSignatureAndParameters = dataFlowContext.between(signature, parametersPassedToLockUnlockFunctionCallSites, functionsToExcludeReturnCallSites);
+				// 3. Find the {@link XCSG#ReturnValue} nodes that will be excluded from the data flow computations.
+				Q functionsToExcludeReturnCallSites = functionsToExclude.contained().nodes(XCSG.ReturnValue);
 			
-			// 5. Find the parameters associated only with this signature.
-			Q parametersPassedToLockUnlockCallsFromSignature = dataFlowBetweenSignatureAndParameters.intersection(parametersPassedToLockUnlockFunctionCallSites);
+				// 4. Check whether the signature is connected through <code>dataFlowContext</code> edges to the <code>parametersPassedToLockUnlockFunctionCallSites</code>.
+				Q dataFlowBetweenSignatureAndParameters = dataFlowContext.between(signature, parametersPassedToLockUnlockFunctionCallSites, functionsToExcludeReturnCallSites);
 			
-			// Skip processing the signature node if it has no data flow to the parameters passed to a lock/unlock function call.
-			if(parametersPassedToLockUnlockCallsFromSignature.eval().nodes().isEmpty()){
-				LSAPUtils.log("Skipping signature [" + signatureProcessingIndex + "] - as it has no data flow to the parameters passed to a lock/unlock function call.");
-				continue;					
-			}
+				// 5. Find the parameters associated only with this signature.
+				Q parametersPassedToLockUnlockCallsFromSignature = dataFlowBetweenSignatureAndParameters.intersection(parametersPassedToLockUnlockFunctionCallSites);
 			
-			Q cfgNodesContainingPassedParameters = LSAPUtils.getContainingNodes(parametersPassedToLockUnlockCallsFromSignature, XCSG.ControlFlow_Node);
-			Q callSitesWithinCFGNodes = universe().edges(XCSG.Contains).forward(cfgNodesContainingPassedParameters).nodes(XCSG.CallSite);
+				// Skip processing the signature node if it has no data flow to the parameters passed to a lock/unlock function call.
+				if(parametersPassedToLockUnlockCallsFromSignature.eval().nodes().isEmpty()){
+					LSAPUtils.log("Skipping signature [" + signatureNumber + "] - as it has no data flow to the parameters passed to a lock/unlock function call.");
+					continue;					
+				}
 			
-			Q mpg = LSAPUtils.mpg(callSitesWithinCFGNodes, lockFunctionCallsQ, unlockFunctionCallsQ);
-			long mpgNodeSize = mpg.eval().nodes().size();
-			if(mpgNodeSize > VerificationProperties.getMPGNodeSizeLimit()){
-				LSAPUtils.log("Skipping signature [" + signatureProcessingIndex + "] - as it exceeds the mpg node size limit [" + mpgNodeSize + "].");
-				continue;
-			}
+				cfgNodesContainingPassedParameters = LSAPUtils.getContainingNodes(parametersPassedToLockUnlockCallsFromSignature, XCSG.ControlFlow_Node);
 			
-			// Skip processing the signature if it contains the functions to exclude from the analysis
-			if(!mpg.intersection(functionsToExclude).eval().nodes().isEmpty()){
-				LSAPUtils.log("Skipping signature [" + signatureProcessingIndex + "] -- as it contains problematic functions.");
-				continue;						
-			}
+				// Find the trivially paired locks without the MPG and only pass the remaining events to the full pipeline.
+				// The trivial pairs are reported by the verifier of the signature along with the results of the remaining events.
+				TrivialLockPrefilter trivialLockPrefilter = null;
+				Q remainingCFGNodesContainingPassedParameters = cfgNodesContainingPassedParameters;
+				if(lockNode == null && VerificationProperties.isTrivialLockPrefilterEnabled() && !VerificationProperties.isSaveVerificationGraphs()){
+					trivialLockPrefilter = new TrivialLockPrefilter(signatureNode, cfgNodesContainingPassedParameters, lockFunctionCallsQ, unlockFunctionCallsQ);
+					if(trivialLockPrefilter.run()){
+						remainingCFGNodesContainingPassedParameters = trivialLockPrefilter.getRemainingEventNodes();
+					}else{
+						trivialLockPrefilter = null;
+					}
+				}
+			
+				Q mpg = Common.empty();
+				if(!remainingCFGNodesContainingPassedParameters.eval().nodes().isEmpty()){
+					Q callSitesWithinCFGNodes = universe().edges(XCSG.Contains).forward(remainingCFGNodesContainingPassedParameters).nodes(XCSG.CallSite);
+					mpg = LSAPUtils.mpg(callSitesWithinCFGNodes, lockFunctionCallsQ, unlockFunctionCallsQ, containingFunctionCache);
+				}
+				long mpgNodeSize = mpg.eval().nodes().size();
+				if(mpgNodeSize > VerificationProperties.getMPGNodeSizeLimit()){
+					LSAPUtils.log("Skipping signature [" + signatureNumber + "] - as it exceeds the mpg node size limit [" + mpgNodeSize + "].");
+					continue;
+				}
+			
+				// Skip processing the signature if it contains the functions to exclude from the analysis
+				if(!mpg.intersection(functionsToExclude).eval().nodes().isEmpty()){
+					LSAPUtils.log("Skipping signature [" + signatureNumber + "] -- as it contains problematic functions.");
+					continue;						
+				}
 			
-			Graph mpgGraph = mpg.eval();
-			if(!LSAPUtils.isDirectedAcyclicGraph(mpg)){
-				mpgGraph = LSAPUtils.cutCyclesFromGraph(mpg);
-				mpg = Common.toQ(mpgGraph);
-				// Skip processing the signature if it is cyclic graph.
+				Graph mpgGraph = mpg.eval();
 				if(!LSAPUtils.isDirectedAcyclicGraph(mpg)){
-					LSAPUtils.log("Skipping signature [" + signatureProcessingIndex + "] -- as it contains cycles.");
+					mpgGraph = LSAPUtils.cutCyclesFromGraph(mpg);
+					mpg = Common.toQ(mpgGraph);
+					// Skip processing the signature if it is cyclic graph.
+					if(!LSAPUtils.isDirectedAcyclicGraph(mpg)){
+						LSAPUtils.log("Skipping signature [" + signatureNumber + "] -- as it contains cycles.");
+						continue;
+					}
+				}
+			
+				// Reuse the verification results of a previously verified signature that has the same MPG and events.
+				MPGFingerprint fingerprint = new MPGFingerprint(mpg, cfgNodesContainingPassedParameters);
+				if(verifiedFingerprints.containsKey(fingerprint)){
+					Reporter sharedReporter = verifiedFingerprints.get(fingerprint);
+					LSAPUtils.log("Skipping signature [" + signatureNumber + "] - as it shares the MPG and events of signature [" + verifiedFingerprintsSignatures.get(fingerprint).getAttr(XCSG.name) + "].");
+					if(sharedReporter != null){
+						reporter.aggregate(sharedReporter);
+						savedRunningTime += sharedReporter.getAnalysisProcessingTime();
+					}
+					deduplicatedSignaturesCount++;
 					continue;
 				}
-			}
 			
-			double dataFlowAnalysisTime = (System.currentTimeMillis() - analysisStartTime)/(60*1000F);
-			Reporter subReporter = verifySignature(lockNode, signatureNode, mpg, cfgNodesContainingPassedParameters, lockFunctionCallsQ, unlockFunctionCallsQ, graphsOutputDirectoryPath);
+				// Reuse the verification results of a previous run if the CFGs of the MPG functions did not change.
+				// The cached results cannot replay the per-lock log sections and graphs nor index the locks for the interactive verification,
+				// so the cache is not read when the graphs are saved or the lock results are indexed.
+				Map<String, Node> nodesByKey = new HashMap<String, Node>();
+				String contentHash = null;
+				if(verificationResultCache != null){
+					Q hashedMpg = trivialLockPrefilter == null ? mpg : mpg.union(trivialLockPrefilter.getTrivialMPG());
+					contentHash = VerificationResultCache.contentHash(hashedMpg, cfgNodesContainingPassedParameters, nodesByKey);
+					boolean cacheReadable = !VerificationProperties.isSaveVerificationGraphs() && !VerificationProperties.isLockResultsIndexEnabled();
+					Reporter cachedReporter = !cacheReadable ? null : verificationResultCache.get(contentHash, nodesByKey, "[" + signatureNode.getAttr(XCSG.name) + "(" + signatureNode.addressBits() + ")]");
+					if(cachedReporter != null){
+						LSAPUtils.log("Skipping signature [" + signatureNumber + "] - as its verification results are cached [" + contentHash + "], its per-lock results are not logged again.");
+						verifiedFingerprints.put(fingerprint, cachedReporter);
+						verifiedFingerprintsSignatures.put(fingerprint, signatureNode);
+						reporter.aggregate(cachedReporter);
+						cachedSignaturesCount++;
+						continue;
+					}
+				}
 			
-			if(subReporter == null){
-				LSAPUtils.log("Skipping signature [" + signatureProcessingIndex + "] - verification results on \"NULL\" status.");
-				continue;
+				double dataFlowAnalysisTime = (System.currentTimeMillis() - analysisStartTime)/(60*1000F);
+				Reporter subReporter = verifySignature(lockNode, signatureNode, mpg, remainingCFGNodesContainingPassedParameters, trivialLockPrefilter, lockFunctionCallsQ, unlockFunctionCallsQ, graphsOutputDirectoryPath, graphExportPipeline, containingFunctionCache);
+				verifiedFingerprints.put(fingerprint, subReporter);
+				if(verificationResultCache != null && subReporter != null){
+					verificationResultCache.put(contentHash, subReporter);
+				}
+				verifiedFingerprintsSignatures.put(fingerprint, signatureNode);
+			
+				if(subReporter == null){
+					LSAPUtils.log("Skipping signature [" + signatureNumber + "] - verification results on \"NULL\" status.");
+					continue;
+				}
+				reporter.aggregate(subReporter);
+				totalRunningTime += subReporter.getAnalysisProcessingTime();
+				totalRunningTimeWithDF += dataFlowAnalysisTime;
+				totalRunningTimeWithDF += subReporter.getAnalysisProcessingTime();
+			} catch (SignatureBudgetExceededException e) {
+				// Report the remaining events of the signature with a TIMEOUT status and continue with the next signature.
+				LSAPUtils.log("Skipping signature [" + signatureNumber + "] - TIMEOUT as its verification exceeded the budget (" + e.getMessage() + ").");
+				AtlasSet<Node> timedOutLockEvents = cfgNodesContainingPassedParameters.intersection(cfgNodesContainingLockFunctionCallSites).eval().nodes();
+				reporter.getLockEvents().addAll(timedOutLockEvents);
+				reporter.getUnlockEvents().addAll(cfgNodesContainingPassedParameters.intersection(cfgNodesContainingUnlockFunctionCallSites).eval().nodes());
+				reporter.getTimedOutLockEvents().addAll(timedOutLockEvents);
+				totalRunningTimeWithDF += (System.currentTimeMillis() - analysisStartTime)/(60*1000F);
+				timedOutSignaturesCount++;
+			} catch (OperationCanceledException e) {
+				// The results of the canceled signature are discarded so it is verified again on resume.
+				canceledSignatureIndex = nextSignatureIndex;
+			} finally {
+				SignatureBudget.stop();
+				if(costEstimates != null){
+					LSAPUtils.log("Signature [" + signatureNumber + "] estimated [" + costEstimates.get(signatureNode) + "] took [" + (System.currentTimeMillis() - signatureStartTime) + " ms].");
+				}
+				progress.worked(1);
+			}
+			if(canceledSignatureIndex >= 0){
+				break;
+			}
+		}
+		if(shard != null){
+			LSAPUtils.log(SHARD_SIGNATURES_END_MESSAGE_PREFIX + shard + ".");
+		}
+		if(verificationResultCache != null){
+			verificationResultCache.save();
+		}
+		if(checkpoint != null){
+			if(canceledSignatureIndex > 0){
+				checkpoint.save(sortedSignatures, scheduledSignatures, canceledSignatureIndex, reporter, totalRunningTime, totalRunningTimeWithDF);
+			}else if(canceledSignatureIndex < 0 && !sortedSignatures.isEmpty()){
+				// Keep the completed verification so resuming a composite verification does not verify it again.
+				checkpoint.save(sortedSignatures, scheduledSignatures, sortedSignatures.size(), reporter, totalRunningTime, totalRunningTimeWithDF);
+			}else{
+				checkpoint.delete();
+			}
+		}
+		if(canceledSignatureIndex >= 0){
+			LSAPUtils.log(CANCELED_VERIFICATION_MESSAGE_PREFIX + canceledSignatureIndex + "/" + sortedSignatures.size() + "] signatures, the following results are partial.");
+		}
+		VerificationSummary summary = new VerificationSummary(sortedSignatures.size(), totalRunningTime, totalRunningTimeWithDF, deduplicatedSignaturesCount, verifiedFingerprints.size(), savedRunningTime, cachedSignaturesCount, timedOutSignaturesCount);
+		if(shard != null && canceledSignatureIndex < 0){
+			shard.saveResults(VerificationProperties.getShardResultsFile(verificationName(graphsOutputDirectoryPath, shard)), reporter, summary);
+		}
+		graphExportPipeline.awaitCompletion();
+		reporter.done();
+		summary.log();
+		progress.done();
+	}
+	
+	/**
+	 * Constructs the progress message for the signature at <code>signatureIndex</code> with the estimated remaining time.
+	 * 
+	 * @param signatureIndex The index of the signature to be verified.
+	 * @param firstSignatureIndex The index of the first signature verified in this run.
+	 * @param signaturesCount The number of signatures to be verified.
+	 * @param startTime The time in milliseconds when the first signature in this run started.
+	 * @return A {@link String} corresponding to the progress message.
+	 */
+	private static String progressMessage(int signatureIndex, int firstSignatureIndex, int signaturesCount, long startTime){
+		String message = "Signature [" + (signatureIndex + 1) + "/" + signaturesCount + "]";
+		int processedSignaturesCount = signatureIndex - firstSignatureIndex;
+		if(processedSignaturesCount > 0){
+			double millisecondsPerSignature = (System.currentTimeMillis() - startTime) / (double) processedSignaturesCount;
+			long remainingMinutes = Math.round(millisecondsPerSignature * (signaturesCount - signatureIndex) / (60 * 1000));
+			message += " - ETA [" + remainingMinutes + " minutes]";
+		}
+		return message;
+	}
+	
+	/**
+	 * Merges the partial results stored by all the <code>shardCount</code> shards of a verification into the overall results.
+	 * <p>
+	 * The per signature log sections of the shards are logged in the order of the signatures as in a verification in a single process,
+	 * followed by the overall statistics. Signatures sharing the same MPG in different shards are verified by each shard and thus not
+	 * counted as deduplicated. The verification cache entries of the shards are merged into the shared verification cache file.
+	 * 
+	 * @param lockFunctionCallsQ A {@link Q} corresponding to the functions performing the actual lock on the verified signatures.
+	 * @param unlockFunctionCallsQ A {@link Q} corresponding to the functions performing the actual unlock on the verified signatures.
+	 * @param graphsOutputDirectoryPath A {@link Path} to where the verification graphs of the shards are stored.
+	 * @param shardCount The number of shards the signatures are partitioned into.
+	 * @param logQualifier The qualifier of the output log file the shard names are appended to, or null if each shard only qualifies it with its name.
+	 * @return true if the results of all shards are merged, otherwise false.
+	 */
+	public static boolean mergeShards(Q lockFunctionCallsQ, Q unlockFunctionCallsQ, Path graphsOutputDirectoryPath, int shardCount, String logQualifier){
+		Reporter reporter = new Reporter(OVERALL_RESULTS_TITLE);
+		Map<String, Node> eventNodesByKey = LockVerificationContext.get(lockFunctionCallsQ, unlockFunctionCallsQ).getEventNodesByKey();
+		VerificationSummary summary = new VerificationSummary(0, 0, 0, 0, 0, 0, 0, 0);
+		TreeMap<Integer, List<String>> signatureLogs = new TreeMap<Integer, List<String>>();
+		for(int shardIndex = 0; shardIndex < shardCount; shardIndex++){
+			SignatureShard shard = new SignatureShard(shardIndex, shardCount);
+			VerificationSummary shardSummary = shard.loadResults(VerificationProperties.getShardResultsFile(verificationName(graphsOutputDirectoryPath, shard)), reporter, eventNodesByKey);
+			if(shardSummary == null){
+				LSAPUtils.log("Cannot merge the results as " + shard + " is not verified.");
+				return false;
+			}
+			summary.aggregate(shardSummary);
+			readShardSignatureLogs(VerificationProperties.getQualifiedOutputLogFile(logQualifier == null ? shard.toString() : logQualifier + "_" + shard), signatureLogs);
+		}
+		for(List<String> signatureLog : signatureLogs.values()){
+			for(String line : signatureLog){
+				LSAPUtils.log(line);
+			}
+		}
+		if(VerificationProperties.isVerificationCacheEnabled()){
+			for(int shardIndex = 0; shardIndex < shardCount; shardIndex++){
+				Path shardCacheFilePath = VerificationProperties.getShardVerificationCacheFile(verificationName(graphsOutputDirectoryPath, new SignatureShard(shardIndex, shardCount)));
+				if(!VerificationResultCache.merge(VerificationProperties.getVerificationCacheFile(), shardCacheFilePath)){
+					LSAPUtils.log("Cannot merge the cache file [" + shardCacheFilePath + "].");
+				}
 			}
-			reporter.aggregate(subReporter);
-			totalRunningTime += subReporter.getAnalysisProcessingTime();
-			totalRunningTimeWithDF += dataFlowAnalysisTime;
-			totalRunningTimeWithDF += subReporter.getAnalysisProcessingTime();
 		}
 		reporter.done();
-		LSAPUtils.log("******************************************");
-		LSAPUtils.log("Signatures Count: "  + signatureNodes.size());
-		LSAPUtils.log("Total Running Time [ "  + totalRunningTime + " minutes]!" );
-		LSAPUtils.log("Total Running Time With Data Flow Analysis [ "  + totalRunningTimeWithDF + " minutes]!" );
-		LSAPUtils.log("******************************************");
+		summary.log();
+		return true;
+	}
+	
+	/**
+	 * Reads the log section of each signature verified by a shard from its output log file into <code>signatureLogs</code>.
+	 * <p>
+	 * A section starts at the line logging the processing of a signature and ends before the next one or the end of the signatures of the shard.
+	 * When a shard is resumed, the section of a signature logged again replaces the section logged before the interruption.
+	 * 
+	 * @param shardLogFilePath A {@link Path} to the output log file of a shard.
+	 * @param signatureLogs A mapping from the number of a signature among all the signatures to the lines of its log section.
+	 */
+	private static void readShardSignatureLogs(Path shardLogFilePath, Map<Integer, List<String>> signatureLogs){
+		List<String> lines;
+		try {
+			lines = Files.readAllLines(shardLogFilePath);
+		} catch (IOException e) {
+			LSAPUtils.log("Cannot read the log file [" + shardLogFilePath + "], its signatures are not logged.");
+			return;
+		}
+		List<String> signatureLog = null;
+		for(String line : lines){
+			if(line.startsWith(PROCESSING_SIGNATURE_MESSAGE_PREFIX)){
+				int numberIndex = line.lastIndexOf(' ') + 1;
+				int countIndex = line.indexOf('/', numberIndex);
+				if(countIndex > numberIndex){
+					signatureLog = new ArrayList<String>();
+					signatureLogs.put(Integer.parseInt(line.substring(numberIndex, countIndex)), signatureLog);
+				}
+			}else if(line.startsWith(SHARD_SIGNATURES_END_MESSAGE_PREFIX) || line.startsWith(CANCELED_VERIFICATION_MESSAGE_PREFIX)){
+				signatureLog = null;
+			}
+			if(signatureLog != null){
+				signatureLog.add(line);
+			}
+		}
+	}
+	
+	/**
+	 * Constructs the name that identifies the files of a verification, such as its checkpoint and partial results.
+	 * 
+	 * @param graphsOutputDirectoryPath A {@link Path} to where the verification graphs to be stored.
+	 * @param shard The {@link SignatureShard} to be verified or null if all signatures are verified.
+	 * @return A {@link String} corresponding to the name of the verification.
+	 */
+	private static String verificationName(Path graphsOutputDirectoryPath, SignatureShard shard){
+		String verificationName = graphsOutputDirectoryPath.getFileName().toString();
+		if(shard != null){
+			verificationName += "_" + shard;
+		}
+		return verificationName;
 	}
 	
 	/**
@@ -168,12 +578,15 @@ public class SignatureVerificationUtils {
 	 * @param signatureNode A {@link Node} corresponding to the type object passed to the lock/unlock calls.
 	 * @param mpg An {@link Q} corresponding to the matching pair graph associated with <code>signatureNode</code>.
 	 * @param cfgNodesContainingEvents An {@link Q} containing the CFG nodes that correspond to lock/unlock call events.
+	 * @param trivialLockPrefilter The {@link TrivialLockPrefilter} that paired the events not in <code>cfgNodesContainingEvents</code> or null if none of the events is trivially paired.
 	 * @param lockFunctionCallsQ A {@link Q} corresponding to the functions performing the actual lock on the given <code>signatures</code>.
 	 * @param unlockFunctionCalls A {@link Q} of corresponding to the functions performing the actual unlock on the given <code>signatures</code>.
 	 * @param graphsOutputDirectoryPath A {@link Path} to where the verification graphs to be stored.
+	 * @param graphExportPipeline The {@link GraphExportPipeline} the verification graphs are exported by.
+	 * @param containingFunctionCache The {@link ContainingFunctionCache} of the verification run.
 	 * @return An instance of {@link Reporter} for this verification instance or null of the verification did not succeed.
 	 */
-	private static Reporter verifySignature(Node lockNode, Node signatureNode, Q mpg, Q cfgNodesContainingEvents, Q lockFunctionCallsQ, Q unlockFunctionCallsQ, Path graphsOutputDirectoryPath){		
+	private static Reporter verifySignature(Node lockNode, Node signatureNode, Q mpg, Q cfgNodesContainingEvents, TrivialLockPrefilter trivialLockPrefilter, Q lockFunctionCallsQ, Q unlockFunctionCallsQ, Path graphsOutputDirectoryPath, GraphExportPipeline graphExportPipeline, ContainingFunctionCache containingFunctionCache){		
 		Q mpgFunctions = mpg.difference(lockFunctionCallsQ.union(unlockFunctionCallsQ));
 		AtlasMap<Node, PCG> functionPCGMap = new AtlasGraphKeyHashMap<Node, PCG>();
 		AtlasMap<Node, List<Q>> functionEventsMap = new AtlasGraphKeyHashMap<Node, List<Q>>();
@@ -181,8 +594,10 @@ public class SignatureVerificationUtils {
 		Graph mpgGraphWithoutLockUnlockCalls = mpgFunctions.eval();
 		AtlasSet<Node> mpgNodes = mpgGraphWithoutLockUnlockCalls.nodes();		
 		for(Node mpgNode : mpgNodes){			
+			SignatureBudget.check();
 			String mpgFunctionName = (String) mpgNode.getAttr(XCSG.name);
 			Q cfg = CommonQueries.cfg(mpgNode);
+			containingFunctionCache.put(mpgNode, cfg);
 			List<Q> events = LSAPUtils.compileCFGNodesContainingEventNodes(cfg, cfgNodesContainingEvents, mpgFunctions, lockFunctionCallsQ, unlockFunctionCallsQ);
 			Q lockEvents = events.get(0);
 			Q unlockEvents = events.get(1);
@@ -200,7 +615,10 @@ public class SignatureVerificationUtils {
 			functionEventsMap.put(mpgNode, events);
 		}
 		
-		Verifier verifier = new Verifier(signatureNode, mpg, functionPCGMap, functionEventsMap, new AtlasGraphKeyHashMap<>(), graphsOutputDirectoryPath);
+		Verifier verifier = new Verifier(signatureNode, mpg, functionPCGMap, functionEventsMap, new AtlasGraphKeyHashMap<>(), graphsOutputDirectoryPath, graphExportPipeline, containingFunctionCache);
+		if(trivialLockPrefilter != null){
+			verifier.addTrivialPairs(trivialLockPrefilter.getTrivialPairs(), trivialLockPrefilter.getTrivialUnlocks(), trivialLockPrefilter.getTrivialMPG());
+		}
 		Reporter reporter = null;
 		if(lockNode == null){
 			reporter = verifier.verify();
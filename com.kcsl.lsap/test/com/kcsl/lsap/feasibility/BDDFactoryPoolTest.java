@@ -0,0 +1,99 @@
+package com.kcsl.lsap.feasibility;
+
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import net.sf.javabdd.BDD;
+import net.sf.javabdd.BDDException;
+import net.sf.javabdd.BDDFactory;
+import net.sf.javabdd.JFactory;
+
+/**
+ * Checks that the {@link BDDFactory}s handed out by {@link BDDFactoryPool} are confined to their thread and reused between uses.
+ */
+public class BDDFactoryPoolTest {
+
+	/**
+	 * A factory cannot be used from a thread other than the one it was acquired by.
+	 *
+	 * @throws InterruptedException If interrupted while waiting for the other thread.
+	 */
+	@Test
+	public void testFactoryUsedFromAnotherThread() throws InterruptedException {
+		final BDDFactory factory = BDDFactoryPool.acquire(2);
+		try {
+			final BDD variable = factory.ithVar(0);
+			final AtomicReference<Throwable> thrown = new AtomicReference<Throwable>();
+			Thread thread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						variable.and(factory.ithVar(1)).free();
+					} catch (Throwable throwable) {
+						thrown.set(throwable);
+					}
+				}
+			});
+			thread.start();
+			thread.join();
+			variable.free();
+			assertTrue(thrown.get() instanceof BDDException);
+		} finally {
+			BDDFactoryPool.release(factory);
+		}
+	}
+
+	/**
+	 * The {@link BDD}s of another factory cannot be combined with the {@link BDD}s of a pooled factory.
+	 */
+	@Test(expected = BDDException.class)
+	public void testBDDOfAnotherFactory(){
+		BDDFactory factory = BDDFactoryPool.acquire(2);
+		BDDFactory otherFactory = JFactory.init(100, 100);
+		otherFactory.setVarNum(2);
+		BDD variable = factory.ithVar(0);
+		BDD otherVariable = otherFactory.ithVar(0);
+		try {
+			variable.and(otherVariable);
+		} finally {
+			variable.free();
+			otherVariable.free();
+			otherFactory.done();
+			BDDFactoryPool.release(factory);
+		}
+	}
+
+	/**
+	 * A thread cannot acquire its factory again before releasing it.
+	 */
+	@Test(expected = IllegalStateException.class)
+	public void testNestedAcquire(){
+		BDDFactory factory = BDDFactoryPool.acquire(2);
+		try {
+			BDDFactoryPool.acquire(2);
+		} finally {
+			BDDFactoryPool.release(factory);
+		}
+	}
+
+	/**
+	 * A released factory is handed out again to the same thread, with more variables if needed.
+	 */
+	@Test
+	public void testReleasedFactoryReused(){
+		BDDFactory factory = BDDFactoryPool.acquire(2);
+		BDDFactoryPool.release(factory);
+		BDDFactory reusedFactory = BDDFactoryPool.acquire(4);
+		try {
+			assertSame(factory, reusedFactory);
+			assertTrue(reusedFactory.varNum() >= 4);
+		} finally {
+			BDDFactoryPool.release(reusedFactory);
+		}
+	}
+
+}
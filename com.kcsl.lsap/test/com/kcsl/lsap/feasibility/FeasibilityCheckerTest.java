@@ -0,0 +1,40 @@
+package com.kcsl.lsap.feasibility;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+/**
+ * Checks the satisfiability of the {@link Constraint}s collected along a path by {@link FeasibilityChecker}.
+ */
+public class FeasibilityCheckerTest {
+
+	/**
+	 * A path without conditions is feasible.
+	 */
+	@Test
+	public void testNoConstraints(){
+		assertTrue(FeasibilityChecker.isConstraintsSatisfiable(Collections.<Constraint>emptyList()));
+	}
+
+	/**
+	 * Distinct conditions can take any values.
+	 */
+	@Test
+	public void testDistinctConditions(){
+		assertTrue(FeasibilityChecker.isConstraintsSatisfiable(Arrays.asList(new Constraint("x", true), new Constraint("y", false))));
+	}
+
+	/**
+	 * A path requiring a condition to be both true and false is rejected.
+	 */
+	@Test
+	public void testContradictoryCondition(){
+		assertFalse(FeasibilityChecker.isConstraintsSatisfiable(Arrays.asList(new Constraint("x", true), new Constraint("y", true), new Constraint("x", false))));
+	}
+
+}
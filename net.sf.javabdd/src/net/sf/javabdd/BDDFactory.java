@@ -58,8 +58,8 @@ public abstract class BDDFactory {
     /**
      * <p>Initializes a BDD factory of the given type with the given initial
      * node table size and operation cache size.  The type is a string that
-     * can be "buddy", "cudd", "cal", "j", "java", "jdd", "test", "typed", or
-     * a name of a class that has an init() method that returns a BDDFactory.
+     * can be "buddy", "cudd", "cal", "j", "java", "ce", "jdd", "test",
+     * "typed", or a name of a class that has an init() method that returns a BDDFactory.
      * If it fails, it falls back to the "java" factory.</p>
      * 
      * @param bddpackage BDD package string identifier
@@ -78,6 +78,8 @@ public abstract class BDDFactory {
 	return CALFactory.init(nodenum, cachesize);
       } else if (bddpackage.equals("j") || bddpackage.equals("java")) {
 	return JFactory.init(nodenum, cachesize);
+      } else if (bddpackage.equals("ce")) {
+	return ComplementEdgeFactory.init(nodenum, cachesize);
       } else if (bddpackage.equals("u")) {
 	return UberMicroFactory.init(nodenum, cachesize);
       } else if (bddpackage.equals("micro")) {
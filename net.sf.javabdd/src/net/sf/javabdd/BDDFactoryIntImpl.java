@@ -17,6 +17,44 @@ public abstract class BDDFactoryIntImpl extends BDDFactory {
     
     static final boolean USE_FINALIZER = false;
     
+    /**
+     * Thread this factory is confined to, or null if it is not confined.
+     */
+    protected volatile Thread owner;
+    
+    /**
+     * <p>Confines this factory to the given thread.  While it is confined,
+     * making, freeing or passing in a BDD from any other thread, or passing
+     * in a BDD of another factory, throws a BDDException.  A null thread
+     * lifts the confinement.</p>
+     * 
+     * @param t the only thread allowed to use this factory, or null
+     */
+    public void confineTo(Thread t) {
+        owner = t;
+    }
+    
+    /**
+     * <p>Returns the thread this factory is confined to, or null.</p>
+     * 
+     * @return the owning thread, or null
+     */
+    public Thread getOwner() {
+        return owner;
+    }
+    
+    protected final void checkOwner() {
+        Thread t = owner;
+        if (t != null && t != Thread.currentThread())
+            throw new BDDException("BDD factory confined to thread "+t.getName()+
+                                   " used from thread "+Thread.currentThread().getName());
+    }
+    
+    protected final void checkFactory(BDDFactory f) {
+        if (f != this)
+            throw new BDDException("BDD of another factory passed to "+getVersion());
+    }
+    
     protected abstract void addref_impl(/*bdd*/int v);
     protected abstract void delref_impl(/*bdd*/int v);
     protected abstract /*bdd*/int zero_impl();
@@ -62,6 +100,7 @@ public abstract class BDDFactoryIntImpl extends BDDFactory {
     public class IntBDD extends BDD {
         protected /*bdd*/int v;
         protected IntBDD(/*bdd*/int v) {
+            if (owner != null) checkOwner();
             this.v = v;
             addref_impl(v);
         }
@@ -103,6 +142,7 @@ public abstract class BDDFactoryIntImpl extends BDDFactory {
             return makeBDD(forAll_impl(v, unwrap(var)));
         }
         public void free() {
+            if (owner != null) checkOwner();
             delref_impl(v);
             v = invalid_bdd_impl();
         }
@@ -225,15 +265,19 @@ public abstract class BDDFactoryIntImpl extends BDDFactory {
             return new IntBDD(v);
     }
     
-    protected static final /*bdd*/int unwrap(BDD b) {
+    protected final /*bdd*/int unwrap(BDD b) {
+        if (owner != null) {
+            checkOwner();
+            checkFactory(b.getFactory());
+        }
         return ((IntBDD) b).v;
     }
     
-    protected static final /*bdd*/int[] unwrap(Collection/*<BDD>*/ c) {
+    protected final /*bdd*/int[] unwrap(Collection/*<BDD>*/ c) {
         /*bdd*/int[] result = new /*bdd*/int[c.size()];
         int k = -1;
         for (Iterator i = c.iterator(); i.hasNext(); ) {
-            result[++k] = ((IntBDD) i.next()).v;
+            result[++k] = unwrap((BDD) i.next());
         }
         return result;
     }
@@ -241,6 +285,7 @@ public abstract class BDDFactoryIntImpl extends BDDFactory {
     public class IntBDDVarSet extends BDDVarSet {
         /*bdd*/int v;
         protected IntBDDVarSet(/*bdd*/int v) {
+            if (owner != null) checkOwner();
             this.v = v;
             addref_impl(v);
         }
@@ -248,6 +293,7 @@ public abstract class BDDFactoryIntImpl extends BDDFactory {
             return v == unwrap(that);
         }
         public void free() {
+            if (owner != null) checkOwner();
             delref_impl(v);
             v = invalid_bdd_impl();
         }
@@ -457,7 +503,11 @@ public abstract class BDDFactoryIntImpl extends BDDFactory {
         }
     }
     
-    protected static final /*bdd*/int unwrap(BDDVarSet b) {
+    protected final /*bdd*/int unwrap(BDDVarSet b) {
+        if (owner != null) {
+            checkOwner();
+            checkFactory(b.getFactory());
+        }
         return ((IntBDDVarSet) b).v;
     }
     
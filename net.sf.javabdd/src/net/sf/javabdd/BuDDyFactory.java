@@ -415,7 +415,7 @@ public class BuDDyFactory extends BDDFactoryIntImpl {
          * @see net.sf.javabdd.BDDPairing#set(int, net.sf.javabdd.BDD)
          */
         public void set(int oldvar, BDD newvar) {
-            set2(_ptr, oldvar, unwrap(newvar));
+            set2(_ptr, oldvar, INSTANCE.unwrap(newvar));
         }
         private static native void set2(long p, int oldvar, int newbdd);
         
@@ -423,7 +423,7 @@ public class BuDDyFactory extends BDDFactoryIntImpl {
          * @see net.sf.javabdd.BDDPairing#set(int[], net.sf.javabdd.BDD[])
          */
         public void set(int[] oldvar, BDD[] newvar) {
-            set3(_ptr, oldvar, unwrap(Arrays.asList(newvar)));
+            set3(_ptr, oldvar, INSTANCE.unwrap(Arrays.asList(newvar)));
         }
         private static native void set3(long p, int[] oldvar, int[] newbdds);
         
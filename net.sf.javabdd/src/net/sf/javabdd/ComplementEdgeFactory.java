@@ -0,0 +1,2116 @@
+// ComplementEdgeFactory.java
+// Licensed under the terms of the GNU LGPL; see COPYING for details.
+package net.sf.javabdd;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/**
+ * <p>A 100% Java BDD factory that uses complement edges.  A BDD is an edge:
+ * the index of its node shifted left by one, with the lowest bit set if the
+ * function of the node is negated.  The high edge of a node is never
+ * complemented, so every function still has exactly one representation,
+ * negation only flips a bit, and a function and its negation share all of
+ * their nodes.</p>
+ *
+ * <p>Nodes take three ints (refcount/level, low, high) and are found through
+ * an open addressing unique table.  Like JFactory it uses reference counting,
+ * but garbage is only collected between operations; while an operation runs
+ * the node table grows instead, so no intermediate result has to be
+ * protected.  The variable order is fixed to the identity, reordering
+ * requests are ignored and explicit order changes are rejected.</p>
+ *
+ * <p>Select it with the "ce" package name, or cross-check it against another
+ * factory with the "test" package and the bdd1/bdd2 properties.</p>
+ *
+ * @version $Id$
+ */
+@SuppressWarnings({"unused", "rawtypes"})
+public class ComplementEdgeFactory extends BDDFactoryIntImpl {
+
+    static final boolean VERIFY_ASSERTIONS = false;
+
+    public String getVersion() {
+        return "ComplementEdgeFactory";
+    }
+
+    private ComplementEdgeFactory() { }
+
+    /* (non-Javadoc)
+     * @see net.sf.javabdd.BDDFactory#init(int, int)
+     */
+    public static BDDFactory init(int nodenum, int cachesize) {
+        BDDFactory f = new ComplementEdgeFactory();
+        f.initialize(nodenum, cachesize);
+        return f;
+    }
+
+    /**
+     * Implementation of BDDPairing used by ComplementEdgeFactory.
+     */
+    class bddPair extends BDDPairing {
+        int[] result;
+        int last;
+        int id;
+        bddPair next;
+
+        /* (non-Javadoc)
+         * @see net.sf.javabdd.BDDPairing#set(int, int)
+         */
+        public void set(int oldvar, int newvar) {
+            bdd_setpair(this, oldvar, newvar);
+        }
+        /* (non-Javadoc)
+         * @see net.sf.javabdd.BDDPairing#set(int, net.sf.javabdd.BDD)
+         */
+        public void set(int oldvar, BDD newvar) {
+            bdd_setbddpair(this, oldvar, unwrap(newvar));
+        }
+        /* (non-Javadoc)
+         * @see net.sf.javabdd.BDDPairing#reset()
+         */
+        public void reset() {
+            bdd_resetpair(this);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see net.sf.javabdd.BDDFactory#makePair()
+     */
+    public BDDPairing makePair() {
+        bddPair p = new bddPair();
+        p.result = new int[bddvarnum];
+        for (int n = 0; n < bddvarnum; n++)
+            p.result[n] = bdd_ithvar(n);
+        p.id = update_pairsid();
+        p.last = -1;
+        p.next = pairs;
+        pairs = p;
+        return p;
+    }
+
+    protected void addref_impl(int v) { bdd_addref(v); }
+    protected void delref_impl(int v) { bdd_delref(v); }
+    protected int zero_impl() { return BDDZERO; }
+    protected int one_impl() { return BDDONE; }
+    protected int invalid_bdd_impl() { return INVALID_BDD; }
+    protected int var_impl(int v) { return bdd_var(v); }
+    protected int level_impl(int v) { return LEVEL(v); }
+    protected int low_impl(int v) { return bdd_low(v); }
+    protected int high_impl(int v) { return bdd_high(v); }
+    protected int ithVar_impl(int var) { return bdd_ithvar(var); }
+    protected int nithVar_impl(int var) { return bdd_nithvar(var); }
+
+    protected int makenode_impl(int lev, int lo, int hi) {
+        CHECK(lo); CHECK(hi);
+        return bdd_makenode(lev, lo, hi);
+    }
+    protected int ite_impl(int v1, int v2, int v3) { return bdd_ite(v1, v2, v3); }
+    protected int apply_impl(int v1, int v2, BDDOp opr) { return bdd_apply(v1, v2, opr.id); }
+    protected int not_impl(int v1) { CHECK(v1); return v1 ^ 1; }
+    protected int applyAll_impl(int v1, int v2, BDDOp opr, int v3) { return bdd_appall(v1, v2, opr.id, v3); }
+    protected int applyEx_impl(int v1, int v2, BDDOp opr, int v3) { return bdd_appex(v1, v2, opr.id, v3); }
+    protected int applyUni_impl(int v1, int v2, BDDOp opr, int v3) { return bdd_appuni(v1, v2, opr.id, v3); }
+    protected int compose_impl(int v1, int v2, int var) { return bdd_compose(v1, v2, var); }
+    protected int constrain_impl(int v1, int v2) { return bdd_constrain(v1, v2); }
+    protected int restrict_impl(int v1, int v2) { return bdd_restrict(v1, v2); }
+    protected int simplify_impl(int v1, int v2) { return bdd_simplify(v1, v2); }
+    protected int support_impl(int v) { return bdd_support(v); }
+    protected int exist_impl(int v1, int v2) { return bdd_exist(v1, v2); }
+    protected int forAll_impl(int v1, int v2) { return bdd_forall(v1, v2); }
+    protected int unique_impl(int v1, int v2) { return bdd_unique(v1, v2); }
+    protected int fullSatOne_impl(int v) { return bdd_fullsatone(v); }
+
+    protected int replace_impl(int v, BDDPairing p) { return bdd_replace(v, (bddPair)p); }
+    protected int veccompose_impl(int v, BDDPairing p) { return bdd_veccompose(v, (bddPair)p); }
+
+    protected int nodeCount_impl(int v) { return bdd_nodecount(v); }
+    protected double pathCount_impl(int v) { return bdd_pathcount(v); }
+    protected double satCount_impl(int v) { return bdd_satcount(v); }
+    protected int satOne_impl(int v) { return bdd_satone(v); }
+    protected int satOne_impl2(int v1, int v2, boolean pol) { return bdd_satoneset(v1, v2, pol); }
+    protected int nodeCount_impl2(int[] v) { return bdd_anodecount(v); }
+    protected int[] varProfile_impl(int v) { return bdd_varprofile(v); }
+    protected void printTable_impl(int v) { bdd_fprinttable(System.out, v); }
+
+    protected void initialize(int initnodesize, int cs) { bdd_init(initnodesize, cs); }
+    public boolean isInitialized() { return bddrunning; }
+    public void done() { super.done(); bdd_done(); }
+    public void setError(int code) { bdderrorcond = code; }
+    public void clearError() { bdderrorcond = 0; }
+    public int setMaxNodeNum(int size) { return bdd_setmaxnodenum(size); }
+    public double setMinFreeNodes(double x) { return bdd_setminfreenodes((int)(x * 100.)) / 100.; }
+    public int setMaxIncrease(int x) { return bdd_setmaxincrease(x); }
+    public double setIncreaseFactor(double x) { return bdd_setincreasefactor(x); }
+    public double setCacheRatio(double x) { return bdd_setcacheratio((int)x); }
+    public int setNodeTableSize(int size) { return bdd_setallocnum(size); }
+    public int setCacheSize(int v) { return bdd_setcachesize(v); }
+    public int varNum() { return bddvarnum; }
+    public int setVarNum(int num) { return bdd_setvarnum(num); }
+    public void printAll() { bdd_fprintall(System.out); }
+    public int level2Var(int level) { return level; }
+    public int var2Level(int var) { return var; }
+    public int getNodeTableSize() { return bddnodesize; }
+    public int getNodeNum() { return bddnodesize - bddfreenum; }
+    public int getCacheSize() { return cachesize; }
+    public void printStat() { bdd_fprintstat(System.out); }
+
+    /* The variable order is the identity; reordering is a no-op. */
+    public void reorder(ReorderMethod m) { }
+    public void autoReorder(ReorderMethod method) { reordermethod = method; }
+    public void autoReorder(ReorderMethod method, int max) { reordermethod = method; }
+    public ReorderMethod getReorderMethod() { return reordermethod; }
+    public int getReorderTimes() { return 0; }
+    public void disableReorder() { }
+    public void enableReorder() { }
+    public int reorderGain() { return 0; }
+    public int reorderVerbose(int v) {
+        int old = reorderverbose;
+        reorderverbose = v;
+        return old;
+    }
+    public void addVarBlock(int first, int last, boolean fixed) { }
+    public void varBlockAll() { }
+    public void clearVarBlocks() { }
+
+    public void setVarOrder(int[] neworder) {
+        if (neworder.length != bddvarnum)
+            throw new BDDException("Mismatch in size of variable order");
+        for (int n = 0; n < neworder.length; n++)
+            if (neworder[n] != n)
+                throw new BDDException(getVersion() + " does not support variable reordering");
+    }
+
+    public void swapVar(int v1, int v2) {
+        if (v1 < 0 || v1 >= bddvarnum || v2 < 0 || v2 >= bddvarnum)
+            bdd_error(BDD_VAR);
+        if (v1 != v2)
+            throw new BDDException(getVersion() + " does not support variable reordering");
+    }
+
+    public void printOrder() {
+        for (int n = 0; n < bddvarnum; n++)
+            System.out.print((n > 0 ? " " : "") + n);
+        System.out.println();
+    }
+
+    /***** IMPLEMENTATION BELOW *****/
+
+    static final int REF_MASK = 0xFFC00000;
+    static final int MARK_MASK = 0x00200000;
+    static final int LEV_MASK = 0x001FFFFF;
+    static final int MAXVAR = LEV_MASK;
+    static final int INVALID_BDD = -1;
+
+    static final int REF_INC = 0x00400000;
+
+    static final int offset__refcou_and_level = 0;
+    static final int offset__low = 1;
+    static final int offset__high = 2;
+    static final int __node_size = 3;
+
+    /* Node 0 is the only terminal: the regular edge to it is true and the
+     * complemented edge is false. */
+    static final int BDDONE = 0;
+    static final int BDDZERO = 1;
+
+    /* Accessors on node indices. */
+
+    private final boolean HASREF(int node) {
+        return (bddnodes[node*__node_size + offset__refcou_and_level] & REF_MASK) != 0;
+    }
+
+    private final void SETMAXREF(int node) {
+        bddnodes[node*__node_size + offset__refcou_and_level] |= REF_MASK;
+    }
+
+    private final void INCREF(int node) {
+        if ((bddnodes[node*__node_size + offset__refcou_and_level] & REF_MASK) != REF_MASK)
+            bddnodes[node*__node_size + offset__refcou_and_level] += REF_INC;
+    }
+
+    private final void DECREF(int node) {
+        int rc = bddnodes[node*__node_size + offset__refcou_and_level] & REF_MASK;
+        if (rc != REF_MASK && rc != 0)
+            bddnodes[node*__node_size + offset__refcou_and_level] -= REF_INC;
+    }
+
+    private final int LEVELn(int node) {
+        return bddnodes[node*__node_size + offset__refcou_and_level] & LEV_MASK;
+    }
+
+    private final void SETLEVELn(int node, int val) {
+        bddnodes[node*__node_size + offset__refcou_and_level] &= ~LEV_MASK;
+        bddnodes[node*__node_size + offset__refcou_and_level] |= val;
+    }
+
+    private final void SETMARK(int n) {
+        bddnodes[n*__node_size + offset__refcou_and_level] |= MARK_MASK;
+    }
+
+    private final void UNMARK(int n) {
+        bddnodes[n*__node_size + offset__refcou_and_level] &= ~MARK_MASK;
+    }
+
+    private final boolean MARKED(int n) {
+        return (bddnodes[n*__node_size + offset__refcou_and_level] & MARK_MASK) != 0;
+    }
+
+    private final int LOWn(int n) {
+        return bddnodes[n*__node_size + offset__low];
+    }
+
+    private final void SETLOWn(int n, int v) {
+        bddnodes[n*__node_size + offset__low] = v;
+    }
+
+    private final int HIGHn(int n) {
+        return bddnodes[n*__node_size + offset__high];
+    }
+
+    private final void SETHIGHn(int n, int v) {
+        bddnodes[n*__node_size + offset__high] = v;
+    }
+
+    /* Accessors on edges.  The children of a complemented edge are the
+     * complemented children of its node. */
+
+    private final int LEVEL(int r) {
+        return LEVELn(r >>> 1);
+    }
+
+    private final int LOW(int r) {
+        return LOWn(r >>> 1) ^ (r & 1);
+    }
+
+    private final int HIGH(int r) {
+        return HIGHn(r >>> 1) ^ (r & 1);
+    }
+
+    static final boolean ISZERO(int r) {
+        return r == BDDZERO;
+    }
+
+    static final boolean ISONE(int r) {
+        return r == BDDONE;
+    }
+
+    static final boolean ISCONST(int r) {
+        return r < 2;
+    }
+
+    /**
+     * An operation cache stored as parallel arrays indexed by the slot of an
+     * entry, like the caches of JFactory.
+     */
+    private static class BddCache {
+        /* Operand keys of each entry; a[n] == -1 marks an empty slot. */
+        int a[], b[], c[];
+        /* Integer results, or null for a double cache. */
+        int res[];
+        /* Double results, or null for an integer cache. */
+        double dres[];
+        int tablesize;
+    }
+
+    boolean bddrunning; /* Flag - package initialized */
+    int bdderrorcond; /* Some error condition */
+    int bddnodesize; /* Number of allocated nodes */
+    int bddmaxnodesize; /* Maximum allowed number of nodes */
+    int bddmaxnodeincrease; /* Max. # of nodes used to inc. table */
+    double increasefactor; /* Growth factor of the node table, 0 doubles it */
+    int[] bddnodes; /* All of the bdd nodes */
+    int[] bddhash; /* Open addressing unique table, 0 marks an empty slot */
+    int bddfreepos; /* First free node, linked through the high field */
+    int bddfreenum; /* Number of free nodes */
+    int bddproduced; /* Number of new nodes ever produced */
+    int bddvarnum; /* Number of defined BDD variables */
+    int[] bddvarset; /* ithvar and nithvar edges of every variable */
+    int gbcollectnum; /* Number of garbage collections */
+    long gbcclock; /* Clock ticks used in GBC */
+    int cachesize; /* Size of the operator caches */
+    int cacheratio; /* Nodes per cache entry, 0 for a fixed cache size */
+    int minfreenodes = 20;
+    int reorderverbose;
+    ReorderMethod reordermethod = REORDER_NONE;
+
+    static final int BDD_MEMORY = (-1); /* Out of memory */
+    static final int BDD_VAR = (-2); /* Unknown variable */
+    static final int BDD_RANGE = (-3); /* Variable value out of range (not in domain) */
+    static final int BDD_DEREF = (-4); /* Removing external reference to unknown node */
+    static final int BDD_RUNNING = (-5); /* Called bdd_init() twice without bdd_done() */
+    static final int BDD_NODES = (-11); /* Tried to set max. number of nodes to be fewer */
+                                        /* than there already has been allocated */
+    static final int BDD_OP = (-12); /* Unknown operator */
+    static final int BDD_VARSET = (-13); /* Illegal variable set */
+    static final int BDD_DECVNUM = (-15); /* Trying to decrease the number of variables */
+    static final int BDD_REPLACE = (-16); /* Replacing to already existing variables */
+    static final int BDD_NODENUM = (-17); /* Number of nodes reached user defined maximum */
+    static final int BDD_ILLBDD = (-18); /* Illegal bdd argument */
+    static final int BDD_SIZE = (-19); /* Illegal size argument */
+
+    static final int DEFAULTMAXNODEINC = 10000000;
+
+    static int bdd_error(int v) {
+        String message;
+        switch (v) {
+        case BDD_MEMORY: message = "Out of memory"; break;
+        case BDD_VAR: message = "Unknown variable"; break;
+        case BDD_RANGE: message = "Value out of range"; break;
+        case BDD_DEREF: message = "Unknown BDD root dereferenced"; break;
+        case BDD_RUNNING: message = "bdd_init() called twice"; break;
+        case BDD_NODES: message = "Cannot allocate fewer nodes than already in use"; break;
+        case BDD_OP: message = "Unknown operator"; break;
+        case BDD_VARSET: message = "Illegal variable set"; break;
+        case BDD_DECVNUM: message = "Trying to decrease the number of variables"; break;
+        case BDD_REPLACE: message = "Replacing to already existing variables"; break;
+        case BDD_NODENUM: message = "Number of nodes reached user defined maximum"; break;
+        case BDD_ILLBDD: message = "Unknown BDD - was not in node table"; break;
+        case BDD_SIZE: message = "Bad size argument"; break;
+        default: message = "Error " + v; break;
+        }
+        throw new BDDException(message);
+    }
+
+    void CHECK(int r) {
+        if (!bddrunning)
+            bdd_error(BDD_RUNNING);
+        if (r < 0 || (r >>> 1) >= bddnodesize)
+            bdd_error(BDD_ILLBDD);
+        if (r >= 2 && LOWn(r >>> 1) == INVALID_BDD)
+            bdd_error(BDD_ILLBDD);
+    }
+
+    /*=== NODE TABLE =======================================================*/
+
+    static final int PAIR(int a, int b) {
+        return ((a + b) * (a + b + 1) / 2 + a);
+    }
+    static final int TRIPLE(int a, int b, int c) {
+        return (PAIR(c, PAIR(a, b)));
+    }
+
+    /* Home slot of a node in the unique table.  The table size is a power
+     * of two, so the triple is mixed before masking. */
+    final int NODEHASH(int lvl, int l, int h) {
+        int hash = TRIPLE(lvl, l, h) * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (bddhash.length - 1);
+    }
+
+    /* Inserts a node that is known not to be in the unique table. */
+    private final void unique_insert(int n) {
+        int mask = bddhash.length - 1;
+        int slot = NODEHASH(LEVELn(n), LOWn(n), HIGHn(n));
+        while (bddhash[slot] != 0)
+            slot = (slot + 1) & mask;
+        bddhash[slot] = n;
+    }
+
+    /* Rebuilds the unique table from the live nodes, keeping its load
+     * factor at or below one half of the node table. */
+    void unique_rehash() {
+        int size = Integer.highestOneBit(Math.max(bddnodesize, 2)) << 2;
+        if (bddhash == null || bddhash.length != size)
+            bddhash = new int[size];
+        else
+            Arrays.fill(bddhash, 0);
+        for (int n = 1; n < bddnodesize; n++)
+            if (LOWn(n) != INVALID_BDD)
+                unique_insert(n);
+    }
+
+    int bdd_makenode(int level, int low, int high) {
+        if (VERIFY_ASSERTIONS) _assert(level < LEVEL(low) && level < LEVEL(high));
+
+        if (low == high)
+            return low;
+
+        /* Keep the high edge regular: node(l, h) == not node(not l, not h) */
+        if ((high & 1) != 0)
+            return makenode(level, low ^ 1, high ^ 1) ^ 1;
+        return makenode(level, low, high);
+    }
+
+    private int makenode(int level, int low, int high) {
+        int[] hash = bddhash;
+        int mask = hash.length - 1;
+        int slot;
+        int res;
+
+        /* Try to find an existing node of this kind */
+        slot = NODEHASH(level, low, high);
+
+        while ((res = hash[slot]) != 0) {
+            if (LEVELn(res) == level && LOWn(res) == low && HIGHn(res) == high)
+                return res << 1;
+            slot = (slot + 1) & mask;
+        }
+
+        /* No free nodes: grow the table, garbage is only collected between
+         * operations */
+        if (bddfreepos == 0) {
+            if (!bdd_noderesize())
+                bdd_error(BDD_NODENUM);
+
+            /* The table was rebuilt, so find the new free slot */
+            slot = -1;
+        }
+
+        /* Build new node */
+        res = bddfreepos;
+        bddfreepos = HIGHn(bddfreepos);
+        bddfreenum--;
+        bddproduced++;
+
+        bddnodes[res*__node_size + offset__refcou_and_level] = level;
+        SETLOWn(res, low);
+        SETHIGHn(res, high);
+
+        /* Insert node */
+        if (slot < 0)
+            unique_insert(res);
+        else
+            bddhash[slot] = res;
+
+        return res << 1;
+    }
+
+    boolean bdd_noderesize() {
+        int oldsize = bddnodesize;
+        int newsize = bddnodesize;
+
+        if (bddmaxnodesize > 0) {
+            if (newsize >= bddmaxnodesize)
+                return false;
+        }
+
+        if (increasefactor > 0) {
+            newsize += (int)(newsize * increasefactor);
+        } else {
+            newsize = newsize << 1;
+        }
+
+        if (bddmaxnodeincrease > 0) {
+            if (newsize > oldsize + bddmaxnodeincrease)
+                newsize = oldsize + bddmaxnodeincrease;
+        }
+
+        if (bddmaxnodesize > 0) {
+            if (newsize > bddmaxnodesize)
+                newsize = bddmaxnodesize;
+        }
+
+        return doResize(oldsize, newsize);
+    }
+
+    boolean doResize(int oldsize, int newsize) {
+        if (newsize <= oldsize)
+            return false;
+
+        resize_handler(oldsize, newsize);
+
+        int[] newnodes = new int[newsize*__node_size];
+        System.arraycopy(bddnodes, 0, newnodes, 0, bddnodes.length);
+        bddnodes = newnodes;
+        bddnodesize = newsize;
+
+        for (int n = oldsize; n < bddnodesize; n++) {
+            SETLOWn(n, INVALID_BDD);
+            SETHIGHn(n, n+1);
+        }
+        SETHIGHn(bddnodesize-1, bddfreepos);
+        bddfreepos = oldsize;
+        bddfreenum += bddnodesize - oldsize;
+
+        unique_rehash();
+
+        if (cacheratio > 0)
+            bdd_operator_noderesize();
+
+        return true;
+    }
+
+    void bdd_init(int initnodesize, int cs) {
+        int n;
+
+        if (bddrunning)
+            bdd_error(BDD_RUNNING);
+
+        bddnodesize = Math.max(initnodesize, 16);
+        bddnodes = new int[bddnodesize*__node_size];
+
+        for (n = 1; n < bddnodesize; n++) {
+            SETLOWn(n, INVALID_BDD);
+            SETHIGHn(n, n+1);
+        }
+        SETHIGHn(bddnodesize-1, 0);
+
+        /* The terminal sits below every variable */
+        SETMAXREF(0);
+        SETLEVELn(0, 0);
+        SETLOWn(0, BDDONE);
+        SETHIGHn(0, BDDONE);
+
+        bddfreepos = 1;
+        bddfreenum = bddnodesize - 1;
+        unique_rehash();
+
+        bdd_operator_init(cs);
+
+        bddrunning = true;
+        bddvarnum = 0;
+        bddvarset = new int[0];
+        gbcollectnum = 0;
+        gbcclock = 0;
+        cachesize = cs;
+        bddmaxnodeincrease = DEFAULTMAXNODEINC;
+        bdderrorcond = 0;
+        pairs = null;
+        pairsid = 0;
+    }
+
+    void bdd_done() {
+        bddnodes = null;
+        bddhash = null;
+        bddvarset = null;
+        quantvarset = null;
+        supportSet = null;
+        pairs = null;
+
+        bdd_operator_done();
+
+        bddrunning = false;
+        bddnodesize = 0;
+        bddmaxnodesize = 0;
+        bddvarnum = 0;
+        bddproduced = 0;
+    }
+
+    int bdd_setvarnum(int num) {
+        int oldvarnum = bddvarnum;
+
+        if (num < 1 || num > MAXVAR)
+            bdd_error(BDD_RANGE);
+        if (num < bddvarnum)
+            bdd_error(BDD_DECVNUM);
+        if (num == bddvarnum)
+            return oldvarnum;
+
+        bddvarset = Arrays.copyOf(bddvarset, num * 2);
+        quantvarset = new int[num];
+        quantvarsetID = 0;
+        supportSet = new int[num];
+        supportID = 0;
+
+        /* The terminal moves below the new variables */
+        SETLEVELn(0, num);
+
+        for (int v = bddvarnum; v < num; v++) {
+            int r = bdd_makenode(v, BDDZERO, BDDONE);
+            SETMAXREF(r >>> 1);
+            bddvarset[v * 2] = r;
+            bddvarset[v * 2 + 1] = r ^ 1;
+        }
+        bddvarnum = num;
+
+        for (bddPair p = pairs; p != null; p = p.next) {
+            int[] result = Arrays.copyOf(p.result, num);
+            for (int v = oldvarnum; v < num; v++)
+                result[v] = bddvarset[v * 2];
+            p.result = result;
+        }
+
+        /* Counts are relative to the level of the terminal */
+        bdd_operator_reset();
+
+        return oldvarnum;
+    }
+
+    int bdd_ithvar(int var) {
+        if (var < 0 || var >= bddvarnum)
+            bdd_error(BDD_VAR);
+        return bddvarset[var * 2];
+    }
+
+    int bdd_nithvar(int var) {
+        if (var < 0 || var >= bddvarnum)
+            bdd_error(BDD_VAR);
+        return bddvarset[var * 2 + 1];
+    }
+
+    int bdd_var(int root) {
+        CHECK(root);
+        if (root < 2)
+            bdd_error(BDD_ILLBDD);
+        return LEVEL(root);
+    }
+
+    int bdd_low(int root) {
+        CHECK(root);
+        if (root < 2)
+            bdd_error(BDD_ILLBDD);
+        return LOW(root);
+    }
+
+    int bdd_high(int root) {
+        CHECK(root);
+        if (root < 2)
+            bdd_error(BDD_ILLBDD);
+        return HIGH(root);
+    }
+
+    int bdd_addref(int root) {
+        if (root == INVALID_BDD)
+            bdd_error(BDD_ILLBDD);
+        if (root < 2 || !bddrunning)
+            return root;
+        CHECK(root);
+        INCREF(root >>> 1);
+        return root;
+    }
+
+    int bdd_delref(int root) {
+        if (root == INVALID_BDD)
+            bdd_error(BDD_ILLBDD);
+        if (root < 2 || !bddrunning)
+            return root;
+        CHECK(root);
+        if (!HASREF(root >>> 1))
+            bdd_error(BDD_DEREF);
+        DECREF(root >>> 1);
+        return root;
+    }
+
+    /*=== GARBAGE COLLECTION ===============================================*/
+
+    /* Called before every operation that can make nodes.  Garbage is only
+     * collected here, so the operation itself never has to protect its
+     * intermediate results. */
+    void bdd_prepare() {
+        if ((long) bddfreenum * 100 > (long) bddnodesize * minfreenodes)
+            return;
+
+        bdd_gbc();
+
+        if ((long) bddfreenum * 100 <= (long) bddnodesize * minfreenodes)
+            bdd_noderesize();
+    }
+
+    void bdd_gbc() {
+        int n;
+        long c2, c1 = System.currentTimeMillis();
+
+        gcstats.nodes = bddnodesize;
+        gcstats.freenodes = bddfreenum;
+        gcstats.time = 0;
+        gcstats.sumtime = gbcclock;
+        gcstats.num = gbcollectnum;
+        gbc_handler(true, gcstats);
+
+        // Handle nodes that were marked as free by finalizer.
+        handleDeferredFree();
+
+        for (n = 1; n < bddnodesize; n++) {
+            if (HASREF(n))
+                bdd_mark(n);
+        }
+
+        bddfreepos = 0;
+        bddfreenum = 0;
+        Arrays.fill(bddhash, 0);
+
+        for (n = bddnodesize - 1; n >= 1; n--) {
+            if (MARKED(n) && LOWn(n) != INVALID_BDD) {
+                UNMARK(n);
+                unique_insert(n);
+            } else {
+                SETLOWn(n, INVALID_BDD);
+                SETHIGHn(n, bddfreepos);
+                bddfreepos = n;
+                bddfreenum++;
+            }
+        }
+
+        /* Freed nodes may be reused with other children */
+        bdd_operator_reset();
+
+        c2 = System.currentTimeMillis();
+        gbcclock += c2 - c1;
+        gbcollectnum++;
+
+        gcstats.nodes = bddnodesize;
+        gcstats.freenodes = bddfreenum;
+        gcstats.time = c2 - c1;
+        gcstats.sumtime = gbcclock;
+        gcstats.num = gbcollectnum;
+        gbc_handler(false, gcstats);
+    }
+
+    void bdd_mark(int n) {
+        if (n == 0 || MARKED(n) || LOWn(n) == INVALID_BDD)
+            return;
+
+        SETMARK(n);
+        bdd_mark(LOWn(n) >>> 1);
+        bdd_mark(HIGHn(n) >>> 1);
+    }
+
+    void bdd_markcount(int n, int[] cou) {
+        if (n == 0 || MARKED(n) || LOWn(n) == INVALID_BDD)
+            return;
+
+        SETMARK(n);
+        cou[0] += 1;
+        bdd_markcount(LOWn(n) >>> 1, cou);
+        bdd_markcount(HIGHn(n) >>> 1, cou);
+    }
+
+    void bdd_unmark(int n) {
+        if (n == 0 || !MARKED(n) || LOWn(n) == INVALID_BDD)
+            return;
+
+        UNMARK(n);
+        bdd_unmark(LOWn(n) >>> 1);
+        bdd_unmark(HIGHn(n) >>> 1);
+    }
+
+    int bdd_setmaxnodenum(int size) {
+        if (size > bddnodesize || size == 0) {
+            int old = bddmaxnodesize;
+            bddmaxnodesize = size;
+            return old;
+        }
+
+        return bdd_error(BDD_NODES);
+    }
+
+    int bdd_setminfreenodes(int mf) {
+        int old = minfreenodes;
+
+        if (mf < 0 || mf > 100)
+            return bdd_error(BDD_RANGE);
+
+        minfreenodes = mf;
+        return old;
+    }
+
+    int bdd_setmaxincrease(int size) {
+        int old = bddmaxnodeincrease;
+
+        if (size < 0)
+            return bdd_error(BDD_SIZE);
+
+        bddmaxnodeincrease = size;
+        return old;
+    }
+
+    double bdd_setincreasefactor(double x) {
+        if (x < 0)
+            return bdd_error(BDD_RANGE);
+        double old = increasefactor;
+        increasefactor = x;
+        return old;
+    }
+
+    int bdd_setallocnum(int size) {
+        int old = bddnodesize;
+        doResize(old, size);
+        return old;
+    }
+
+    /*=== OPERATOR CACHES ==================================================*/
+
+    static final int bddop_and = 0;
+    static final int bddop_xor = 1;
+    static final int bddop_or = 2;
+    static final int bddop_nand = 3;
+    static final int bddop_nor = 4;
+    static final int bddop_imp = 5;
+    static final int bddop_biimp = 6;
+    static final int bddop_diff = 7;
+    static final int bddop_less = 8;
+    static final int bddop_invimp = 9;
+    static final int bddop_simplify = 11;
+
+    static final int CACHEID_CONSTRAIN = 0x0;
+    static final int CACHEID_SATCOU = 0x2;
+    static final int CACHEID_PATHCOU = 0x4;
+    static final int CACHEID_EXIST = 0x0;
+    static final int CACHEID_UNIQUE = 0x1;
+    static final int CACHEID_RESTRICT = 0x2;
+    static final int CACHEID_REPLACE = 0x0;
+    static final int CACHEID_COMPOSE = 0x1;
+    static final int CACHEID_VECCOMPOSE = 0x2;
+
+    BddCache applycache; /* and, xor, simplify: a, b, op */
+    BddCache itecache; /* f, g, h */
+    BddCache quantcache; /* exist, unique, restrict: root, varset, id */
+    BddCache appexcache; /* relprod: l, r, varset */
+    BddCache appunicache; /* unique quantification of appuniop: l, r, varset */
+    int appuniop = -1; /* Operator of the entries in appunicache */
+    BddCache replacecache; /* replace, veccompose, compose: f, g, id */
+    BddCache misccache; /* constrain: f, c, id */
+    BddCache countcache; /* satcount, pathcount: edge, -, id */
+
+    static final int CACHEHASH(int a, int b, int c) {
+        int hash = a * 0x9E3779B9 + b * 0x85EBCA6B + c * 0xC2B2AE35;
+        return hash ^ (hash >>> 15);
+    }
+
+    BddCache BddCache_init(int size, boolean is_d) {
+        BddCache cache = new BddCache();
+        BddCache_alloc(cache, size, is_d);
+        return cache;
+    }
+
+    void BddCache_alloc(BddCache cache, int size, boolean is_d) {
+        size = Integer.highestOneBit(Math.max(size, 4) * 2 - 1);
+        cache.a = new int[size];
+        cache.b = new int[size];
+        cache.c = new int[size];
+        if (is_d) cache.dres = new double[size];
+        else cache.res = new int[size];
+        cache.tablesize = size;
+        BddCache_reset(cache);
+    }
+
+    void BddCache_reset(BddCache cache) {
+        if (cache != null)
+            Arrays.fill(cache.a, -1);
+    }
+
+    int BddCache_lookup(BddCache cache, int hash) {
+        return hash & (cache.tablesize - 1);
+    }
+
+    void bdd_operator_init(int cachesize) {
+        applycache = BddCache_init(cachesize, false);
+        itecache = BddCache_init(cachesize, false);
+        quantcache = BddCache_init(cachesize, false);
+        appexcache = BddCache_init(cachesize, false);
+        appunicache = BddCache_init(cachesize, false);
+        replacecache = BddCache_init(cachesize, false);
+        misccache = BddCache_init(cachesize, false);
+        countcache = BddCache_init(cachesize, true);
+    }
+
+    void bdd_operator_done() {
+        applycache = null;
+        itecache = null;
+        quantcache = null;
+        appexcache = null;
+        appunicache = null;
+        replacecache = null;
+        misccache = null;
+        countcache = null;
+    }
+
+    void bdd_operator_reset() {
+        BddCache_reset(applycache);
+        BddCache_reset(itecache);
+        BddCache_reset(quantcache);
+        BddCache_reset(appexcache);
+        BddCache_reset(appunicache);
+        BddCache_reset(replacecache);
+        BddCache_reset(misccache);
+        BddCache_reset(countcache);
+    }
+
+    void bdd_operator_resize(int newcachesize) {
+        BddCache_alloc(applycache, newcachesize, false);
+        BddCache_alloc(itecache, newcachesize, false);
+        BddCache_alloc(quantcache, newcachesize, false);
+        BddCache_alloc(appexcache, newcachesize, false);
+        BddCache_alloc(appunicache, newcachesize, false);
+        BddCache_alloc(replacecache, newcachesize, false);
+        BddCache_alloc(misccache, newcachesize, false);
+        BddCache_alloc(countcache, newcachesize, true);
+    }
+
+    void bdd_operator_noderesize() {
+        int newcachesize = bddnodesize / cacheratio;
+        if (newcachesize > cachesize) {
+            cachesize = newcachesize;
+            bdd_operator_resize(cachesize);
+        }
+    }
+
+    int bdd_setcachesize(int newcachesize) {
+        int old = cachesize;
+        if (newcachesize <= 0)
+            return bdd_error(BDD_SIZE);
+        cachesize = newcachesize;
+        bdd_operator_resize(cachesize);
+        return old;
+    }
+
+    int bdd_setcacheratio(int r) {
+        int old = cacheratio;
+        if (r <= 0)
+            return bdd_error(BDD_RANGE);
+        cacheratio = r;
+        bdd_operator_noderesize();
+        return old;
+    }
+
+    /*=== APPLY ============================================================*/
+
+    int bdd_apply(int l, int r, int op) {
+        CHECK(l);
+        CHECK(r);
+        bdd_prepare();
+        return apply_rec(l, r, op);
+    }
+
+    /* Every binary operator is an and or a xor with complemented operands
+     * or result. */
+    int apply_rec(int l, int r, int op) {
+        switch (op) {
+        case bddop_and: return and_rec(l, r);
+        case bddop_xor: return xor_rec(l, r);
+        case bddop_or: return or_rec(l, r);
+        case bddop_nand: return and_rec(l, r) ^ 1;
+        case bddop_nor: return and_rec(l ^ 1, r ^ 1);
+        case bddop_imp: return and_rec(l, r ^ 1) ^ 1;
+        case bddop_biimp: return xor_rec(l, r) ^ 1;
+        case bddop_diff: return and_rec(l, r ^ 1);
+        case bddop_less: return and_rec(l ^ 1, r);
+        case bddop_invimp: return and_rec(l ^ 1, r) ^ 1;
+        default: return bdd_error(BDD_OP);
+        }
+    }
+
+    int and_rec(int l, int r) {
+        int entry;
+        int res;
+
+        if (l == r)
+            return l;
+        if (ISZERO(l) || ISZERO(r) || (l ^ r) == 1)
+            return BDDZERO;
+        if (ISONE(l))
+            return r;
+        if (ISONE(r))
+            return l;
+
+        if (l > r) {
+            int t = l;
+            l = r;
+            r = t;
+        }
+
+        entry = BddCache_lookup(applycache, CACHEHASH(l, r, bddop_and));
+        if (applycache.a[entry] == l && applycache.b[entry] == r && applycache.c[entry] == bddop_and)
+            return applycache.res[entry];
+
+        int level_l = LEVEL(l), level_r = LEVEL(r);
+        if (level_l == level_r)
+            res = bdd_makenode(level_l, and_rec(LOW(l), LOW(r)), and_rec(HIGH(l), HIGH(r)));
+        else if (level_l < level_r)
+            res = bdd_makenode(level_l, and_rec(LOW(l), r), and_rec(HIGH(l), r));
+        else
+            res = bdd_makenode(level_r, and_rec(l, LOW(r)), and_rec(l, HIGH(r)));
+
+        applycache.a[entry] = l;
+        applycache.b[entry] = r;
+        applycache.c[entry] = bddop_and;
+        applycache.res[entry] = res;
+
+        return res;
+    }
+
+    int or_rec(int l, int r) {
+        return and_rec(l ^ 1, r ^ 1) ^ 1;
+    }
+
+    int xor_rec(int l, int r) {
+        int entry;
+        int res;
+
+        if (l == r)
+            return BDDZERO;
+        if ((l ^ r) == 1)
+            return BDDONE;
+        if (ISZERO(l))
+            return r;
+        if (ISZERO(r))
+            return l;
+        if (ISONE(l))
+            return r ^ 1;
+        if (ISONE(r))
+            return l ^ 1;
+
+        /* not l xor r == not (l xor r), so only regular operands are cached */
+        int neg = (l ^ r) & 1;
+        l &= ~1;
+        r &= ~1;
+        if (l > r) {
+            int t = l;
+            l = r;
+            r = t;
+        }
+
+        entry = BddCache_lookup(applycache, CACHEHASH(l, r, bddop_xor));
+        if (applycache.a[entry] == l && applycache.b[entry] == r && applycache.c[entry] == bddop_xor)
+            return applycache.res[entry] ^ neg;
+
+        int level_l = LEVEL(l), level_r = LEVEL(r);
+        if (level_l == level_r)
+            res = bdd_makenode(level_l, xor_rec(LOW(l), LOW(r)), xor_rec(HIGH(l), HIGH(r)));
+        else if (level_l < level_r)
+            res = bdd_makenode(level_l, xor_rec(LOW(l), r), xor_rec(HIGH(l), r));
+        else
+            res = bdd_makenode(level_r, xor_rec(l, LOW(r)), xor_rec(l, HIGH(r)));
+
+        applycache.a[entry] = l;
+        applycache.b[entry] = r;
+        applycache.c[entry] = bddop_xor;
+        applycache.res[entry] = res;
+
+        return res ^ neg;
+    }
+
+    int bdd_ite(int f, int g, int h) {
+        CHECK(f);
+        CHECK(g);
+        CHECK(h);
+        bdd_prepare();
+        return ite_rec(f, g, h);
+    }
+
+    int ite_rec(int f, int g, int h) {
+        int entry;
+        int res;
+
+        if (ISONE(f))
+            return g;
+        if (ISZERO(f))
+            return h;
+
+        /* ite(f, f, h) == ite(f, 1, h) and so on */
+        if (g == f)
+            g = BDDONE;
+        else if (g == (f ^ 1))
+            g = BDDZERO;
+        if (h == f)
+            h = BDDZERO;
+        else if (h == (f ^ 1))
+            h = BDDONE;
+
+        if (g == h)
+            return g;
+        if (ISONE(g) && ISZERO(h))
+            return f;
+        if (ISZERO(g) && ISONE(h))
+            return f ^ 1;
+        if (ISONE(g))
+            return or_rec(f, h);
+        if (ISZERO(g))
+            return and_rec(f ^ 1, h);
+        if (ISZERO(h))
+            return and_rec(f, g);
+        if (ISONE(h))
+            return and_rec(f, g ^ 1) ^ 1;
+        if (g == (h ^ 1))
+            return xor_rec(f, h);
+
+        /* Normalize to a regular condition and a regular then branch */
+        if ((f & 1) != 0) {
+            int t = g;
+            g = h;
+            h = t;
+            f ^= 1;
+        }
+        int neg = g & 1;
+        g ^= neg;
+        h ^= neg;
+
+        entry = BddCache_lookup(itecache, CACHEHASH(f, g, h));
+        if (itecache.a[entry] == f && itecache.b[entry] == g && itecache.c[entry] == h)
+            return itecache.res[entry] ^ neg;
+
+        int level = Math.min(LEVEL(f), Math.min(LEVEL(g), LEVEL(h)));
+        int f0 = f, f1 = f, g0 = g, g1 = g, h0 = h, h1 = h;
+        if (LEVEL(f) == level) { f0 = LOW(f); f1 = HIGH(f); }
+        if (LEVEL(g) == level) { g0 = LOW(g); g1 = HIGH(g); }
+        if (LEVEL(h) == level) { h0 = LOW(h); h1 = HIGH(h); }
+
+        res = bdd_makenode(level, ite_rec(f0, g0, h0), ite_rec(f1, g1, h1));
+
+        itecache.a[entry] = f;
+        itecache.b[entry] = g;
+        itecache.c[entry] = h;
+        itecache.res[entry] = res;
+
+        return res ^ neg;
+    }
+
+    /*=== QUANTIFICATION ===================================================*/
+
+    int[] quantvarset; /* Current variable set for quantification */
+    int quantvarsetID; /* Current id used in quantvarset */
+    int quantlast; /* Current last variable to be quant. */
+    int quantset; /* Current variable set as a BDD, used as a cache key */
+
+    final boolean INVARSET(int a) {
+        return quantvarset[a] == quantvarsetID;
+    }
+
+    final boolean INSVARSET(int a) {
+        return Math.abs(quantvarset[a]) == quantvarsetID;
+    }
+
+    int varset2vartable(int r) {
+        int n;
+
+        if (r < 2)
+            return bdd_error(BDD_VARSET);
+
+        quantvarsetID++;
+
+        if (quantvarsetID == Integer.MAX_VALUE) {
+            Arrays.fill(quantvarset, 0);
+            quantvarsetID = 1;
+        }
+
+        quantlast = -1;
+        for (n = r; n > 1; n = HIGH(n)) {
+            quantvarset[LEVEL(n)] = quantvarsetID;
+            quantlast = LEVEL(n);
+        }
+        quantset = r;
+
+        return 0;
+    }
+
+    int varset2svartable(int r) {
+        int n;
+
+        if (r < 2)
+            return bdd_error(BDD_VARSET);
+
+        quantvarsetID++;
+
+        if (quantvarsetID == Integer.MAX_VALUE / 2) {
+            Arrays.fill(quantvarset, 0);
+            quantvarsetID = 1;
+        }
+
+        quantlast = 0;
+        for (n = r; !ISCONST(n);) {
+            if (ISZERO(LOW(n))) {
+                quantvarset[LEVEL(n)] = quantvarsetID;
+                n = HIGH(n);
+            } else {
+                quantvarset[LEVEL(n)] = -quantvarsetID;
+                n = LOW(n);
+            }
+            quantlast = LEVEL(n);
+        }
+        quantset = r;
+
+        return 0;
+    }
+
+    int bdd_exist(int r, int var) {
+        CHECK(r);
+        CHECK(var);
+
+        if (var < 2) /* Empty set */
+            return r;
+
+        bdd_prepare();
+        varset2vartable(var);
+        return quant_rec(r);
+    }
+
+    /* forall x. f == not exist x. not f */
+    int bdd_forall(int r, int var) {
+        CHECK(r);
+        CHECK(var);
+
+        if (var < 2) /* Empty set */
+            return r;
+
+        bdd_prepare();
+        varset2vartable(var);
+        return quant_rec(r ^ 1) ^ 1;
+    }
+
+    int quant_rec(int r) {
+        int entry;
+        int res;
+
+        if (r < 2 || LEVEL(r) > quantlast)
+            return r;
+
+        entry = BddCache_lookup(quantcache, CACHEHASH(r, quantset, CACHEID_EXIST));
+        if (quantcache.a[entry] == r && quantcache.b[entry] == quantset && quantcache.c[entry] == CACHEID_EXIST)
+            return quantcache.res[entry];
+
+        int low = quant_rec(LOW(r));
+
+        if (INVARSET(LEVEL(r))) {
+            res = ISONE(low) ? BDDONE : or_rec(low, quant_rec(HIGH(r)));
+        } else {
+            res = bdd_makenode(LEVEL(r), low, quant_rec(HIGH(r)));
+        }
+
+        quantcache.a[entry] = r;
+        quantcache.b[entry] = quantset;
+        quantcache.c[entry] = CACHEID_EXIST;
+        quantcache.res[entry] = res;
+
+        return res;
+    }
+
+    int bdd_unique(int r, int var) {
+        CHECK(r);
+        CHECK(var);
+
+        if (var < 2) /* Empty set */
+            return r;
+
+        bdd_prepare();
+        quantset = var;
+        return unique_rec(r, var);
+    }
+
+    int unique_rec(int r, int q) {
+        int entry;
+        int res;
+        int LEVEL_r, LEVEL_q;
+
+        LEVEL_r = LEVEL(r);
+        LEVEL_q = LEVEL(q);
+        if (LEVEL_r > LEVEL_q) {
+            // Skipped a quantified node, answer is zero.
+            return BDDZERO;
+        }
+
+        if (r < 2 || q < 2)
+            return r;
+
+        entry = BddCache_lookup(quantcache, CACHEHASH(r, q, CACHEID_UNIQUE));
+        if (quantcache.a[entry] == r && quantcache.b[entry] == q && quantcache.c[entry] == CACHEID_UNIQUE)
+            return quantcache.res[entry];
+
+        if (LEVEL_r == LEVEL_q) {
+            int low = unique_rec(LOW(r), HIGH(q));
+            res = xor_rec(low, unique_rec(HIGH(r), HIGH(q)));
+        } else {
+            int low = unique_rec(LOW(r), q);
+            res = bdd_makenode(LEVEL_r, low, unique_rec(HIGH(r), q));
+        }
+
+        quantcache.a[entry] = r;
+        quantcache.b[entry] = q;
+        quantcache.c[entry] = CACHEID_UNIQUE;
+        quantcache.res[entry] = res;
+
+        return res;
+    }
+
+    int bdd_appex(int l, int r, int opr, int var) {
+        CHECK(l);
+        CHECK(r);
+        CHECK(var);
+
+        if (opr < 0 || opr > bddop_invimp)
+            return bdd_error(BDD_OP);
+
+        bdd_prepare();
+
+        if (var < 2) /* Empty set */
+            return apply_rec(l, r, opr);
+
+        varset2vartable(var);
+        if (opr == bddop_and)
+            return relprod_rec(l, r);
+        return quant_rec(apply_rec(l, r, opr));
+    }
+
+    int bdd_appall(int l, int r, int opr, int var) {
+        CHECK(l);
+        CHECK(r);
+        CHECK(var);
+
+        if (opr < 0 || opr > bddop_invimp)
+            return bdd_error(BDD_OP);
+
+        bdd_prepare();
+
+        if (var < 2) /* Empty set */
+            return apply_rec(l, r, opr);
+
+        varset2vartable(var);
+        return quant_rec(apply_rec(l, r, opr) ^ 1) ^ 1;
+    }
+
+    int bdd_appuni(int l, int r, int opr, int var) {
+        CHECK(l);
+        CHECK(r);
+        CHECK(var);
+
+        if (opr < 0 || opr > bddop_invimp)
+            return bdd_error(BDD_OP);
+
+        bdd_prepare();
+
+        if (var < 2) /* Empty set */
+            return apply_rec(l, r, opr);
+
+        if (appuniop != opr) {
+            BddCache_reset(appunicache);
+            appuniop = opr;
+        }
+        quantset = var;
+        return appuni_rec(l, r, var);
+    }
+
+    /* Unique quantification of l op r, following JFactory: a variable is
+     * only quantified where it is the top variable of exactly one operand. */
+    int appuni_rec(int l, int r, int var) {
+        int entry;
+        int res;
+
+        int LEVEL_l = LEVEL(l), LEVEL_r = LEVEL(r), LEVEL_var = LEVEL(var);
+
+        if (LEVEL_l > LEVEL_var && LEVEL_r > LEVEL_var) {
+            // Skipped a quantified node, answer is zero.
+            return BDDZERO;
+        }
+
+        if (ISCONST(l) && ISCONST(r) || ISCONST(var))
+            return apply_rec(l, r, appuniop);
+
+        entry = BddCache_lookup(appunicache, CACHEHASH(l, r, quantset));
+        if (appunicache.a[entry] == l && appunicache.b[entry] == r && appunicache.c[entry] == quantset)
+            return appunicache.res[entry];
+
+        int lev, low, high;
+        if (LEVEL_l == LEVEL_r) {
+            if (LEVEL_l == LEVEL_var)
+                var = HIGH(var);
+            lev = LEVEL_l;
+            low = appuni_rec(LOW(l), LOW(r), var);
+            high = appuni_rec(HIGH(l), HIGH(r), var);
+        } else if (LEVEL_l < LEVEL_r) {
+            if (LEVEL_l == LEVEL_var) {
+                lev = -1;
+                var = HIGH(var);
+            } else {
+                lev = LEVEL_l;
+            }
+            low = appuni_rec(LOW(l), r, var);
+            high = appuni_rec(HIGH(l), r, var);
+        } else {
+            if (LEVEL_r == LEVEL_var) {
+                lev = -1;
+                var = HIGH(var);
+            } else {
+                lev = LEVEL_r;
+            }
+            low = appuni_rec(l, LOW(r), var);
+            high = appuni_rec(l, HIGH(r), var);
+        }
+        if (lev == -1)
+            res = xor_rec(low, high);
+        else
+            res = bdd_makenode(lev, low, high);
+
+        appunicache.a[entry] = l;
+        appunicache.b[entry] = r;
+        appunicache.c[entry] = quantset;
+        appunicache.res[entry] = res;
+
+        return res;
+    }
+
+    /* exist quantset. l and r, without building the conjunction */
+    int relprod_rec(int l, int r) {
+        int entry;
+        int res;
+
+        if (ISZERO(l) || ISZERO(r) || (l ^ r) == 1)
+            return BDDZERO;
+        if (l == r || ISONE(r))
+            return quant_rec(l);
+        if (ISONE(l))
+            return quant_rec(r);
+
+        int level_l = LEVEL(l), level_r = LEVEL(r);
+        int level = Math.min(level_l, level_r);
+        if (level > quantlast)
+            return and_rec(l, r);
+
+        if (l > r) {
+            int t = l;
+            l = r;
+            r = t;
+            t = level_l;
+            level_l = level_r;
+            level_r = t;
+        }
+
+        entry = BddCache_lookup(appexcache, CACHEHASH(l, r, quantset));
+        if (appexcache.a[entry] == l && appexcache.b[entry] == r && appexcache.c[entry] == quantset)
+            return appexcache.res[entry];
+
+        int l0 = l, l1 = l, r0 = r, r1 = r;
+        if (level_l == level) { l0 = LOW(l); l1 = HIGH(l); }
+        if (level_r == level) { r0 = LOW(r); r1 = HIGH(r); }
+
+        int low = relprod_rec(l0, r0);
+        if (INVARSET(level)) {
+            res = ISONE(low) ? BDDONE : or_rec(low, relprod_rec(l1, r1));
+        } else {
+            res = bdd_makenode(level, low, relprod_rec(l1, r1));
+        }
+
+        appexcache.a[entry] = l;
+        appexcache.b[entry] = r;
+        appexcache.c[entry] = quantset;
+        appexcache.res[entry] = res;
+
+        return res;
+    }
+
+    /*=== RESTRICT, CONSTRAIN, SIMPLIFY ====================================*/
+
+    int bdd_restrict(int r, int var) {
+        CHECK(r);
+        CHECK(var);
+
+        if (var < 2) /* Empty set */
+            return r;
+
+        bdd_prepare();
+        varset2svartable(var);
+        return restrict_rec(r);
+    }
+
+    int restrict_rec(int r) {
+        int entry;
+        int res;
+
+        if (ISCONST(r) || LEVEL(r) > quantlast)
+            return r;
+
+        entry = BddCache_lookup(quantcache, CACHEHASH(r, quantset, CACHEID_RESTRICT));
+        if (quantcache.a[entry] == r && quantcache.b[entry] == quantset && quantcache.c[entry] == CACHEID_RESTRICT)
+            return quantcache.res[entry];
+
+        if (INSVARSET(LEVEL(r))) {
+            if (quantvarset[LEVEL(r)] > 0) {
+                res = restrict_rec(HIGH(r));
+            } else {
+                res = restrict_rec(LOW(r));
+            }
+        } else {
+            int low = restrict_rec(LOW(r));
+            res = bdd_makenode(LEVEL(r), low, restrict_rec(HIGH(r)));
+        }
+
+        quantcache.a[entry] = r;
+        quantcache.b[entry] = quantset;
+        quantcache.c[entry] = CACHEID_RESTRICT;
+        quantcache.res[entry] = res;
+
+        return res;
+    }
+
+    int bdd_constrain(int f, int c) {
+        CHECK(f);
+        CHECK(c);
+        bdd_prepare();
+        return constrain_rec(f, c);
+    }
+
+    int constrain_rec(int f, int c) {
+        int entry;
+        int res;
+
+        if (ISONE(c))
+            return f;
+        if (ISCONST(f))
+            return f;
+        if (c == f)
+            return BDDONE;
+        if (ISZERO(c))
+            return BDDZERO;
+
+        entry = BddCache_lookup(misccache, CACHEHASH(f, c, CACHEID_CONSTRAIN));
+        if (misccache.a[entry] == f && misccache.b[entry] == c && misccache.c[entry] == CACHEID_CONSTRAIN)
+            return misccache.res[entry];
+
+        if (LEVEL(f) == LEVEL(c)) {
+            if (ISZERO(LOW(c)))
+                res = constrain_rec(HIGH(f), HIGH(c));
+            else if (ISZERO(HIGH(c)))
+                res = constrain_rec(LOW(f), LOW(c));
+            else {
+                int low = constrain_rec(LOW(f), LOW(c));
+                res = bdd_makenode(LEVEL(f), low, constrain_rec(HIGH(f), HIGH(c)));
+            }
+        } else if (LEVEL(f) < LEVEL(c)) {
+            int low = constrain_rec(LOW(f), c);
+            res = bdd_makenode(LEVEL(f), low, constrain_rec(HIGH(f), c));
+        } else {
+            if (ISZERO(LOW(c)))
+                res = constrain_rec(f, HIGH(c));
+            else if (ISZERO(HIGH(c)))
+                res = constrain_rec(f, LOW(c));
+            else {
+                int low = constrain_rec(f, LOW(c));
+                res = bdd_makenode(LEVEL(c), low, constrain_rec(f, HIGH(c)));
+            }
+        }
+
+        misccache.a[entry] = f;
+        misccache.b[entry] = c;
+        misccache.c[entry] = CACHEID_CONSTRAIN;
+        misccache.res[entry] = res;
+
+        return res;
+    }
+
+    int bdd_simplify(int f, int d) {
+        CHECK(f);
+        CHECK(d);
+        bdd_prepare();
+        return simplify_rec(f, d);
+    }
+
+    int simplify_rec(int f, int d) {
+        int entry;
+        int res;
+
+        if (ISONE(d) || ISCONST(f))
+            return f;
+        if (d == f)
+            return BDDONE;
+        if (ISZERO(d))
+            return BDDZERO;
+
+        entry = BddCache_lookup(applycache, CACHEHASH(f, d, bddop_simplify));
+        if (applycache.a[entry] == f && applycache.b[entry] == d && applycache.c[entry] == bddop_simplify)
+            return applycache.res[entry];
+
+        if (LEVEL(f) == LEVEL(d)) {
+            if (ISZERO(LOW(d)))
+                res = simplify_rec(HIGH(f), HIGH(d));
+            else if (ISZERO(HIGH(d)))
+                res = simplify_rec(LOW(f), LOW(d));
+            else {
+                int low = simplify_rec(LOW(f), LOW(d));
+                res = bdd_makenode(LEVEL(f), low, simplify_rec(HIGH(f), HIGH(d)));
+            }
+        } else if (LEVEL(f) < LEVEL(d)) {
+            int low = simplify_rec(LOW(f), d);
+            res = bdd_makenode(LEVEL(f), low, simplify_rec(HIGH(f), d));
+        } else /* LEVEL(d) < LEVEL(f) */ {
+            res = simplify_rec(f, or_rec(LOW(d), HIGH(d))); /* Exist quant */
+        }
+
+        applycache.a[entry] = f;
+        applycache.b[entry] = d;
+        applycache.c[entry] = bddop_simplify;
+        applycache.res[entry] = res;
+
+        return res;
+    }
+
+    /*=== REPLACE AND COMPOSE ==============================================*/
+
+    bddPair pairs; /* List of all replacement pairs in use */
+    int pairsid; /* Pair identifier */
+    int[] replacepair; /* Current replacement table, indexed by level */
+    int replacelast; /* Last level to be replaced */
+    int replaceid; /* Current cache id for replace and compose */
+    int composelevel; /* Level of the composed variable */
+
+    int update_pairsid() {
+        pairsid++;
+
+        if (pairsid == (Integer.MAX_VALUE >> 2)) {
+            pairsid = 0;
+            for (bddPair p = pairs; p != null; p = p.next)
+                p.id = pairsid++;
+            BddCache_reset(replacecache);
+        }
+
+        return pairsid;
+    }
+
+    void bdd_setpair(bddPair pair, int oldvar, int newvar) {
+        if (oldvar < 0 || oldvar > bddvarnum - 1)
+            bdd_error(BDD_VAR);
+        if (newvar < 0 || newvar > bddvarnum - 1)
+            bdd_error(BDD_VAR);
+
+        bdd_delref(pair.result[oldvar]);
+        pair.result[oldvar] = bdd_ithvar(newvar);
+        pair.id = update_pairsid();
+
+        if (oldvar > pair.last)
+            pair.last = oldvar;
+    }
+
+    void bdd_setbddpair(bddPair pair, int oldvar, int newvar) {
+        CHECK(newvar);
+        if (oldvar < 0 || oldvar >= bddvarnum)
+            bdd_error(BDD_VAR);
+
+        bdd_delref(pair.result[oldvar]);
+        pair.result[oldvar] = bdd_addref(newvar);
+        pair.id = update_pairsid();
+
+        if (oldvar > pair.last)
+            pair.last = oldvar;
+    }
+
+    void bdd_resetpair(bddPair p) {
+        for (int n = 0; n < bddvarnum; n++) {
+            bdd_delref(p.result[n]);
+            p.result[n] = bdd_ithvar(n);
+        }
+        p.last = 0;
+    }
+
+    int bdd_replace(int r, bddPair pair) {
+        CHECK(r);
+        bdd_prepare();
+
+        replacepair = pair.result;
+        replacelast = pair.last;
+        replaceid = (pair.id << 2) | CACHEID_REPLACE;
+        return replace_rec(r);
+    }
+
+    int replace_rec(int r) {
+        int entry;
+        int res;
+
+        if (ISCONST(r) || LEVEL(r) > replacelast)
+            return r;
+
+        entry = BddCache_lookup(replacecache, CACHEHASH(r, 0, replaceid));
+        if (replacecache.a[entry] == r && replacecache.b[entry] == 0 && replacecache.c[entry] == replaceid)
+            return replacecache.res[entry];
+
+        int low = replace_rec(LOW(r));
+        res = bdd_correctify(LEVEL(replacepair[LEVEL(r)]), low, replace_rec(HIGH(r)));
+
+        replacecache.a[entry] = r;
+        replacecache.b[entry] = 0;
+        replacecache.c[entry] = replaceid;
+        replacecache.res[entry] = res;
+
+        return res;
+    }
+
+    int bdd_correctify(int level, int l, int r) {
+        if (level < LEVEL(l) && level < LEVEL(r))
+            return bdd_makenode(level, l, r);
+
+        if (level == LEVEL(l) || level == LEVEL(r))
+            return bdd_error(BDD_REPLACE);
+
+        if (LEVEL(l) == LEVEL(r)) {
+            int low = bdd_correctify(level, LOW(l), LOW(r));
+            return bdd_makenode(LEVEL(l), low, bdd_correctify(level, HIGH(l), HIGH(r)));
+        } else if (LEVEL(l) < LEVEL(r)) {
+            int low = bdd_correctify(level, LOW(l), r);
+            return bdd_makenode(LEVEL(l), low, bdd_correctify(level, HIGH(l), r));
+        } else {
+            int low = bdd_correctify(level, l, LOW(r));
+            return bdd_makenode(LEVEL(r), low, bdd_correctify(level, l, HIGH(r)));
+        }
+    }
+
+    int bdd_veccompose(int f, bddPair pair) {
+        CHECK(f);
+        bdd_prepare();
+
+        replacepair = pair.result;
+        replacelast = pair.last;
+        replaceid = (pair.id << 2) | CACHEID_VECCOMPOSE;
+        return veccompose_rec(f);
+    }
+
+    int veccompose_rec(int f) {
+        int entry;
+        int res;
+
+        if (ISCONST(f) || LEVEL(f) > replacelast)
+            return f;
+
+        entry = BddCache_lookup(replacecache, CACHEHASH(f, 0, replaceid));
+        if (replacecache.a[entry] == f && replacecache.b[entry] == 0 && replacecache.c[entry] == replaceid)
+            return replacecache.res[entry];
+
+        int low = veccompose_rec(LOW(f));
+        int high = veccompose_rec(HIGH(f));
+        res = ite_rec(replacepair[LEVEL(f)], high, low);
+
+        replacecache.a[entry] = f;
+        replacecache.b[entry] = 0;
+        replacecache.c[entry] = replaceid;
+        replacecache.res[entry] = res;
+
+        return res;
+    }
+
+    int bdd_compose(int f, int g, int var) {
+        CHECK(f);
+        CHECK(g);
+        if (var < 0 || var >= bddvarnum)
+            return bdd_error(BDD_VAR);
+
+        bdd_prepare();
+        composelevel = var;
+        replaceid = (composelevel << 2) | CACHEID_COMPOSE;
+        return compose_rec(f, g);
+    }
+
+    int compose_rec(int f, int g) {
+        int entry;
+        int res;
+
+        if (LEVEL(f) > composelevel)
+            return f;
+
+        entry = BddCache_lookup(replacecache, CACHEHASH(f, g, replaceid));
+        if (replacecache.a[entry] == f && replacecache.b[entry] == g && replacecache.c[entry] == replaceid)
+            return replacecache.res[entry];
+
+        if (LEVEL(f) < composelevel) {
+            if (LEVEL(f) == LEVEL(g)) {
+                int low = compose_rec(LOW(f), LOW(g));
+                res = bdd_makenode(LEVEL(f), low, compose_rec(HIGH(f), HIGH(g)));
+            } else if (LEVEL(f) < LEVEL(g)) {
+                int low = compose_rec(LOW(f), g);
+                res = bdd_makenode(LEVEL(f), low, compose_rec(HIGH(f), g));
+            } else {
+                int low = compose_rec(f, LOW(g));
+                res = bdd_makenode(LEVEL(g), low, compose_rec(f, HIGH(g)));
+            }
+        } else {
+            res = ite_rec(g, HIGH(f), LOW(f));
+        }
+
+        replacecache.a[entry] = f;
+        replacecache.b[entry] = g;
+        replacecache.c[entry] = replaceid;
+        replacecache.res[entry] = res;
+
+        return res;
+    }
+
+    /*=== SUPPORT AND SATISFYING ASSIGNMENTS ===============================*/
+
+    int[] supportSet; /* The levels in the current support */
+    int supportID; /* Current id used in supportSet */
+    int supportMax; /* Deepest level in the current support */
+
+    int bdd_support(int r) {
+        int n;
+        int res = BDDONE;
+
+        CHECK(r);
+
+        if (r < 2)
+            return BDDONE;
+
+        bdd_prepare();
+
+        if (supportID == 0x0FFFFFFF) {
+            Arrays.fill(supportSet, 0);
+            supportID = 0;
+        }
+        ++supportID;
+        supportMax = LEVEL(r);
+
+        support_rec(r >>> 1);
+        bdd_unmark(r >>> 1);
+
+        for (n = supportMax; n >= LEVEL(r); --n)
+            if (supportSet[n] == supportID)
+                res = bdd_makenode(n, BDDZERO, res);
+
+        return res;
+    }
+
+    void support_rec(int n) {
+        if (n == 0 || MARKED(n))
+            return;
+
+        supportSet[LEVELn(n)] = supportID;
+        if (LEVELn(n) > supportMax)
+            supportMax = LEVELn(n);
+
+        SETMARK(n);
+        support_rec(LOWn(n) >>> 1);
+        support_rec(HIGHn(n) >>> 1);
+    }
+
+    int bdd_satone(int r) {
+        CHECK(r);
+        if (r < 2)
+            return r;
+
+        bdd_prepare();
+        return satone_rec(r);
+    }
+
+    int satone_rec(int r) {
+        if (ISCONST(r))
+            return r;
+
+        if (ISZERO(LOW(r)))
+            return bdd_makenode(LEVEL(r), BDDZERO, satone_rec(HIGH(r)));
+        else
+            return bdd_makenode(LEVEL(r), satone_rec(LOW(r)), BDDZERO);
+    }
+
+    int bdd_satoneset(int r, int var, boolean pol) {
+        CHECK(r);
+        CHECK(var);
+        if (ISZERO(r))
+            return r;
+
+        bdd_prepare();
+        return satoneset_rec(r, var, pol);
+    }
+
+    int satoneset_rec(int r, int var, boolean pol) {
+        if (ISCONST(r) && ISCONST(var))
+            return r;
+
+        if (LEVEL(r) < LEVEL(var)) {
+            // r is not in the set
+            if (ISZERO(LOW(r)))
+                return bdd_makenode(LEVEL(r), BDDZERO, satoneset_rec(HIGH(r), var, pol));
+            else
+                return bdd_makenode(LEVEL(r), satoneset_rec(LOW(r), var, pol), BDDZERO);
+        } else if (LEVEL(var) < LEVEL(r)) {
+            int res = satoneset_rec(r, HIGH(var), pol);
+            if (pol)
+                return bdd_makenode(LEVEL(var), BDDZERO, res);
+            else
+                return bdd_makenode(LEVEL(var), res, BDDZERO);
+        } else /* LEVEL(r) == LEVEL(var) */ {
+            if (ISZERO(LOW(r)))
+                return bdd_makenode(LEVEL(r), BDDZERO, satoneset_rec(HIGH(r), HIGH(var), pol));
+            else
+                return bdd_makenode(LEVEL(r), satoneset_rec(LOW(r), HIGH(var), pol), BDDZERO);
+        }
+    }
+
+    int bdd_fullsatone(int r) {
+        int res;
+        int v;
+
+        CHECK(r);
+        if (ISZERO(r))
+            return r;
+
+        bdd_prepare();
+        res = fullsatone_rec(r);
+
+        for (v = LEVEL(r) - 1; v >= 0; v--)
+            res = bdd_makenode(v, res, BDDZERO);
+
+        return res;
+    }
+
+    int fullsatone_rec(int r) {
+        int res;
+        int v;
+
+        if (ISCONST(r))
+            return r;
+
+        if (!ISZERO(LOW(r))) {
+            res = fullsatone_rec(LOW(r));
+            for (v = LEVEL(LOW(r)) - 1; v > LEVEL(r); v--)
+                res = bdd_makenode(v, res, BDDZERO);
+            return bdd_makenode(LEVEL(r), res, BDDZERO);
+        } else {
+            res = fullsatone_rec(HIGH(r));
+            for (v = LEVEL(HIGH(r)) - 1; v > LEVEL(r); v--)
+                res = bdd_makenode(v, res, BDDZERO);
+            return bdd_makenode(LEVEL(r), BDDZERO, res);
+        }
+    }
+
+    /*=== COUNTING =========================================================*/
+
+    int bdd_nodecount(int r) {
+        int[] num = new int[1];
+
+        CHECK(r);
+
+        bdd_markcount(r >>> 1, num);
+        bdd_unmark(r >>> 1);
+
+        return num[0];
+    }
+
+    int bdd_anodecount(int[] r) {
+        int n;
+        int[] cou = new int[1];
+
+        for (n = 0; n < r.length; n++)
+            bdd_markcount(r[n] >>> 1, cou);
+
+        for (n = 0; n < r.length; n++)
+            bdd_unmark(r[n] >>> 1);
+
+        return cou[0];
+    }
+
+    int[] bdd_varprofile(int r) {
+        CHECK(r);
+
+        int[] varprofile = new int[bddvarnum];
+
+        varprofile_rec(r >>> 1, varprofile);
+        bdd_unmark(r >>> 1);
+        return varprofile;
+    }
+
+    void varprofile_rec(int n, int[] varprofile) {
+        if (n == 0 || MARKED(n))
+            return;
+
+        varprofile[LEVELn(n)]++;
+        SETMARK(n);
+
+        varprofile_rec(LOWn(n) >>> 1, varprofile);
+        varprofile_rec(HIGHn(n) >>> 1, varprofile);
+    }
+
+    /* Counts are kept per edge rather than per node: deriving the count of
+     * a complemented edge from the count of its node would subtract two
+     * nearly equal doubles and lose the result. */
+    double bdd_pathcount(int r) {
+        CHECK(r);
+        return pathcount_rec(r);
+    }
+
+    double pathcount_rec(int r) {
+        if (ISZERO(r))
+            return 0.0;
+        if (ISONE(r))
+            return 1.0;
+
+        double size = count_lookup(r, CACHEID_PATHCOU);
+        if (size < 0) {
+            size = pathcount_rec(LOW(r)) + pathcount_rec(HIGH(r));
+            count_store(r, CACHEID_PATHCOU, size);
+        }
+
+        return size;
+    }
+
+    double bdd_satcount(int r) {
+        CHECK(r);
+        return Math.pow(2.0, (double) LEVEL(r)) * satcount_rec(r);
+    }
+
+    /* Number of satisfying assignments of the levels from LEVEL(r) on. */
+    double satcount_rec(int r) {
+        if (ISZERO(r))
+            return 0.0;
+        if (ISONE(r))
+            return 1.0;
+
+        double size = count_lookup(r, CACHEID_SATCOU);
+        if (size < 0) {
+            int low = LOW(r), high = HIGH(r);
+            size = Math.pow(2.0, (double) (LEVEL(low) - LEVEL(r) - 1)) * satcount_rec(low)
+                 + Math.pow(2.0, (double) (LEVEL(high) - LEVEL(r) - 1)) * satcount_rec(high);
+            count_store(r, CACHEID_SATCOU, size);
+        }
+
+        return size;
+    }
+
+    double count_lookup(int r, int id) {
+        int entry = BddCache_lookup(countcache, CACHEHASH(r, 0, id));
+        if (countcache.a[entry] == r && countcache.c[entry] == id)
+            return countcache.dres[entry];
+        return -1.0;
+    }
+
+    void count_store(int r, int id, double size) {
+        int entry = BddCache_lookup(countcache, CACHEHASH(r, 0, id));
+        countcache.a[entry] = r;
+        countcache.b[entry] = 0;
+        countcache.c[entry] = id;
+        countcache.dres[entry] = size;
+    }
+
+    /*=== PRINTING =========================================================*/
+
+    static String edge(int r) {
+        return ((r & 1) != 0 ? "~" : "") + (r >>> 1);
+    }
+
+    static String right(String s, int w) {
+        StringBuffer b = new StringBuffer(w);
+        for (int i = s.length(); i < w; ++i)
+            b.append(' ');
+        b.append(s);
+        return b.toString();
+    }
+
+    void bdd_fprinttable(PrintStream out, int r) {
+        int n;
+
+        out.println("ROOT: " + edge(r));
+        if (r < 2)
+            return;
+
+        bdd_mark(r >>> 1);
+
+        for (n = 1; n < bddnodesize; n++) {
+            if (MARKED(n)) {
+                UNMARK(n);
+
+                out.print("[" + right(Integer.toString(n), 5) + "] ");
+                out.print(right(Integer.toString(LEVELn(n)), 3));
+                out.print(": " + right(edge(LOWn(n)), 4));
+                out.println(" " + right(edge(HIGHn(n)), 4));
+            }
+        }
+    }
+
+    void bdd_fprintall(PrintStream out) {
+        for (int n = 1; n < bddnodesize; n++) {
+            if (LOWn(n) != INVALID_BDD) {
+                out.print("[" + right(Integer.toString(n), 5) + " - " + right(Integer.toString(bddnodes[n*__node_size] >>> 22), 2) + "] ");
+                out.print(right(Integer.toString(LEVELn(n)), 3));
+                out.print(": " + right(edge(LOWn(n)), 4));
+                out.println(" " + right(edge(HIGHn(n)), 4));
+            }
+        }
+    }
+
+    void bdd_fprintstat(PrintStream out) {
+        out.println(getVersion());
+        out.println("Node table size: " + bddnodesize);
+        out.println("Used nodes: " + (bddnodesize - bddfreenum));
+        out.println("Produced nodes: " + bddproduced);
+        out.println("Variables: " + bddvarnum);
+        out.println("Cache size: " + cachesize);
+        out.println("Garbage collections: " + gbcollectnum + " (" + gbcclock / 1000.0 + "s)");
+    }
+
+    static final void _assert(boolean b) {
+        if (!b)
+            throw new InternalError();
+    }
+}
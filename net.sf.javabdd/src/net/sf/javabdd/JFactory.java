@@ -7,6 +7,9 @@ import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -38,6 +41,27 @@ public class JFactory extends BDDFactoryIntImpl {
      */
     public static boolean FLUSH_CACHE_ON_GC = true;
     
+    /**
+     * Use an open addressing unique table instead of the BuDDy hash chains.
+     * The node records shrink from five to three ints and lookups probe a
+     * separate hash array linearly.  Set the "bdd.uniquetable" property to
+     * "open" to select it; the layout is fixed when this class is loaded.
+     */
+    public static final boolean OPEN_ADDRESSING =
+        "open".equals(getProperty("bdd.uniquetable", "chained"));
+    
+    /**
+     * Keep the node table in direct buffers outside of the Java heap.  The
+     * table grows by adding chunks of 2^CHUNK_BITS nodes, so a resize never
+     * copies the existing nodes, and the garbage collector neither scans nor
+     * moves it.  The size of the table is then bounded by
+     * -XX:MaxDirectMemorySize rather than by the heap.  Set the
+     * "bdd.nodetable" property to "offheap" to select it; the storage is
+     * fixed when this class is loaded.
+     */
+    public static final boolean OFF_HEAP =
+        "offheap".equals(getProperty("bdd.nodetable", "heap"));
+    
     static final boolean VERIFY_ASSERTIONS = false;
     static final boolean CACHESTATS = false;
     static final boolean SWAPCOUNT = false;
@@ -299,8 +323,21 @@ public class JFactory extends BDDFactoryIntImpl {
         INSTANCE.bddrefstacktop = this.bddrefstacktop;
         INSTANCE.bddresized = this.bddresized;
         INSTANCE.minfreenodes = this.minfreenodes;
-        INSTANCE.bddnodes = new int[this.bddnodes.length];
-        System.arraycopy(this.bddnodes, 0, INSTANCE.bddnodes, 0, this.bddnodes.length);
+        if (this.bddnodes != null) {
+            INSTANCE.bddnodes = new int[this.bddnodes.length];
+            System.arraycopy(this.bddnodes, 0, INSTANCE.bddnodes, 0, this.bddnodes.length);
+        }
+        if (this.bddchunks != null) {
+            INSTANCE.bddchunks = new IntBuffer[this.bddchunks.length];
+            for (int i = 0; i < INSTANCE.bddchunks.length; ++i) {
+                INSTANCE.bddchunks[i] = bdd_newchunk();
+                INSTANCE.bddchunks[i].duplicate().put(this.bddchunks[i].duplicate());
+            }
+        }
+        if (this.bddhash != null) {
+            INSTANCE.bddhash = new int[this.bddhash.length];
+            System.arraycopy(this.bddhash, 0, INSTANCE.bddhash, 0, this.bddhash.length);
+        }
         INSTANCE.bddrefstack = new int[this.bddrefstack.length];
         System.arraycopy(this.bddrefstack, 0, INSTANCE.bddrefstack, 0, this.bddrefstack.length);
         INSTANCE.bddvar2level = new int[this.bddvar2level.length];
@@ -521,100 +558,170 @@ public class JFactory extends BDDFactoryIntImpl {
     static final int offset__refcou_and_level = 0;
     static final int offset__low = 1;
     static final int offset__high = 2;
-    static final int offset__hash = 3;
-    static final int offset__next = 4;
-    static final int __node_size = 5;
+    /* With open addressing the hash and next fields are only allocated in
+     * the separate bddlinks table while reordering, and the free list is
+     * linked through the high field of the free nodes. */
+    static final int offset__hash = OPEN_ADDRESSING ? 0 : 3;
+    static final int offset__next = OPEN_ADDRESSING ? 1 : 4;
+    static final int __node_size = OPEN_ADDRESSING ? 3 : 5;
+    static final int __link_size = 2;
     
+    static final int CHUNK_BITS = 16;
+    static final int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
+
+    /* Every field of a node is read and written through these two, so the
+     * node table can live on the heap or in off-heap chunks. */
+    private final int NODE(int node, int offset) {
+        if (OFF_HEAP)
+            return bddchunks[node >>> CHUNK_BITS].get((node & CHUNK_MASK)*__node_size + offset);
+        return bddnodes[node*__node_size + offset];
+    }
+
+    private final void SETNODE(int node, int offset, int v) {
+        if (OFF_HEAP)
+            bddchunks[node >>> CHUNK_BITS].put((node & CHUNK_MASK)*__node_size + offset, v);
+        else
+            bddnodes[node*__node_size + offset] = v;
+    }
+
+    /* Makes room for at least size nodes.  The off-heap table only gets new
+     * chunks; the existing ones are kept as they are. */
+    void bdd_nodealloc(int size) {
+        if (!OFF_HEAP) {
+            int[] newnodes = new int[size*__node_size];
+            if (bddnodes != null)
+                System.arraycopy(bddnodes, 0, newnodes, 0, Math.min(bddnodes.length, newnodes.length));
+            bddnodes = newnodes;
+            return;
+        }
+        int num = (int)(((long)size + CHUNK_MASK) >>> CHUNK_BITS);
+        int old = bddchunks == null ? 0 : bddchunks.length;
+        if (num <= old)
+            return;
+        IntBuffer[] newchunks = new IntBuffer[num];
+        if (bddchunks != null)
+            System.arraycopy(bddchunks, 0, newchunks, 0, old);
+        for (int n = old; n < num; n++)
+            newchunks[n] = bdd_newchunk();
+        bddchunks = newchunks;
+    }
+
+    static IntBuffer bdd_newchunk() {
+        return ByteBuffer.allocateDirect((__node_size << CHUNK_BITS) * 4)
+            .order(ByteOrder.nativeOrder()).asIntBuffer();
+    }
+
     private final boolean HASREF(int node) {
-        boolean r = (bddnodes[node*__node_size + offset__refcou_and_level] & REF_MASK) != 0;
+        boolean r = (NODE(node, offset__refcou_and_level) & REF_MASK) != 0;
         return r;
     }
 
     private final void SETMAXREF(int node) {
-        bddnodes[node*__node_size + offset__refcou_and_level] |= REF_MASK;
+        SETNODE(node, offset__refcou_and_level, NODE(node, offset__refcou_and_level) | REF_MASK);
     }
 
     private final void CLEARREF(int node) {
-        bddnodes[node*__node_size + offset__refcou_and_level] &= ~REF_MASK;
+        SETNODE(node, offset__refcou_and_level, NODE(node, offset__refcou_and_level) & ~REF_MASK);
     }
 
     private final void INCREF(int node) {
-        if ((bddnodes[node*__node_size + offset__refcou_and_level] & REF_MASK) != REF_MASK)
-            bddnodes[node*__node_size + offset__refcou_and_level] += REF_INC;
+        if ((NODE(node, offset__refcou_and_level) & REF_MASK) != REF_MASK)
+            SETNODE(node, offset__refcou_and_level, NODE(node, offset__refcou_and_level) + REF_INC);
     }
 
     private final void DECREF(int node) {
-        int rc = bddnodes[node*__node_size + offset__refcou_and_level] & REF_MASK;
+        int rc = NODE(node, offset__refcou_and_level) & REF_MASK;
         if (rc != REF_MASK && rc != 0)
-            bddnodes[node*__node_size + offset__refcou_and_level] -= REF_INC;
+            SETNODE(node, offset__refcou_and_level, NODE(node, offset__refcou_and_level) - REF_INC);
     }
 
     private final int GETREF(int node) {
-        return bddnodes[node*__node_size + offset__refcou_and_level] >>> 22;
+        return NODE(node, offset__refcou_and_level) >>> 22;
     }
 
     private final int LEVEL(int node) {
-        return bddnodes[node*__node_size + offset__refcou_and_level] & LEV_MASK;
+        return NODE(node, offset__refcou_and_level) & LEV_MASK;
     }
 
     private final int LEVELANDMARK(int node) {
-        return bddnodes[node*__node_size + offset__refcou_and_level] & (LEV_MASK | MARK_MASK);
+        return NODE(node, offset__refcou_and_level) & (LEV_MASK | MARK_MASK);
     }
 
     private final void SETLEVEL(int node, int val) {
         if (VERIFY_ASSERTIONS) _assert(val == (val & LEV_MASK));
-        bddnodes[node*__node_size + offset__refcou_and_level] &= ~LEV_MASK;
-        bddnodes[node*__node_size + offset__refcou_and_level] |= val;
+        SETNODE(node, offset__refcou_and_level, (NODE(node, offset__refcou_and_level) & ~LEV_MASK) | val);
     }
 
     private final void SETLEVELANDMARK(int node, int val) {
         if (VERIFY_ASSERTIONS) _assert(val == (val & (LEV_MASK | MARK_MASK)));
-        bddnodes[node*__node_size + offset__refcou_and_level] &= ~(LEV_MASK | MARK_MASK);
-        bddnodes[node*__node_size + offset__refcou_and_level] |= val;
+        SETNODE(node, offset__refcou_and_level, (NODE(node, offset__refcou_and_level) & ~(LEV_MASK | MARK_MASK)) | val);
     }
 
     private final void SETMARK(int n) {
-        bddnodes[n*__node_size + offset__refcou_and_level] |= MARK_MASK;
+        SETNODE(n, offset__refcou_and_level, NODE(n, offset__refcou_and_level) | MARK_MASK);
     }
     
     private final void UNMARK(int n) {
-        bddnodes[n*__node_size + offset__refcou_and_level] &= ~MARK_MASK;
+        SETNODE(n, offset__refcou_and_level, NODE(n, offset__refcou_and_level) & ~MARK_MASK);
     }
     
     private final boolean MARKED(int n) {
-        return (bddnodes[n*__node_size + offset__refcou_and_level] & MARK_MASK) != 0;
+        return (NODE(n, offset__refcou_and_level) & MARK_MASK) != 0;
     }
 
     private final int LOW(int r) {
-        return bddnodes[r*__node_size + offset__low];
+        return NODE(r, offset__low);
     }
 
     private final void SETLOW(int r, int v) {
-        bddnodes[r*__node_size + offset__low] = v;
+        SETNODE(r, offset__low, v);
     }
     
     private final int HIGH(int r) {
-        return bddnodes[r*__node_size + offset__high];
+        return NODE(r, offset__high);
     }
 
     private final void SETHIGH(int r, int v) {
-        bddnodes[r*__node_size + offset__high] = v;
+        SETNODE(r, offset__high, v);
     }
     
     private final int HASH(int r) {
-        return bddnodes[r*__node_size + offset__hash];
+        if (OPEN_ADDRESSING)
+            return bddlinks[r*__link_size + offset__hash];
+        return NODE(r, offset__hash);
     }
     
     private final void SETHASH(int r, int v) {
-        bddnodes[r*__node_size + offset__hash] = v;
+        if (OPEN_ADDRESSING)
+            bddlinks[r*__link_size + offset__hash] = v;
+        else
+            SETNODE(r, offset__hash, v);
     }
     
     private final int NEXT(int r) {
-        return bddnodes[r*__node_size + offset__next];
+        if (OPEN_ADDRESSING)
+            return bddlinks[r*__link_size + offset__next];
+        return NODE(r, offset__next);
     }
     
     private final void SETNEXT(int r, int v) {
-        bddnodes[r*__node_size + offset__next] = v;
+        if (OPEN_ADDRESSING)
+            bddlinks[r*__link_size + offset__next] = v;
+        else
+            SETNODE(r, offset__next, v);
+    }
+    
+    private final int NEXTFREE(int r) {
+        if (OPEN_ADDRESSING)
+            return NODE(r, offset__high);
+        return NEXT(r);
+    }
+    
+    private final void SETNEXTFREE(int r, int v) {
+        if (OPEN_ADDRESSING)
+            SETNODE(r, offset__high, v);
+        else
+            SETNEXT(r, v);
     }
     
     private final int VARr(int n) {
@@ -630,51 +737,28 @@ public class JFactory extends BDDFactoryIntImpl {
             throw new InternalError();
     }
 
-    private abstract static class BddCacheData {
-        int a, b, c;
-        abstract BddCacheData copy();
-    }
-
-    private static class BddCacheDataI extends BddCacheData {
-        int res;
-        BddCacheData copy() {
-            BddCacheDataI that = new BddCacheDataI();
-            that.a = this.a;
-            that.b = this.b;
-            that.c = this.c;
-            that.res = this.res;
-            return that;
-        }
-    }
-
-    private static class BddCacheDataD extends BddCacheData {
-        double dres;
-        BddCacheData copy() {
-            BddCacheDataD that = new BddCacheDataD();
-            that.a = this.a;
-            that.b = this.b;
-            that.c = this.c;
-            that.dres = this.dres;
-            return that;
-        }
-    }
-
+    /**
+     * An operation cache stored as parallel arrays indexed by the slot of an
+     * entry, so a lookup reads the keys and the result from primitive arrays
+     * instead of chasing a reference to a per-slot object.
+     */
     private static class BddCache {
-        BddCacheData table[];
+        /* Operand keys of each entry; a[n] == -1 marks an empty slot. */
+        int a[], b[], c[];
+        /* Integer results, or null for a double cache. */
+        int res[];
+        /* Double results, or null for an integer cache. */
+        double dres[];
         int tablesize;
         
         BddCache copy() {
             BddCache that = new BddCache();
-            boolean is_d = this.table instanceof BddCacheDataD[];
-            if (is_d) {
-                that.table = new BddCacheDataD[this.table.length];
-            } else {
-                that.table = new BddCacheDataI[this.table.length];
-            }
+            that.a = this.a.clone();
+            that.b = this.b.clone();
+            that.c = this.c.clone();
+            if (this.res != null) that.res = this.res.clone();
+            if (this.dres != null) that.dres = this.dres.clone();
             that.tablesize = this.tablesize;
-            for (int i = 0; i < table.length; ++i) {
-                that.table[i] = this.table[i].copy();
-            }
             return that;
         }
     }
@@ -709,6 +793,9 @@ public class JFactory extends BDDFactoryIntImpl {
     int bddmaxnodesize; /* Maximum allowed number of nodes */
     int bddmaxnodeincrease; /* Max. # of nodes used to inc. table */
     int[] bddnodes; /* All of the bdd nodes */
+    IntBuffer[] bddchunks; /* All of the bdd nodes, in chunks, if OFF_HEAP */
+    int[] bddhash; /* Open addressing unique table, 0 marks an empty slot */
+    int[] bddlinks; /* Hash and next fields while reordering with open addressing */
     int bddfreepos; /* First free node */
     int bddfreenum; /* Number of free nodes */
     int bddproduced; /* Number of new nodes ever produced */
@@ -801,6 +888,32 @@ public class JFactory extends BDDFactoryIntImpl {
         return Math.abs(TRIPLE(lvl, l, h) % bddnodesize);
     }
 
+    /* Home slot of a node in the open addressing unique table.  The table
+     * size is a power of two, so the triple is mixed before masking. */
+    final int NODEHASH_OA(int lvl, int l, int h) {
+        int hash = TRIPLE(lvl, l, h) * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (bddhash.length - 1);
+    }
+
+    /* Inserts a node that is known not to be in the open addressing table. */
+    private final void unique_insert_oa(int n) {
+        int mask = bddhash.length - 1;
+        int slot = NODEHASH_OA(LEVEL(n), LOW(n), HIGH(n));
+        while (bddhash[slot] != 0)
+            slot = (slot + 1) & mask;
+        bddhash[slot] = n;
+    }
+
+    /* Empties the open addressing table, growing it to keep the load factor
+     * at or below one half of the node table. */
+    private final void unique_clear_oa() {
+        int size = Integer.highestOneBit(Math.max(bddnodesize, 2)) << 2;
+        if (bddhash == null || bddhash.length != size)
+            bddhash = new int[size];
+        else
+            Arrays.fill(bddhash, 0);
+    }
+
     int bdd_ithvar(int var) {
         if (var < 0 || var >= bddvarnum) {
             bdd_error(BDD_VAR);
@@ -974,7 +1087,7 @@ public class JFactory extends BDDFactoryIntImpl {
     }
 
     int not_rec(int r) {
-        BddCacheDataI entry;
+        int entry;
         int res;
 
         if (ISCONST(r))
@@ -982,10 +1095,10 @@ public class JFactory extends BDDFactoryIntImpl {
 
         entry = BddCache_lookupI(applycache, NOTHASH(r));
 
-        if (entry.a == r && entry.c == bddop_not) {
+        if (applycache.a[entry] == r && applycache.c[entry] == bddop_not) {
             if (CACHESTATS)
                 cachestats.opHit++;
-            return entry.res;
+            return applycache.res[entry];
         }
         if (CACHESTATS)
             cachestats.opMiss++;
@@ -995,9 +1108,9 @@ public class JFactory extends BDDFactoryIntImpl {
         res = bdd_makenode(LEVEL(r), READREF(2), READREF(1));
         POPREF(2);
 
-        entry.a = r;
-        entry.c = bddop_not;
-        entry.res = res;
+        applycache.a[entry] = r;
+        applycache.c[entry] = bddop_not;
+        applycache.res[entry] = res;
 
         return res;
     }
@@ -1033,7 +1146,7 @@ public class JFactory extends BDDFactoryIntImpl {
     }
 
     int ite_rec(int f, int g, int h) {
-        BddCacheDataI entry;
+        int entry;
         int res;
 
         if (ISONE(f))
@@ -1048,10 +1161,10 @@ public class JFactory extends BDDFactoryIntImpl {
             return not_rec(f);
 
         entry = BddCache_lookupI(itecache, ITEHASH(f, g, h));
-        if (entry.a == f && entry.b == g && entry.c == h) {
+        if (itecache.a[entry] == f && itecache.b[entry] == g && itecache.c[entry] == h) {
             if (CACHESTATS)
                 cachestats.opHit++;
-            return entry.res;
+            return itecache.res[entry];
         }
         if (CACHESTATS)
             cachestats.opMiss++;
@@ -1102,16 +1215,16 @@ public class JFactory extends BDDFactoryIntImpl {
 
         POPREF(2);
 
-        entry.a = f;
-        entry.b = g;
-        entry.c = h;
-        entry.res = res;
+        itecache.a[entry] = f;
+        itecache.b[entry] = g;
+        itecache.c[entry] = h;
+        itecache.res[entry] = res;
 
         return res;
     }
 
     int zite_rec(int f, int g, int h) {
-        BddCacheDataI entry;
+        int entry;
         int res;
 
         if (ISONE(f))
@@ -1130,10 +1243,10 @@ public class JFactory extends BDDFactoryIntImpl {
             return zite_rec(LOW(f), g, h);
 
         entry = BddCache_lookupI(itecache, ITEHASH(f, g, h));
-        if (entry.a == f && entry.b == g && entry.c == h) {
+        if (itecache.a[entry] == f && itecache.b[entry] == g && itecache.c[entry] == h) {
             if (CACHESTATS)
                 cachestats.opHit++;
-            return entry.res;
+            return itecache.res[entry];
         }
         if (CACHESTATS)
             cachestats.opMiss++;
@@ -1183,10 +1296,10 @@ public class JFactory extends BDDFactoryIntImpl {
             }
         }
 
-        entry.a = f;
-        entry.b = g;
-        entry.c = h;
-        entry.res = res;
+        itecache.a[entry] = f;
+        itecache.b[entry] = g;
+        itecache.c[entry] = h;
+        itecache.res[entry] = res;
 
         return res;
     }
@@ -1224,17 +1337,17 @@ public class JFactory extends BDDFactoryIntImpl {
     }
 
     int replace_rec(int r) {
-        BddCacheDataI entry;
+        int entry;
         int res;
 
         if (ISCONST(r) || LEVEL(r) > replacelast)
             return r;
 
         entry = BddCache_lookupI(replacecache, REPLACEHASH(r));
-        if (entry.a == r && entry.c == replaceid) {
+        if (replacecache.a[entry] == r && replacecache.c[entry] == replaceid) {
             if (CACHESTATS)
                 cachestats.opHit++;
-            return entry.res;
+            return replacecache.res[entry];
         }
         if (CACHESTATS)
             cachestats.opMiss++;
@@ -1256,9 +1369,9 @@ public class JFactory extends BDDFactoryIntImpl {
                     READREF(1));
         POPREF(2);
 
-        entry.a = r;
-        entry.c = replaceid;
-        entry.res = res;
+        replacecache.a[entry] = r;
+        replacecache.c[entry] = replaceid;
+        replacecache.res[entry] = res;
 
         return res;
     }
@@ -1437,7 +1550,7 @@ public class JFactory extends BDDFactoryIntImpl {
     }
 
     int apply_rec(int l, int r) {
-        BddCacheDataI entry;
+        int entry;
         int res;
 
         if (VERIFY_ASSERTIONS) _assert(!ZDD);
@@ -1475,10 +1588,10 @@ public class JFactory extends BDDFactoryIntImpl {
         else {
             entry = BddCache_lookupI(applycache, APPLYHASH(l, r, applyop));
 
-            if (entry.a == l && entry.b == r && entry.c == applyop) {
+            if (applycache.a[entry] == l && applycache.b[entry] == r && applycache.c[entry] == applyop) {
                 if (CACHESTATS)
                     cachestats.opHit++;
-                return entry.res;
+                return applycache.res[entry];
             }
             if (CACHESTATS)
                 cachestats.opMiss++;
@@ -1499,17 +1612,17 @@ public class JFactory extends BDDFactoryIntImpl {
 
             POPREF(2);
 
-            entry.a = l;
-            entry.b = r;
-            entry.c = applyop;
-            entry.res = res;
+            applycache.a[entry] = l;
+            applycache.b[entry] = r;
+            applycache.c[entry] = applyop;
+            applycache.res[entry] = res;
         }
 
         return res;
     }
 
     int and_rec(int l, int r) {
-        BddCacheDataI entry;
+        int entry;
         int res;
 
         if (l == r)
@@ -1523,10 +1636,10 @@ public class JFactory extends BDDFactoryIntImpl {
         
         entry = BddCache_lookupI(applycache, APPLYHASH(l, r, bddop_and));
 
-        if (entry.a == l && entry.b == r && entry.c == bddop_and) {
+        if (applycache.a[entry] == l && applycache.b[entry] == r && applycache.c[entry] == bddop_and) {
             if (CACHESTATS)
                 cachestats.opHit++;
-            return entry.res;
+            return applycache.res[entry];
         }
         if (CACHESTATS)
             cachestats.opMiss++;
@@ -1547,16 +1660,16 @@ public class JFactory extends BDDFactoryIntImpl {
 
         POPREF(2);
 
-        entry.a = l;
-        entry.b = r;
-        entry.c = bddop_and;
-        entry.res = res;
+        applycache.a[entry] = l;
+        applycache.b[entry] = r;
+        applycache.c[entry] = bddop_and;
+        applycache.res[entry] = res;
 
         return res;
     }
     
     int zand_rec(int l, int r) {
-        BddCacheDataI entry;
+        int entry;
         int res;
 
         if (l == r)
@@ -1571,10 +1684,10 @@ public class JFactory extends BDDFactoryIntImpl {
         
         entry = BddCache_lookupI(applycache, APPLYHASH(l, r, bddop_and));
 
-        if (entry.a == l && entry.b == r && entry.c == bddop_and) {
+        if (applycache.a[entry] == l && applycache.b[entry] == r && applycache.c[entry] == bddop_and) {
             if (CACHESTATS)
                 cachestats.opHit++;
-            return entry.res;
+            return applycache.res[entry];
         }
         if (CACHESTATS)
             cachestats.opMiss++;
@@ -1585,16 +1698,16 @@ public class JFactory extends BDDFactoryIntImpl {
 
         POPREF(2);
 
-        entry.a = l;
-        entry.b = r;
-        entry.c = bddop_and;
-        entry.res = res;
+        applycache.a[entry] = l;
+        applycache.b[entry] = r;
+        applycache.c[entry] = bddop_and;
+        applycache.res[entry] = res;
 
         return res;
     }
     
     int zrelprod_rec(int l, int r, int lev) {
-        BddCacheDataI entry;
+        int entry;
         int res;
 
         if (l == r)
@@ -1625,10 +1738,10 @@ public class JFactory extends BDDFactoryIntImpl {
         }
         
         entry = BddCache_lookupI(appexcache, APPEXHASH(l, r, bddop_and));
-        if (entry.a == l && entry.b == r && entry.c == appexid) {
+        if (appexcache.a[entry] == l && appexcache.b[entry] == r && appexcache.c[entry] == appexid) {
             if (CACHESTATS)
                 cachestats.opHit++;
-            return entry.res;
+            return appexcache.res[entry];
         }
         if (CACHESTATS)
             cachestats.opMiss++;
@@ -1661,16 +1774,16 @@ public class JFactory extends BDDFactoryIntImpl {
                 POPREF(1);
             }
         }
-        entry.a = l;
-        entry.b = r;
-        entry.c = appexid;
-        entry.res = res;
+        appexcache.a[entry] = l;
+        appexcache.b[entry] = r;
+        appexcache.c[entry] = appexid;
+        appexcache.res[entry] = res;
 
         return res;
     }
     
     int or_rec(int l, int r) {
-        BddCacheDataI entry;
+        int entry;
         int res;
 
         if (l == r)
@@ -1683,10 +1796,10 @@ public class JFactory extends BDDFactoryIntImpl {
             return l;
         entry = BddCache_lookupI(applycache, APPLYHASH(l, r, bddop_or));
 
-        if (entry.a == l && entry.b == r && entry.c == bddop_or) {
+        if (applycache.a[entry] == l && applycache.b[entry] == r && applycache.c[entry] == bddop_or) {
             if (CACHESTATS)
                 cachestats.opHit++;
-            return entry.res;
+            return applycache.res[entry];
         }
         if (CACHESTATS)
             cachestats.opMiss++;
@@ -1707,16 +1820,16 @@ public class JFactory extends BDDFactoryIntImpl {
 
         POPREF(2);
 
-        entry.a = l;
-        entry.b = r;
-        entry.c = bddop_or;
-        entry.res = res;
+        applycache.a[entry] = l;
+        applycache.b[entry] = r;
+        applycache.c[entry] = bddop_or;
+        applycache.res[entry] = res;
 
         return res;
     }
 
     int zor_rec(int l, int r) {
-        BddCacheDataI entry;
+        int entry;
         int res;
 
         if (l == r)
@@ -1729,10 +1842,10 @@ public class JFactory extends BDDFactoryIntImpl {
             return l;
         entry = BddCache_lookupI(applycache, APPLYHASH(l, r, bddop_or));
 
-        if (entry.a == l && entry.b == r && entry.c == bddop_or) {
+        if (applycache.a[entry] == l && applycache.b[entry] == r && applycache.c[entry] == bddop_or) {
             if (CACHESTATS)
                 cachestats.opHit++;
-            return entry.res;
+            return applycache.res[entry];
         }
         if (CACHESTATS)
             cachestats.opMiss++;
@@ -1753,16 +1866,16 @@ public class JFactory extends BDDFactoryIntImpl {
             POPREF(1);
         }
 
-        entry.a = l;
-        entry.b = r;
-        entry.c = bddop_or;
-        entry.res = res;
+        applycache.a[entry] = l;
+        applycache.b[entry] = r;
+        applycache.c[entry] = bddop_or;
+        applycache.res[entry] = res;
 
         return res;
     }
     
     int zdiff_rec(int l, int r) {
-        BddCacheDataI entry;
+        int entry;
         int res;
 
         if (ISZERO(l) /*|| ISONE(r)*/ || l == r)
@@ -1774,10 +1887,10 @@ public class JFactory extends BDDFactoryIntImpl {
         
         entry = BddCache_lookupI(applycache, APPLYHASH(l, r, bddop_diff));
 
-        if (entry.a == l && entry.b == r && entry.c == bddop_diff) {
+        if (applycache.a[entry] == l && applycache.b[entry] == r && applycache.c[entry] == bddop_diff) {
             if (CACHESTATS)
                 cachestats.opHit++;
-            return entry.res;
+            return applycache.res[entry];
         }
         if (CACHESTATS)
             cachestats.opMiss++;
@@ -1793,16 +1906,16 @@ public class JFactory extends BDDFactoryIntImpl {
             POPREF(1);
         }
 
-        entry.a = l;
-        entry.b = r;
-        entry.c = bddop_diff;
-        entry.res = res;
+        applycache.a[entry] = l;
+        applycache.b[entry] = r;
+        applycache.c[entry] = bddop_diff;
+        applycache.res[entry] = res;
 
         return res;
     }
     
     int relprod_rec(int l, int r) {
-        BddCacheDataI entry;
+        int entry;
         int res;
 
         if (VERIFY_ASSERTIONS) _assert(!ZDD);
@@ -1824,10 +1937,10 @@ public class JFactory extends BDDFactoryIntImpl {
             applyop = bddop_or;
         } else {
             entry = BddCache_lookupI(appexcache, APPEXHASH(l, r, bddop_and));
-            if (entry.a == l && entry.b == r && entry.c == appexid) {
+            if (appexcache.a[entry] == l && appexcache.b[entry] == r && appexcache.c[entry] == appexid) {
                 if (CACHESTATS)
                     cachestats.opHit++;
-                return entry.res;
+                return appexcache.res[entry];
             }
             if (CACHESTATS)
                 cachestats.opMiss++;
@@ -1857,10 +1970,10 @@ public class JFactory extends BDDFactoryIntImpl {
 
             POPREF(2);
 
-            entry.a = l;
-            entry.b = r;
-            entry.c = appexid;
-            entry.res = res;
+            appexcache.a[entry] = l;
+            appexcache.b[entry] = r;
+            appexcache.c[entry] = appexid;
+            appexcache.res[entry] = res;
         }
 
         return res;
@@ -1980,7 +2093,7 @@ public class JFactory extends BDDFactoryIntImpl {
     }
 
     int appquant_rec(int l, int r) {
-        BddCacheDataI entry;
+        int entry;
         int res;
 
         if (VERIFY_ASSERTIONS) _assert(appexop != bddop_and);
@@ -2027,10 +2140,10 @@ public class JFactory extends BDDFactoryIntImpl {
             applyop = oldop;
         } else {
             entry = BddCache_lookupI(appexcache, APPEXHASH(l, r, appexop));
-            if (entry.a == l && entry.b == r && entry.c == appexid) {
+            if (appexcache.a[entry] == l && appexcache.b[entry] == r && appexcache.c[entry] == appexid) {
                 if (CACHESTATS)
                     cachestats.opHit++;
-                return entry.res;
+                return appexcache.res[entry];
             }
             if (CACHESTATS)
                 cachestats.opMiss++;
@@ -2062,17 +2175,17 @@ public class JFactory extends BDDFactoryIntImpl {
 
             POPREF(2);
 
-            entry.a = l;
-            entry.b = r;
-            entry.c = appexid;
-            entry.res = res;
+            appexcache.a[entry] = l;
+            appexcache.b[entry] = r;
+            appexcache.c[entry] = appexid;
+            appexcache.res[entry] = res;
         }
 
         return res;
     }
 
     int appuni_rec(int l, int r, int var) {
-        BddCacheDataI entry;
+        int entry;
         int res;
 
         int LEVEL_l, LEVEL_r, LEVEL_var;
@@ -2098,10 +2211,10 @@ public class JFactory extends BDDFactoryIntImpl {
             applyop = oldop;
         } else {
             entry = BddCache_lookupI(appexcache, APPEXHASH(l, r, appexop));
-            if (entry.a == l && entry.b == r && entry.c == appexid) {
+            if (appexcache.a[entry] == l && appexcache.b[entry] == r && appexcache.c[entry] == appexid) {
                 if (CACHESTATS)
                     cachestats.opHit++;
-                return entry.res;
+                return appexcache.res[entry];
             }
             if (CACHESTATS)
                 cachestats.opMiss++;
@@ -2149,17 +2262,17 @@ public class JFactory extends BDDFactoryIntImpl {
 
             POPREF(2);
 
-            entry.a = l;
-            entry.b = r;
-            entry.c = appexid;
-            entry.res = res;
+            appexcache.a[entry] = l;
+            appexcache.b[entry] = r;
+            appexcache.c[entry] = appexid;
+            appexcache.res[entry] = res;
         }
 
         return res;
     }
     
     int unique_rec(int r, int q) {
-        BddCacheDataI entry;
+        int entry;
         int res;
         int LEVEL_r, LEVEL_q;
 
@@ -2174,10 +2287,10 @@ public class JFactory extends BDDFactoryIntImpl {
             return r;
         
         entry = BddCache_lookupI(quantcache, QUANTHASH(r));
-        if (entry.a == r && entry.c == quantid) {
+        if (quantcache.a[entry] == r && quantcache.c[entry] == quantid) {
             if (CACHESTATS)
                 cachestats.opHit++;
-            return entry.res;
+            return quantcache.res[entry];
         }
         if (CACHESTATS)
             cachestats.opMiss++;
@@ -2194,25 +2307,25 @@ public class JFactory extends BDDFactoryIntImpl {
 
         POPREF(2);
 
-        entry.a = r;
-        entry.c = quantid;
-        entry.res = res;
+        quantcache.a[entry] = r;
+        quantcache.c[entry] = quantid;
+        quantcache.res[entry] = res;
 
         return res;
     }
     
     int quant_rec(int r) {
-        BddCacheDataI entry;
+        int entry;
         int res;
 
         if (r < 2 || LEVEL(r) > quantlast)
             return r;
 
         entry = BddCache_lookupI(quantcache, QUANTHASH(r));
-        if (entry.a == r && entry.c == quantid) {
+        if (quantcache.a[entry] == r && quantcache.c[entry] == quantid) {
             if (CACHESTATS)
                 cachestats.opHit++;
-            return entry.res;
+            return quantcache.res[entry];
         }
         if (CACHESTATS)
             cachestats.opMiss++;
@@ -2233,15 +2346,15 @@ public class JFactory extends BDDFactoryIntImpl {
 
         POPREF(2);
 
-        entry.a = r;
-        entry.c = quantid;
-        entry.res = res;
+        quantcache.a[entry] = r;
+        quantcache.c[entry] = quantid;
+        quantcache.res[entry] = res;
 
         return res;
     }
 
     int zquant_rec(int r, int lev) {
-        BddCacheDataI entry;
+        int entry;
         int res;
 
         for (;;) {
@@ -2267,10 +2380,10 @@ public class JFactory extends BDDFactoryIntImpl {
             return r;
         
         entry = BddCache_lookupI(quantcache, QUANTHASH(r));
-        if (entry.a == r && entry.c == quantid) {
+        if (quantcache.a[entry] == r && quantcache.c[entry] == quantid) {
             if (CACHESTATS)
                 cachestats.opHit++;
-            return entry.res;
+            return quantcache.res[entry];
         }
         if (CACHESTATS)
             cachestats.opMiss++;
@@ -2295,9 +2408,9 @@ public class JFactory extends BDDFactoryIntImpl {
             POPREF(2);
         }
 
-        entry.a = r;
-        entry.c = quantid;
-        entry.res = res;
+        quantcache.a[entry] = r;
+        quantcache.c[entry] = quantid;
+        quantcache.res[entry] = res;
 
         return res;
     }
@@ -2335,7 +2448,7 @@ public class JFactory extends BDDFactoryIntImpl {
     }
 
     int constrain_rec(int f, int c) {
-        BddCacheDataI entry;
+        int entry;
         int res;
 
         if (ISONE(c))
@@ -2348,10 +2461,10 @@ public class JFactory extends BDDFactoryIntImpl {
             return BDDZERO;
 
         entry = BddCache_lookupI(misccache, CONSTRAINHASH(f, c));
-        if (entry.a == f && entry.b == c && entry.c == miscid) {
+        if (misccache.a[entry] == f && misccache.b[entry] == c && misccache.c[entry] == miscid) {
             if (CACHESTATS)
                 cachestats.opHit++;
-            return entry.res;
+            return misccache.res[entry];
         }
         if (CACHESTATS)
             cachestats.opMiss++;
@@ -2385,10 +2498,10 @@ public class JFactory extends BDDFactoryIntImpl {
             }
         }
 
-        entry.a = f;
-        entry.b = c;
-        entry.c = miscid;
-        entry.res = res;
+        misccache.a[entry] = f;
+        misccache.b[entry] = c;
+        misccache.c[entry] = miscid;
+        misccache.res[entry] = res;
 
         return res;
     }
@@ -2432,17 +2545,17 @@ public class JFactory extends BDDFactoryIntImpl {
     }
 
     int compose_rec(int f, int g) {
-        BddCacheDataI entry;
+        int entry;
         int res;
 
         if (LEVEL(f) > composelevel)
             return f;
 
         entry = BddCache_lookupI(replacecache, COMPOSEHASH(f, g));
-        if (entry.a == f && entry.b == g && entry.c == replaceid) {
+        if (replacecache.a[entry] == f && replacecache.b[entry] == g && replacecache.c[entry] == replaceid) {
             if (CACHESTATS)
                 cachestats.opHit++;
-            return entry.res;
+            return replacecache.res[entry];
         }
         if (CACHESTATS)
             cachestats.opMiss++;
@@ -2467,10 +2580,10 @@ public class JFactory extends BDDFactoryIntImpl {
             res = ite_rec(g, HIGH(f), LOW(f));
         }
 
-        entry.a = f;
-        entry.b = g;
-        entry.c = replaceid;
-        entry.res = res;
+        replacecache.a[entry] = f;
+        replacecache.b[entry] = g;
+        replacecache.c[entry] = replaceid;
+        replacecache.res[entry] = res;
 
         return res;
     }
@@ -2511,17 +2624,17 @@ public class JFactory extends BDDFactoryIntImpl {
     }
 
     int veccompose_rec(int f) {
-        BddCacheDataI entry;
+        int entry;
         int res;
 
         if (LEVEL(f) > replacelast)
             return f;
 
         entry = BddCache_lookupI(replacecache, VECCOMPOSEHASH(f));
-        if (entry.a == f && entry.c == replaceid) {
+        if (replacecache.a[entry] == f && replacecache.c[entry] == replaceid) {
             if (CACHESTATS)
                 cachestats.opHit++;
-            return entry.res;
+            return replacecache.res[entry];
         }
         if (CACHESTATS)
             cachestats.opMiss++;
@@ -2531,9 +2644,9 @@ public class JFactory extends BDDFactoryIntImpl {
         res = ite_rec(replacepair[LEVEL(f)], READREF(1), READREF(2));
         POPREF(2);
 
-        entry.a = f;
-        entry.c = replaceid;
-        entry.res = res;
+        replacecache.a[entry] = f;
+        replacecache.c[entry] = replaceid;
+        replacecache.res[entry] = res;
 
         return res;
     }
@@ -2693,17 +2806,17 @@ public class JFactory extends BDDFactoryIntImpl {
     }
 
     int restrict_rec(int r) {
-        BddCacheDataI entry;
+        int entry;
         int res;
 
         if (ISCONST(r) || LEVEL(r) > quantlast)
             return r;
 
         entry = BddCache_lookupI(misccache, RESTRHASH(r, miscid));
-        if (entry.a == r && entry.c == miscid) {
+        if (misccache.a[entry] == r && misccache.c[entry] == miscid) {
             if (CACHESTATS)
                 cachestats.opHit++;
-            return entry.res;
+            return misccache.res[entry];
         }
         if (CACHESTATS)
             cachestats.opMiss++;
@@ -2721,9 +2834,9 @@ public class JFactory extends BDDFactoryIntImpl {
             POPREF(2);
         }
 
-        entry.a = r;
-        entry.c = miscid;
-        entry.res = res;
+        misccache.a[entry] = r;
+        misccache.c[entry] = miscid;
+        misccache.res[entry] = res;
 
         return res;
     }
@@ -2761,7 +2874,7 @@ public class JFactory extends BDDFactoryIntImpl {
     }
 
     int simplify_rec(int f, int d) {
-        BddCacheDataI entry;
+        int entry;
         int res;
 
         if (ISONE(d) || ISCONST(f))
@@ -2773,10 +2886,10 @@ public class JFactory extends BDDFactoryIntImpl {
 
         entry = BddCache_lookupI(applycache, APPLYHASH(f, d, bddop_simplify));
 
-        if (entry.a == f && entry.b == d && entry.c == bddop_simplify) {
+        if (applycache.a[entry] == f && applycache.b[entry] == d && applycache.c[entry] == bddop_simplify) {
             if (CACHESTATS)
                 cachestats.opHit++;
-            return entry.res;
+            return applycache.res[entry];
         }
         if (CACHESTATS)
             cachestats.opMiss++;
@@ -2803,10 +2916,10 @@ public class JFactory extends BDDFactoryIntImpl {
             POPREF(1);
         }
 
-        entry.a = f;
-        entry.b = d;
-        entry.c = bddop_simplify;
-        entry.res = res;
+        applycache.a[entry] = f;
+        applycache.b[entry] = d;
+        applycache.c[entry] = bddop_simplify;
+        applycache.res[entry] = res;
 
         return res;
     }
@@ -3173,15 +3286,22 @@ public class JFactory extends BDDFactoryIntImpl {
         bddfreepos = 0;
         bddfreenum = 0;
 
+        if (OPEN_ADDRESSING)
+            unique_clear_oa();
+
         for (n = bddnodesize - 1; n >= 2; n--) {
             if (LOW(n) != INVALID_BDD) {
                 int hash2;
 
+                if (OPEN_ADDRESSING) {
+                    unique_insert_oa(n);
+                    continue;
+                }
                 hash2 = NODEHASH(LEVEL(n), LOW(n), HIGH(n));
                 SETNEXT(n, HASH(hash2));
                 SETHASH(hash2, n);
             } else {
-                SETNEXT(n, bddfreepos);
+                SETNEXTFREE(n, bddfreepos);
                 bddfreepos = n;
                 bddfreenum++;
             }
@@ -3266,7 +3386,7 @@ public class JFactory extends BDDFactoryIntImpl {
     }
 
     double bdd_pathcount_rec(int r) {
-        BddCacheDataD entry;
+        int entry;
         double size;
 
         if (ISZERO(r))
@@ -3275,14 +3395,14 @@ public class JFactory extends BDDFactoryIntImpl {
             return 1.0;
 
         entry = BddCache_lookupD(countcache, PATHCOUHASH(r));
-        if (entry.a == r && entry.c == miscid)
-            return entry.dres;
+        if (countcache.a[entry] == r && countcache.c[entry] == miscid)
+            return countcache.dres[entry];
 
         size = bdd_pathcount_rec(LOW(r)) + bdd_pathcount_rec(HIGH(r));
 
-        entry.a = r;
-        entry.c = miscid;
-        entry.dres = size;
+        countcache.a[entry] = r;
+        countcache.c[entry] = miscid;
+        countcache.dres[entry] = size;
 
         return size;
     }
@@ -3320,15 +3440,15 @@ public class JFactory extends BDDFactoryIntImpl {
     }
 
     double satcount_rec(int root) {
-        BddCacheDataD entry;
+        int entry;
         double size, s;
 
         if (root < 2)
             return root;
 
         entry = BddCache_lookupD(countcache, SATCOUHASH(root));
-        if (entry.a == root && entry.c == miscid)
-            return entry.dres;
+        if (countcache.a[entry] == root && countcache.c[entry] == miscid)
+            return countcache.dres[entry];
 
         size = 0;
         s = 1;
@@ -3341,9 +3461,9 @@ public class JFactory extends BDDFactoryIntImpl {
             s *= Math.pow(2.0, (float) (LEVEL(HIGH(root)) - LEVEL(root) - 1));
         size += s * satcount_rec(HIGH(root));
 
-        entry.a = root;
-        entry.c = miscid;
-        entry.dres = size;
+        countcache.a[entry] = root;
+        countcache.c[entry] = miscid;
+        countcache.dres[entry] = size;
 
         return size;
     }
@@ -3372,24 +3492,32 @@ public class JFactory extends BDDFactoryIntImpl {
         for (n = 0; n < bddnodesize; n++) {
             if (HASREF(n))
                 bdd_mark(n);
-            SETHASH(n, 0);
+            if (!OPEN_ADDRESSING)
+                SETHASH(n, 0);
         }
 
         bddfreepos = 0;
         bddfreenum = 0;
 
+        if (OPEN_ADDRESSING)
+            unique_clear_oa();
+
         for (n = bddnodesize - 1; n >= 2; n--) {
 
             if (MARKED(n) && LOW(n) != INVALID_BDD) {
                 int hash2;
 
                 UNMARK(n);
+                if (OPEN_ADDRESSING) {
+                    unique_insert_oa(n);
+                    continue;
+                }
                 hash2 = NODEHASH(LEVEL(n), LOW(n), HIGH(n));
                 SETNEXT(n, HASH(hash2));
                 SETHASH(hash2, n);
             } else {
                 SETLOW(n, INVALID_BDD);
-                SETNEXT(n, bddfreepos);
+                SETNEXTFREE(n, bddfreepos);
                 bddfreepos = n;
                 bddfreenum++;
             }
@@ -3525,6 +3653,9 @@ public class JFactory extends BDDFactoryIntImpl {
         int hash2;
         int res;
 
+        if (OPEN_ADDRESSING)
+            return makenode_oa(level, low, high);
+
         /* Try to find an existing node of this kind */
         hash2 = NODEHASH(level, low, high);
         res = HASH(hash2);
@@ -3574,7 +3705,7 @@ public class JFactory extends BDDFactoryIntImpl {
 
         /* Build new node */
         res = bddfreepos;
-        bddfreepos = NEXT(bddfreepos);
+        bddfreepos = NEXTFREE(bddfreepos);
         bddfreenum--;
         bddproduced++;
 
@@ -3589,6 +3720,80 @@ public class JFactory extends BDDFactoryIntImpl {
         return res;
     }
 
+    // Same as makenode, but probes the open addressing unique table.
+    private int makenode_oa(int level, int low, int high) {
+        int[] hash = bddhash;
+        int mask = hash.length - 1;
+        int slot;
+        int res;
+
+        /* Try to find an existing node of this kind */
+        slot = NODEHASH_OA(level, low, high);
+
+        while ((res = hash[slot]) != 0) {
+            if (LEVEL(res) == level && LOW(res) == low && HIGH(res) == high) {
+                if (CACHESTATS)
+                    cachestats.uniqueHit++;
+                return res;
+            }
+
+            slot = (slot + 1) & mask;
+            if (CACHESTATS)
+                cachestats.uniqueChain++;
+        }
+
+        /* No existing node => build one */
+        if (CACHESTATS)
+            cachestats.uniqueMiss++;
+
+        /* Any free nodes to use ? */
+        if (bddfreepos == 0) {
+            if (bdderrorcond != 0)
+                return 0;
+
+            /* Try to allocate more nodes */
+            bdd_gbc();
+
+            if ((bddnodesize-bddfreenum) >= usednodes_nextreorder  &&
+                bdd_reorder_ready())
+            {
+                throw new ReorderException();
+            }
+
+            if ((bddfreenum * 100) / bddnodesize <= minfreenodes) {
+                bdd_noderesize(true);
+            }
+
+            /* Panic if that is not possible */
+            if (bddfreepos == 0) {
+                bdd_error(BDD_NODENUM);
+                bdderrorcond = Math.abs(BDD_NODENUM);
+                return 0;
+            }
+
+            /* The table was rebuilt, so find the new free slot */
+            slot = -1;
+        }
+
+        /* Build new node */
+        res = bddfreepos;
+        bddfreepos = NEXTFREE(bddfreepos);
+        bddfreenum--;
+        bddproduced++;
+
+        SETLEVELANDMARK(res, level);
+        SETLOW(res, low);
+        SETHIGH(res, high);
+
+        /* Insert node */
+        if (slot < 0)
+            unique_insert_oa(res);
+        else
+            bddhash[slot] = res;
+
+        return res;
+    }
+
     int bdd_noderesize(boolean doRehash) {
         int oldsize = bddnodesize;
         int newsize = bddnodesize;
@@ -3625,14 +3830,18 @@ public class JFactory extends BDDFactoryIntImpl {
         
         resize_handler(oldsize, newsize);
         
-        int[] newnodes;
         int n;
-        newnodes = new int[newsize*__node_size];
-        System.arraycopy(bddnodes, 0, newnodes, 0, bddnodes.length);
-        bddnodes = newnodes;
+        bdd_nodealloc(newsize);
         bddnodesize = newsize;
 
-        if (doRehash)
+        if (OPEN_ADDRESSING && bddlinks != null) {
+            /* Resized while reordering, keep the hash chains */
+            int[] newlinks = new int[newsize*__link_size];
+            System.arraycopy(bddlinks, 0, newlinks, 0, bddlinks.length);
+            bddlinks = newlinks;
+        }
+
+        if (doRehash && !OPEN_ADDRESSING)
             for (n = 0; n < oldsize; n++)
                 SETHASH(n, 0);
 
@@ -3641,9 +3850,9 @@ public class JFactory extends BDDFactoryIntImpl {
             //SETREFCOU(n, 0);
             //SETHASH(n, 0);
             //SETLEVEL(n, 0);
-            SETNEXT(n, n+1);
+            SETNEXTFREE(n, n+1);
         }
-        SETNEXT(bddnodesize-1, bddfreepos);
+        SETNEXTFREE(bddnodesize-1, bddfreepos);
         bddfreepos = oldsize;
         bddfreenum += bddnodesize - oldsize;
 
@@ -3663,7 +3872,7 @@ public class JFactory extends BDDFactoryIntImpl {
 
         bddnodesize = bdd_prime_gte(initnodesize);
 
-        bddnodes = new int[bddnodesize*__node_size];
+        bdd_nodealloc(bddnodesize);
 
         bddresized = false;
 
@@ -3672,9 +3881,12 @@ public class JFactory extends BDDFactoryIntImpl {
             //SETREFCOU(n, 0);
             //SETHASH(n, 0);
             //SETLEVEL(n, 0);
-            SETNEXT(n, n+1);
+            SETNEXTFREE(n, n+1);
         }
-        SETNEXT(bddnodesize-1, 0);
+        SETNEXTFREE(bddnodesize-1, 0);
+
+        if (OPEN_ADDRESSING)
+            unique_clear_oa();
 
         SETMAXREF(0);
         SETMAXREF(1);
@@ -3870,97 +4082,80 @@ public class JFactory extends BDDFactoryIntImpl {
     }
 
     BddCache BddCacheI_init(int size) {
-        int n;
-
         size = bdd_prime_gte(size);
 
         BddCache cache = new BddCache();
-        cache.table = new BddCacheDataI[size];
-
-        for (n = 0; n < size; n++) {
-            cache.table[n] = new BddCacheDataI();
-            cache.table[n].a = -1;
-        }
-        cache.tablesize = size;
+        BddCache_alloc(cache, size, false);
 
         return cache;
     }
 
     BddCache BddCacheD_init(int size) {
-        int n;
-
         size = bdd_prime_gte(size);
 
         BddCache cache = new BddCache();
-        cache.table = new BddCacheDataD[size];
-
-        for (n = 0; n < size; n++) {
-            cache.table[n] = new BddCacheDataD();
-            cache.table[n].a = -1;
-        }
-        cache.tablesize = size;
+        BddCache_alloc(cache, size, true);
 
         return cache;
     }
 
+    void BddCache_alloc(BddCache cache, int size, boolean is_d) {
+        cache.a = new int[size];
+        cache.b = new int[size];
+        cache.c = new int[size];
+        if (is_d)
+            cache.dres = new double[size];
+        else
+            cache.res = new int[size];
+        Arrays.fill(cache.a, -1);
+        cache.tablesize = size;
+    }
+
     void BddCache_done(BddCache cache) {
         if (cache == null) return;
         
-        free(cache.table);
-        cache.table = null;
+        free(cache.a); free(cache.b); free(cache.c);
+        free(cache.res); free(cache.dres);
+        cache.a = cache.b = cache.c = cache.res = null;
+        cache.dres = null;
         cache.tablesize = 0;
     }
 
     int BddCache_resize(BddCache cache, int newsize) {
         if (cache == null) return 0;
-        int n;
 
-        boolean is_d = cache.table instanceof BddCacheDataD[];
+        boolean is_d = cache.dres != null;
 
-        free(cache.table);
-        cache.table = null;
+        BddCache_done(cache);
 
         newsize = bdd_prime_gte(newsize);
 
-        if (is_d)
-            cache.table = new BddCacheDataD[newsize];
-        else
-            cache.table = new BddCacheDataI[newsize];
-
-        for (n = 0; n < newsize; n++) {
-            if (is_d)
-                cache.table[n] = new BddCacheDataD();
-            else
-                cache.table[n] = new BddCacheDataI();
-            cache.table[n].a = -1;
-        }
-        cache.tablesize = newsize;
+        BddCache_alloc(cache, newsize, is_d);
 
         return 0;
     }
 
-    BddCacheDataI BddCache_lookupI(BddCache cache, int hash) {
-        return (BddCacheDataI) cache.table[Math.abs(hash % cache.tablesize)];
+    int BddCache_lookupI(BddCache cache, int hash) {
+        return Math.abs(hash % cache.tablesize);
     }
 
-    BddCacheDataD BddCache_lookupD(BddCache cache, int hash) {
-        return (BddCacheDataD) cache.table[Math.abs(hash % cache.tablesize)];
+    int BddCache_lookupD(BddCache cache, int hash) {
+        return Math.abs(hash % cache.tablesize);
     }
 
     void BddCache_reset(BddCache cache) {
         if (cache == null) return;
-        int n;
-        for (n = 0; n < cache.tablesize; n++)
-            cache.table[n].a = -1;
+        Arrays.fill(cache.a, 0, cache.tablesize, -1);
     }
 
     void BddCache_clean_d(BddCache cache) {
         if (cache == null) return;
         int n;
+        int[] ca = cache.a;
         for (n = 0; n < cache.tablesize; n++) {
-            int a = cache.table[n].a;
+            int a = ca[n];
             if (a >= 0 && LOW(a) == INVALID_BDD) {
-                cache.table[n].a = -1;
+                ca[n] = -1;
             }
         }
     }
@@ -3968,12 +4163,13 @@ public class JFactory extends BDDFactoryIntImpl {
     void BddCache_clean_a(BddCache cache) {
         if (cache == null) return;
         int n;
+        int[] ca = cache.a, cres = cache.res;
         for (n = 0; n < cache.tablesize; n++) {
-            int a = cache.table[n].a;
+            int a = ca[n];
             if (a < 0) continue;
             if (LOW(a) == INVALID_BDD ||
-                LOW(((BddCacheDataI)cache.table[n]).res) == INVALID_BDD) {
-                cache.table[n].a = -1;
+                LOW(cres[n]) == INVALID_BDD) {
+                ca[n] = -1;
             }
         }
     }
@@ -3981,13 +4177,14 @@ public class JFactory extends BDDFactoryIntImpl {
     void BddCache_clean_ab(BddCache cache) {
         if (cache == null) return;
         int n;
+        int[] ca = cache.a, cb = cache.b, cres = cache.res;
         for (n = 0; n < cache.tablesize; n++) {
-            int a = cache.table[n].a;
+            int a = ca[n];
             if (a < 0) continue;
             if (LOW(a) == INVALID_BDD ||
-                (cache.table[n].b != 0 && LOW(cache.table[n].b) == INVALID_BDD) ||
-                LOW(((BddCacheDataI)cache.table[n]).res) == INVALID_BDD) {
-                cache.table[n].a = -1;
+                (cb[n] != 0 && LOW(cb[n]) == INVALID_BDD) ||
+                LOW(cres[n]) == INVALID_BDD) {
+                ca[n] = -1;
             }
         }
     }
@@ -3995,14 +4192,15 @@ public class JFactory extends BDDFactoryIntImpl {
     void BddCache_clean_abc(BddCache cache) {
         if (cache == null) return;
         int n;
+        int[] ca = cache.a, cb = cache.b, cc = cache.c, cres = cache.res;
         for (n = 0; n < cache.tablesize; n++) {
-            int a = cache.table[n].a;
+            int a = ca[n];
             if (a < 0) continue;
             if (LOW(a) == -1 ||
-                LOW(cache.table[n].b) == INVALID_BDD ||
-                LOW(cache.table[n].c) == INVALID_BDD ||
-                LOW(((BddCacheDataI)cache.table[n]).res) == INVALID_BDD) {
-                cache.table[n].a = -1;
+                LOW(cb[n]) == INVALID_BDD ||
+                LOW(cc[n]) == INVALID_BDD ||
+                LOW(cres[n]) == INVALID_BDD) {
+                ca[n] = -1;
             }
         }
     }
@@ -4967,12 +5165,16 @@ public class JFactory extends BDDFactoryIntImpl {
         bdd_pairs_done();
 
         free(bddnodes);
+        free(bddchunks);
+        free(bddhash);
         free(bddrefstack);
         free(bddvarset);
         free(bddvar2level);
         free(bddlevel2var);
 
         bddnodes = null;
+        bddchunks = null;
+        bddhash = null;
         bddrefstack = null;
         bddvarset = null;
         bddvar2level = null;
@@ -5406,7 +5608,7 @@ public class JFactory extends BDDFactoryIntImpl {
                 SETNEXT(n, HASH(hash2));
                 SETHASH(hash2, n);
             } else {
-                SETNEXT(n, bddfreepos);
+                SETNEXTFREE(n, bddfreepos);
                 bddfreepos = n;
             }
         }
@@ -5434,7 +5636,7 @@ public class JFactory extends BDDFactoryIntImpl {
                     DECREF(HIGH(r));
 
                     SETLOW(r, INVALID_BDD);
-                    SETNEXT(r, bddfreepos);
+                    SETNEXTFREE(r, bddfreepos);
                     bddfreepos = r;
                     levels[var1].nodenum--;
                     bddfreenum++;
@@ -5562,7 +5764,7 @@ public class JFactory extends BDDFactoryIntImpl {
                     DECREF(HIGH(r));
 
                     SETLOW(r, INVALID_BDD);
-                    SETNEXT(r, bddfreepos);
+                    SETNEXTFREE(r, bddfreepos);
                     bddfreepos = r;
                     levels[var1].nodenum--;
                     bddfreenum++;
@@ -5725,7 +5927,7 @@ public class JFactory extends BDDFactoryIntImpl {
 
         /* Build new node */
         res = bddfreepos;
-        bddfreepos = NEXT(bddfreepos);
+        bddfreepos = NEXTFREE(bddfreepos);
         levels[var].nodenum++;
         bddproduced++;
         bddfreenum--;
@@ -5758,6 +5960,10 @@ public class JFactory extends BDDFactoryIntImpl {
 
         reorder_handler(true, reorderstats);
         
+        // The per-variable hash chains need the hash and next fields.
+        if (OPEN_ADDRESSING)
+            bddlinks = new int[bddnodesize*__link_size];
+        
         // Split the hash table into a separate region for each variable.
         levels = new levelData[bddvarnum];
         for (n = 0; n < bddvarnum; n++) {
@@ -5916,7 +6122,7 @@ public class JFactory extends BDDFactoryIntImpl {
 
             } else {
                 SETLOW(n, INVALID_BDD);
-                SETNEXT(n, bddfreepos);
+                SETNEXTFREE(n, bddfreepos);
                 bddfreepos = n;
                 bddfreenum++;
             }
@@ -5944,6 +6150,10 @@ public class JFactory extends BDDFactoryIntImpl {
         imatrixDelete(iactmtx);
         bdd_gbc();
         
+        // bdd_gbc rebuilt the open addressing table, drop the chains.
+        if (OPEN_ADDRESSING)
+            bddlinks = null;
+        
         reorder_handler(false, reorderstats);
     }
 
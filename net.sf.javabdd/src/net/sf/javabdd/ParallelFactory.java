@@ -0,0 +1,2252 @@
+// ParallelFactory.java
+// Licensed under the terms of the GNU LGPL; see COPYING for details.
+package net.sf.javabdd;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <p>A 100% Java BDD factory that runs every operation on a pool of worker
+ * threads, in the style of Sylvan.  Edges and complement bits are encoded
+ * as in ComplementEdgeFactory.</p>
+ *
+ * <p>Workers share one open addressing unique table.  A node is inserted by
+ * a compare-and-set on an empty bucket, after its fields have been written
+ * to a node the worker took from its own block of free nodes, so lookups
+ * never lock.  Operation results go to lossy caches whose entries are
+ * immutable, so a racing write only loses an entry.  and, xor, ite, exist
+ * and relprod fork the high branch onto the work-stealing pool while the
+ * current worker computes the low branch; the other operations run on one
+ * worker.</p>
+ *
+ * <p>Garbage is only collected between operations.  An operation that runs
+ * out of free nodes is aborted; the table is collected, grown if needed and
+ * the operation restarted from scratch.  The variable order is fixed to the
+ * identity.  The number of workers is taken from the bdd.threads property
+ * and defaults to the number of processors; bdd.forkdepth bounds the
+ * recursion depth up to which work is forked.</p>
+ *
+ * <p>This factory is experimental.  Its speedup over ComplementEdgeFactory
+ * has not been measured on a multi-core machine, so it is not one of the
+ * packages named by BDDFactory.init; it can be selected by passing its
+ * class name, net.sf.javabdd.ParallelFactory, to BDDFactory.init.</p>
+ *
+ * @version $Id$
+ */
+@SuppressWarnings({"unused", "rawtypes"})
+public class ParallelFactory extends BDDFactoryIntImpl {
+
+    public String getVersion() {
+        return "ParallelFactory";
+    }
+
+    private ParallelFactory() { }
+
+    /* (non-Javadoc)
+     * @see net.sf.javabdd.BDDFactory#init(int, int)
+     */
+    public static BDDFactory init(int nodenum, int cachesize) {
+        BDDFactory f = new ParallelFactory();
+        f.initialize(nodenum, cachesize);
+        return f;
+    }
+
+    /**
+     * Implementation of BDDPairing used by ParallelFactory.
+     */
+    class bddPair extends BDDPairing {
+        int[] result;
+        int last;
+        int id;
+        bddPair next;
+
+        /* (non-Javadoc)
+         * @see net.sf.javabdd.BDDPairing#set(int, int)
+         */
+        public void set(int oldvar, int newvar) {
+            bdd_setpair(this, oldvar, newvar);
+        }
+        /* (non-Javadoc)
+         * @see net.sf.javabdd.BDDPairing#set(int, net.sf.javabdd.BDD)
+         */
+        public void set(int oldvar, BDD newvar) {
+            bdd_setbddpair(this, oldvar, unwrap(newvar));
+        }
+        /* (non-Javadoc)
+         * @see net.sf.javabdd.BDDPairing#reset()
+         */
+        public void reset() {
+            bdd_resetpair(this);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see net.sf.javabdd.BDDFactory#makePair()
+     */
+    public BDDPairing makePair() {
+        bddPair p = new bddPair();
+        p.result = new int[bddvarnum];
+        for (int n = 0; n < bddvarnum; n++)
+            p.result[n] = bdd_ithvar(n);
+        p.id = update_pairsid();
+        p.last = -1;
+        p.next = pairs;
+        pairs = p;
+        return p;
+    }
+
+    protected void addref_impl(int v) { bdd_addref(v); }
+    protected void delref_impl(int v) { bdd_delref(v); }
+    protected int zero_impl() { return BDDZERO; }
+    protected int one_impl() { return BDDONE; }
+    protected int invalid_bdd_impl() { return INVALID_BDD; }
+    protected int var_impl(int v) { return bdd_var(v); }
+    protected int level_impl(int v) { return LEVEL(v); }
+    protected int low_impl(int v) { return bdd_low(v); }
+    protected int high_impl(int v) { return bdd_high(v); }
+    protected int ithVar_impl(int var) { return bdd_ithvar(var); }
+    protected int nithVar_impl(int var) { return bdd_nithvar(var); }
+
+    protected int makenode_impl(int lev, int lo, int hi) {
+        CHECK(lo); CHECK(hi);
+        return bdd_run(OP_MAKENODE, lev, lo, hi);
+    }
+    protected int ite_impl(int v1, int v2, int v3) { return bdd_ite(v1, v2, v3); }
+    protected int apply_impl(int v1, int v2, BDDOp opr) { return bdd_apply(v1, v2, opr.id); }
+    protected int not_impl(int v1) { CHECK(v1); return v1 ^ 1; }
+    protected int applyAll_impl(int v1, int v2, BDDOp opr, int v3) { return bdd_appall(v1, v2, opr.id, v3); }
+    protected int applyEx_impl(int v1, int v2, BDDOp opr, int v3) { return bdd_appex(v1, v2, opr.id, v3); }
+    protected int applyUni_impl(int v1, int v2, BDDOp opr, int v3) { return bdd_appuni(v1, v2, opr.id, v3); }
+    protected int compose_impl(int v1, int v2, int var) { return bdd_compose(v1, v2, var); }
+    protected int constrain_impl(int v1, int v2) { return bdd_constrain(v1, v2); }
+    protected int restrict_impl(int v1, int v2) { return bdd_restrict(v1, v2); }
+    protected int simplify_impl(int v1, int v2) { return bdd_simplify(v1, v2); }
+    protected int support_impl(int v) { return bdd_support(v); }
+    protected int exist_impl(int v1, int v2) { return bdd_exist(v1, v2); }
+    protected int forAll_impl(int v1, int v2) { return bdd_forall(v1, v2); }
+    protected int unique_impl(int v1, int v2) { return bdd_unique(v1, v2); }
+    protected int fullSatOne_impl(int v) { return bdd_fullsatone(v); }
+
+    protected int replace_impl(int v, BDDPairing p) { return bdd_replace(v, (bddPair)p); }
+    protected int veccompose_impl(int v, BDDPairing p) { return bdd_veccompose(v, (bddPair)p); }
+
+    protected int nodeCount_impl(int v) { return bdd_nodecount(v); }
+    protected double pathCount_impl(int v) { return bdd_pathcount(v); }
+    protected double satCount_impl(int v) { return bdd_satcount(v); }
+    protected int satOne_impl(int v) { return bdd_satone(v); }
+    protected int satOne_impl2(int v1, int v2, boolean pol) { return bdd_satoneset(v1, v2, pol); }
+    protected int nodeCount_impl2(int[] v) { return bdd_anodecount(v); }
+    protected int[] varProfile_impl(int v) { return bdd_varprofile(v); }
+    protected void printTable_impl(int v) { bdd_fprinttable(System.out, v); }
+
+    protected void initialize(int initnodesize, int cs) { bdd_init(initnodesize, cs); }
+    public boolean isInitialized() { return bddrunning; }
+    public void done() { super.done(); bdd_done(); }
+    public void setError(int code) { bdderrorcond = code; }
+    public void clearError() { bdderrorcond = 0; }
+    public int setMaxNodeNum(int size) { return bdd_setmaxnodenum(size); }
+    public double setMinFreeNodes(double x) { return bdd_setminfreenodes((int)(x * 100.)) / 100.; }
+    public int setMaxIncrease(int x) { return bdd_setmaxincrease(x); }
+    public double setIncreaseFactor(double x) { return bdd_setincreasefactor(x); }
+    public double setCacheRatio(double x) { return bdd_setcacheratio((int)x); }
+    public int setNodeTableSize(int size) { return bdd_setallocnum(size); }
+    public int setCacheSize(int v) { return bdd_setcachesize(v); }
+    public int varNum() { return bddvarnum; }
+    public int setVarNum(int num) { return bdd_setvarnum(num); }
+    public void printAll() { bdd_fprintall(System.out); }
+    public int level2Var(int level) { return level; }
+    public int var2Level(int var) { return var; }
+    public int getNodeTableSize() { return bddnodesize; }
+    public int getNodeNum() { return bddnodesize - 1 - bdd_freenodes(); }
+    public int getCacheSize() { return cachesize; }
+    public void printStat() { bdd_fprintstat(System.out); }
+
+    /* The variable order is the identity; reordering is a no-op. */
+    public void reorder(ReorderMethod m) { }
+    public void autoReorder(ReorderMethod method) { reordermethod = method; }
+    public void autoReorder(ReorderMethod method, int max) { reordermethod = method; }
+    public ReorderMethod getReorderMethod() { return reordermethod; }
+    public int getReorderTimes() { return 0; }
+    public void disableReorder() { }
+    public void enableReorder() { }
+    public int reorderGain() { return 0; }
+    public int reorderVerbose(int v) {
+        int old = reorderverbose;
+        reorderverbose = v;
+        return old;
+    }
+    public void addVarBlock(int first, int last, boolean fixed) { }
+    public void varBlockAll() { }
+    public void clearVarBlocks() { }
+
+    public void setVarOrder(int[] neworder) {
+        if (neworder.length != bddvarnum)
+            throw new BDDException("Mismatch in size of variable order");
+        for (int n = 0; n < neworder.length; n++)
+            if (neworder[n] != n)
+                throw new BDDException(getVersion() + " does not support variable reordering");
+    }
+
+    public void swapVar(int v1, int v2) {
+        if (v1 < 0 || v1 >= bddvarnum || v2 < 0 || v2 >= bddvarnum)
+            bdd_error(BDD_VAR);
+        if (v1 != v2)
+            throw new BDDException(getVersion() + " does not support variable reordering");
+    }
+
+    public void printOrder() {
+        for (int n = 0; n < bddvarnum; n++)
+            System.out.print((n > 0 ? " " : "") + n);
+        System.out.println();
+    }
+
+    /***** IMPLEMENTATION BELOW *****/
+
+    static final int MARK_MASK = 0x00200000;
+    static final int LEV_MASK = 0x001FFFFF;
+    static final int MAXVAR = LEV_MASK;
+    static final int MAXREF = Integer.MAX_VALUE;
+    static final int MAXNODES = 1 << 30;
+    static final int INVALID_BDD = -1;
+
+    static final int offset__level = 0;
+    static final int offset__low = 1;
+    static final int offset__high = 2;
+    static final int __node_size = 3;
+
+    /* Node 0 is the only terminal: the regular edge to it is true and the
+     * complemented edge is false. */
+    static final int BDDONE = 0;
+    static final int BDDZERO = 1;
+
+    /* Number of free nodes a worker takes at once. */
+    static final int ALLOC_BLOCK = 64;
+
+    /* Accessors on node indices.  Reference counts and marks are only
+     * touched between operations, by the thread using the factory. */
+
+    private final boolean HASREF(int node) {
+        return bddrefcou[node] != 0;
+    }
+
+    private final void SETMAXREF(int node) {
+        bddrefcou[node] = MAXREF;
+    }
+
+    private final void INCREF(int node) {
+        if (bddrefcou[node] != MAXREF)
+            bddrefcou[node]++;
+    }
+
+    private final void DECREF(int node) {
+        int rc = bddrefcou[node];
+        if (rc != MAXREF && rc != 0)
+            bddrefcou[node] = rc - 1;
+    }
+
+    private final int LEVELn(int node) {
+        return bddnodes[node*__node_size + offset__level] & LEV_MASK;
+    }
+
+    private final void SETMARK(int n) {
+        bddnodes[n*__node_size + offset__level] |= MARK_MASK;
+    }
+
+    private final void UNMARK(int n) {
+        bddnodes[n*__node_size + offset__level] &= ~MARK_MASK;
+    }
+
+    private final boolean MARKED(int n) {
+        return (bddnodes[n*__node_size + offset__level] & MARK_MASK) != 0;
+    }
+
+    private final int LOWn(int n) {
+        return bddnodes[n*__node_size + offset__low];
+    }
+
+    private final void SETLOWn(int n, int v) {
+        bddnodes[n*__node_size + offset__low] = v;
+    }
+
+    private final int HIGHn(int n) {
+        return bddnodes[n*__node_size + offset__high];
+    }
+
+    /* Accessors on edges. */
+
+    private final int LEVEL(int r) {
+        return LEVELn(r >>> 1);
+    }
+
+    private final int LOW(int r) {
+        return LOWn(r >>> 1) ^ (r & 1);
+    }
+
+    private final int HIGH(int r) {
+        return HIGHn(r >>> 1) ^ (r & 1);
+    }
+
+    static final boolean ISZERO(int r) {
+        return r == BDDZERO;
+    }
+
+    static final boolean ISONE(int r) {
+        return r == BDDONE;
+    }
+
+    static final boolean ISCONST(int r) {
+        return r < 2;
+    }
+
+    /**
+     * Thrown by a worker that finds no free node; the operation is aborted
+     * and restarted after the node table is collected or grown.
+     */
+    static final class TableFullException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        public TableFullException() { }
+        public TableFullException(Throwable cause) { super(cause); }
+        public Throwable fillInStackTrace() { return this; }
+    }
+
+    static final TableFullException TABLE_FULL = new TableFullException();
+
+    /**
+     * A worker thread, holding the free nodes it may use without
+     * synchronization.
+     */
+    static final class Worker extends ForkJoinWorkerThread {
+        int next; /* Next position in freenodes of the current block */
+        int end; /* End of the current block */
+        int spare; /* Node taken but not inserted by a lost race, or 0 */
+        int generation = -1; /* Value of freegeneration the block belongs to */
+
+        Worker(ForkJoinPool pool) {
+            super(pool);
+            setDaemon(true);
+        }
+    }
+
+    /**
+     * A lossy cache shared by the workers.  Entries are immutable and
+     * replaced whole, so a reader sees either an old or a new entry and
+     * concurrent writes to a slot only lose one of them.
+     */
+    static final class OpCache {
+        static final class Entry {
+            final int a, b, c, res;
+            Entry(int a, int b, int c, int res) {
+                this.a = a; this.b = b; this.c = c; this.res = res;
+            }
+        }
+
+        AtomicReferenceArray<Entry> table;
+        int mask;
+
+        OpCache(int size) {
+            size = Integer.highestOneBit(Math.max(size, 4) * 2 - 1);
+            table = new AtomicReferenceArray<Entry>(size);
+            mask = size - 1;
+        }
+
+        final int lookup(int a, int b, int c) {
+            Entry e = table.get(CACHEHASH(a, b, c) & mask);
+            if (e != null && e.a == a && e.b == b && e.c == c)
+                return e.res;
+            return -1;
+        }
+
+        final void store(int a, int b, int c, int res) {
+            table.lazySet(CACHEHASH(a, b, c) & mask, new Entry(a, b, c, res));
+        }
+
+        void reset() {
+            table = new AtomicReferenceArray<Entry>(table.length());
+        }
+    }
+
+    boolean bddrunning; /* Flag - package initialized */
+    int bdderrorcond; /* Some error condition */
+    int bddnodesize; /* Number of allocated nodes */
+    int bddmaxnodesize; /* Maximum allowed number of nodes */
+    int bddmaxnodeincrease; /* Max. # of nodes used to inc. table */
+    double increasefactor; /* Growth factor of the node table, 0 doubles it */
+    int[] bddnodes; /* All of the bdd nodes: level, low and high */
+    int[] bddrefcou; /* External reference counts */
+    AtomicLongArray bddhash; /* Unique table of hash and node pairs, 0 if empty */
+    int[] freenodes; /* Free nodes, handed out to workers in blocks */
+    int freenum; /* Number of entries in freenodes */
+    AtomicInteger freepos = new AtomicInteger(); /* Start of the next block */
+    volatile int freegeneration; /* Incremented whenever freenodes is rebuilt */
+    volatile boolean aborted; /* Set when the current operation must stop */
+    int bddproduced; /* Number of nodes ever produced */
+    int bddvarnum; /* Number of defined BDD variables */
+    int[] bddvarset; /* ithvar and nithvar edges of every variable */
+    int gbcollectnum; /* Number of garbage collections */
+    long gbcclock; /* Clock ticks used in GBC */
+    int cachesize; /* Size of the operator caches */
+    int cacheratio; /* Nodes per cache entry, 0 for a fixed cache size */
+    int minfreenodes = 20;
+    int reorderverbose;
+    ReorderMethod reordermethod = REORDER_NONE;
+    ForkJoinPool pool; /* The workers */
+    int forkdepth; /* Recursion depth up to which work is forked */
+
+    static final int BDD_MEMORY = (-1); /* Out of memory */
+    static final int BDD_VAR = (-2); /* Unknown variable */
+    static final int BDD_RANGE = (-3); /* Variable value out of range (not in domain) */
+    static final int BDD_DEREF = (-4); /* Removing external reference to unknown node */
+    static final int BDD_RUNNING = (-5); /* Called bdd_init() twice without bdd_done() */
+    static final int BDD_NODES = (-11); /* Tried to set max. number of nodes to be fewer */
+                                        /* than there already has been allocated */
+    static final int BDD_OP = (-12); /* Unknown operator */
+    static final int BDD_VARSET = (-13); /* Illegal variable set */
+    static final int BDD_DECVNUM = (-15); /* Trying to decrease the number of variables */
+    static final int BDD_REPLACE = (-16); /* Replacing to already existing variables */
+    static final int BDD_NODENUM = (-17); /* Number of nodes reached user defined maximum */
+    static final int BDD_ILLBDD = (-18); /* Illegal bdd argument */
+    static final int BDD_SIZE = (-19); /* Illegal size argument */
+
+    static final int DEFAULTMAXNODEINC = 10000000;
+
+    static int bdd_error(int v) {
+        String message;
+        switch (v) {
+        case BDD_MEMORY: message = "Out of memory"; break;
+        case BDD_VAR: message = "Unknown variable"; break;
+        case BDD_RANGE: message = "Value out of range"; break;
+        case BDD_DEREF: message = "Unknown BDD root dereferenced"; break;
+        case BDD_RUNNING: message = "bdd_init() called twice"; break;
+        case BDD_NODES: message = "Cannot allocate fewer nodes than already in use"; break;
+        case BDD_OP: message = "Unknown operator"; break;
+        case BDD_VARSET: message = "Illegal variable set"; break;
+        case BDD_DECVNUM: message = "Trying to decrease the number of variables"; break;
+        case BDD_REPLACE: message = "Replacing to already existing variables"; break;
+        case BDD_NODENUM: message = "Number of nodes reached user defined maximum"; break;
+        case BDD_ILLBDD: message = "Unknown BDD - was not in node table"; break;
+        case BDD_SIZE: message = "Bad size argument"; break;
+        default: message = "Error " + v; break;
+        }
+        throw new BDDException(message);
+    }
+
+    void CHECK(int r) {
+        if (!bddrunning)
+            bdd_error(BDD_RUNNING);
+        if (r < 0 || (r >>> 1) >= bddnodesize)
+            bdd_error(BDD_ILLBDD);
+        if (r >= 2 && LOWn(r >>> 1) == INVALID_BDD)
+            bdd_error(BDD_ILLBDD);
+    }
+
+    /*=== TASKS ============================================================*/
+
+    static final int OP_MAKENODE = 0;
+    static final int OP_AND = 1;
+    static final int OP_XOR = 2;
+    static final int OP_ITE = 3;
+    static final int OP_EXIST = 4;
+    static final int OP_RELPROD = 5;
+    static final int OP_UNIQUE = 6;
+    static final int OP_APPUNI = 7;
+    static final int OP_RESTRICT = 8;
+    static final int OP_CONSTRAIN = 9;
+    static final int OP_SIMPLIFY = 10;
+    static final int OP_COMPOSE = 11;
+    static final int OP_VECCOMPOSE = 12;
+    static final int OP_REPLACE = 13;
+    static final int OP_SUPPORT = 14;
+    static final int OP_SATONE = 15;
+    static final int OP_SATONESET = 16;
+    static final int OP_FULLSATONE = 17;
+
+    /* Depth passed to the recursions of the operations that do not fork. */
+    static final int NOFORK = 1 << 30;
+
+    /**
+     * One recursive call of an operation, run by whichever worker takes it.
+     */
+    final class Task extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        final int op, a, b, c, depth;
+        int result;
+
+        Task(int op, int a, int b, int c, int depth) {
+            this.op = op; this.a = a; this.b = b; this.c = c; this.depth = depth;
+        }
+
+        protected void compute() {
+            result = bdd_dispatch(op, a, b, c, depth);
+        }
+
+        int joinResult() {
+            join();
+            return result;
+        }
+    }
+
+    final boolean FORK(int depth) {
+        return depth < forkdepth && ForkJoinTask.getSurplusQueuedTaskCount() < 2;
+    }
+
+    int bdd_dispatch(int op, int a, int b, int c, int depth) {
+        switch (op) {
+        case OP_MAKENODE: return bdd_makenode(a, b, c);
+        case OP_AND: return and_rec(a, b, depth);
+        case OP_XOR: return xor_rec(a, b, depth);
+        case OP_ITE: return ite_rec(a, b, c, depth);
+        case OP_EXIST: return quant_rec(a, depth);
+        case OP_RELPROD: return relprod_rec(a, b, depth);
+        case OP_UNIQUE: return unique_rec(a, b);
+        case OP_APPUNI: return appuni_rec(a, b, c);
+        case OP_RESTRICT: return restrict_rec(a);
+        case OP_CONSTRAIN: return constrain_rec(a, b);
+        case OP_SIMPLIFY: return simplify_rec(a, b);
+        case OP_COMPOSE: return compose_rec(a, b);
+        case OP_VECCOMPOSE: return veccompose_rec(a);
+        case OP_REPLACE: return replace_rec(a);
+        case OP_SUPPORT: return support_cube(a);
+        case OP_SATONE: return satone_rec(a);
+        case OP_SATONESET: return satoneset_rec(a, b, c != 0);
+        case OP_FULLSATONE: return fullsatone(a);
+        default: return bdd_error(BDD_OP);
+        }
+    }
+
+    /* Runs an operation on the workers.  An operation that runs out of free
+     * nodes is restarted once the node table has been collected and, if
+     * that did not free enough nodes, grown. */
+    int bdd_run(int op, int a, int b, int c) {
+        bdd_prepare();
+        for (;;) {
+            Task t = new Task(op, a, b, c, 0);
+            try {
+                pool.invoke(t);
+                return t.result;
+            } catch (TableFullException x) {
+                bdd_quiesce();
+                bdd_gbc();
+                if ((long) bdd_freenodes() * 2 < bddnodesize && !bdd_noderesize())
+                    bdd_error(BDD_NODENUM);
+            } catch (RuntimeException x) {
+                bdd_quiesce();
+                throw x;
+            }
+        }
+    }
+
+    /* Stops the tasks that were forked by an aborted operation. */
+    void bdd_quiesce() {
+        aborted = true;
+        pool.awaitQuiescence(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        aborted = false;
+    }
+
+    /*=== NODE TABLE =======================================================*/
+
+    static final int PAIR(int a, int b) {
+        return ((a + b) * (a + b + 1) / 2 + a);
+    }
+    static final int TRIPLE(int a, int b, int c) {
+        return (PAIR(c, PAIR(a, b)));
+    }
+
+    static final int NODEHASH(int lvl, int l, int h) {
+        int hash = TRIPLE(lvl, l, h) * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    int bdd_makenode(int level, int low, int high) {
+        if (low == high)
+            return low;
+
+        /* Keep the high edge regular: node(l, h) == not node(not l, not h) */
+        if ((high & 1) != 0)
+            return makenode(level, low ^ 1, high ^ 1) ^ 1;
+        return makenode(level, low, high);
+    }
+
+    /* Finds or inserts a node.  The fields of a new node are written before
+     * the node is published by the compare-and-set on its bucket, so a
+     * worker that finds it in the table also sees its fields. */
+    private int makenode(int level, int low, int high) {
+        AtomicLongArray hash = bddhash;
+        int mask = hash.length() - 1;
+        int h = NODEHASH(level, low, high);
+        long tag = (long) h << 32;
+        int slot = h & mask;
+        int res = 0;
+
+        for (int probes = 0; probes <= mask; probes++) {
+            long e = hash.get(slot);
+            if (e == 0) {
+                if (res == 0) {
+                    res = allocnode();
+                    int base = res * __node_size;
+                    bddnodes[base + offset__level] = level;
+                    bddnodes[base + offset__low] = low;
+                    bddnodes[base + offset__high] = high;
+                }
+                if (hash.compareAndSet(slot, 0, tag | res))
+                    return res << 1;
+                e = hash.get(slot);
+            }
+            if ((int) (e >>> 32) == h) {
+                int n = (int) e;
+                if (LEVELn(n) == level && LOWn(n) == low && HIGHn(n) == high) {
+                    if (res != 0)
+                        ((Worker) Thread.currentThread()).spare = res;
+                    return n << 1;
+                }
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        aborted = true;
+        throw TABLE_FULL;
+    }
+
+    private int allocnode() {
+        if (aborted)
+            throw TABLE_FULL;
+
+        Worker w = (Worker) Thread.currentThread();
+        if (w.generation != freegeneration) {
+            w.next = w.end = w.spare = 0;
+            w.generation = freegeneration;
+        }
+        int n = w.spare;
+        if (n != 0) {
+            w.spare = 0;
+            return n;
+        }
+        if (w.next == w.end) {
+            int start = freepos.getAndAdd(ALLOC_BLOCK);
+            if (start >= freenum) {
+                aborted = true;
+                throw TABLE_FULL;
+            }
+            w.next = start;
+            w.end = Math.min(start + ALLOC_BLOCK, freenum);
+        }
+        return freenodes[w.next++];
+    }
+
+    int bdd_freenodes() {
+        return Math.max(0, freenum - freepos.get());
+    }
+
+    /* Rebuilds the unique table and the free nodes from the node table.
+     * Only called between operations, after a collection, so every node with
+     * valid fields is live. */
+    void bdd_rebuild() {
+        int size = Integer.highestOneBit(Math.max(bddnodesize, 2)) << 2;
+        AtomicLongArray hash = new AtomicLongArray(size);
+        int mask = size - 1;
+        int[] free = freenodes != null && freenodes.length == bddnodesize ? freenodes : new int[bddnodesize];
+        int num = 0;
+
+        for (int n = 1; n < bddnodesize; n++) {
+            if (LOWn(n) == INVALID_BDD) {
+                free[num++] = n;
+            } else {
+                int h = NODEHASH(LEVELn(n), LOWn(n), HIGHn(n));
+                int slot = h & mask;
+                while (hash.get(slot) != 0)
+                    slot = (slot + 1) & mask;
+                hash.set(slot, ((long) h << 32) | n);
+            }
+        }
+
+        bddhash = hash;
+        freenodes = free;
+        freenum = num;
+        freepos.set(0);
+        freegeneration++;
+    }
+
+    boolean bdd_noderesize() {
+        int oldsize = bddnodesize;
+        int newsize = bddnodesize;
+
+        if (bddmaxnodesize > 0) {
+            if (newsize >= bddmaxnodesize)
+                return false;
+        }
+        if (newsize >= MAXNODES)
+            return false;
+
+        if (increasefactor > 0) {
+            newsize += (int)(newsize * increasefactor);
+        } else {
+            newsize = newsize << 1;
+        }
+
+        if (bddmaxnodeincrease > 0) {
+            if (newsize > oldsize + bddmaxnodeincrease)
+                newsize = oldsize + bddmaxnodeincrease;
+        }
+
+        if (bddmaxnodesize > 0) {
+            if (newsize > bddmaxnodesize)
+                newsize = bddmaxnodesize;
+        }
+        if (newsize > MAXNODES || newsize < 0)
+            newsize = MAXNODES;
+
+        return doResize(oldsize, newsize);
+    }
+
+    boolean doResize(int oldsize, int newsize) {
+        if (newsize <= oldsize)
+            return false;
+
+        resize_handler(oldsize, newsize);
+
+        bddnodes = Arrays.copyOf(bddnodes, newsize*__node_size);
+        bddrefcou = Arrays.copyOf(bddrefcou, newsize);
+        bddnodesize = newsize;
+
+        for (int n = oldsize; n < bddnodesize; n++)
+            SETLOWn(n, INVALID_BDD);
+
+        bdd_rebuild();
+
+        if (cacheratio > 0)
+            bdd_operator_noderesize();
+
+        return true;
+    }
+
+    void bdd_init(int initnodesize, int cs) {
+        if (bddrunning)
+            bdd_error(BDD_RUNNING);
+
+        bddnodesize = Math.max(initnodesize, 16);
+        bddnodes = new int[bddnodesize*__node_size];
+        bddrefcou = new int[bddnodesize];
+
+        for (int n = 1; n < bddnodesize; n++)
+            SETLOWn(n, INVALID_BDD);
+
+        /* The terminal sits below every variable */
+        SETMAXREF(0);
+        SETLOWn(0, BDDONE);
+
+        bdd_rebuild();
+        bdd_operator_init(cs);
+
+        int threads = Integer.parseInt(getProperty("bdd.threads",
+            Integer.toString(Runtime.getRuntime().availableProcessors())));
+        forkdepth = Integer.parseInt(getProperty("bdd.forkdepth", "16"));
+        pool = new ForkJoinPool(Math.max(1, threads), new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+            public ForkJoinWorkerThread newThread(ForkJoinPool p) {
+                return new Worker(p);
+            }
+        }, null, false);
+
+        bddrunning = true;
+        bddvarnum = 0;
+        bddvarset = new int[0];
+        gbcollectnum = 0;
+        gbcclock = 0;
+        cachesize = cs;
+        bddmaxnodeincrease = DEFAULTMAXNODEINC;
+        bdderrorcond = 0;
+        pairs = null;
+        pairsid = 0;
+    }
+
+    void bdd_done() {
+        if (pool != null)
+            pool.shutdown();
+        pool = null;
+        bddnodes = null;
+        bddrefcou = null;
+        bddhash = null;
+        freenodes = null;
+        bddvarset = null;
+        quantvarset = null;
+        supportSet = null;
+        pairs = null;
+
+        bdd_operator_done();
+
+        bddrunning = false;
+        bddnodesize = 0;
+        bddmaxnodesize = 0;
+        bddvarnum = 0;
+        bddproduced = 0;
+    }
+
+    int bdd_setvarnum(int num) {
+        int oldvarnum = bddvarnum;
+
+        if (num < 1 || num > MAXVAR)
+            bdd_error(BDD_RANGE);
+        if (num < bddvarnum)
+            bdd_error(BDD_DECVNUM);
+        if (num == bddvarnum)
+            return oldvarnum;
+
+        bddvarset = Arrays.copyOf(bddvarset, num * 2);
+        quantvarset = new int[num];
+        quantvarsetID = 0;
+        supportSet = new int[num];
+        supportID = 0;
+
+        /* The terminal moves below the new variables */
+        bddnodes[offset__level] = num;
+
+        for (int v = bddvarnum; v < num; v++) {
+            int r = bdd_run(OP_MAKENODE, v, BDDZERO, BDDONE);
+            SETMAXREF(r >>> 1);
+            bddvarset[v * 2] = r;
+            bddvarset[v * 2 + 1] = r ^ 1;
+        }
+        bddvarnum = num;
+
+        for (bddPair p = pairs; p != null; p = p.next) {
+            int[] result = Arrays.copyOf(p.result, num);
+            for (int v = oldvarnum; v < num; v++)
+                result[v] = bddvarset[v * 2];
+            p.result = result;
+        }
+
+        /* Counts are relative to the level of the terminal */
+        bdd_operator_reset();
+
+        return oldvarnum;
+    }
+
+    int bdd_ithvar(int var) {
+        if (var < 0 || var >= bddvarnum)
+            bdd_error(BDD_VAR);
+        return bddvarset[var * 2];
+    }
+
+    int bdd_nithvar(int var) {
+        if (var < 0 || var >= bddvarnum)
+            bdd_error(BDD_VAR);
+        return bddvarset[var * 2 + 1];
+    }
+
+    int bdd_var(int root) {
+        CHECK(root);
+        if (root < 2)
+            bdd_error(BDD_ILLBDD);
+        return LEVEL(root);
+    }
+
+    int bdd_low(int root) {
+        CHECK(root);
+        if (root < 2)
+            bdd_error(BDD_ILLBDD);
+        return LOW(root);
+    }
+
+    int bdd_high(int root) {
+        CHECK(root);
+        if (root < 2)
+            bdd_error(BDD_ILLBDD);
+        return HIGH(root);
+    }
+
+    int bdd_addref(int root) {
+        if (root == INVALID_BDD)
+            bdd_error(BDD_ILLBDD);
+        if (root < 2 || !bddrunning)
+            return root;
+        CHECK(root);
+        INCREF(root >>> 1);
+        return root;
+    }
+
+    int bdd_delref(int root) {
+        if (root == INVALID_BDD)
+            bdd_error(BDD_ILLBDD);
+        if (root < 2 || !bddrunning)
+            return root;
+        CHECK(root);
+        if (!HASREF(root >>> 1))
+            bdd_error(BDD_DEREF);
+        DECREF(root >>> 1);
+        return root;
+    }
+
+    /*=== GARBAGE COLLECTION ===============================================*/
+
+    /* Called before every operation that can make nodes, while no worker is
+     * running. */
+    void bdd_prepare() {
+        if ((long) bdd_freenodes() * 100 > (long) bddnodesize * minfreenodes)
+            return;
+
+        bdd_gbc();
+
+        if ((long) bdd_freenodes() * 100 <= (long) bddnodesize * minfreenodes)
+            bdd_noderesize();
+    }
+
+    void bdd_gbc() {
+        int n;
+        long c2, c1 = System.currentTimeMillis();
+
+        gcstats.nodes = bddnodesize;
+        gcstats.freenodes = bdd_freenodes();
+        gcstats.time = 0;
+        gcstats.sumtime = gbcclock;
+        gcstats.num = gbcollectnum;
+        gbc_handler(true, gcstats);
+
+        // Handle nodes that were marked as free by finalizer.
+        handleDeferredFree();
+
+        for (n = 1; n < bddnodesize; n++) {
+            if (HASREF(n))
+                bdd_mark(n);
+        }
+
+        for (n = 1; n < bddnodesize; n++) {
+            if (MARKED(n))
+                UNMARK(n);
+            else
+                SETLOWn(n, INVALID_BDD);
+        }
+
+        bdd_rebuild();
+
+        /* Freed nodes may be reused with other children */
+        bdd_operator_reset();
+
+        c2 = System.currentTimeMillis();
+        gbcclock += c2 - c1;
+        gbcollectnum++;
+
+        gcstats.nodes = bddnodesize;
+        gcstats.freenodes = bdd_freenodes();
+        gcstats.time = c2 - c1;
+        gcstats.sumtime = gbcclock;
+        gcstats.num = gbcollectnum;
+        gbc_handler(false, gcstats);
+    }
+
+    void bdd_mark(int n) {
+        if (n == 0 || MARKED(n) || LOWn(n) == INVALID_BDD)
+            return;
+
+        SETMARK(n);
+        bdd_mark(LOWn(n) >>> 1);
+        bdd_mark(HIGHn(n) >>> 1);
+    }
+
+    void bdd_markcount(int n, int[] cou) {
+        if (n == 0 || MARKED(n) || LOWn(n) == INVALID_BDD)
+            return;
+
+        SETMARK(n);
+        cou[0] += 1;
+        bdd_markcount(LOWn(n) >>> 1, cou);
+        bdd_markcount(HIGHn(n) >>> 1, cou);
+    }
+
+    void bdd_unmark(int n) {
+        if (n == 0 || !MARKED(n) || LOWn(n) == INVALID_BDD)
+            return;
+
+        UNMARK(n);
+        bdd_unmark(LOWn(n) >>> 1);
+        bdd_unmark(HIGHn(n) >>> 1);
+    }
+
+    int bdd_setmaxnodenum(int size) {
+        if (size > bddnodesize || size == 0) {
+            int old = bddmaxnodesize;
+            bddmaxnodesize = size;
+            return old;
+        }
+
+        return bdd_error(BDD_NODES);
+    }
+
+    int bdd_setminfreenodes(int mf) {
+        int old = minfreenodes;
+
+        if (mf < 0 || mf > 100)
+            return bdd_error(BDD_RANGE);
+
+        minfreenodes = mf;
+        return old;
+    }
+
+    int bdd_setmaxincrease(int size) {
+        int old = bddmaxnodeincrease;
+
+        if (size < 0)
+            return bdd_error(BDD_SIZE);
+
+        bddmaxnodeincrease = size;
+        return old;
+    }
+
+    double bdd_setincreasefactor(double x) {
+        if (x < 0)
+            return bdd_error(BDD_RANGE);
+        double old = increasefactor;
+        increasefactor = x;
+        return old;
+    }
+
+    int bdd_setallocnum(int size) {
+        int old = bddnodesize;
+        if (size > old) {
+            /* Nodes of aborted inserts are only dropped by a collection */
+            bdd_gbc();
+            doResize(old, Math.min(size, MAXNODES));
+        }
+        return old;
+    }
+
+    /*=== OPERATOR CACHES ==================================================*/
+
+    static final int bddop_and = 0;
+    static final int bddop_xor = 1;
+    static final int bddop_or = 2;
+    static final int bddop_nand = 3;
+    static final int bddop_nor = 4;
+    static final int bddop_imp = 5;
+    static final int bddop_biimp = 6;
+    static final int bddop_diff = 7;
+    static final int bddop_less = 8;
+    static final int bddop_invimp = 9;
+    static final int bddop_simplify = 11;
+
+    static final int CACHEID_CONSTRAIN = 0x0;
+    static final int CACHEID_SATCOU = 0x2;
+    static final int CACHEID_PATHCOU = 0x4;
+    static final int CACHEID_EXIST = 0x0;
+    static final int CACHEID_UNIQUE = 0x1;
+    static final int CACHEID_RESTRICT = 0x2;
+    static final int CACHEID_REPLACE = 0x0;
+    static final int CACHEID_COMPOSE = 0x1;
+    static final int CACHEID_VECCOMPOSE = 0x2;
+
+    OpCache applycache; /* and, xor, simplify: a, b, op */
+    OpCache itecache; /* f, g, h */
+    OpCache quantcache; /* exist, unique, restrict: root, varset, id */
+    OpCache appexcache; /* relprod: l, r, varset */
+    OpCache appunicache; /* unique quantification of appuniop: l, r, varset */
+    OpCache replacecache; /* replace, veccompose, compose: f, g, id */
+    OpCache misccache; /* constrain: f, c, id */
+    int appuniop = -1; /* Operator of the entries in appunicache */
+
+    /* Counting runs on the thread using the factory, so its cache is not
+     * shared: edge, id and count of every entry. */
+    int[] countkey;
+    int[] countid;
+    double[] countres;
+
+    static final int CACHEHASH(int a, int b, int c) {
+        int hash = a * 0x9E3779B9 + b * 0x85EBCA6B + c * 0xC2B2AE35;
+        return hash ^ (hash >>> 15);
+    }
+
+    void bdd_operator_init(int cachesize) {
+        bdd_operator_resize(cachesize);
+    }
+
+    void bdd_operator_done() {
+        applycache = null;
+        itecache = null;
+        quantcache = null;
+        appexcache = null;
+        appunicache = null;
+        replacecache = null;
+        misccache = null;
+        countkey = null;
+        countid = null;
+        countres = null;
+    }
+
+    void bdd_operator_reset() {
+        applycache.reset();
+        itecache.reset();
+        quantcache.reset();
+        appexcache.reset();
+        appunicache.reset();
+        replacecache.reset();
+        misccache.reset();
+        Arrays.fill(countkey, -1);
+    }
+
+    void bdd_operator_resize(int newcachesize) {
+        applycache = new OpCache(newcachesize);
+        itecache = new OpCache(newcachesize);
+        quantcache = new OpCache(newcachesize);
+        appexcache = new OpCache(newcachesize);
+        appunicache = new OpCache(newcachesize);
+        replacecache = new OpCache(newcachesize);
+        misccache = new OpCache(newcachesize);
+
+        int size = Integer.highestOneBit(Math.max(newcachesize, 4) * 2 - 1);
+        countkey = new int[size];
+        countid = new int[size];
+        countres = new double[size];
+        Arrays.fill(countkey, -1);
+    }
+
+    void bdd_operator_noderesize() {
+        int newcachesize = bddnodesize / cacheratio;
+        if (newcachesize > cachesize) {
+            cachesize = newcachesize;
+            bdd_operator_resize(cachesize);
+        }
+    }
+
+    int bdd_setcachesize(int newcachesize) {
+        int old = cachesize;
+        if (newcachesize <= 0)
+            return bdd_error(BDD_SIZE);
+        cachesize = newcachesize;
+        bdd_operator_resize(cachesize);
+        return old;
+    }
+
+    int bdd_setcacheratio(int r) {
+        int old = cacheratio;
+        if (r <= 0)
+            return bdd_error(BDD_RANGE);
+        cacheratio = r;
+        bdd_operator_noderesize();
+        return old;
+    }
+
+    /*=== APPLY ============================================================*/
+
+    int bdd_apply(int l, int r, int op) {
+        CHECK(l);
+        CHECK(r);
+
+        switch (op) {
+        case bddop_and: return bdd_run(OP_AND, l, r, 0);
+        case bddop_xor: return bdd_run(OP_XOR, l, r, 0);
+        case bddop_or: return bdd_run(OP_AND, l ^ 1, r ^ 1, 0) ^ 1;
+        case bddop_nand: return bdd_run(OP_AND, l, r, 0) ^ 1;
+        case bddop_nor: return bdd_run(OP_AND, l ^ 1, r ^ 1, 0);
+        case bddop_imp: return bdd_run(OP_AND, l, r ^ 1, 0) ^ 1;
+        case bddop_biimp: return bdd_run(OP_XOR, l, r, 0) ^ 1;
+        case bddop_diff: return bdd_run(OP_AND, l, r ^ 1, 0);
+        case bddop_less: return bdd_run(OP_AND, l ^ 1, r, 0);
+        case bddop_invimp: return bdd_run(OP_AND, l ^ 1, r, 0) ^ 1;
+        default: return bdd_error(BDD_OP);
+        }
+    }
+
+    /* Every binary operator is an and or a xor with complemented operands
+     * or result. */
+    int apply_rec(int l, int r, int op, int depth) {
+        switch (op) {
+        case bddop_and: return and_rec(l, r, depth);
+        case bddop_xor: return xor_rec(l, r, depth);
+        case bddop_or: return or_rec(l, r, depth);
+        case bddop_nand: return and_rec(l, r, depth) ^ 1;
+        case bddop_nor: return and_rec(l ^ 1, r ^ 1, depth);
+        case bddop_imp: return and_rec(l, r ^ 1, depth) ^ 1;
+        case bddop_biimp: return xor_rec(l, r, depth) ^ 1;
+        case bddop_diff: return and_rec(l, r ^ 1, depth);
+        case bddop_less: return and_rec(l ^ 1, r, depth);
+        case bddop_invimp: return and_rec(l ^ 1, r, depth) ^ 1;
+        default: return bdd_error(BDD_OP);
+        }
+    }
+
+    int and_rec(int l, int r, int depth) {
+        int res;
+
+        if (l == r)
+            return l;
+        if (ISZERO(l) || ISZERO(r) || (l ^ r) == 1)
+            return BDDZERO;
+        if (ISONE(l))
+            return r;
+        if (ISONE(r))
+            return l;
+
+        if (l > r) {
+            int t = l;
+            l = r;
+            r = t;
+        }
+
+        if ((res = applycache.lookup(l, r, bddop_and)) >= 0)
+            return res;
+
+        int level_l = LEVEL(l), level_r = LEVEL(r);
+        int level = Math.min(level_l, level_r);
+        int l0 = l, l1 = l, r0 = r, r1 = r;
+        if (level_l == level) { l0 = LOW(l); l1 = HIGH(l); }
+        if (level_r == level) { r0 = LOW(r); r1 = HIGH(r); }
+
+        int low, high;
+        if (FORK(depth)) {
+            Task t = new Task(OP_AND, l1, r1, 0, depth + 1);
+            t.fork();
+            low = and_rec(l0, r0, depth + 1);
+            high = t.joinResult();
+        } else {
+            low = and_rec(l0, r0, depth + 1);
+            high = and_rec(l1, r1, depth + 1);
+        }
+        res = bdd_makenode(level, low, high);
+
+        applycache.store(l, r, bddop_and, res);
+        return res;
+    }
+
+    int or_rec(int l, int r, int depth) {
+        return and_rec(l ^ 1, r ^ 1, depth) ^ 1;
+    }
+
+    int xor_rec(int l, int r, int depth) {
+        int res;
+
+        if (l == r)
+            return BDDZERO;
+        if ((l ^ r) == 1)
+            return BDDONE;
+        if (ISZERO(l))
+            return r;
+        if (ISZERO(r))
+            return l;
+        if (ISONE(l))
+            return r ^ 1;
+        if (ISONE(r))
+            return l ^ 1;
+
+        /* not l xor r == not (l xor r), so only regular operands are cached */
+        int neg = (l ^ r) & 1;
+        l &= ~1;
+        r &= ~1;
+        if (l > r) {
+            int t = l;
+            l = r;
+            r = t;
+        }
+
+        if ((res = applycache.lookup(l, r, bddop_xor)) >= 0)
+            return res ^ neg;
+
+        int level_l = LEVEL(l), level_r = LEVEL(r);
+        int level = Math.min(level_l, level_r);
+        int l0 = l, l1 = l, r0 = r, r1 = r;
+        if (level_l == level) { l0 = LOW(l); l1 = HIGH(l); }
+        if (level_r == level) { r0 = LOW(r); r1 = HIGH(r); }
+
+        int low, high;
+        if (FORK(depth)) {
+            Task t = new Task(OP_XOR, l1, r1, 0, depth + 1);
+            t.fork();
+            low = xor_rec(l0, r0, depth + 1);
+            high = t.joinResult();
+        } else {
+            low = xor_rec(l0, r0, depth + 1);
+            high = xor_rec(l1, r1, depth + 1);
+        }
+        res = bdd_makenode(level, low, high);
+
+        applycache.store(l, r, bddop_xor, res);
+        return res ^ neg;
+    }
+
+    int bdd_ite(int f, int g, int h) {
+        CHECK(f);
+        CHECK(g);
+        CHECK(h);
+        return bdd_run(OP_ITE, f, g, h);
+    }
+
+    int ite_rec(int f, int g, int h, int depth) {
+        int res;
+
+        if (ISONE(f))
+            return g;
+        if (ISZERO(f))
+            return h;
+
+        /* ite(f, f, h) == ite(f, 1, h) and so on */
+        if (g == f)
+            g = BDDONE;
+        else if (g == (f ^ 1))
+            g = BDDZERO;
+        if (h == f)
+            h = BDDZERO;
+        else if (h == (f ^ 1))
+            h = BDDONE;
+
+        if (g == h)
+            return g;
+        if (ISONE(g) && ISZERO(h))
+            return f;
+        if (ISZERO(g) && ISONE(h))
+            return f ^ 1;
+        if (ISONE(g))
+            return or_rec(f, h, depth);
+        if (ISZERO(g))
+            return and_rec(f ^ 1, h, depth);
+        if (ISZERO(h))
+            return and_rec(f, g, depth);
+        if (ISONE(h))
+            return and_rec(f, g ^ 1, depth) ^ 1;
+        if (g == (h ^ 1))
+            return xor_rec(f, h, depth);
+
+        /* Normalize to a regular condition and a regular then branch */
+        if ((f & 1) != 0) {
+            int t = g;
+            g = h;
+            h = t;
+            f ^= 1;
+        }
+        int neg = g & 1;
+        g ^= neg;
+        h ^= neg;
+
+        if ((res = itecache.lookup(f, g, h)) >= 0)
+            return res ^ neg;
+
+        int level = Math.min(LEVEL(f), Math.min(LEVEL(g), LEVEL(h)));
+        int f0 = f, f1 = f, g0 = g, g1 = g, h0 = h, h1 = h;
+        if (LEVEL(f) == level) { f0 = LOW(f); f1 = HIGH(f); }
+        if (LEVEL(g) == level) { g0 = LOW(g); g1 = HIGH(g); }
+        if (LEVEL(h) == level) { h0 = LOW(h); h1 = HIGH(h); }
+
+        int low, high;
+        if (FORK(depth)) {
+            Task t = new Task(OP_ITE, f1, g1, h1, depth + 1);
+            t.fork();
+            low = ite_rec(f0, g0, h0, depth + 1);
+            high = t.joinResult();
+        } else {
+            low = ite_rec(f0, g0, h0, depth + 1);
+            high = ite_rec(f1, g1, h1, depth + 1);
+        }
+        res = bdd_makenode(level, low, high);
+
+        itecache.store(f, g, h, res);
+        return res ^ neg;
+    }
+
+    /*=== QUANTIFICATION ===================================================*/
+
+    int[] quantvarset; /* Current variable set for quantification */
+    int quantvarsetID; /* Current id used in quantvarset */
+    int quantlast; /* Current last variable to be quant. */
+    int quantset; /* Current variable set as a BDD, used as a cache key */
+
+    final boolean INVARSET(int a) {
+        return quantvarset[a] == quantvarsetID;
+    }
+
+    final boolean INSVARSET(int a) {
+        return Math.abs(quantvarset[a]) == quantvarsetID;
+    }
+
+    int varset2vartable(int r) {
+        int n;
+
+        if (r < 2)
+            return bdd_error(BDD_VARSET);
+
+        quantvarsetID++;
+
+        if (quantvarsetID == Integer.MAX_VALUE) {
+            Arrays.fill(quantvarset, 0);
+            quantvarsetID = 1;
+        }
+
+        quantlast = -1;
+        for (n = r; n > 1; n = HIGH(n)) {
+            quantvarset[LEVEL(n)] = quantvarsetID;
+            quantlast = LEVEL(n);
+        }
+        quantset = r;
+
+        return 0;
+    }
+
+    int varset2svartable(int r) {
+        int n;
+
+        if (r < 2)
+            return bdd_error(BDD_VARSET);
+
+        quantvarsetID++;
+
+        if (quantvarsetID == Integer.MAX_VALUE / 2) {
+            Arrays.fill(quantvarset, 0);
+            quantvarsetID = 1;
+        }
+
+        quantlast = 0;
+        for (n = r; !ISCONST(n);) {
+            if (ISZERO(LOW(n))) {
+                quantvarset[LEVEL(n)] = quantvarsetID;
+                n = HIGH(n);
+            } else {
+                quantvarset[LEVEL(n)] = -quantvarsetID;
+                n = LOW(n);
+            }
+            quantlast = LEVEL(n);
+        }
+        quantset = r;
+
+        return 0;
+    }
+
+    int bdd_exist(int r, int var) {
+        CHECK(r);
+        CHECK(var);
+
+        if (var < 2) /* Empty set */
+            return r;
+
+        varset2vartable(var);
+        return bdd_run(OP_EXIST, r, 0, 0);
+    }
+
+    /* forall x. f == not exist x. not f */
+    int bdd_forall(int r, int var) {
+        CHECK(r);
+        CHECK(var);
+
+        if (var < 2) /* Empty set */
+            return r;
+
+        varset2vartable(var);
+        return bdd_run(OP_EXIST, r ^ 1, 0, 0) ^ 1;
+    }
+
+    int quant_rec(int r, int depth) {
+        int res;
+
+        if (r < 2 || LEVEL(r) > quantlast)
+            return r;
+
+        if ((res = quantcache.lookup(r, quantset, CACHEID_EXIST)) >= 0)
+            return res;
+
+        if (INVARSET(LEVEL(r))) {
+            int low = quant_rec(LOW(r), depth + 1);
+            res = ISONE(low) ? BDDONE : or_rec(low, quant_rec(HIGH(r), depth + 1), depth + 1);
+        } else if (FORK(depth)) {
+            Task t = new Task(OP_EXIST, HIGH(r), 0, 0, depth + 1);
+            t.fork();
+            int low = quant_rec(LOW(r), depth + 1);
+            res = bdd_makenode(LEVEL(r), low, t.joinResult());
+        } else {
+            int low = quant_rec(LOW(r), depth + 1);
+            res = bdd_makenode(LEVEL(r), low, quant_rec(HIGH(r), depth + 1));
+        }
+
+        quantcache.store(r, quantset, CACHEID_EXIST, res);
+        return res;
+    }
+
+    int bdd_unique(int r, int var) {
+        CHECK(r);
+        CHECK(var);
+
+        if (var < 2) /* Empty set */
+            return r;
+
+        quantset = var;
+        return bdd_run(OP_UNIQUE, r, var, 0);
+    }
+
+    int unique_rec(int r, int q) {
+        int res;
+        int LEVEL_r, LEVEL_q;
+
+        LEVEL_r = LEVEL(r);
+        LEVEL_q = LEVEL(q);
+        if (LEVEL_r > LEVEL_q) {
+            // Skipped a quantified node, answer is zero.
+            return BDDZERO;
+        }
+
+        if (r < 2 || q < 2)
+            return r;
+
+        if ((res = quantcache.lookup(r, q, CACHEID_UNIQUE)) >= 0)
+            return res;
+
+        if (LEVEL_r == LEVEL_q) {
+            int low = unique_rec(LOW(r), HIGH(q));
+            res = xor_rec(low, unique_rec(HIGH(r), HIGH(q)), NOFORK);
+        } else {
+            int low = unique_rec(LOW(r), q);
+            res = bdd_makenode(LEVEL_r, low, unique_rec(HIGH(r), q));
+        }
+
+        quantcache.store(r, q, CACHEID_UNIQUE, res);
+        return res;
+    }
+
+    int bdd_appex(int l, int r, int opr, int var) {
+        CHECK(l);
+        CHECK(r);
+        CHECK(var);
+
+        if (opr < 0 || opr > bddop_invimp)
+            return bdd_error(BDD_OP);
+
+        if (var < 2) /* Empty set */
+            return bdd_apply(l, r, opr);
+
+        if (opr == bddop_and) {
+            varset2vartable(var);
+            return bdd_run(OP_RELPROD, l, r, 0);
+        }
+        int t = bdd_addref(bdd_apply(l, r, opr));
+        try {
+            return bdd_exist(t, var);
+        } finally {
+            bdd_delref(t);
+        }
+    }
+
+    int bdd_appall(int l, int r, int opr, int var) {
+        CHECK(l);
+        CHECK(r);
+        CHECK(var);
+
+        if (opr < 0 || opr > bddop_invimp)
+            return bdd_error(BDD_OP);
+
+        if (var < 2) /* Empty set */
+            return bdd_apply(l, r, opr);
+
+        int t = bdd_addref(bdd_apply(l, r, opr));
+        try {
+            return bdd_forall(t, var);
+        } finally {
+            bdd_delref(t);
+        }
+    }
+
+    int bdd_appuni(int l, int r, int opr, int var) {
+        CHECK(l);
+        CHECK(r);
+        CHECK(var);
+
+        if (opr < 0 || opr > bddop_invimp)
+            return bdd_error(BDD_OP);
+
+        if (var < 2) /* Empty set */
+            return bdd_apply(l, r, opr);
+
+        if (appuniop != opr) {
+            appunicache.reset();
+            appuniop = opr;
+        }
+        quantset = var;
+        return bdd_run(OP_APPUNI, l, r, var);
+    }
+
+    /* Unique quantification of l op r, following JFactory: a variable is
+     * only quantified where it is the top variable of exactly one operand. */
+    int appuni_rec(int l, int r, int var) {
+        int res;
+
+        int LEVEL_l = LEVEL(l), LEVEL_r = LEVEL(r), LEVEL_var = LEVEL(var);
+
+        if (LEVEL_l > LEVEL_var && LEVEL_r > LEVEL_var) {
+            // Skipped a quantified node, answer is zero.
+            return BDDZERO;
+        }
+
+        if (ISCONST(l) && ISCONST(r) || ISCONST(var))
+            return apply_rec(l, r, appuniop, NOFORK);
+
+        if ((res = appunicache.lookup(l, r, quantset)) >= 0)
+            return res;
+
+        int lev, low, high;
+        if (LEVEL_l == LEVEL_r) {
+            if (LEVEL_l == LEVEL_var)
+                var = HIGH(var);
+            lev = LEVEL_l;
+            low = appuni_rec(LOW(l), LOW(r), var);
+            high = appuni_rec(HIGH(l), HIGH(r), var);
+        } else if (LEVEL_l < LEVEL_r) {
+            if (LEVEL_l == LEVEL_var) {
+                lev = -1;
+                var = HIGH(var);
+            } else {
+                lev = LEVEL_l;
+            }
+            low = appuni_rec(LOW(l), r, var);
+            high = appuni_rec(HIGH(l), r, var);
+        } else {
+            if (LEVEL_r == LEVEL_var) {
+                lev = -1;
+                var = HIGH(var);
+            } else {
+                lev = LEVEL_r;
+            }
+            low = appuni_rec(l, LOW(r), var);
+            high = appuni_rec(l, HIGH(r), var);
+        }
+        if (lev == -1)
+            res = xor_rec(low, high, NOFORK);
+        else
+            res = bdd_makenode(lev, low, high);
+
+        appunicache.store(l, r, quantset, res);
+        return res;
+    }
+
+    /* exist quantset. l and r, without building the conjunction */
+    int relprod_rec(int l, int r, int depth) {
+        int res;
+
+        if (ISZERO(l) || ISZERO(r) || (l ^ r) == 1)
+            return BDDZERO;
+        if (l == r || ISONE(r))
+            return quant_rec(l, depth);
+        if (ISONE(l))
+            return quant_rec(r, depth);
+
+        int level_l = LEVEL(l), level_r = LEVEL(r);
+        int level = Math.min(level_l, level_r);
+        if (level > quantlast)
+            return and_rec(l, r, depth);
+
+        if (l > r) {
+            int t = l;
+            l = r;
+            r = t;
+            t = level_l;
+            level_l = level_r;
+            level_r = t;
+        }
+
+        if ((res = appexcache.lookup(l, r, quantset)) >= 0)
+            return res;
+
+        int l0 = l, l1 = l, r0 = r, r1 = r;
+        if (level_l == level) { l0 = LOW(l); l1 = HIGH(l); }
+        if (level_r == level) { r0 = LOW(r); r1 = HIGH(r); }
+
+        if (INVARSET(level)) {
+            int low = relprod_rec(l0, r0, depth + 1);
+            res = ISONE(low) ? BDDONE : or_rec(low, relprod_rec(l1, r1, depth + 1), depth + 1);
+        } else if (FORK(depth)) {
+            Task t = new Task(OP_RELPROD, l1, r1, 0, depth + 1);
+            t.fork();
+            int low = relprod_rec(l0, r0, depth + 1);
+            res = bdd_makenode(level, low, t.joinResult());
+        } else {
+            int low = relprod_rec(l0, r0, depth + 1);
+            res = bdd_makenode(level, low, relprod_rec(l1, r1, depth + 1));
+        }
+
+        appexcache.store(l, r, quantset, res);
+        return res;
+    }
+
+    /*=== RESTRICT, CONSTRAIN, SIMPLIFY ====================================*/
+
+    int bdd_restrict(int r, int var) {
+        CHECK(r);
+        CHECK(var);
+
+        if (var < 2) /* Empty set */
+            return r;
+
+        varset2svartable(var);
+        return bdd_run(OP_RESTRICT, r, 0, 0);
+    }
+
+    int restrict_rec(int r) {
+        int res;
+
+        if (ISCONST(r) || LEVEL(r) > quantlast)
+            return r;
+
+        if ((res = quantcache.lookup(r, quantset, CACHEID_RESTRICT)) >= 0)
+            return res;
+
+        if (INSVARSET(LEVEL(r))) {
+            if (quantvarset[LEVEL(r)] > 0) {
+                res = restrict_rec(HIGH(r));
+            } else {
+                res = restrict_rec(LOW(r));
+            }
+        } else {
+            int low = restrict_rec(LOW(r));
+            res = bdd_makenode(LEVEL(r), low, restrict_rec(HIGH(r)));
+        }
+
+        quantcache.store(r, quantset, CACHEID_RESTRICT, res);
+        return res;
+    }
+
+    int bdd_constrain(int f, int c) {
+        CHECK(f);
+        CHECK(c);
+        return bdd_run(OP_CONSTRAIN, f, c, 0);
+    }
+
+    int constrain_rec(int f, int c) {
+        int res;
+
+        if (ISONE(c))
+            return f;
+        if (ISCONST(f))
+            return f;
+        if (c == f)
+            return BDDONE;
+        if (ISZERO(c))
+            return BDDZERO;
+
+        if ((res = misccache.lookup(f, c, CACHEID_CONSTRAIN)) >= 0)
+            return res;
+
+        if (LEVEL(f) == LEVEL(c)) {
+            if (ISZERO(LOW(c)))
+                res = constrain_rec(HIGH(f), HIGH(c));
+            else if (ISZERO(HIGH(c)))
+                res = constrain_rec(LOW(f), LOW(c));
+            else {
+                int low = constrain_rec(LOW(f), LOW(c));
+                res = bdd_makenode(LEVEL(f), low, constrain_rec(HIGH(f), HIGH(c)));
+            }
+        } else if (LEVEL(f) < LEVEL(c)) {
+            int low = constrain_rec(LOW(f), c);
+            res = bdd_makenode(LEVEL(f), low, constrain_rec(HIGH(f), c));
+        } else {
+            if (ISZERO(LOW(c)))
+                res = constrain_rec(f, HIGH(c));
+            else if (ISZERO(HIGH(c)))
+                res = constrain_rec(f, LOW(c));
+            else {
+                int low = constrain_rec(f, LOW(c));
+                res = bdd_makenode(LEVEL(c), low, constrain_rec(f, HIGH(c)));
+            }
+        }
+
+        misccache.store(f, c, CACHEID_CONSTRAIN, res);
+        return res;
+    }
+
+    int bdd_simplify(int f, int d) {
+        CHECK(f);
+        CHECK(d);
+        return bdd_run(OP_SIMPLIFY, f, d, 0);
+    }
+
+    int simplify_rec(int f, int d) {
+        int res;
+
+        if (ISONE(d) || ISCONST(f))
+            return f;
+        if (d == f)
+            return BDDONE;
+        if (ISZERO(d))
+            return BDDZERO;
+
+        if ((res = applycache.lookup(f, d, bddop_simplify)) >= 0)
+            return res;
+
+        if (LEVEL(f) == LEVEL(d)) {
+            if (ISZERO(LOW(d)))
+                res = simplify_rec(HIGH(f), HIGH(d));
+            else if (ISZERO(HIGH(d)))
+                res = simplify_rec(LOW(f), LOW(d));
+            else {
+                int low = simplify_rec(LOW(f), LOW(d));
+                res = bdd_makenode(LEVEL(f), low, simplify_rec(HIGH(f), HIGH(d)));
+            }
+        } else if (LEVEL(f) < LEVEL(d)) {
+            int low = simplify_rec(LOW(f), d);
+            res = bdd_makenode(LEVEL(f), low, simplify_rec(HIGH(f), d));
+        } else /* LEVEL(d) < LEVEL(f) */ {
+            res = simplify_rec(f, or_rec(LOW(d), HIGH(d), NOFORK)); /* Exist quant */
+        }
+
+        applycache.store(f, d, bddop_simplify, res);
+        return res;
+    }
+
+    /*=== REPLACE AND COMPOSE ==============================================*/
+
+    bddPair pairs; /* List of all replacement pairs in use */
+    int pairsid; /* Pair identifier */
+    int[] replacepair; /* Current replacement table, indexed by level */
+    int replacelast; /* Last level to be replaced */
+    int replaceid; /* Current cache id for replace and compose */
+    int composelevel; /* Level of the composed variable */
+
+    int update_pairsid() {
+        pairsid++;
+
+        if (pairsid == (Integer.MAX_VALUE >> 2)) {
+            pairsid = 0;
+            for (bddPair p = pairs; p != null; p = p.next)
+                p.id = pairsid++;
+            replacecache.reset();
+        }
+
+        return pairsid;
+    }
+
+    void bdd_setpair(bddPair pair, int oldvar, int newvar) {
+        if (oldvar < 0 || oldvar > bddvarnum - 1)
+            bdd_error(BDD_VAR);
+        if (newvar < 0 || newvar > bddvarnum - 1)
+            bdd_error(BDD_VAR);
+
+        bdd_delref(pair.result[oldvar]);
+        pair.result[oldvar] = bdd_ithvar(newvar);
+        pair.id = update_pairsid();
+
+        if (oldvar > pair.last)
+            pair.last = oldvar;
+    }
+
+    void bdd_setbddpair(bddPair pair, int oldvar, int newvar) {
+        CHECK(newvar);
+        if (oldvar < 0 || oldvar >= bddvarnum)
+            bdd_error(BDD_VAR);
+
+        bdd_delref(pair.result[oldvar]);
+        pair.result[oldvar] = bdd_addref(newvar);
+        pair.id = update_pairsid();
+
+        if (oldvar > pair.last)
+            pair.last = oldvar;
+    }
+
+    void bdd_resetpair(bddPair p) {
+        for (int n = 0; n < bddvarnum; n++) {
+            bdd_delref(p.result[n]);
+            p.result[n] = bdd_ithvar(n);
+        }
+        p.last = 0;
+    }
+
+    int bdd_replace(int r, bddPair pair) {
+        CHECK(r);
+
+        replacepair = pair.result;
+        replacelast = pair.last;
+        replaceid = (pair.id << 2) | CACHEID_REPLACE;
+        return bdd_run(OP_REPLACE, r, 0, 0);
+    }
+
+    int replace_rec(int r) {
+        int res;
+
+        if (ISCONST(r) || LEVEL(r) > replacelast)
+            return r;
+
+        if ((res = replacecache.lookup(r, 0, replaceid)) >= 0)
+            return res;
+
+        int low = replace_rec(LOW(r));
+        res = bdd_correctify(LEVEL(replacepair[LEVEL(r)]), low, replace_rec(HIGH(r)));
+
+        replacecache.store(r, 0, replaceid, res);
+        return res;
+    }
+
+    int bdd_correctify(int level, int l, int r) {
+        if (level < LEVEL(l) && level < LEVEL(r))
+            return bdd_makenode(level, l, r);
+
+        if (level == LEVEL(l) || level == LEVEL(r))
+            return bdd_error(BDD_REPLACE);
+
+        if (LEVEL(l) == LEVEL(r)) {
+            int low = bdd_correctify(level, LOW(l), LOW(r));
+            return bdd_makenode(LEVEL(l), low, bdd_correctify(level, HIGH(l), HIGH(r)));
+        } else if (LEVEL(l) < LEVEL(r)) {
+            int low = bdd_correctify(level, LOW(l), r);
+            return bdd_makenode(LEVEL(l), low, bdd_correctify(level, HIGH(l), r));
+        } else {
+            int low = bdd_correctify(level, l, LOW(r));
+            return bdd_makenode(LEVEL(r), low, bdd_correctify(level, l, HIGH(r)));
+        }
+    }
+
+    int bdd_veccompose(int f, bddPair pair) {
+        CHECK(f);
+
+        replacepair = pair.result;
+        replacelast = pair.last;
+        replaceid = (pair.id << 2) | CACHEID_VECCOMPOSE;
+        return bdd_run(OP_VECCOMPOSE, f, 0, 0);
+    }
+
+    int veccompose_rec(int f) {
+        int res;
+
+        if (ISCONST(f) || LEVEL(f) > replacelast)
+            return f;
+
+        if ((res = replacecache.lookup(f, 0, replaceid)) >= 0)
+            return res;
+
+        int low = veccompose_rec(LOW(f));
+        int high = veccompose_rec(HIGH(f));
+        res = ite_rec(replacepair[LEVEL(f)], high, low, NOFORK);
+
+        replacecache.store(f, 0, replaceid, res);
+        return res;
+    }
+
+    int bdd_compose(int f, int g, int var) {
+        CHECK(f);
+        CHECK(g);
+        if (var < 0 || var >= bddvarnum)
+            return bdd_error(BDD_VAR);
+
+        composelevel = var;
+        replaceid = (composelevel << 2) | CACHEID_COMPOSE;
+        return bdd_run(OP_COMPOSE, f, g, 0);
+    }
+
+    int compose_rec(int f, int g) {
+        int res;
+
+        if (LEVEL(f) > composelevel)
+            return f;
+
+        if ((res = replacecache.lookup(f, g, replaceid)) >= 0)
+            return res;
+
+        if (LEVEL(f) < composelevel) {
+            if (LEVEL(f) == LEVEL(g)) {
+                int low = compose_rec(LOW(f), LOW(g));
+                res = bdd_makenode(LEVEL(f), low, compose_rec(HIGH(f), HIGH(g)));
+            } else if (LEVEL(f) < LEVEL(g)) {
+                int low = compose_rec(LOW(f), g);
+                res = bdd_makenode(LEVEL(f), low, compose_rec(HIGH(f), g));
+            } else {
+                int low = compose_rec(f, LOW(g));
+                res = bdd_makenode(LEVEL(g), low, compose_rec(f, HIGH(g)));
+            }
+        } else {
+            res = ite_rec(g, HIGH(f), LOW(f), NOFORK);
+        }
+
+        replacecache.store(f, g, replaceid, res);
+        return res;
+    }
+
+    /*=== SUPPORT AND SATISFYING ASSIGNMENTS ===============================*/
+
+    int[] supportSet; /* The levels in the current support */
+    int supportID; /* Current id used in supportSet */
+    int supportMax; /* Deepest level in the current support */
+
+    int bdd_support(int r) {
+        CHECK(r);
+
+        if (r < 2)
+            return BDDONE;
+
+        if (supportID == 0x0FFFFFFF) {
+            Arrays.fill(supportSet, 0);
+            supportID = 0;
+        }
+        ++supportID;
+        supportMax = LEVEL(r);
+
+        support_rec(r >>> 1);
+        bdd_unmark(r >>> 1);
+
+        return bdd_run(OP_SUPPORT, r, 0, 0);
+    }
+
+    void support_rec(int n) {
+        if (n == 0 || MARKED(n))
+            return;
+
+        supportSet[LEVELn(n)] = supportID;
+        if (LEVELn(n) > supportMax)
+            supportMax = LEVELn(n);
+
+        SETMARK(n);
+        support_rec(LOWn(n) >>> 1);
+        support_rec(HIGHn(n) >>> 1);
+    }
+
+    int support_cube(int r) {
+        int res = BDDONE;
+        for (int n = supportMax; n >= LEVEL(r); --n)
+            if (supportSet[n] == supportID)
+                res = bdd_makenode(n, BDDZERO, res);
+        return res;
+    }
+
+    int bdd_satone(int r) {
+        CHECK(r);
+        if (r < 2)
+            return r;
+
+        return bdd_run(OP_SATONE, r, 0, 0);
+    }
+
+    int satone_rec(int r) {
+        if (ISCONST(r))
+            return r;
+
+        if (ISZERO(LOW(r)))
+            return bdd_makenode(LEVEL(r), BDDZERO, satone_rec(HIGH(r)));
+        else
+            return bdd_makenode(LEVEL(r), satone_rec(LOW(r)), BDDZERO);
+    }
+
+    int bdd_satoneset(int r, int var, boolean pol) {
+        CHECK(r);
+        CHECK(var);
+        if (ISZERO(r))
+            return r;
+
+        return bdd_run(OP_SATONESET, r, var, pol ? 1 : 0);
+    }
+
+    int satoneset_rec(int r, int var, boolean pol) {
+        if (ISCONST(r) && ISCONST(var))
+            return r;
+
+        if (LEVEL(r) < LEVEL(var)) {
+            // r is not in the set
+            if (ISZERO(LOW(r)))
+                return bdd_makenode(LEVEL(r), BDDZERO, satoneset_rec(HIGH(r), var, pol));
+            else
+                return bdd_makenode(LEVEL(r), satoneset_rec(LOW(r), var, pol), BDDZERO);
+        } else if (LEVEL(var) < LEVEL(r)) {
+            int res = satoneset_rec(r, HIGH(var), pol);
+            if (pol)
+                return bdd_makenode(LEVEL(var), BDDZERO, res);
+            else
+                return bdd_makenode(LEVEL(var), res, BDDZERO);
+        } else /* LEVEL(r) == LEVEL(var) */ {
+            if (ISZERO(LOW(r)))
+                return bdd_makenode(LEVEL(r), BDDZERO, satoneset_rec(HIGH(r), HIGH(var), pol));
+            else
+                return bdd_makenode(LEVEL(r), satoneset_rec(LOW(r), HIGH(var), pol), BDDZERO);
+        }
+    }
+
+    int bdd_fullsatone(int r) {
+        CHECK(r);
+        if (ISZERO(r))
+            return r;
+
+        return bdd_run(OP_FULLSATONE, r, 0, 0);
+    }
+
+    int fullsatone(int r) {
+        int res = fullsatone_rec(r);
+
+        for (int v = LEVEL(r) - 1; v >= 0; v--)
+            res = bdd_makenode(v, res, BDDZERO);
+
+        return res;
+    }
+
+    int fullsatone_rec(int r) {
+        int res;
+        int v;
+
+        if (ISCONST(r))
+            return r;
+
+        if (!ISZERO(LOW(r))) {
+            res = fullsatone_rec(LOW(r));
+            for (v = LEVEL(LOW(r)) - 1; v > LEVEL(r); v--)
+                res = bdd_makenode(v, res, BDDZERO);
+            return bdd_makenode(LEVEL(r), res, BDDZERO);
+        } else {
+            res = fullsatone_rec(HIGH(r));
+            for (v = LEVEL(HIGH(r)) - 1; v > LEVEL(r); v--)
+                res = bdd_makenode(v, res, BDDZERO);
+            return bdd_makenode(LEVEL(r), BDDZERO, res);
+        }
+    }
+
+    /*=== COUNTING =========================================================*/
+
+    int bdd_nodecount(int r) {
+        int[] num = new int[1];
+
+        CHECK(r);
+
+        bdd_markcount(r >>> 1, num);
+        bdd_unmark(r >>> 1);
+
+        return num[0];
+    }
+
+    int bdd_anodecount(int[] r) {
+        int n;
+        int[] cou = new int[1];
+
+        for (n = 0; n < r.length; n++)
+            bdd_markcount(r[n] >>> 1, cou);
+
+        for (n = 0; n < r.length; n++)
+            bdd_unmark(r[n] >>> 1);
+
+        return cou[0];
+    }
+
+    int[] bdd_varprofile(int r) {
+        CHECK(r);
+
+        int[] varprofile = new int[bddvarnum];
+
+        varprofile_rec(r >>> 1, varprofile);
+        bdd_unmark(r >>> 1);
+        return varprofile;
+    }
+
+    void varprofile_rec(int n, int[] varprofile) {
+        if (n == 0 || MARKED(n))
+            return;
+
+        varprofile[LEVELn(n)]++;
+        SETMARK(n);
+
+        varprofile_rec(LOWn(n) >>> 1, varprofile);
+        varprofile_rec(HIGHn(n) >>> 1, varprofile);
+    }
+
+    /* Counts are kept per edge rather than per node: deriving the count of
+     * a complemented edge from the count of its node would subtract two
+     * nearly equal doubles and lose the result. */
+    double bdd_pathcount(int r) {
+        CHECK(r);
+        return pathcount_rec(r);
+    }
+
+    double pathcount_rec(int r) {
+        if (ISZERO(r))
+            return 0.0;
+        if (ISONE(r))
+            return 1.0;
+
+        double size = count_lookup(r, CACHEID_PATHCOU);
+        if (size < 0) {
+            size = pathcount_rec(LOW(r)) + pathcount_rec(HIGH(r));
+            count_store(r, CACHEID_PATHCOU, size);
+        }
+
+        return size;
+    }
+
+    double bdd_satcount(int r) {
+        CHECK(r);
+        return Math.pow(2.0, (double) LEVEL(r)) * satcount_rec(r);
+    }
+
+    /* Number of satisfying assignments of the levels from LEVEL(r) on. */
+    double satcount_rec(int r) {
+        if (ISZERO(r))
+            return 0.0;
+        if (ISONE(r))
+            return 1.0;
+
+        double size = count_lookup(r, CACHEID_SATCOU);
+        if (size < 0) {
+            int low = LOW(r), high = HIGH(r);
+            size = Math.pow(2.0, (double) (LEVEL(low) - LEVEL(r) - 1)) * satcount_rec(low)
+                 + Math.pow(2.0, (double) (LEVEL(high) - LEVEL(r) - 1)) * satcount_rec(high);
+            count_store(r, CACHEID_SATCOU, size);
+        }
+
+        return size;
+    }
+
+    double count_lookup(int r, int id) {
+        int entry = CACHEHASH(r, 0, id) & (countkey.length - 1);
+        if (countkey[entry] == r && countid[entry] == id)
+            return countres[entry];
+        return -1.0;
+    }
+
+    void count_store(int r, int id, double size) {
+        int entry = CACHEHASH(r, 0, id) & (countkey.length - 1);
+        countkey[entry] = r;
+        countid[entry] = id;
+        countres[entry] = size;
+    }
+
+    /*=== PRINTING =========================================================*/
+
+    static String edge(int r) {
+        return ((r & 1) != 0 ? "~" : "") + (r >>> 1);
+    }
+
+    static String right(String s, int w) {
+        StringBuffer b = new StringBuffer(w);
+        for (int i = s.length(); i < w; ++i)
+            b.append(' ');
+        b.append(s);
+        return b.toString();
+    }
+
+    void bdd_fprinttable(PrintStream out, int r) {
+        int n;
+
+        out.println("ROOT: " + edge(r));
+        if (r < 2)
+            return;
+
+        bdd_mark(r >>> 1);
+
+        for (n = 1; n < bddnodesize; n++) {
+            if (MARKED(n)) {
+                UNMARK(n);
+
+                out.print("[" + right(Integer.toString(n), 5) + "] ");
+                out.print(right(Integer.toString(LEVELn(n)), 3));
+                out.print(": " + right(edge(LOWn(n)), 4));
+                out.println(" " + right(edge(HIGHn(n)), 4));
+            }
+        }
+    }
+
+    void bdd_fprintall(PrintStream out) {
+        for (int n = 1; n < bddnodesize; n++) {
+            if (LOWn(n) != INVALID_BDD) {
+                out.print("[" + right(Integer.toString(n), 5) + " - " + right(Integer.toString(bddrefcou[n]), 2) + "] ");
+                out.print(right(Integer.toString(LEVELn(n)), 3));
+                out.print(": " + right(edge(LOWn(n)), 4));
+                out.println(" " + right(edge(HIGHn(n)), 4));
+            }
+        }
+    }
+
+    void bdd_fprintstat(PrintStream out) {
+        out.println(getVersion());
+        out.println("Workers: " + pool.getParallelism());
+        out.println("Node table size: " + bddnodesize);
+        out.println("Used nodes: " + getNodeNum());
+        out.println("Variables: " + bddvarnum);
+        out.println("Cache size: " + cachesize);
+        out.println("Garbage collections: " + gbcollectnum + " (" + gbcclock / 1000.0 + "s)");
+    }
+}
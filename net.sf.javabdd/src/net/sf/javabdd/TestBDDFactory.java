@@ -26,9 +26,19 @@ import java.util.LinkedList;
 public class TestBDDFactory extends BDDFactory {
     BDDFactory f1, f2;
 
+    /* Complement edges share the nodes of a function and its negation, so
+     * node counts only match between factories of the same kind.  Factories
+     * with complement edges also manage their node tables differently. */
+    boolean sameNodes;
+
     public TestBDDFactory(BDDFactory a, BDDFactory b) {
         f1 = a;
         f2 = b;
+        sameNodes = complementEdges(a) || complementEdges(b) ? a.getClass() == b.getClass() : true;
+    }
+
+    static boolean complementEdges(BDDFactory f) {
+        return f instanceof ComplementEdgeFactory || f instanceof ParallelFactory;
     }
 
     public static BDDFactory init(int nodenum, int cachesize) {
@@ -599,7 +609,7 @@ public class TestBDDFactory extends BDDFactory {
         public int[] varProfile() {
             int[] r1 = b1.varProfile();
             int[] r2 = b2.varProfile();
-            assertSame(Arrays.equals(r1, r2), "varProfile");
+            if (sameNodes) assertSame(Arrays.equals(r1, r2), "varProfile");
             return r1;
         }
 
@@ -1190,7 +1200,7 @@ public class TestBDDFactory extends BDDFactory {
         }
         int r1 = f1.nodeCount(a1);
         int r2 = f2.nodeCount(a2);
-        assertSame(r1 == r2, "nodeCount");
+        if (sameNodes) assertSame(r1 == r2, "nodeCount");
         return r1;
     }
 
@@ -1202,7 +1212,7 @@ public class TestBDDFactory extends BDDFactory {
     public int getNodeTableSize() {
         int r1 = f1.getNodeTableSize();
         int r2 = f2.getNodeTableSize();
-        assertSame(r1 == r2, "getNodeTableSize");
+        if (sameNodes) assertSame(r1 == r2, "getNodeTableSize");
         return r1;
     }
 
@@ -1214,7 +1224,7 @@ public class TestBDDFactory extends BDDFactory {
     public int getNodeNum() {
         int r1 = f1.getNodeNum();
         int r2 = f2.getNodeNum();
-        assertSame(r1 == r2, "getNodeNum");
+        if (sameNodes) assertSame(r1 == r2, "getNodeNum");
         return r1;
     }
 